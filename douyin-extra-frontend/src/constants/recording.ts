@@ -4,6 +4,7 @@ export const recordingStatuses: RecordingStatusType[] = [
   'PENDING',
   'WAITING',
   'DETECTING',
+  'QUEUED',
   'RECORDING',
   'STOPPING',
   'COMPLETED',
@@ -15,6 +16,7 @@ export const statusColorMap: Record<RecordingStatusType, string> = {
   PENDING: 'gray',
   WAITING: 'gray',
   DETECTING: 'gray',
+  QUEUED: 'yellow',
   RECORDING: 'green',
   STOPPING: 'yellow',
   COMPLETED: 'blue',
@@ -26,6 +28,7 @@ export const statusLabelMap: Record<RecordingStatusType, string> = {
   PENDING: '等待中',
   WAITING: '等待中',
   DETECTING: '检测中',
+  QUEUED: '排队中',
   RECORDING: '录制中',
   STOPPING: '停止中',
   COMPLETED: '已完成',
@@ -35,6 +38,10 @@ export const statusLabelMap: Record<RecordingStatusType, string> = {
 
 const terminalStatuses: RecordingStatusType[] = ['COMPLETED', 'FAILED', 'CANCELLED']
 
+export const activeStatuses: RecordingStatusType[] = recordingStatuses.filter(
+  (status) => !terminalStatuses.includes(status),
+)
+
 export function isTerminalStatus(status: RecordingStatusType): boolean {
   return terminalStatuses.includes(status)
 }
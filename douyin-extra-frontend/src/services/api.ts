@@ -1,8 +1,12 @@
 import http from './http'
 import type {
+  BatchStatusResponse,
   HealthResponse,
+  RecordingPage,
+  RecordingPageQuery,
   RecordingResponse,
   RecordingStatus,
+  RecordingSummary,
   StartRecordingRequest,
   UpdateCookieRequest,
 } from '../types/recording'
@@ -19,10 +23,23 @@ export function apiGetStatus(taskId: string): Promise<RecordingStatus> {
   return http.get<RecordingStatus>(`/api/recordings/${taskId}/status`).then((res) => res.data)
 }
 
+export function apiGetStatuses(taskIds: string[]): Promise<BatchStatusResponse> {
+  return http.post<BatchStatusResponse>('/api/recordings/statuses', { taskIds }).then((res) => res.data)
+}
+
 export function apiListRecordings(): Promise<RecordingResponse[]> {
   return http.get<RecordingResponse[]>('/api/recordings').then((res) => res.data)
 }
 
+export function apiListRecordingPage(query: RecordingPageQuery = {}): Promise<RecordingPage> {
+  const params = { ...query, status: query.status?.join(',') }
+  return http.get<RecordingPage>('/api/recordings/page', { params }).then((res) => res.data)
+}
+
+export function apiRecordingSummary(): Promise<RecordingSummary> {
+  return http.get<RecordingSummary>('/api/recordings/summary').then((res) => res.data)
+}
+
 export function apiUpdateCookie(payload: UpdateCookieRequest): Promise<void> {
   return http.post<void>('/api/config/cookie', payload).then(() => undefined)
 }
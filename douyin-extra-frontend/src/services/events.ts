@@ -0,0 +1,49 @@
+import { baseURL } from './http'
+import type { RecordingStatus } from '../types/recording'
+
+export interface TaskEventHandlers {
+  onStatus: (status: RecordingStatus) => void
+  onProgress: (status: RecordingStatus) => void
+  // 服务端回放缓冲区已无法补齐错过的事件，需要重新拉取列表
+  onReset: () => void
+  onOpen?: () => void
+}
+
+export function isEventStreamSupported(): boolean {
+  return typeof window !== 'undefined' && typeof window.EventSource !== 'undefined'
+}
+
+// 任务事件流（SSE），断线后由浏览器自动重连并携带 Last-Event-ID
+export class TaskEventStream {
+  private source: EventSource | null = null
+
+  connect(handlers: TaskEventHandlers): boolean {
+    if (!isEventStreamSupported()) {
+      return false
+    }
+    this.close()
+    const url = `${baseURL.replace(/\/+$/, '')}/api/recordings/events`
+    const source = new EventSource(url)
+    source.addEventListener('status', (event) => {
+      handlers.onStatus(JSON.parse((event as MessageEvent<string>).data) as RecordingStatus)
+    })
+    source.addEventListener('progress', (event) => {
+      handlers.onProgress(JSON.parse((event as MessageEvent<string>).data) as RecordingStatus)
+    })
+    source.addEventListener('reset', () => handlers.onReset())
+    source.onopen = () => handlers.onOpen?.()
+    this.source = source
+    return true
+  }
+
+  close(): void {
+    if (this.source) {
+      this.source.close()
+      this.source = null
+    }
+  }
+
+  get connected(): boolean {
+    return this.source !== null
+  }
+}
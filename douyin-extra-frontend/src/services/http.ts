@@ -3,7 +3,7 @@ import { normalizeError } from './error'
 import { logError } from './logger'
 import { reportError } from './monitoring'
 
-const baseURL = (import.meta.env.VITE_API_BASE_URL || 'http://localhost:8080').trim()
+export const baseURL = (import.meta.env.VITE_API_BASE_URL || 'http://localhost:8080').trim()
 
 // 统一的 HTTP 客户端，后续在此扩展拦截器与错误归一化
 const http = axios.create({
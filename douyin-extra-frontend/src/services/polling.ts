@@ -3,6 +3,7 @@ export type TaskPollingHandler = (taskId: string) => void | Promise<void>
 
 export class PollingController {
   private listTimerId: number | null = null
+  private statusTimerId: number | null = null
   private taskTimerMap = new Map<string, number>()
 
   startListPolling(intervalMs: number, handler: PollingHandler): void {
@@ -19,6 +20,21 @@ export class PollingController {
     }
   }
 
+  // 所有任务共用一个定时器，每次批量查询
+  startStatusPolling(intervalMs: number, handler: PollingHandler): void {
+    this.stopStatusPolling()
+    this.statusTimerId = window.setInterval(() => {
+      void handler()
+    }, intervalMs)
+  }
+
+  stopStatusPolling(): void {
+    if (this.statusTimerId !== null) {
+      window.clearInterval(this.statusTimerId)
+      this.statusTimerId = null
+    }
+  }
+
   startTaskPolling(taskId: string, intervalMs: number, handler: TaskPollingHandler): void {
     this.stopTaskPolling(taskId)
     const timerId = window.setInterval(() => {
@@ -37,6 +53,7 @@ export class PollingController {
 
   stopAll(): void {
     this.stopListPolling()
+    this.stopStatusPolling()
     this.taskTimerMap.forEach((timerId) => window.clearInterval(timerId))
     this.taskTimerMap.clear()
   }
@@ -1,8 +1,9 @@
 import { defineStore } from 'pinia'
-import { apiGetStatus, apiListRecordings, apiStartRecording, apiStopRecording } from '../services/api'
+import { apiGetStatus, apiGetStatuses, apiListRecordingPage, apiStartRecording, apiStopRecording } from '../services/api'
 import type { NormalizedError } from '../services/error'
+import { TaskEventStream } from '../services/events'
 import { PollingController } from '../services/polling'
-import { isTerminalStatus } from '../constants/recording'
+import { activeStatuses, isTerminalStatus } from '../constants/recording'
 import type { RecordingResponse, RecordingStatus } from '../types/recording'
 import { setLastOutputDir } from '../utils/storage'
 
@@ -10,16 +11,20 @@ interface RecordingState {
   list: RecordingResponse[]
   statusMap: Record<string, RecordingStatus>
   loading: boolean
+  streaming: boolean
   error?: string
 }
 
 const polling = new PollingController()
+const events = new TaskEventStream()
+const LIST_PAGE_SIZE = 200
 
 export const useRecordingStore = defineStore('recording', {
   state: (): RecordingState => ({
     list: [],
     statusMap: {},
     loading: false,
+    streaming: false,
     error: undefined,
   }),
   actions: {
@@ -37,7 +42,14 @@ export const useRecordingStore = defineStore('recording', {
       this.loading = true
       this.setError(undefined)
       try {
-        const list = await apiListRecordings()
+        // 按游标逐页加载，直到没有下一页
+        const list: RecordingResponse[] = []
+        let cursor: string | undefined
+        do {
+          const page = await apiListRecordingPage({ status: activeStatuses, limit: LIST_PAGE_SIZE, cursor })
+          list.push(...page.items)
+          cursor = page.nextCursor ?? undefined
+        } while (cursor)
         this.list = list
         list.forEach((item) => {
           this.statusMap[item.taskId] = {
@@ -66,6 +78,20 @@ export const useRecordingStore = defineStore('recording', {
         this.setError(normalized.displayMessage)
       }
     },
+    // 批量刷新未结束任务的状态，一次请求代替逐个轮询
+    async fetchStatuses() {
+      const taskIds = this.list.filter((item) => !isTerminalStatus(item.status)).map((item) => item.taskId)
+      if (taskIds.length === 0) {
+        return
+      }
+      try {
+        const response = await apiGetStatuses(taskIds)
+        response.statuses.forEach((status) => this.mergeStatus(status))
+      } catch (error) {
+        const normalized = error as NormalizedError
+        this.setError(normalized.displayMessage)
+      }
+    },
     async startRecording(douyinId: string, auto: boolean, outputDir: string) {
       this.setError(undefined)
       if (!outputDir || !outputDir.trim()) {
@@ -103,6 +129,29 @@ export const useRecordingStore = defineStore('recording', {
         this.setError(normalized.displayMessage)
       }
     },
+    applyEvent(status: RecordingStatus) {
+      const previous = this.statusMap[status.taskId]
+      const known = this.list.some((item) => item.taskId === status.taskId)
+      // 状态事件不携带进度，保留上一次的进度
+      this.mergeStatus({ ...status, progress: status.progress ?? previous?.progress })
+      if (!known && !isTerminalStatus(status.status)) {
+        // 其它入口（如关注列表）创建的任务，重新拉取列表以获得完整信息
+        void this.fetchList()
+      }
+    },
+    // 订阅任务事件流，浏览器不支持 EventSource 时返回 false，由调用方回退到轮询
+    connectEvents(): boolean {
+      this.streaming = events.connect({
+        onStatus: (status) => this.applyEvent(status),
+        onProgress: (status) => this.applyEvent(status),
+        onReset: () => void this.fetchList(),
+      })
+      return this.streaming
+    },
+    disconnectEvents() {
+      events.close()
+      this.streaming = false
+    },
     startListPolling(intervalMs = 15000) {
       polling.startListPolling(intervalMs, () => this.fetchList())
     },
@@ -112,6 +161,9 @@ export const useRecordingStore = defineStore('recording', {
     startTaskPolling(taskId: string, intervalMs = 3000) {
       polling.startTaskPolling(taskId, intervalMs, (id) => this.fetchStatus(id))
     },
+    startStatusPolling(intervalMs = 3000) {
+      polling.startStatusPolling(intervalMs, () => this.fetchStatuses())
+    },
     stopTaskPolling(taskId: string) {
       polling.stopTaskPolling(taskId)
     },
@@ -2,6 +2,7 @@ export type RecordingStatusType =
   | 'PENDING'
   | 'WAITING'
   | 'DETECTING'
+  | 'QUEUED'
   | 'RECORDING'
   | 'STOPPING'
   | 'COMPLETED'
@@ -14,10 +15,32 @@ export interface RecordingResponse {
   status: RecordingStatusType
   streamUrl?: string | null
   outputPath?: string | null
+  createdTime?: string | null
   startTime: string
   endTime?: string | null
   fileSize?: number | null
   error?: string | null
+  priority?: number | null
+}
+
+export interface RecordingPageQuery {
+  status?: RecordingStatusType[]
+  douyinIdPrefix?: string
+  from?: string
+  to?: string
+  cursor?: string
+  limit?: number
+}
+
+export interface RecordingPage {
+  items: RecordingResponse[]
+  nextCursor?: string | null
+  limit: number
+}
+
+export interface RecordingSummary {
+  counts: Partial<Record<RecordingStatusType, number>>
+  total: number
 }
 
 export interface RecordingProgress {
@@ -33,10 +56,16 @@ export interface RecordingStatus {
   error?: string | null
 }
 
+export interface BatchStatusResponse {
+  statuses: RecordingStatus[]
+  notFound: string[]
+}
+
 export interface StartRecordingRequest {
   douyinId: string
   auto?: boolean
   outputDir?: string
+  priority?: number
 }
 
 export interface UpdateCookieRequest {
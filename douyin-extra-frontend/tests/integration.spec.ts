@@ -5,7 +5,9 @@ import { createPinia, setActivePinia } from 'pinia'
 vi.mock('../src/services/api', () => ({
   apiStartRecording: vi.fn(),
   apiGetStatus: vi.fn(),
+  apiGetStatuses: vi.fn(),
   apiListRecordings: vi.fn(),
+  apiListRecordingPage: vi.fn(),
   apiStopRecording: vi.fn(),
   apiUpdateCookie: vi.fn(),
   apiHealth: vi.fn(),
@@ -15,6 +17,8 @@ vi.mock('../src/services/polling', () => {
   class PollingController {
     startListPolling = vi.fn()
     stopListPolling = vi.fn()
+    startStatusPolling = vi.fn()
+    stopStatusPolling = vi.fn()
     startTaskPolling = vi.fn()
     stopTaskPolling = vi.fn()
     stopAll = vi.fn()
@@ -39,6 +43,10 @@ const completedRecording = {
   status: 'COMPLETED',
 }
 
+function page(items: typeof sampleRecording[], nextCursor: string | null = null) {
+  return { items, nextCursor, limit: 200 }
+}
+
 function findButtonByText(wrapper: ReturnType<typeof mount>, text: string) {
   return wrapper.findAll('button').find((btn) => btn.text().trim() === text)
 }
@@ -51,7 +59,7 @@ describe('集成流程测试', () => {
 
   it('11.1 录制任务创建到详情打开流程', async () => {
     const api = await import('../src/services/api')
-    vi.mocked(api.apiListRecordings).mockResolvedValue([])
+    vi.mocked(api.apiListRecordingPage).mockResolvedValue(page([]))
     vi.mocked(api.apiStartRecording).mockResolvedValue(sampleRecording)
 
     const { default: HomeView } = await import('../src/views/HomeView.vue')
@@ -78,7 +86,7 @@ describe('集成流程测试', () => {
 
   it('11.2 停止任务与状态更新流程', async () => {
     const api = await import('../src/services/api')
-    vi.mocked(api.apiListRecordings).mockResolvedValue([sampleRecording])
+    vi.mocked(api.apiListRecordingPage).mockResolvedValue(page([sampleRecording]))
     vi.mocked(api.apiStopRecording).mockResolvedValue(completedRecording)
 
     const { default: HomeView } = await import('../src/views/HomeView.vue')
@@ -97,7 +105,7 @@ describe('集成流程测试', () => {
 
   it('11.3 Cookie 更新成功流程', async () => {
     const api = await import('../src/services/api')
-    vi.mocked(api.apiListRecordings).mockResolvedValue([])
+    vi.mocked(api.apiListRecordingPage).mockResolvedValue(page([]))
     vi.mocked(api.apiUpdateCookie).mockResolvedValue()
 
     const { default: HomeView } = await import('../src/views/HomeView.vue')
@@ -118,7 +126,7 @@ describe('集成流程测试', () => {
 
   it('11.4 健康检查展示流程', async () => {
     const api = await import('../src/services/api')
-    vi.mocked(api.apiListRecordings).mockResolvedValue([])
+    vi.mocked(api.apiListRecordingPage).mockResolvedValue(page([]))
     vi.mocked(api.apiHealth).mockResolvedValue({ status: 'UP' })
 
     const { default: HomeView } = await import('../src/views/HomeView.vue')
@@ -134,4 +142,20 @@ describe('集成流程测试', () => {
 
     expect(wrapper.text()).toContain('UP')
   })
+
+  it('11.5 列表按游标加载全部未结束任务', async () => {
+    const api = await import('../src/services/api')
+    const second = { ...sampleRecording, taskId: 'task-2', douyinId: 'user-2' }
+    vi.mocked(api.apiListRecordingPage)
+      .mockResolvedValueOnce(page([sampleRecording], 'cursor-1'))
+      .mockResolvedValueOnce(page([second]))
+
+    const { useRecordingStore } = await import('../src/stores/recording')
+    const store = useRecordingStore()
+    await store.fetchList()
+
+    expect(api.apiListRecordingPage).toHaveBeenCalledTimes(2)
+    expect(vi.mocked(api.apiListRecordingPage).mock.calls[1][0]?.cursor).toBe('cursor-1')
+    expect(store.list.map((item) => item.taskId)).toEqual(['task-1', 'task-2'])
+  })
 })
@@ -10,7 +10,9 @@ import HealthPanel from '../src/components/HealthPanel.vue'
 vi.mock('../src/services/api', () => ({
   apiStartRecording: vi.fn(),
   apiGetStatus: vi.fn(),
+  apiGetStatuses: vi.fn(),
   apiListRecordings: vi.fn(),
+  apiListRecordingPage: vi.fn(),
   apiStopRecording: vi.fn(),
   apiUpdateCookie: vi.fn(),
   apiHealth: vi.fn(),
@@ -21,6 +23,8 @@ vi.mock('../src/services/polling', () => {
     static instance: PollingController | null = null
     startListPolling = vi.fn()
     stopListPolling = vi.fn()
+    startStatusPolling = vi.fn()
+    stopStatusPolling = vi.fn()
     startTaskPolling = vi.fn()
     stopTaskPolling = vi.fn()
     stopAll = vi.fn()
@@ -0,0 +1,190 @@
+#!/bin/bash
+# 压测用的 FFmpeg 替身（配置 ffmpeg.path 指向本脚本）
+#
+# 只模拟录制服务关心的进程行为，不处理任何媒体数据：
+#   - ffmpeg -version：输出版本信息
+#   - ffmpeg -protocols：输出支持的输入/输出协议
+#   - ffmpeg -i <http地址> ... <输出文件>：用 curl 把拉流数据原样写入输出文件，每秒输出一行进度
+#   - ffmpeg -i <本地文件> ... <输出文件>：直接复制文件（模拟 FLV -> MP4 封装）
+#   - 标准输入收到 q 时结束并以 0 退出，收到 SIGTERM 时以 255 退出（与真实 FFmpeg 一致）
+#   - 拉流返回 403/404、连接被拒绝或中途断开时输出与真实 FFmpeg 相同的关键字后以 1 退出
+#
+# 通过环境变量控制行为（由录制服务进程继承）：
+#   FAKE_FFMPEG_SOURCE         http 输入的处理方式：copy（默认，拉取数据）或 synthetic（不联网，按码率生成随机数据）
+#   FAKE_FFMPEG_RATE_KBPS      synthetic 模式的写入码率，默认 800
+#   FAKE_FFMPEG_DURATION_S     录制多少秒后自行结束，0 表示直到输入结束或收到 q，默认 0
+#   FAKE_FFMPEG_EXIT_CODE      自行结束（含输入正常结束、封装完成）时的退出码，默认 0
+#   FAKE_FFMPEG_QUIT_DELAY_MS  收到 q 后延迟多久退出（模拟写文件尾），默认 0
+#   FAKE_FFMPEG_HANG_ON_QUIT   为 1 时忽略 q 和 SIGTERM，只能被强制终止（用于测量强制终止路径）
+
+source_mode=${FAKE_FFMPEG_SOURCE:-copy}
+rate_kbps=${FAKE_FFMPEG_RATE_KBPS:-800}
+duration_s=${FAKE_FFMPEG_DURATION_S:-0}
+exit_code=${FAKE_FFMPEG_EXIT_CODE:-0}
+quit_delay_ms=${FAKE_FFMPEG_QUIT_DELAY_MS:-0}
+hang_on_quit=${FAKE_FFMPEG_HANG_ON_QUIT:-0}
+
+if [ "$1" = "-version" ]; then
+    echo "ffmpeg version 6.0-fake Copyright (c) 2000-2023 the FFmpeg developers"
+    echo "built for load testing (douyin-live-recorder benchmarks)"
+    exit 0
+fi
+
+if [ "$1" = "-protocols" ] || [ "$2" = "-protocols" ]; then
+    echo "Supported file protocols:"
+    echo "Input:"
+    echo "  file"
+    echo "  http"
+    echo "  https"
+    echo "Output:"
+    echo "  file"
+    exit 0
+fi
+
+input=""
+prev=""
+for arg in "$@"; do
+    if [ "$prev" = "-i" ]; then
+        input=$arg
+    fi
+    prev=$arg
+done
+output=$prev
+
+if [ -z "$input" ] || [ -z "$output" ] || [ "$input" = "$output" ]; then
+    echo "At least one output file must be specified" >&2
+    exit 1
+fi
+
+echo "ffmpeg version 6.0-fake Copyright (c) 2000-2023 the FFmpeg developers"
+echo "Input #0, flv, from '$input':"
+
+# 本地文件：模拟封装
+case "$input" in
+    http://*|https://*) ;;
+    *)
+        if [ ! -f "$input" ]; then
+            echo "$input: No such file or directory"
+            exit 1
+        fi
+        echo "Output #0, mp4, to '$output':"
+        cp "$input" "$output" || exit 1
+        size_kb=$(( $(wc -c < "$output") / 1024 ))
+        echo "video:${size_kb}kB audio:0kB subtitle:0kB other streams:0kB global headers:0kB muxing overhead: 0.000000%"
+        exit "$exit_code"
+        ;;
+esac
+
+echo "Output #0, flv, to '$output':"
+: > "$output" || exit 1
+
+curl_pid=""
+status_file=""
+if [ "$source_mode" = "copy" ]; then
+    status_file=$(mktemp)
+    curl -sS -f -o "$output" -w '%{http_code}' "$input" > "$status_file" 2>/dev/null &
+    curl_pid=$!
+fi
+
+start_s=$SECONDS
+frames=0
+
+cleanup() {
+    if [ -n "$curl_pid" ]; then
+        kill "$curl_pid" 2>/dev/null
+        wait "$curl_pid" 2>/dev/null
+    fi
+    [ -n "$status_file" ] && rm -f "$status_file"
+}
+
+progress() {
+    local elapsed=$(( SECONDS - start_s ))
+    local size=$(wc -c < "$output" 2>/dev/null || echo 0)
+    local bitrate=0
+    if [ "$elapsed" -gt 0 ]; then
+        bitrate=$(( size * 8 / 1000 / elapsed ))
+    fi
+    frames=$(( elapsed * 25 ))
+    printf 'frame=%6d fps= 25 q=-1.0 size=%8dkB time=%02d:%02d:%02d.00 bitrate=%6d.0kbits/s speed=   1x\n' \
+        "$frames" $(( size / 1024 )) $(( elapsed / 3600 )) $(( elapsed / 60 % 60 )) $(( elapsed % 60 )) "$bitrate"
+}
+
+finish() {
+    cleanup
+    progress
+    exit "$1"
+}
+
+on_term() {
+    echo "Exiting normally, received signal 15."
+    finish 255
+}
+
+if [ "$hang_on_quit" = "1" ]; then
+    trap '' TERM
+else
+    trap on_term TERM
+fi
+
+stdin_open=1
+while true; do
+    if [ "$stdin_open" = "1" ]; then
+        read -r -t 1 command
+        rc=$?
+        if [ "$rc" -eq 0 ] && [ "$command" = "q" ] && [ "$hang_on_quit" != "1" ]; then
+            echo "[q] command received. Exiting."
+            if [ "$quit_delay_ms" -gt 0 ]; then
+                sleep "$(( quit_delay_ms / 1000 )).$(printf '%03d' $(( quit_delay_ms % 1000 )))"
+            fi
+            finish 0
+        elif [ "$rc" -ne 0 ] && [ "$rc" -le 128 ]; then
+            # 标准输入已关闭
+            stdin_open=0
+        fi
+    else
+        sleep 1
+    fi
+
+    if [ "$source_mode" = "synthetic" ]; then
+        head -c $(( rate_kbps * 1000 / 8 )) /dev/urandom >> "$output"
+    elif ! kill -0 "$curl_pid" 2>/dev/null; then
+        wait "$curl_pid"
+        curl_rc=$?
+        curl_pid=""
+        http_code=$(cat "$status_file" 2>/dev/null)
+        case "$curl_rc" in
+            0)
+                finish "$exit_code"
+                ;;
+            22)
+                case "$http_code" in
+                    403) echo "[http @ 0x0] HTTP error 403 Forbidden"
+                         echo "$input: Server returned 403 Forbidden (access denied)" ;;
+                    404) echo "[http @ 0x0] HTTP error 404 Not Found"
+                         echo "$input: Server returned 404 Not Found" ;;
+                    *)   echo "$input: Server returned $http_code" ;;
+                esac
+                finish 1
+                ;;
+            7)
+                echo "[tcp @ 0x0] Connection to $input failed: Connection refused"
+                finish 1
+                ;;
+            28)
+                echo "[tcp @ 0x0] Connection timed out"
+                finish 1
+                ;;
+            *)
+                echo "[flv @ 0x0] Connection reset by peer"
+                echo "$input: I/O error"
+                finish 1
+                ;;
+        esac
+    fi
+
+    progress
+
+    if [ "$duration_s" -gt 0 ] && [ $(( SECONDS - start_s )) -ge "$duration_s" ]; then
+        finish "$exit_code"
+    fi
+done
@@ -0,0 +1,146 @@
+package com.douyin.liverecorder.benchmarks;
+
+import com.douyin.liverecorder.infrastructure.FFmpegWrapper;
+import com.douyin.liverecorder.infrastructure.FileSystemManager;
+import com.douyin.liverecorder.infrastructure.HttpClientUtil;
+import com.douyin.liverecorder.infrastructure.RecordingMetrics;
+import com.douyin.liverecorder.infrastructure.StoragePool;
+import com.douyin.liverecorder.infrastructure.StorageQuotaManager;
+import com.douyin.liverecorder.infrastructure.TaskEventJournal;
+import com.douyin.liverecorder.infrastructure.TaskHistoryStore;
+import com.douyin.liverecorder.infrastructure.TaskStateStore;
+import com.douyin.liverecorder.model.RecordingTask;
+import com.douyin.liverecorder.service.LiveStreamDetector;
+import com.douyin.liverecorder.service.RecordingAdmissionQueue;
+import com.douyin.liverecorder.service.RecordingManager;
+import com.douyin.liverecorder.service.RecordingService;
+import com.douyin.liverecorder.service.StreamExtractor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 录制任务准入基准：多线程同时创建任务
+ * <ul>
+ *   <li>createAndCancel：每个线程创建不同主播的任务后立即取消（准入检查、状态索引、任务日志、淘汰）</li>
+ *   <li>createDuplicate：所有线程反复为少数几个主播创建任务（同一主播合并的热点路径）</li>
+ *   <li>enqueueRelease：准入队列申请与释放槽位</li>
+ * </ul>
+ * 任务只创建不启动，不会访问网络或启动FFmpeg
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class AdmissionContentionBenchmark {
+
+    private static final int HOT_STREAMERS = 4;
+
+    private Path workDir;
+    private RecordingService recordingService;
+    private TaskEventJournal journal;
+    private RecordingAdmissionQueue admissionQueue;
+    private RecordingManager manager;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private static final AtomicInteger THREAD_IDS = new AtomicInteger();
+
+        final int threadId = THREAD_IDS.incrementAndGet();
+        long counter;
+    }
+
+    @Setup
+    public void setUp() {
+        try {
+            workDir = Files.createTempDirectory("admission-bench");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        RecordingMetrics metrics = RecordingMetrics.noop();
+        HttpClientUtil httpClient = new HttpClientUtil(metrics);
+        recordingService = new RecordingService(new FFmpegWrapper(), metrics);
+
+        admissionQueue = new RecordingAdmissionQueue(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(admissionQueue, "maxSlots", 1024);
+        ReflectionTestUtils.setField(admissionQueue, "queueEnabled", true);
+        ReflectionTestUtils.setField(admissionQueue, "maxQueueSize", 100);
+
+        journal = new TaskEventJournal();
+        ReflectionTestUtils.setField(journal, "taskLogPath", workDir.resolve("task.txt").toString());
+        ReflectionTestUtils.setField(journal, "format", "text");
+        ReflectionTestUtils.setField(journal, "maxSegmentBytes", 64L * 1024 * 1024);
+
+        TaskStateStore stateStore = new TaskStateStore();
+        ReflectionTestUtils.setField(stateStore, "enabled", false);
+
+        TaskHistoryStore historyStore = new TaskHistoryStore();
+        ReflectionTestUtils.setField(historyStore, "historyDir", workDir.resolve("history").toString());
+
+        StorageQuotaManager storageQuotaManager = new StorageQuotaManager(metrics);
+        manager = new RecordingManager(
+                new LiveStreamDetector(httpClient, metrics),
+                new StreamExtractor(httpClient),
+                recordingService,
+                new FileSystemManager(),
+                storageQuotaManager,
+                new StoragePool(storageQuotaManager),
+                admissionQueue,
+                historyStore,
+                stateStore,
+                journal,
+                metrics);
+        ReflectionTestUtils.setField(manager, "maxConcurrentTasks", 1024);
+        ReflectionTestUtils.setField(manager, "maxRetainedTerminalTasks", 1000);
+        ReflectionTestUtils.setField(manager, "retainedTaskMaxAgeMs", 3_600_000L);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        manager.shutdown();
+        recordingService.shutdown();
+        journal.close();
+    }
+
+    @Benchmark
+    public boolean createAndCancel(ThreadState state) {
+        String douyinId = "bench_" + state.threadId + "_" + (state.counter++ & 63);
+        RecordingTask task = manager.createTask(douyinId, false, workDir.toString());
+        return manager.stopTask(task.getTaskId());
+    }
+
+    @Benchmark
+    public RecordingTask createDuplicate(ThreadState state) {
+        String douyinId = "hot_" + (state.counter++ % HOT_STREAMERS);
+        return manager.createTask(douyinId, false, workDir.toString());
+    }
+
+    @Benchmark
+    public boolean enqueueRelease(ThreadState state) {
+        String taskId = "ticket_" + state.threadId + "_" + state.counter++;
+        RecordingAdmissionQueue.Ticket ticket = admissionQueue.enqueue(taskId, 0);
+        admissionQueue.release(taskId);
+        return ticket != null && ticket.isGranted();
+    }
+}
@@ -0,0 +1,57 @@
+package com.douyin.liverecorder.benchmarks;
+
+import com.douyin.liverecorder.infrastructure.RecordingMetrics;
+import com.douyin.liverecorder.service.LiveStreamDetector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 直播状态检测基准：解析 web/enter 响应
+ * HTTP客户端返回录制的响应，只测量解析与结果构造的开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DetectionParsingBenchmark {
+
+    @Param({
+            "web-enter-live-data-array.json",
+            "web-enter-live-room.json",
+            "web-enter-offline.json",
+            "web-enter-not-found.json"
+    })
+    public String fixture;
+
+    private LiveStreamDetector detector;
+
+    @Setup
+    public void setUp() {
+        String response = Fixtures.load(fixture);
+        detector = new LiveStreamDetector(new Fixtures.FixtureHttpClient(response), RecordingMetrics.noop());
+    }
+
+    @Benchmark
+    public Object checkLiveStatus() {
+        try {
+            return detector.checkLiveStatus("streamer_bench");
+        } catch (IOException e) {
+            // 错误响应同样是热路径的一部分（限流、直播间不存在）
+            return e;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.douyin.liverecorder.benchmarks;
+
+import com.douyin.liverecorder.infrastructure.FileNameGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 录制文件名生成与解析基准
+ * 文件名格式为 {douyinId}_{yyyyMMdd}_{HHmmss}.mp4，抖音号本身可能包含下划线。
+ * splitBaseline 保留了按 split("_") 和正则逐个方法解析的旧实现作为对照；
+ * validateListing 模拟目录扫描，批量解析 listingSize 个文件名（其中约十分之一不是录制文件）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileNameGeneratorBenchmark {
+
+    @Param({"streamer123", "my_streamer_name_2024"})
+    public String douyinId;
+
+    @Param({"10000"})
+    public int listingSize;
+
+    private LocalDateTime timestamp;
+    private String filename;
+    private List<Path> listing;
+
+    @Setup
+    public void setUp() {
+        timestamp = LocalDateTime.of(2025, 1, 1, 12, 30, 45);
+        filename = FileNameGenerator.generateFilename(douyinId, timestamp);
+        listing = new ArrayList<>(listingSize);
+        for (int i = 0; i < listingSize; i++) {
+            String name = i % 10 == 9
+                    ? "cover_" + i + ".jpg"
+                    : FileNameGenerator.generateFilename(douyinId + (i % 100), timestamp.plusMinutes(i));
+            listing.add(Paths.get("/recordings", name));
+        }
+    }
+
+    @Benchmark
+    public String generate() {
+        return FileNameGenerator.generateFilename(douyinId, timestamp);
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        blackhole.consume(FileNameGenerator.isValidFilename(filename));
+        blackhole.consume(FileNameGenerator.parseDouyinId(filename));
+        blackhole.consume(FileNameGenerator.parseDate(filename));
+        blackhole.consume(FileNameGenerator.parseTime(filename));
+    }
+
+    @Benchmark
+    public void parseSinglePass(Blackhole blackhole) {
+        FileNameGenerator.ParsedFilename parsed = FileNameGenerator.parse(filename);
+        blackhole.consume(parsed);
+        blackhole.consume(parsed != null ? parsed.recordedAt() : null);
+    }
+
+    @Benchmark
+    public void splitBaseline(Blackhole blackhole) {
+        boolean valid = splitIsValid(filename);
+        blackhole.consume(valid);
+        if (valid) {
+            String name = filename.substring(0, filename.length() - 4);
+            blackhole.consume(name.split("_")[0]);
+            blackhole.consume(LocalDateTime.parse(name.split("_")[1] + name.split("_")[2], TIMESTAMP));
+        }
+    }
+
+    @Benchmark
+    public int validateListing(Blackhole blackhole) {
+        return FileNameGenerator.parseAll(listing, (file, parsed) -> blackhole.consume(parsed.recordedAt()));
+    }
+
+    @Benchmark
+    public int validateListingSplitBaseline(Blackhole blackhole) {
+        int count = 0;
+        for (Path file : listing) {
+            String name = file.getFileName().toString();
+            if (splitIsValid(name)) {
+                String[] parts = name.substring(0, name.length() - 4).split("_");
+                blackhole.consume(LocalDateTime.parse(parts[1] + parts[2], TIMESTAMP));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    /**
+     * 旧实现：split 后用正则校验日期和时间
+     */
+    private static boolean splitIsValid(String filename) {
+        if (filename == null || !filename.endsWith(".mp4")) {
+            return false;
+        }
+        String[] parts = filename.substring(0, filename.length() - 4).split("_");
+        return parts.length == 3 && !parts[0].isEmpty()
+                && parts[1].matches("\\d{8}") && parts[2].matches("\\d{6}");
+    }
+}
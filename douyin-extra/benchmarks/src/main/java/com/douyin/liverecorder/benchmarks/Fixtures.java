@@ -0,0 +1,82 @@
+package com.douyin.liverecorder.benchmarks;
+
+import com.douyin.liverecorder.infrastructure.HttpClientUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 基准测试使用的录制数据
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * 读取 fixtures 目录下的文件
+     *
+     * @param name 文件名
+     * @return 文件内容
+     */
+    static String load(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("找不到测试数据: " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 构造一段FFmpeg录制输出：若干行进度信息，可选在末尾追加一行错误
+     *
+     * @param progressLines 进度行数
+     * @param lastLine 最后一行（为null时不追加）
+     * @return FFmpeg输出
+     */
+    static String ffmpegOutput(int progressLines, String lastLine) {
+        StringBuilder output = new StringBuilder();
+        output.append("ffmpeg version 6.1.1 Copyright (c) 2000-2023 the FFmpeg developers\n")
+                .append("Input #0, flv, from 'https://pull-flv-l26.douyincdn.com/stage/stream-744_hd.flv':\n")
+                .append("  Duration: N/A, start: 0.000000, bitrate: N/A\n")
+                .append("  Stream #0:0: Video: h264 (High), yuv420p(progressive), 1280x720, 30 fps, 30 tbr, 1k tbn\n")
+                .append("  Stream #0:1: Audio: aac (LC), 44100 Hz, stereo, fltp\n")
+                .append("Output #0, flv, to 'recordings/streamer_20250101_120000.flv':\n");
+        for (int i = 0; i < progressLines; i++) {
+            int seconds = i * 2;
+            output.append(String.format(
+                    "frame=%6d fps= 30 q=-1.0 size=%8dkB time=%02d:%02d:%02d.00 bitrate=2480.3kbits/s speed=1.00x%n",
+                    seconds * 30, seconds * 310, seconds / 3600, seconds / 60 % 60, seconds % 60));
+        }
+        if (lastLine != null) {
+            output.append(lastLine).append('\n');
+        }
+        return output.toString();
+    }
+
+    /**
+     * 返回固定响应的HTTP客户端，用于隔离网络只测量解析
+     */
+    static final class FixtureHttpClient extends HttpClientUtil {
+
+        private volatile String response;
+
+        FixtureHttpClient(String response) {
+            this.response = response;
+        }
+
+        void setResponse(String response) {
+            this.response = response;
+        }
+
+        @Override
+        public String get(String url) {
+            return response;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.douyin.liverecorder.benchmarks;
+
+import com.douyin.liverecorder.model.StreamInfo;
+import com.douyin.liverecorder.service.StreamExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流地址提取基准：从开播中的 web/enter 响应里按画质优先级选出流地址（extractBestQualityUrl）
+ * 录制的响应里没有 FULL_HD1/ORIGIN，需要依次跳过更高画质
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamExtractionBenchmark {
+
+    @Param({"web-enter-live-data-array.json", "web-enter-live-room.json"})
+    public String fixture;
+
+    private StreamExtractor extractor;
+
+    @Setup
+    public void setUp() {
+        extractor = new StreamExtractor(new Fixtures.FixtureHttpClient(Fixtures.load(fixture)));
+    }
+
+    @Benchmark
+    public StreamInfo extractStreamUrl() throws IOException {
+        return extractor.extractStreamUrl("streamer_bench");
+    }
+}
@@ -0,0 +1,121 @@
+package com.douyin.liverecorder.benchmarks;
+
+import com.douyin.liverecorder.infrastructure.FFmpegWrapper;
+import com.douyin.liverecorder.infrastructure.RecordingMetrics;
+import com.douyin.liverecorder.service.RecordingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流中断判断基准：在FFmpeg输出中查找中断关键词
+ * 输出长度按录制时长增长（每2秒一行进度），clean 表示正常结束需要扫描全部关键词
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamInterruptedBenchmark {
+
+    // 10分钟、2小时的录制输出
+    @Param({"300", "3600"})
+    public int progressLines;
+
+    @Param({"clean", "interrupted"})
+    public String ending;
+
+    private RecordingService recordingService;
+    private Process process;
+
+    @Setup
+    public void setUp() {
+        String lastLine = "interrupted".equals(ending)
+                ? "[flv @ 0x55d5c0a3c2c0] Connection reset by peer"
+                : "[out#0/flv @ 0x55d5c0a4e100] video:512000kB audio:32000kB subtitle:0kB other streams:0kB";
+        String output = Fixtures.ffmpegOutput(progressLines, lastLine);
+        process = new FinishedProcess();
+        recordingService = new RecordingService(new FixedOutputFFmpegWrapper(output), RecordingMetrics.noop());
+    }
+
+    @TearDown
+    public void tearDown() {
+        recordingService.shutdown();
+    }
+
+    @Benchmark
+    public boolean isStreamInterrupted() {
+        return recordingService.isStreamInterrupted(process);
+    }
+
+    /**
+     * 进程已结束、输出固定的FFmpeg包装器
+     */
+    private static final class FixedOutputFFmpegWrapper extends FFmpegWrapper {
+
+        private final String output;
+
+        FixedOutputFFmpegWrapper(String output) {
+            this.output = output;
+        }
+
+        @Override
+        public boolean isRunning(Process process) {
+            return false;
+        }
+
+        @Override
+        public String getOutput(Process process) {
+            return output;
+        }
+    }
+
+    /**
+     * 已结束的进程占位
+     */
+    private static final class FinishedProcess extends Process {
+
+        @Override
+        public OutputStream getOutputStream() {
+            return OutputStream.nullOutputStream();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return InputStream.nullInputStream();
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return InputStream.nullInputStream();
+        }
+
+        @Override
+        public int waitFor() {
+            return 1;
+        }
+
+        @Override
+        public int exitValue() {
+            return 1;
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.douyin.liverecorder.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地模拟的抖音接口与拉流服务，用于压测
+ * <ul>
+ *   <li>GET /webcast/room/web/enter/?web_rid={id}：与抖音 web/enter 结构一致的直播间信息</li>
+ *   <li>GET /stream/{id}.flv：按直播间码率持续推送合成FLV，直播间下播时结束</li>
+ * </ul>
+ * 直播间按脚本化的周期开播/下播，拉流时可按比例注入 403、连接重置和卡顿。
+ * 基于 JDK 自带的 HttpServer，不依赖外部组件
+ */
+public class FakeDouyinServer implements AutoCloseable {
+
+    private static final String ENTER_PATH = "/webcast/room/web/enter/";
+    private static final String STREAM_PATH = "/stream/";
+
+    private final Map<String, SimulatedRoom> rooms;
+    private final FaultProfile faults;
+    private final long seed;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final LongAdder apiRequests = new LongAdder();
+    private final LongAdder streamsOpened = new LongAdder();
+    private final AtomicInteger activeStreams = new AtomicInteger();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder injectedApiErrors = new LongAdder();
+    private final LongAdder injectedForbidden = new LongAdder();
+    private final LongAdder injectedResets = new LongAdder();
+    private final LongAdder injectedStalls = new LongAdder();
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private volatile long startNanos;
+    private volatile boolean closed;
+
+    private FakeDouyinServer(Map<String, SimulatedRoom> rooms, FaultProfile faults, long seed) {
+        this.rooms = rooms;
+        this.faults = faults;
+        this.seed = seed;
+    }
+
+    /**
+     * 生成 count 个直播间：ID 为 {prefix}{序号}，相位在一个周期内均匀随机
+     *
+     * @param count 直播间数量
+     * @param prefix ID前缀（只能包含字母和数字）
+     * @param bitrateKbps 推流码率
+     * @param offlineMs 每个周期的下播时长，为0时始终在播
+     * @param onlineMs 每个周期的开播时长
+     * @param faults 注入的故障
+     * @param seed 随机种子（同一种子生成相同的开播脚本）
+     * @return 未启动的模拟服务
+     */
+    public static FakeDouyinServer create(int count, String prefix, int bitrateKbps, long offlineMs, long onlineMs,
+                                          FaultProfile faults, long seed) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("直播间数量必须大于0");
+        }
+        Random random = new Random(seed);
+        Map<String, SimulatedRoom> rooms = new LinkedHashMap<>();
+        long cycle = Math.max(1, offlineMs + onlineMs);
+        for (int i = 0; i < count; i++) {
+            String id = String.format("%s%06d", prefix, i);
+            long phase = offlineMs > 0 ? (long) (random.nextDouble() * cycle) : 0;
+            rooms.put(id, new SimulatedRoom(id, bitrateKbps, offlineMs, onlineMs, phase));
+        }
+        return new FakeDouyinServer(Collections.unmodifiableMap(rooms), faults, seed);
+    }
+
+    /**
+     * 启动服务
+     *
+     * @param port 端口，0 表示随机端口
+     */
+    public FakeDouyinServer start(int port) throws IOException {
+        AtomicInteger threadIds = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fake-douyin-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 4096);
+        server.setExecutor(executor);
+        server.createContext(ENTER_PATH, this::handleEnter);
+        server.createContext(STREAM_PATH, this::handleStream);
+        startNanos = System.nanoTime();
+        server.start();
+        return this;
+    }
+
+    /**
+     * 服务地址，作为 douyin.api-base-url 使用
+     */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public List<String> roomIds() {
+        return new ArrayList<>(rooms.keySet());
+    }
+
+    public SimulatedRoom room(String id) {
+        return rooms.get(id);
+    }
+
+    /**
+     * 直播间当前是否在播
+     */
+    public boolean isLive(String id) {
+        SimulatedRoom room = rooms.get(id);
+        return room != null && room.isLive(elapsedMs());
+    }
+
+    /**
+     * 当前在播的直播间数
+     */
+    public int liveRoomCount() {
+        long elapsed = elapsedMs();
+        int live = 0;
+        for (SimulatedRoom room : rooms.values()) {
+            if (room.isLive(elapsed)) {
+                live++;
+            }
+        }
+        return live;
+    }
+
+    /**
+     * 服务端统计
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("rooms", rooms.size());
+        stats.put("liveRooms", liveRoomCount());
+        stats.put("apiRequests", apiRequests.sum());
+        stats.put("streamsOpened", streamsOpened.sum());
+        stats.put("activeStreams", activeStreams.get());
+        stats.put("bytesSent", bytesSent.sum());
+        stats.put("injectedApiErrors", injectedApiErrors.sum());
+        stats.put("injectedForbidden", injectedForbidden.sum());
+        stats.put("injectedResets", injectedResets.sum());
+        stats.put("injectedStalls", injectedStalls.sum());
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (server != null) {
+            server.stop(0);
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private long elapsedMs() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private void handleEnter(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            apiRequests.increment();
+            if (chance(faults.apiErrorRate())) {
+                injectedApiErrors.increment();
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+            String roomId = queryParam(exchange.getRequestURI(), "web_rid");
+            SimulatedRoom room = roomId != null ? rooms.get(roomId) : null;
+            byte[] body = objectMapper.writeValueAsBytes(room != null ? enterResponse(room) : notFoundResponse());
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    private ObjectNode enterResponse(SimulatedRoom room) {
+        long elapsed = elapsedMs();
+        boolean live = room.isLive(elapsed);
+
+        ObjectNode roomNode = objectMapper.createObjectNode();
+        roomNode.put("id_str", room.id());
+        roomNode.put("status", live ? 2 : 4);
+        roomNode.put("title", "模拟直播间 " + room.id());
+        roomNode.put("user_count_str", "1000");
+        if (live) {
+            long createTime = System.currentTimeMillis() / 1000 - (elapsed - room.liveSince(elapsed)) / 1000;
+            roomNode.put("create_time", createTime);
+            ObjectNode streamUrl = roomNode.putObject("stream_url");
+            String url = baseUrl() + STREAM_PATH + room.id() + ".flv?expire=" + (createTime + 86400);
+            streamUrl.putObject("flv_pull_url").put("HD1", url);
+            streamUrl.put("hls_pull_url", "");
+        }
+
+        ObjectNode root = objectMapper.createObjectNode();
+        ObjectNode data = root.putObject("data");
+        ArrayNode roomArray = data.putArray("data");
+        roomArray.add(roomNode);
+        data.put("enter_room_id", room.id());
+        root.putObject("extra").put("now", System.currentTimeMillis());
+        root.put("status_code", 0);
+        return root;
+    }
+
+    private ObjectNode notFoundResponse() {
+        ObjectNode root = objectMapper.createObjectNode();
+        root.putObject("data").put("message", "room not found");
+        root.put("status_code", 4003);
+        root.put("status_msg", "room not found");
+        return root;
+    }
+
+    private void handleStream(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            String roomId = path.substring(STREAM_PATH.length()).replace(".flv", "");
+            SimulatedRoom room = rooms.get(roomId);
+            if (room == null || !room.isLive(elapsedMs())) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            if (chance(faults.forbiddenRate())) {
+                injectedForbidden.increment();
+                exchange.sendResponseHeaders(403, -1);
+                return;
+            }
+
+            streamsOpened.increment();
+            activeStreams.incrementAndGet();
+            try {
+                streamFlv(exchange, room);
+            } finally {
+                activeStreams.decrementAndGet();
+            }
+        }
+    }
+
+    private void streamFlv(HttpExchange exchange, SimulatedRoom room) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // 每条连接独立抽样：在第几个 tag 之后重置连接或卡顿（10秒内的随机时刻）
+        long tagsPerSecond = FlvStreamWriter.TAGS_PER_SECOND;
+        long resetAtTag = chance(faults.resetRate()) ? random.nextLong(tagsPerSecond, tagsPerSecond * 10) : -1;
+        long stallAtTag = chance(faults.stallRate()) ? random.nextLong(tagsPerSecond, tagsPerSecond * 10) : -1;
+
+        exchange.getResponseHeaders().set("Content-Type", "video/x-flv");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        FlvStreamWriter writer = new FlvStreamWriter(out, room.bitrateKbps(), new Random(seed ^ room.id().hashCode()));
+        writer.writeHeader();
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / tagsPerSecond;
+        long nextTagNanos = System.nanoTime();
+        for (long tag = 0; !closed && room.isLive(elapsedMs()); tag++) {
+            if (tag == resetAtTag) {
+                injectedResets.increment();
+                // 处理器抛出异常时 HttpServer 直接关闭连接，客户端看到的是未结束的分块响应
+                throw new IOException("模拟连接重置: " + room.id());
+            }
+            if (tag == stallAtTag) {
+                injectedStalls.increment();
+                sleepNanos(TimeUnit.MILLISECONDS.toNanos(faults.stallMs()));
+                nextTagNanos = System.nanoTime();
+            }
+            writer.writeVideoTag();
+            out.flush();
+            bytesSent.add(writer.bytesPerTag());
+
+            nextTagNanos += intervalNanos;
+            sleepNanos(nextTagNanos - System.nanoTime());
+        }
+    }
+
+    private static void sleepNanos(long nanos) throws IOException {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("推流被中断", e);
+        }
+    }
+
+    private static boolean chance(double rate) {
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    private static String queryParam(URI uri, String name) {
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                return java.net.URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 单独运行模拟服务，配合外部启动的录制服务使用
+     * 参数：--port=18080 --rooms=1000 --bitrate-kbps=800 --offline-ms=0 --online-ms=600000
+     *      --api-error-rate=0 --forbidden-rate=0 --reset-rate=0 --stall-rate=0 --stall-ms=5000 --seed=42
+     */
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        FakeDouyinServer server = options.createServer().start(options.getInt("port", 18080));
+        System.out.printf("模拟服务已启动: %s（%d 个直播间，ID %s ~ %s）%n", server.baseUrl(), server.rooms.size(),
+                server.roomIds().get(0), server.roomIds().get(server.rooms.size() - 1));
+        System.out.printf("录制服务配置: douyin.api-base-url=%s%n", server.baseUrl());
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        while (true) {
+            TimeUnit.SECONDS.sleep(10);
+            System.out.println(server.stats());
+        }
+    }
+}
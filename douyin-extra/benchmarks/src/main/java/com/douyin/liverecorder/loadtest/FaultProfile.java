@@ -0,0 +1,33 @@
+package com.douyin.liverecorder.loadtest;
+
+/**
+ * 模拟服务注入的故障
+ * 每个比例都是按请求（或按一次拉流连接）独立抽样的概率，取值 0~1
+ *
+ * @param apiErrorRate web/enter 接口返回 HTTP 500 的比例
+ * @param forbiddenRate 拉流直接返回 HTTP 403 的比例
+ * @param resetRate 拉流过程中连接被重置的比例
+ * @param stallRate 拉流过程中停止发送数据一段时间的比例
+ * @param stallMs 停止发送数据的时长
+ */
+public record FaultProfile(double apiErrorRate, double forbiddenRate, double resetRate,
+                           double stallRate, long stallMs) {
+
+    public static final FaultProfile NONE = new FaultProfile(0, 0, 0, 0, 0);
+
+    public FaultProfile {
+        checkRate("apiErrorRate", apiErrorRate);
+        checkRate("forbiddenRate", forbiddenRate);
+        checkRate("resetRate", resetRate);
+        checkRate("stallRate", stallRate);
+        if (stallMs < 0) {
+            throw new IllegalArgumentException("stallMs 不能为负数");
+        }
+    }
+
+    private static void checkRate(String name, double rate) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException(name + " 必须在 0~1 之间: " + rate);
+        }
+    }
+}
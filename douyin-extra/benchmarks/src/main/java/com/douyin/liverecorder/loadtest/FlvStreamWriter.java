@@ -0,0 +1,85 @@
+package com.douyin.liverecorder.loadtest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+/**
+ * 合成FLV流
+ * 文件头、tag 头、时间戳和 PreviousTagSize 都符合FLV格式，视频数据为随机字节，
+ * 足以让按字节转存的录制流程（以及统计码率、文件大小的逻辑）正常工作
+ */
+class FlvStreamWriter {
+
+    // 每秒发送的 tag 数
+    static final int TAGS_PER_SECOND = 25;
+
+    private static final int TAG_HEADER_SIZE = 11;
+    private static final int KEYFRAME_INTERVAL = TAGS_PER_SECOND * 2;
+
+    private final OutputStream out;
+    private final byte[] payload;
+    private final byte[] header = new byte[TAG_HEADER_SIZE];
+    private final byte[] previousTagSize = new byte[4];
+    private long tagCount;
+
+    /**
+     * @param out 输出流
+     * @param bitrateKbps 码率
+     * @param random 随机数来源（用于生成视频数据）
+     */
+    FlvStreamWriter(OutputStream out, int bitrateKbps, Random random) {
+        this.out = out;
+        int tagBytes = Math.max(16, bitrateKbps * 1000 / 8 / TAGS_PER_SECOND - TAG_HEADER_SIZE - 4);
+        this.payload = new byte[tagBytes];
+        random.nextBytes(payload);
+    }
+
+    /**
+     * 写入FLV文件头（带音视频标记）和 PreviousTagSize0
+     */
+    void writeHeader() throws IOException {
+        out.write(new byte[] {'F', 'L', 'V', 1, 0x05, 0, 0, 0, 9});
+        out.write(new byte[4]);
+    }
+
+    /**
+     * 写入一个视频 tag，时间戳按 tag 序号推算
+     */
+    void writeVideoTag() throws IOException {
+        long timestamp = tagCount * 1000 / TAGS_PER_SECOND;
+        // AVC：关键帧 0x17，非关键帧 0x27；AVCPacketType=1（NALU），CompositionTime=0
+        payload[0] = (byte) (tagCount % KEYFRAME_INTERVAL == 0 ? 0x17 : 0x27);
+        payload[1] = 1;
+        payload[2] = 0;
+        payload[3] = 0;
+        payload[4] = 0;
+
+        int dataSize = payload.length;
+        header[0] = 9;
+        header[1] = (byte) (dataSize >>> 16);
+        header[2] = (byte) (dataSize >>> 8);
+        header[3] = (byte) dataSize;
+        header[4] = (byte) (timestamp >>> 16);
+        header[5] = (byte) (timestamp >>> 8);
+        header[6] = (byte) timestamp;
+        header[7] = (byte) (timestamp >>> 24);
+        out.write(header);
+        out.write(payload);
+
+        int tagSize = TAG_HEADER_SIZE + dataSize;
+        previousTagSize[0] = (byte) (tagSize >>> 24);
+        previousTagSize[1] = (byte) (tagSize >>> 16);
+        previousTagSize[2] = (byte) (tagSize >>> 8);
+        previousTagSize[3] = (byte) tagSize;
+        out.write(previousTagSize);
+        tagCount++;
+    }
+
+    /**
+     * 每个 tag 占用的字节数（含 tag 头与 PreviousTagSize）
+     */
+    int bytesPerTag() {
+        return TAG_HEADER_SIZE + payload.length + 4;
+    }
+}
@@ -0,0 +1,344 @@
+package com.douyin.liverecorder.loadtest;
+
+import com.douyin.liverecorder.LiveRecorderApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 录制服务压测驱动
+ * 启动模拟抖音服务，按参数创建大量录制任务，统计：
+ * <ul>
+ *   <li>创建任务接口的吞吐量、延迟分位数和状态码分布</li>
+ *   <li>任务从创建到进入 RECORDING 的耗时分位数</li>
+ *   <li>压测期间录制服务的 CPU、堆内存、线程数和写入速率（来自 /actuator/metrics）</li>
+ * </ul>
+ * 未指定 --app-url 时在本进程内启动录制服务，并把 douyin.api-base-url 指向模拟服务；
+ * 指定时只压测外部服务（外部服务需自行配置 douyin.api-base-url）。
+ * 结果输出到控制台，并写入 {output-dir}/loadtest-report.json
+ */
+public final class LoadDriver {
+
+    private static final String FAKE_FFMPEG = "fake-ffmpeg.sh";
+    private static final String[] SAMPLED_METRICS = {
+            "process.cpu.usage", "jvm.memory.used", "jvm.threads.live", "recording.bytes.written"
+    };
+
+    private final RecorderClient client;
+    private final Path outputDir;
+    private final boolean auto;
+    private final int concurrency;
+
+    // 任务ID -> 发出创建请求的时刻
+    private final Map<String, Long> createdAt = new ConcurrentHashMap<>();
+    // 任务ID -> 从创建到首次观察到 RECORDING 的毫秒数
+    private final Map<String, Long> timeToRecording = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicInteger> startStatusCodes = new ConcurrentHashMap<>();
+    private final List<Long> startLatencies = new ArrayList<>();
+    private final List<Map<String, Object>> samples = new ArrayList<>();
+
+    private LoadDriver(String appUrl, Path outputDir, boolean auto, int concurrency) {
+        this.client = new RecorderClient(appUrl);
+        this.outputDir = outputDir;
+        this.auto = auto;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * 参数：
+     * --rooms=1000 --tasks=1000 --bitrate-kbps=800 --offline-ms=0 --online-ms=600000 --duration-s=60
+     * --concurrency=32 --auto=false --output-dir=target/loadtest --app-url=（为空时内嵌启动）
+     * --ffmpeg-path=（内嵌启动时使用，默认为当前目录下的 fake-ffmpeg.sh）
+     * --api-error-rate=0 --forbidden-rate=0 --reset-rate=0 --stall-rate=0 --stall-ms=5000 --seed=42
+     */
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        Path outputDir = Paths.get(options.get("output-dir", "target/loadtest")).toAbsolutePath();
+        Files.createDirectories(outputDir.resolve("recordings"));
+
+        try (FakeDouyinServer server = options.createServer().start(options.getInt("port", 0))) {
+            int tasks = Math.min(options.getInt("tasks", server.roomIds().size()), server.roomIds().size());
+            String appUrl = options.get("app-url", null);
+            ConfigurableApplicationContext context = null;
+            if (appUrl == null) {
+                context = startEmbedded(server.baseUrl(), outputDir, tasks, resolveFfmpegPath(options), Map.of());
+                appUrl = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+            }
+            System.out.printf("模拟服务: %s，录制服务: %s，任务数: %d%n", server.baseUrl(), appUrl, tasks);
+            if (context != null) {
+                System.out.println("FFmpeg: " + context.getEnvironment().getProperty("ffmpeg.path"));
+            }
+
+            try {
+                LoadDriver driver = new LoadDriver(appUrl, outputDir, options.getBoolean("auto", false),
+                        options.getInt("concurrency", 32));
+                Map<String, Object> report = driver.run(server, tasks, options.getInt("duration-s", 60));
+                writeReport(outputDir.resolve("loadtest-report.json"), report);
+            } finally {
+                if (context != null) {
+                    context.close();
+                }
+            }
+        }
+        // 内嵌的录制服务关闭后仍可能残留非守护线程，压测结束后直接退出
+        System.exit(0);
+    }
+
+    /**
+     * 内嵌模式使用的 FFmpeg：优先使用 --ffmpeg-path，其次是当前目录下的 fake-ffmpeg.sh，都没有时使用 PATH 中的 ffmpeg
+     */
+    static String resolveFfmpegPath(LoadTestOptions options) {
+        String configured = options.get("ffmpeg-path", null);
+        if (configured != null) {
+            return configured;
+        }
+        Path fake = Paths.get(FAKE_FFMPEG);
+        return Files.isExecutable(fake) ? fake.toAbsolutePath().toString() : "ffmpeg";
+    }
+
+    /**
+     * 在本进程内启动录制服务，数据目录都放在 outputDir 下
+     *
+     * @param apiBaseUrl 模拟服务地址
+     * @param outputDir 输出目录
+     * @param tasks 并发任务上限
+     * @param ffmpegPath FFmpeg可执行文件
+     * @param overrides 覆盖的配置项
+     * @return 应用上下文
+     */
+    static ConfigurableApplicationContext startEmbedded(String apiBaseUrl, Path outputDir, int tasks,
+                                                        String ffmpegPath, Map<String, Object> overrides) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("server.port", 0);
+        properties.put("douyin.api-base-url", apiBaseUrl);
+        properties.put("ffmpeg.path", ffmpegPath);
+        properties.put("douyin.cookie-file", outputDir.resolve("cookie.txt").toString());
+        properties.put("recording.max-concurrent-tasks", tasks);
+        properties.put("recording.admission.max-queue-size", tasks);
+        properties.put("recording.retention.max-terminal-tasks", tasks * 2);
+        properties.put("recording.storage.path", outputDir.resolve("recordings").toString());
+        properties.put("recording.task-log-path", outputDir.resolve("task.txt").toString());
+        properties.put("recording.state.dir", outputDir.resolve("task-state").toString());
+        properties.put("recording.history.dir", outputDir.resolve("task-history").toString());
+        properties.put("recording.watchlist.enabled", false);
+        properties.put("recording.watchlist.file", outputDir.resolve("watchlist.json").toString());
+        properties.put("recording.jfr.continuous", false);
+        properties.put("management.endpoints.web.exposure.include", "health,metrics");
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.com.douyin.liverecorder", "WARN");
+        properties.put("logging.file.name", outputDir.resolve("live-recorder.log").toString());
+        properties.putAll(overrides);
+        return new SpringApplicationBuilder(LiveRecorderApplication.class)
+                .properties(properties)
+                .run();
+    }
+
+    private Map<String, Object> run(FakeDouyinServer server, int tasks, int durationSeconds) throws Exception {
+        List<String> roomIds = server.roomIds().subList(0, tasks);
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            long startNanos = System.nanoTime();
+            List<String> taskIds = startTasks(executor, roomIds);
+            double startSeconds = (System.nanoTime() - startNanos) / 1e9;
+            System.out.printf("已创建 %d 个任务，耗时 %.1f 秒%n", taskIds.size(), startSeconds);
+
+            Map<String, Integer> lastStatuses = Map.of();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+            while (System.nanoTime() < deadline) {
+                TimeUnit.SECONDS.sleep(1);
+                lastStatuses = pollStatuses(taskIds);
+                Map<String, Object> sample = sampleMetrics();
+                sample.put("elapsedSeconds", (System.nanoTime() - startNanos) / 1_000_000_000L);
+                sample.put("statuses", lastStatuses);
+                samples.add(sample);
+                System.out.printf("[%3ds] %s recording=%d/%d%n", sample.get("elapsedSeconds"), lastStatuses,
+                        timeToRecording.size(), taskIds.size());
+            }
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("tasks", taskIds.size());
+            report.put("durationSeconds", durationSeconds);
+            report.put("start", startReport(startSeconds));
+            report.put("timeToRecordingMs", percentiles(new ArrayList<>(timeToRecording.values())));
+            report.put("reachedRecording", timeToRecording.size());
+            report.put("finalStatuses", lastStatuses);
+            report.put("resources", resourceReport());
+            report.put("simulator", server.stats());
+            report.put("samples", samples);
+
+            stopTasks(executor, taskIds);
+            return report;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<String> startTasks(ExecutorService executor, List<String> roomIds) throws Exception {
+        List<Future<String>> futures = new ArrayList<>();
+        for (String roomId : roomIds) {
+            futures.add(executor.submit(() -> startTask(roomId)));
+        }
+        List<String> taskIds = new ArrayList<>();
+        for (Future<String> future : futures) {
+            String taskId = future.get();
+            if (taskId != null) {
+                taskIds.add(taskId);
+            }
+        }
+        return taskIds;
+    }
+
+    private String startTask(String roomId) throws IOException, InterruptedException {
+        long requestNanos = System.nanoTime();
+        HttpResponse<String> response = client.start(roomId, auto, outputDir.resolve("recordings").toString());
+        long latency = System.nanoTime() - requestNanos;
+        synchronized (startLatencies) {
+            startLatencies.add(latency);
+        }
+        startStatusCodes.computeIfAbsent(response.statusCode(), code -> new AtomicInteger()).incrementAndGet();
+        if (response.statusCode() / 100 != 2) {
+            return null;
+        }
+        String taskId = client.readTree(response).path("taskId").asText();
+        createdAt.put(taskId, requestNanos);
+        return taskId;
+    }
+
+    private Map<String, Integer> pollStatuses(List<String> taskIds) throws IOException, InterruptedException {
+        Map<String, Integer> counts = new TreeMap<>();
+        long now = System.nanoTime();
+        for (int from = 0; from < taskIds.size(); from += RecorderClient.STATUS_BATCH_SIZE) {
+            List<String> batch = taskIds.subList(from,
+                    Math.min(from + RecorderClient.STATUS_BATCH_SIZE, taskIds.size()));
+            HttpResponse<String> response = client.statuses(batch);
+            if (response.statusCode() != 200) {
+                counts.merge("HTTP_" + response.statusCode(), batch.size(), Integer::sum);
+                continue;
+            }
+            for (JsonNode status : client.readTree(response).path("statuses")) {
+                String taskId = status.path("taskId").asText();
+                String state = status.path("status").asText();
+                counts.merge(state, 1, Integer::sum);
+                Long created = createdAt.get(taskId);
+                if ("RECORDING".equals(state) && created != null) {
+                    timeToRecording.putIfAbsent(taskId, TimeUnit.NANOSECONDS.toMillis(now - created));
+                }
+            }
+        }
+        return counts;
+    }
+
+    private Map<String, Object> sampleMetrics() throws InterruptedException {
+        Map<String, Object> sample = new LinkedHashMap<>();
+        for (String metric : SAMPLED_METRICS) {
+            // 指标不可用时跳过，不影响压测
+            Double value = client.metric(metric);
+            if (value != null) {
+                sample.put(metric, value);
+            }
+        }
+        return sample;
+    }
+
+    private void stopTasks(ExecutorService executor, List<String> taskIds) throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        for (String taskId : taskIds) {
+            futures.add(executor.submit(() -> client.stop(taskId)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    private Map<String, Object> startReport(double seconds) {
+        Map<String, Object> start = new LinkedHashMap<>();
+        List<Long> latenciesMs = new ArrayList<>();
+        synchronized (startLatencies) {
+            for (long nanos : startLatencies) {
+                latenciesMs.add(TimeUnit.NANOSECONDS.toMicros(nanos) / 1000);
+            }
+        }
+        start.put("requests", latenciesMs.size());
+        start.put("throughputPerSecond", seconds > 0 ? Math.round(latenciesMs.size() / seconds) : 0);
+        start.put("latencyMs", percentiles(latenciesMs));
+        Map<String, Integer> codes = new TreeMap<>();
+        startStatusCodes.forEach((code, count) -> codes.put(String.valueOf(code), count.get()));
+        start.put("statusCodes", codes);
+        return start;
+    }
+
+    private Map<String, Object> resourceReport() {
+        Map<String, Object> resources = new LinkedHashMap<>();
+        for (String metric : SAMPLED_METRICS) {
+            double max = 0;
+            for (Map<String, Object> sample : samples) {
+                Object value = sample.get(metric);
+                if (value instanceof Double d) {
+                    max = Math.max(max, d);
+                }
+            }
+            resources.put(metric + ".max", max);
+        }
+        if (samples.size() >= 2) {
+            Map<String, Object> first = samples.get(0);
+            Map<String, Object> last = samples.get(samples.size() - 1);
+            Object firstBytes = first.get("recording.bytes.written");
+            Object lastBytes = last.get("recording.bytes.written");
+            long seconds = (long) last.get("elapsedSeconds") - (long) first.get("elapsedSeconds");
+            if (firstBytes instanceof Double from && lastBytes instanceof Double to && seconds > 0) {
+                resources.put("writeBytesPerSecond", Math.round((to - from) / seconds));
+            }
+        }
+        return resources;
+    }
+
+    static Map<String, Object> percentiles(List<Long> values) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", values.size());
+        if (values.isEmpty()) {
+            return result;
+        }
+        long[] sorted = values.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        result.put("min", sorted[0]);
+        result.put("p50", sorted[index(sorted.length, 0.50)]);
+        result.put("p90", sorted[index(sorted.length, 0.90)]);
+        result.put("p99", sorted[index(sorted.length, 0.99)]);
+        result.put("max", sorted[sorted.length - 1]);
+        return result;
+    }
+
+    private static int index(int length, double quantile) {
+        return Math.min(length - 1, (int) Math.ceil(quantile * length) - 1);
+    }
+
+    /**
+     * 把报告输出到控制台并写入文件
+     */
+    static void writeReport(Path file, Map<String, Object> report) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        objectMapper.writeValue(file.toFile(), report);
+        System.out.println(objectMapper.writeValueAsString(report));
+        System.out.println("报告已写入: " + file);
+    }
+}
@@ -0,0 +1,76 @@
+package com.douyin.liverecorder.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 压测参数，格式为 --key=value
+ */
+final class LoadTestOptions {
+
+    private final Map<String, String> values;
+
+    private LoadTestOptions(Map<String, String> values) {
+        this.values = values;
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("无法识别的参数: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                values.put(arg.substring(2), "true");
+            } else {
+                values.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return new LoadTestOptions(values);
+    }
+
+    String get(String key, String defaultValue) {
+        return values.getOrDefault(key, defaultValue);
+    }
+
+    int getInt(String key, int defaultValue) {
+        String value = values.get(key);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    long getLong(String key, long defaultValue) {
+        String value = values.get(key);
+        return value != null ? Long.parseLong(value) : defaultValue;
+    }
+
+    double getDouble(String key, double defaultValue) {
+        String value = values.get(key);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+
+    boolean getBoolean(String key, boolean defaultValue) {
+        String value = values.get(key);
+        return value != null ? Boolean.parseBoolean(value) : defaultValue;
+    }
+
+    /**
+     * 按参数创建（未启动的）模拟服务
+     */
+    FakeDouyinServer createServer() {
+        FaultProfile faults = new FaultProfile(
+                getDouble("api-error-rate", 0),
+                getDouble("forbidden-rate", 0),
+                getDouble("reset-rate", 0),
+                getDouble("stall-rate", 0),
+                getLong("stall-ms", 5000));
+        return FakeDouyinServer.create(
+                getInt("rooms", 1000),
+                get("room-prefix", "sim"),
+                getInt("bitrate-kbps", 800),
+                getLong("offline-ms", 0),
+                getLong("online-ms", 600_000),
+                faults,
+                getLong("seed", 42));
+    }
+}
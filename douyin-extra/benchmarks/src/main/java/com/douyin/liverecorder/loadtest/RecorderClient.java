@@ -0,0 +1,104 @@
+package com.douyin.liverecorder.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 录制服务 REST 接口的简单客户端，供压测和浸泡测试使用
+ */
+final class RecorderClient {
+
+    static final int STATUS_BATCH_SIZE = 500;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String appUrl;
+
+    RecorderClient(String appUrl) {
+        this.appUrl = appUrl;
+    }
+
+    ObjectMapper objectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * POST /api/recordings/start
+     */
+    HttpResponse<String> start(String douyinId, boolean auto, String outputDir)
+            throws IOException, InterruptedException {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("douyinId", douyinId);
+        body.put("auto", auto);
+        body.put("outputDir", outputDir);
+        return post("/api/recordings/start", body);
+    }
+
+    /**
+     * POST /api/recordings/statuses（最多 {@value #STATUS_BATCH_SIZE} 个任务ID）
+     */
+    HttpResponse<String> statuses(List<String> taskIds) throws IOException, InterruptedException {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.set("taskIds", objectMapper.valueToTree(taskIds));
+        return post("/api/recordings/statuses", body);
+    }
+
+    /**
+     * POST /api/recordings/{taskId}/stop
+     */
+    HttpResponse<String> stop(String taskId) throws IOException, InterruptedException {
+        return post("/api/recordings/" + taskId + "/stop", null);
+    }
+
+    /**
+     * 读取 /actuator/metrics/{name} 的第一个测量值，不可用时返回null
+     */
+    Double metric(String name) throws InterruptedException {
+        try {
+            HttpResponse<String> response = get("/actuator/metrics/" + name);
+            if (response.statusCode() != 200) {
+                return null;
+            }
+            JsonNode measurements = objectMapper.readTree(response.body()).path("measurements");
+            return measurements.path(0).path("value").asDouble();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    JsonNode readTree(HttpResponse<String> response) throws IOException {
+        return objectMapper.readTree(response.body());
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(appUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, JsonNode body) throws IOException, InterruptedException {
+        HttpRequest.BodyPublisher publisher = body != null
+                ? HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body))
+                : HttpRequest.BodyPublishers.noBody();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(appUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(publisher)
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
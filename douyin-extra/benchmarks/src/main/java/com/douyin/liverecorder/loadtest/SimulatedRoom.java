@@ -0,0 +1,45 @@
+package com.douyin.liverecorder.loadtest;
+
+/**
+ * 模拟直播间
+ * 开播状态按固定周期循环：先下播 offlineMs，再开播 onlineMs；phaseMs 让各直播间错开开播时间。
+ * offlineMs 为0时始终在播
+ *
+ * @param id 直播间ID（同时作为抖音号使用）
+ * @param bitrateKbps 推流码率
+ * @param offlineMs 每个周期的下播时长
+ * @param onlineMs 每个周期的开播时长
+ * @param phaseMs 周期相位
+ */
+public record SimulatedRoom(String id, int bitrateKbps, long offlineMs, long onlineMs, long phaseMs) {
+
+    /**
+     * 指定时刻是否在播
+     *
+     * @param elapsedMs 模拟服务启动后经过的毫秒数
+     */
+    public boolean isLive(long elapsedMs) {
+        if (offlineMs <= 0) {
+            return true;
+        }
+        long cycle = offlineMs + onlineMs;
+        return (elapsedMs + phaseMs) % cycle >= offlineMs;
+    }
+
+    /**
+     * 当前这一场直播的开播时间（模拟服务启动后的毫秒数），未在播时返回-1
+     *
+     * @param elapsedMs 模拟服务启动后经过的毫秒数
+     */
+    public long liveSince(long elapsedMs) {
+        if (!isLive(elapsedMs)) {
+            return -1;
+        }
+        if (offlineMs <= 0) {
+            return 0;
+        }
+        long cycle = offlineMs + onlineMs;
+        long position = (elapsedMs + phaseMs) % cycle;
+        return elapsedMs - (position - offlineMs);
+    }
+}
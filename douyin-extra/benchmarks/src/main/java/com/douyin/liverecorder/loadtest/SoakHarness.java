@@ -0,0 +1,375 @@
+package com.douyin.liverecorder.loadtest;
+
+import com.douyin.liverecorder.model.TaskStatus;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.management.UnixOperatingSystemMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.net.http.HttpResponse;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 浸泡测试：长时间让大量短任务在模拟服务上循环，检查内存、线程、文件描述符和内部集合是否持续增长
+ * <p>
+ * 模拟直播间按周期开播/下播，任务随直播结束而完成，另有一部分任务在录制中途被停止。
+ * 始终保持 --concurrency 个进行中的任务，每隔 --sample-interval-s 秒通过 JMX 和应用的 MeterRegistry 采样：
+ * <ul>
+ *   <li>堆内存（采样前触发一次GC）、线程数、FFmpeg输出读取线程数、打开的文件描述符数、子进程数</li>
+ *   <li>FFmpegWrapper 跟踪的进程数、RecordingManager 保留的任务数</li>
+ * </ul>
+ * 预热结束时的样本作为基线，之后任一指标连续 3 个样本都超过「基线 + 允许增长」即判定为泄漏，
+ * 报告写入 {output-dir}/soak-report.json，存在泄漏时以退出码 1 结束。
+ * 录制服务在本进程内启动，因此只能配合模拟服务使用
+ */
+public final class SoakHarness {
+
+    private static final int VIOLATION_STREAK = 3;
+    private static final String READER_THREAD_PREFIX = "FFmpeg-Output-Reader-";
+
+    private final RecorderClient client;
+    private final FakeDouyinServer server;
+    private final MeterRegistry registry;
+    private final Path recordingsDir;
+    private final int concurrency;
+    private final double userStopRatio;
+    private final Map<String, Long> bounds;
+
+    // 进行中的任务：任务ID -> 任务信息
+    private final Map<String, ActiveTask> active = new HashMap<>();
+    private final Set<String> busyRooms = new HashSet<>();
+    private final Map<String, Integer> terminalStatuses = new TreeMap<>();
+    private final Map<Integer, Integer> startFailures = new TreeMap<>();
+    private final List<Map<String, Object>> samples = new ArrayList<>();
+    private final List<String> violations = new ArrayList<>();
+    private final Map<String, Deque<Long>> recentValues = new HashMap<>();
+    private Map<String, Long> baseline;
+    private int roomCursor;
+    private long startedTasks;
+    private long userStops;
+
+    private SoakHarness(RecorderClient client, FakeDouyinServer server, MeterRegistry registry, Path recordingsDir,
+                        int concurrency, double userStopRatio, Map<String, Long> bounds) {
+        this.client = client;
+        this.server = server;
+        this.registry = registry;
+        this.recordingsDir = recordingsDir;
+        this.concurrency = concurrency;
+        this.userStopRatio = userStopRatio;
+        this.bounds = bounds;
+    }
+
+    /**
+     * 参数（另外支持 LoadDriver 的模拟服务与故障参数）：
+     * --concurrency=100 --rooms=（默认并发数的2倍）--bitrate-kbps=64 --online-ms=20000 --offline-ms=10000
+     * --duration-m=60 --warmup-s=120 --sample-interval-s=10 --user-stop-ratio=0.3 --retained-terminal-tasks=500
+     * --max-heap-growth-mb=64 --max-thread-growth=50 --max-fd-growth=100 --max-tracked-process-growth=（默认并发数）
+     * --max-child-processes=（默认并发数的2倍）--output-dir=target/soak
+     */
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        int concurrency = options.getInt("concurrency", 100);
+        List<String> defaults = List.of(
+                "--rooms=" + concurrency * 2, "--bitrate-kbps=64", "--online-ms=20000", "--offline-ms=10000");
+        LoadTestOptions withDefaults = LoadTestOptions.parse(merge(defaults, args));
+
+        Path outputDir = Paths.get(options.get("output-dir", "target/soak")).toAbsolutePath();
+        Path recordingsDir = outputDir.resolve("recordings");
+        Files.createDirectories(recordingsDir);
+
+        int retainedTerminalTasks = options.getInt("retained-terminal-tasks", 500);
+        Map<String, Long> bounds = new LinkedHashMap<>();
+        bounds.put("heapUsedMb", options.getLong("max-heap-growth-mb", 64));
+        bounds.put("threads", options.getLong("max-thread-growth", 50));
+        bounds.put("readerThreads", options.getLong("max-thread-growth", 50));
+        bounds.put("openFds", options.getLong("max-fd-growth", 100));
+        bounds.put("trackedProcesses", options.getLong("max-tracked-process-growth", concurrency));
+
+        boolean leaked;
+        try (FakeDouyinServer server = withDefaults.createServer().start(0)) {
+            Map<String, Object> overrides = Map.of(
+                    "recording.retention.max-terminal-tasks", retainedTerminalTasks,
+                    "recording.state.enabled", false);
+            ConfigurableApplicationContext context = LoadDriver.startEmbedded(server.baseUrl(), outputDir,
+                    concurrency, LoadDriver.resolveFfmpegPath(options), overrides);
+            try {
+                String appUrl = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+                SoakHarness harness = new SoakHarness(new RecorderClient(appUrl), server,
+                        context.getBean(MeterRegistry.class), recordingsDir, concurrency,
+                        options.getDouble("user-stop-ratio", 0.3), bounds);
+                long maxRetained = concurrency + retainedTerminalTasks;
+                long maxChildren = options.getLong("max-child-processes", concurrency * 2L);
+                Map<String, Object> report = harness.run(
+                        TimeUnit.MINUTES.toNanos(options.getLong("duration-m", 60)),
+                        TimeUnit.SECONDS.toNanos(options.getLong("warmup-s", 120)),
+                        TimeUnit.SECONDS.toNanos(options.getLong("sample-interval-s", 10)),
+                        maxRetained, maxChildren);
+                LoadDriver.writeReport(outputDir.resolve("soak-report.json"), report);
+                leaked = !harness.violations.isEmpty();
+            } finally {
+                context.close();
+            }
+        }
+        System.out.println(leaked ? "浸泡测试失败：存在持续增长的指标" : "浸泡测试通过");
+        // 内嵌的录制服务关闭后仍可能残留非守护线程，直接退出
+        System.exit(leaked ? 1 : 0);
+    }
+
+    private static String[] merge(List<String> defaults, String[] args) {
+        List<String> merged = new ArrayList<>(defaults);
+        merged.addAll(List.of(args));
+        return merged.toArray(new String[0]);
+    }
+
+    private Map<String, Object> run(long durationNanos, long warmupNanos, long sampleIntervalNanos,
+                                    long maxRetainedTasks, long maxChildProcesses) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        long startNanos = System.nanoTime();
+        long nextSample = startNanos + sampleIntervalNanos;
+        try {
+            while (System.nanoTime() - startNanos < durationNanos) {
+                TimeUnit.SECONDS.sleep(1);
+                long now = System.nanoTime();
+                pollActive();
+                stopDue(executor, now);
+                topUp(executor, now);
+
+                if (now >= nextSample) {
+                    nextSample += sampleIntervalNanos;
+                    Map<String, Long> sample = sample();
+                    long elapsedSeconds = TimeUnit.NANOSECONDS.toSeconds(now - startNanos);
+                    if (baseline == null && now - startNanos >= warmupNanos) {
+                        baseline = sample;
+                        System.out.println("基线: " + baseline);
+                    } else if (baseline != null) {
+                        check(sample, elapsedSeconds, maxRetainedTasks, maxChildProcesses);
+                    }
+                    Map<String, Object> record = new LinkedHashMap<>();
+                    record.put("elapsedSeconds", elapsedSeconds);
+                    record.putAll(sample);
+                    record.put("activeTasks", active.size());
+                    record.put("completedCycles", completedCycles());
+                    samples.add(record);
+                    System.out.println(record);
+                    deleteFinishedRecordings();
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("durationSeconds", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos));
+        report.put("concurrency", concurrency);
+        report.put("startedTasks", startedTasks);
+        report.put("completedCycles", completedCycles());
+        report.put("userStops", userStops);
+        report.put("terminalStatuses", terminalStatuses);
+        report.put("startFailures", startFailures);
+        report.put("baseline", baseline);
+        report.put("allowedGrowth", bounds);
+        report.put("maxRetainedTasks", maxRetainedTasks);
+        report.put("maxChildProcesses", maxChildProcesses);
+        report.put("violations", violations);
+        report.put("simulator", server.stats());
+        report.put("samples", samples);
+        return report;
+    }
+
+    private int completedCycles() {
+        return terminalStatuses.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * 查询进行中任务的状态，结束的任务释放直播间
+     */
+    private void pollActive() throws IOException, InterruptedException {
+        List<String> taskIds = new ArrayList<>(active.keySet());
+        for (int from = 0; from < taskIds.size(); from += RecorderClient.STATUS_BATCH_SIZE) {
+            List<String> batch = taskIds.subList(from,
+                    Math.min(from + RecorderClient.STATUS_BATCH_SIZE, taskIds.size()));
+            HttpResponse<String> response = client.statuses(batch);
+            if (response.statusCode() != 200) {
+                continue;
+            }
+            JsonNode body = client.readTree(response);
+            for (JsonNode status : body.path("statuses")) {
+                String state = status.path("status").asText();
+                if (TaskStatus.valueOf(state).isTerminal()) {
+                    finish(status.path("taskId").asText(), state);
+                }
+            }
+            for (JsonNode taskId : body.path("notFound")) {
+                finish(taskId.asText(), "EVICTED");
+            }
+        }
+    }
+
+    private void finish(String taskId, String state) {
+        ActiveTask task = active.remove(taskId);
+        if (task != null) {
+            busyRooms.remove(task.roomId());
+            terminalStatuses.merge(state, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * 停止到达预定时间的任务（模拟用户中途停止）
+     */
+    private void stopDue(ExecutorService executor, long now) throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        for (Map.Entry<String, ActiveTask> entry : active.entrySet()) {
+            ActiveTask task = entry.getValue();
+            if (task.stopAtNanos() > 0 && now >= task.stopAtNanos()) {
+                entry.setValue(new ActiveTask(task.roomId(), 0));
+                userStops++;
+                futures.add(executor.submit(() -> client.stop(entry.getKey())));
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    /**
+     * 补足进行中的任务，只在当前在播的直播间上创建任务
+     */
+    private void topUp(ExecutorService executor, long now) throws Exception {
+        int missing = concurrency - active.size();
+        if (missing <= 0) {
+            return;
+        }
+        List<String> rooms = pickLiveRooms(missing);
+        List<Future<HttpResponse<String>>> futures = new ArrayList<>();
+        for (String roomId : rooms) {
+            busyRooms.add(roomId);
+            futures.add(executor.submit(() -> client.start(roomId, false, recordingsDir.toString())));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < rooms.size(); i++) {
+            HttpResponse<String> response = futures.get(i).get();
+            if (response.statusCode() / 100 != 2) {
+                busyRooms.remove(rooms.get(i));
+                startFailures.merge(response.statusCode(), 1, Integer::sum);
+                continue;
+            }
+            startedTasks++;
+            long stopAt = random.nextDouble() < userStopRatio
+                    ? now + TimeUnit.SECONDS.toNanos(random.nextLong(3, 16)) : 0;
+            active.put(client.readTree(response).path("taskId").asText(), new ActiveTask(rooms.get(i), stopAt));
+        }
+    }
+
+    private List<String> pickLiveRooms(int count) {
+        List<String> roomIds = server.roomIds();
+        List<String> picked = new ArrayList<>();
+        int liveRooms = server.liveRoomCount();
+        for (int scanned = 0; scanned < roomIds.size() && picked.size() < count && liveRooms > 0; scanned++) {
+            String roomId = roomIds.get(roomCursor);
+            roomCursor = (roomCursor + 1) % roomIds.size();
+            if (!busyRooms.contains(roomId) && server.isLive(roomId)) {
+                picked.add(roomId);
+            }
+        }
+        return picked;
+    }
+
+    private Map<String, Long> sample() {
+        System.gc();
+        Map<String, Long> sample = new LinkedHashMap<>();
+        sample.put("heapUsedMb", ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / (1024 * 1024));
+        sample.put("threads", (long) ManagementFactory.getThreadMXBean().getThreadCount());
+        sample.put("readerThreads", Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith(READER_THREAD_PREFIX))
+                .count());
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof UnixOperatingSystemMXBean unix) {
+            sample.put("openFds", unix.getOpenFileDescriptorCount());
+        }
+        sample.put("childProcesses", ProcessHandle.current().children().count());
+        sample.put("trackedProcesses", gauge("ffmpeg.processes.tracked"));
+        sample.put("retainedTasks", (long) registry.find("recording.tasks").gauges().stream()
+                .mapToDouble(Gauge::value)
+                .sum());
+        return sample;
+    }
+
+    private long gauge(String name) {
+        Gauge gauge = registry.find(name).gauge();
+        return gauge != null ? (long) gauge.value() : -1;
+    }
+
+    /**
+     * 连续 {@value #VIOLATION_STREAK} 个样本超过上限才记为泄漏，避免偶发尖峰误报
+     */
+    private void check(Map<String, Long> sample, long elapsedSeconds, long maxRetainedTasks,
+                       long maxChildProcesses) {
+        Map<String, Long> limits = new LinkedHashMap<>();
+        bounds.forEach((metric, growth) -> {
+            if (baseline.containsKey(metric)) {
+                limits.put(metric, baseline.get(metric) + growth);
+            }
+        });
+        limits.put("retainedTasks", maxRetainedTasks);
+        limits.put("childProcesses", maxChildProcesses);
+
+        limits.forEach((metric, limit) -> {
+            Long value = sample.get(metric);
+            if (value == null) {
+                return;
+            }
+            Deque<Long> recent = recentValues.computeIfAbsent(metric, key -> new ArrayDeque<>());
+            recent.addLast(value);
+            if (recent.size() > VIOLATION_STREAK) {
+                recent.removeFirst();
+            }
+            long floor = recent.stream().mapToLong(Long::longValue).min().orElse(value);
+            if (recent.size() == VIOLATION_STREAK && floor > limit) {
+                String violation = String.format("%ds: %s=%d 超过上限 %d（基线 %s）",
+                        elapsedSeconds, metric, floor, limit, baseline.get(metric));
+                violations.add(violation);
+                System.out.println("[泄漏] " + violation);
+                recent.clear();
+            }
+        });
+    }
+
+    /**
+     * 删除已完成的录制文件，避免长时间运行占满磁盘（只删除 30 秒内没有写入的 MP4）
+     */
+    private void deleteFinishedRecordings() throws IOException {
+        long cutoff = System.currentTimeMillis() - 30_000;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(recordingsDir, "*.mp4")) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toMillis() < cutoff) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private record ActiveTask(String roomId, long stopAtNanos) {
+    }
+}
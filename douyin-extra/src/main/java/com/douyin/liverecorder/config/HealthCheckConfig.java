@@ -1,7 +1,6 @@
 package com.douyin.liverecorder.config;
 
-import com.douyin.liverecorder.infrastructure.FFmpegWrapper;
-import com.douyin.liverecorder.infrastructure.FileSystemManager;
+import com.douyin.liverecorder.infrastructure.FFmpegInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.actuate.health.Health;
@@ -11,7 +10,7 @@ import org.springframework.context.annotation.Configuration;
 
 /**
  * 健康检查配置
- * 提供FFmpeg和存储空间的健康检查
+ * 提供FFmpeg和存储空间的健康检查，数据由 {@link HealthStatusRefresher} 在后台刷新
  */
 @Configuration
 public class HealthCheckConfig {
@@ -20,32 +19,34 @@ public class HealthCheckConfig {
     
     /**
      * FFmpeg健康检查指示器
+     * 只读取 {@link HealthStatusRefresher} 缓存的探测结果，不在健康检查请求里启动 FFmpeg 进程
      */
     @Bean
-    public HealthIndicator ffmpegHealthIndicator(FFmpegWrapper ffmpegWrapper) {
+    public HealthIndicator ffmpegHealthIndicator(HealthStatusRefresher healthStatusRefresher) {
         return () -> {
-            try {
-                boolean isAvailable = ffmpegWrapper.isFFmpegAvailable();
-                
-                if (isAvailable) {
-                    String version = ffmpegWrapper.getFFmpegVersion();
-                    logger.debug("FFmpeg健康检查: 可用, 版本={}", version);
-                    return Health.up()
-                            .withDetail("available", true)
-                            .withDetail("version", version)
-                            .build();
-                } else {
-                    logger.warn("FFmpeg健康检查: 不可用");
-                    return Health.down()
-                            .withDetail("available", false)
-                            .withDetail("reason", "FFmpeg未安装或不在PATH中")
-                            .build();
-                }
-            } catch (Exception e) {
-                logger.error("FFmpeg健康检查失败", e);
+            HealthStatusRefresher.FFmpegStatus status = healthStatusRefresher.getFFmpegStatus();
+            if (status == null) {
+                return Health.unknown()
+                        .withDetail("available", false)
+                        .withDetail("reason", "FFmpeg尚未完成启动探测")
+                        .build();
+            }
+
+            FFmpegInfo info = status.info();
+            if (info.available()) {
+                return Health.up()
+                        .withDetail("available", true)
+                        .withDetail("path", info.path())
+                        .withDetail("version", info.version())
+                        .withDetail("supportsHttps", info.supportsInput("https"))
+                        .withDetail("checkedAt", status.checkedAt().toString())
+                        .build();
+            } else {
                 return Health.down()
                         .withDetail("available", false)
-                        .withDetail("error", e.getMessage())
+                        .withDetail("path", info.path())
+                        .withDetail("reason", "FFmpeg未安装、不在PATH中或 ffmpeg.path 配置错误")
+                        .withDetail("checkedAt", status.checkedAt().toString())
                         .build();
             }
         };
@@ -53,14 +54,15 @@ public class HealthCheckConfig {
     
     /**
      * 存储空间健康检查指示器
+     * 只读取 {@link HealthStatusRefresher} 定期刷新的结果
      */
     @Bean
-    public HealthIndicator storageHealthIndicator(FileSystemManager fileSystemManager) {
+    public HealthIndicator storageHealthIndicator(HealthStatusRefresher healthStatusRefresher) {
         return () -> {
             try {
-                String storagePath = fileSystemManager.getStoragePath();
-                long availableSpace = fileSystemManager.getAvailableSpace(storagePath);
-                long totalSpace = fileSystemManager.getTotalSpace(storagePath);
+                HealthStatusRefresher.StorageStatus status = healthStatusRefresher.getStorageStatus();
+                long availableSpace = status.availableSpace();
+                long totalSpace = status.totalSpace();
                 
                 // 计算可用空间百分比
                 double availablePercent = (double) availableSpace / totalSpace * 100;
@@ -68,26 +70,23 @@ public class HealthCheckConfig {
                 // 如果可用空间小于10%或小于1GB，标记为DOWN
                 boolean isHealthy = availableSpace > 1024 * 1024 * 1024 && availablePercent > 10;
                 
-                logger.debug("存储空间健康检查: 可用={}MB, 总计={}MB, 百分比={:.2f}%", 
-                           availableSpace / 1024 / 1024, 
-                           totalSpace / 1024 / 1024, 
-                           availablePercent);
-                
                 if (isHealthy) {
                     return Health.up()
-                            .withDetail("path", storagePath)
+                            .withDetail("path", status.path())
                             .withDetail("availableSpaceMB", availableSpace / 1024 / 1024)
                             .withDetail("totalSpaceMB", totalSpace / 1024 / 1024)
                             .withDetail("availablePercent", String.format("%.2f%%", availablePercent))
+                            .withDetail("checkedAt", status.checkedAt().toString())
                             .build();
                 } else {
-                    logger.warn("存储空间不足: 可用={}MB, 百分比={:.2f}%", 
-                              availableSpace / 1024 / 1024, availablePercent);
+                    logger.warn("存储空间不足: 可用={}MB, 百分比={}%", 
+                              availableSpace / 1024 / 1024, String.format("%.2f", availablePercent));
                     return Health.down()
-                            .withDetail("path", storagePath)
+                            .withDetail("path", status.path())
                             .withDetail("availableSpaceMB", availableSpace / 1024 / 1024)
                             .withDetail("totalSpaceMB", totalSpace / 1024 / 1024)
                             .withDetail("availablePercent", String.format("%.2f%%", availablePercent))
+                            .withDetail("checkedAt", status.checkedAt().toString())
                             .withDetail("reason", "存储空间不足")
                             .build();
                 }
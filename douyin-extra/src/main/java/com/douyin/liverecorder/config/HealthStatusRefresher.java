@@ -0,0 +1,159 @@
+package com.douyin.liverecorder.config;
+
+import com.douyin.liverecorder.infrastructure.FFmpegInfo;
+import com.douyin.liverecorder.infrastructure.FFmpegWrapper;
+import com.douyin.liverecorder.infrastructure.FileSystemManager;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 健康检查数据的后台刷新
+ * 负载均衡会频繁请求 /actuator/health，健康检查指示器只读取这里缓存的结果：
+ * <ul>
+ *   <li>FFmpeg：启动时探测一次版本和支持的协议，之后按需（POST /api/config/ffmpeg/probe）或按配置的间隔重新探测</li>
+ *   <li>存储空间：按配置的间隔刷新</li>
+ * </ul>
+ */
+@Component
+public class HealthStatusRefresher {
+
+    private static final Logger logger = LoggerFactory.getLogger(HealthStatusRefresher.class);
+
+    private final FFmpegWrapper ffmpegWrapper;
+    private final FileSystemManager fileSystemManager;
+    private final ScheduledExecutorService executor;
+
+    @Value("${recording.health.storage-refresh-interval-ms:30000}")
+    private long storageRefreshIntervalMs = 30000;
+    // <=0 时只在启动和按需时探测
+    @Value("${recording.health.ffmpeg-refresh-interval-ms:0}")
+    private long ffmpegRefreshIntervalMs = 0;
+
+    private volatile FFmpegStatus ffmpegStatus;
+    private volatile StorageStatus storageStatus;
+
+    public HealthStatusRefresher(FFmpegWrapper ffmpegWrapper, FileSystemManager fileSystemManager) {
+        this.ffmpegWrapper = ffmpegWrapper;
+        this.fileSystemManager = fileSystemManager;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "health-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        executor.execute(this::refreshFFmpegQuietly);
+        if (ffmpegRefreshIntervalMs > 0) {
+            executor.scheduleWithFixedDelay(this::refreshFFmpegQuietly, ffmpegRefreshIntervalMs,
+                    ffmpegRefreshIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        executor.scheduleWithFixedDelay(this::refreshStorageQuietly, storageRefreshIntervalMs,
+                storageRefreshIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 最近一次FFmpeg探测结果
+     *
+     * @return 探测结果，启动后尚未完成探测时返回null
+     */
+    public FFmpegStatus getFFmpegStatus() {
+        return ffmpegStatus;
+    }
+
+    /**
+     * 最近一次存储空间检查结果（首次调用时同步检查一次）
+     *
+     * @return 检查结果
+     */
+    public StorageStatus getStorageStatus() {
+        StorageStatus status = storageStatus;
+        return status != null ? status : refreshStorage();
+    }
+
+    /**
+     * 立即重新探测FFmpeg（更换 FFmpeg 后调用）
+     *
+     * @return 探测结果
+     */
+    public synchronized FFmpegStatus refreshFFmpeg() {
+        long startNanos = System.nanoTime();
+        FFmpegInfo info = ffmpegWrapper.probe();
+        FFmpegStatus status = new FFmpegStatus(info, Instant.now());
+        ffmpegStatus = status;
+        if (info.available()) {
+            logger.info("FFmpeg探测完成: path={}, version={}, 输入协议{}个, 耗时={}ms", info.path(), info.version(),
+                    info.inputProtocols().size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        } else {
+            logger.warn("FFmpeg不可用: path={}", info.path());
+        }
+        return status;
+    }
+
+    /**
+     * 立即刷新存储空间
+     *
+     * @return 检查结果
+     */
+    public StorageStatus refreshStorage() {
+        String storagePath = fileSystemManager.getStoragePath();
+        StorageStatus status = new StorageStatus(storagePath,
+                fileSystemManager.getAvailableSpace(storagePath),
+                fileSystemManager.getTotalSpace(storagePath),
+                Instant.now());
+        storageStatus = status;
+        return status;
+    }
+
+    private void refreshFFmpegQuietly() {
+        try {
+            refreshFFmpeg();
+        } catch (RuntimeException e) {
+            logger.error("FFmpeg探测失败", e);
+        }
+    }
+
+    private void refreshStorageQuietly() {
+        try {
+            refreshStorage();
+        } catch (RuntimeException e) {
+            logger.error("存储空间检查失败", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * FFmpeg探测结果
+     *
+     * @param info 探测到的信息
+     * @param checkedAt 探测时间
+     */
+    public record FFmpegStatus(FFmpegInfo info, Instant checkedAt) {
+    }
+
+    /**
+     * 存储空间检查结果
+     *
+     * @param path 存储路径
+     * @param availableSpace 可用空间（字节），无法获取时为-1
+     * @param totalSpace 总空间（字节），无法获取时为-1
+     * @param checkedAt 检查时间
+     */
+    public record StorageStatus(String path, long availableSpace, long totalSpace, Instant checkedAt) {
+    }
+}
@@ -0,0 +1,92 @@
+package com.douyin.liverecorder.controller;
+
+import com.douyin.liverecorder.dto.StartRecordingRequest;
+import com.douyin.liverecorder.service.BulkRecordingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 批量录制控制器
+ * 一次请求导入大量主播，逐条以 NDJSON 流式返回结果
+ */
+@RestController
+@RequestMapping("/api/recordings")
+public class BulkRecordingController {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkRecordingController.class);
+
+    private static final String NDJSON = "application/x-ndjson";
+    // 每写出多少条结果刷新一次输出
+    private static final int FLUSH_EVERY = 100;
+
+    private final BulkRecordingService bulkRecordingService;
+    private final ObjectMapper objectMapper;
+
+    public BulkRecordingController(BulkRecordingService bulkRecordingService, ObjectMapper objectMapper) {
+        this.bulkRecordingService = bulkRecordingService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 批量创建录制任务
+     * POST /api/recordings/bulk
+     * 请求体为 NDJSON（每行一个 StartRecordingRequest）或 CSV（douyinId,outputDir,auto,priority，可带表头）
+     * 查询参数 auto、outputDir、priority 作为各行未指定字段的默认值
+     *
+     * @return 逐行结果（NDJSON）
+     */
+    @PostMapping(value = "/bulk", consumes = {NDJSON, "text/csv", MediaType.TEXT_PLAIN_VALUE}, produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> bulkStart(
+            HttpServletRequest request,
+            @RequestParam(required = false) Boolean auto,
+            @RequestParam(required = false) String outputDir,
+            @RequestParam(required = false) Integer priority) throws IOException {
+
+        BulkRecordingService.Format format = request.getContentType() != null
+                && request.getContentType().startsWith(NDJSON)
+                ? BulkRecordingService.Format.NDJSON
+                : BulkRecordingService.Format.CSV;
+
+        StartRecordingRequest defaults = new StartRecordingRequest();
+        defaults.setAuto(auto);
+        defaults.setOutputDir(outputDir);
+        defaults.setPriority(priority);
+
+        // 请求体在请求线程中读完，结果在异步线程中边创建边写出；
+        // 客户端中途断开时停止写出，但所有条目仍会创建
+        List<BulkRecordingService.BulkItem> items = bulkRecordingService.parse(request.getReader(), format, defaults);
+        logger.info("收到批量录制请求: format={}, 条目数={}", format, items.size());
+
+        StreamingResponseBody body = outputStream -> {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            int[] written = {0};
+            bulkRecordingService.createAll(items, result -> {
+                try {
+                    writer.write(objectMapper.writeValueAsString(result));
+                    writer.write('\n');
+                    if (++written[0] % FLUSH_EVERY == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+}
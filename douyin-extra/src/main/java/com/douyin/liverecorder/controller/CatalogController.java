@@ -0,0 +1,112 @@
+package com.douyin.liverecorder.controller;
+
+import com.douyin.liverecorder.dto.RecordingFilePageResponse;
+import com.douyin.liverecorder.model.RecordingFile;
+import com.douyin.liverecorder.service.RecordingCatalog;
+import com.douyin.liverecorder.service.RecordingDownloadService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 录制文件目录控制器
+ * 按主播和录制时间查询已完成的录制文件，数据来自内存索引，不访问文件系统
+ */
+@RestController
+@RequestMapping("/api/catalog")
+public class CatalogController {
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final RecordingCatalog recordingCatalog;
+    private final RecordingDownloadService recordingDownloadService;
+
+    public CatalogController(RecordingCatalog recordingCatalog, RecordingDownloadService recordingDownloadService) {
+        this.recordingCatalog = recordingCatalog;
+        this.recordingDownloadService = recordingDownloadService;
+    }
+
+    /**
+     * 分页查询录制文件（按录制时间倒序）
+     * GET /api/catalog?douyinId=&from=&to=&cursor=&limit=50
+     *
+     * @param douyinId 抖音号
+     * @param from 录制时间下限（ISO格式）
+     * @param to 录制时间上限（ISO格式）
+     * @param cursor 上一页返回的游标
+     * @param limit 每页数量（1-500）
+     * @return 分页结果
+     */
+    @GetMapping
+    public ResponseEntity<RecordingFilePageResponse> page(
+            @RequestParam(required = false) String douyinId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException(String.format("每页数量必须在1-%d之间", MAX_PAGE_SIZE));
+        }
+
+        RecordingCatalog.Page page = recordingCatalog.query(douyinId, from, to, cursor, limit);
+        return ResponseEntity.ok(new RecordingFilePageResponse(page.items(), page.nextCursor(), limit));
+    }
+
+    /**
+     * 各主播的录制统计
+     * GET /api/catalog/streamers
+     *
+     * @return 按抖音号排序的统计
+     */
+    @GetMapping("/streamers")
+    public ResponseEntity<List<RecordingCatalog.StreamerSummary>> streamers() {
+        return ResponseEntity.ok(recordingCatalog.streamers());
+    }
+
+    /**
+     * 重新扫描全部目录（后台执行）
+     * POST /api/catalog/rescan
+     *
+     * @return 202 已开始扫描；409 已有扫描在进行
+     */
+    @PostMapping("/rescan")
+    public ResponseEntity<Map<String, Object>> rescan() {
+        boolean started = recordingCatalog.rescan();
+        return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT)
+                .body(Map.of("started", started, "size", recordingCatalog.size()));
+    }
+
+    /**
+     * 下载录制文件
+     * GET /api/catalog/download?path=
+     * 只能下载目录中的文件；支持 Range（206）、If-Range、If-None-Match 和 If-Modified-Since，按客户端限速
+     *
+     * @param path 文件路径（查询结果中的 path）
+     * @param request 当前请求
+     * @param response 当前响应
+     * @throws IOException 如果读取文件失败
+     */
+    @RequestMapping(value = "/download", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void download(@RequestParam String path, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        RecordingFile recording = recordingCatalog.find(path);
+        if (recording == null || !recordingDownloadService.serve(Paths.get(recording.path()), request, response)) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.douyin.liverecorder.controller;
 
+import com.douyin.liverecorder.config.HealthStatusRefresher;
+import com.douyin.liverecorder.infrastructure.FFmpegInfo;
 import com.douyin.liverecorder.infrastructure.HttpClientUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,9 +17,11 @@ public class ConfigController {
 
     private static final Logger logger = LoggerFactory.getLogger(ConfigController.class);
     private final HttpClientUtil httpClientUtil;
+    private final HealthStatusRefresher healthStatusRefresher;
 
-    public ConfigController(HttpClientUtil httpClientUtil) {
+    public ConfigController(HttpClientUtil httpClientUtil, HealthStatusRefresher healthStatusRefresher) {
         this.httpClientUtil = httpClientUtil;
+        this.healthStatusRefresher = healthStatusRefresher;
     }
 
     public static class CookieUpdateRequest {
@@ -41,4 +45,14 @@ public class ConfigController {
         logger.info("Runtime cookie updated");
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Re-probe the ffmpeg executable (e.g. after upgrading it) and refresh the cached health result.
+     */
+    @PostMapping("/ffmpeg/probe")
+    public ResponseEntity<FFmpegInfo> probeFFmpeg() {
+        FFmpegInfo info = healthStatusRefresher.refreshFFmpeg().info();
+        logger.info("FFmpeg re-probed on demand: available={}", info.available());
+        return ResponseEntity.ok(info);
+    }
 }
@@ -1,21 +1,38 @@
 package com.douyin.liverecorder.controller;
 
+import com.douyin.liverecorder.dto.BatchStatusRequest;
+import com.douyin.liverecorder.dto.BatchStatusResponse;
 import com.douyin.liverecorder.dto.RecordingResponse;
 import com.douyin.liverecorder.dto.StartRecordingRequest;
+import com.douyin.liverecorder.dto.TaskPageResponse;
+import com.douyin.liverecorder.dto.TaskSummaryResponse;
 import com.douyin.liverecorder.exception.SaveDirException;
 import com.douyin.liverecorder.infrastructure.FileSystemManager;
+import com.douyin.liverecorder.infrastructure.StoragePool;
 import com.douyin.liverecorder.model.RecordingStatus;
 import com.douyin.liverecorder.model.RecordingTask;
+import com.douyin.liverecorder.model.TaskStatus;
 import com.douyin.liverecorder.service.RecordingManager;
+import com.douyin.liverecorder.service.TaskEventBroadcaster;
+import com.douyin.liverecorder.service.TaskStatusIndex;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -28,14 +45,23 @@ public class RecordingController {
     
     private static final Logger logger = LoggerFactory.getLogger(RecordingController.class);
     
+    private static final int MAX_PAGE_SIZE = 500;
+    
+    private static final long STARTED_AT = System.currentTimeMillis();
+    
     private final RecordingManager recordingManager;
     private final FileSystemManager fileSystemManager;
+    private final StoragePool storagePool;
+    private final TaskEventBroadcaster taskEventBroadcaster;
     @Value("${recording.auto-enabled:true}")
     private boolean defaultAutoEnabled;
     
-    public RecordingController(RecordingManager recordingManager, FileSystemManager fileSystemManager) {
+    public RecordingController(RecordingManager recordingManager, FileSystemManager fileSystemManager,
+                               StoragePool storagePool, TaskEventBroadcaster taskEventBroadcaster) {
         this.recordingManager = recordingManager;
         this.fileSystemManager = fileSystemManager;
+        this.storagePool = storagePool;
+        this.taskEventBroadcaster = taskEventBroadcaster;
     }
     
     /**
@@ -55,22 +81,32 @@ public class RecordingController {
         logger.info("收到开始录制请求: douyinId={}, auto={}, outputDir={}",
                 request.getDouyinId(), autoEnabled, outputDir);
         
+        // 配置了存储池时可以不指定保存目录，开始录制时由存储池选择
         if (outputDir == null || outputDir.trim().isEmpty()) {
-            throw new SaveDirException("SAVE_DIR_REQUIRED", "保存目录不能为空");
-        }
-        if (!fileSystemManager.isWritableDirectory(outputDir)) {
+            if (!storagePool.isEnabled()) {
+                throw new SaveDirException("SAVE_DIR_REQUIRED", "保存目录不能为空");
+            }
+            outputDir = null;
+        } else if (!fileSystemManager.isWritableDirectory(outputDir)) {
             throw new SaveDirException("SAVE_DIR_INVALID", "保存目录不可用");
         }
         
         // 创建任务
-        RecordingTask task = recordingManager.createTask(request.getDouyinId(), autoEnabled, outputDir);
+        RecordingTask task = recordingManager.createTask(
+                request.getDouyinId(), autoEnabled, outputDir, request.getPriority());
         
-        // 启动任务
-        recordingManager.startTask(task.getTaskId());
+        // 启动任务（同一主播已有进行中的任务时合并到该任务）
+        boolean started = recordingManager.startTask(task.getTaskId());
         
         // 返回任务信息
         RecordingResponse response = new RecordingResponse(task);
         
+        if (!started) {
+            logger.info("主播已有进行中的录制任务，请求已合并: taskId={}, douyinId={}",
+                       task.getTaskId(), request.getDouyinId());
+            return ResponseEntity.ok(response);
+        }
+        
         logger.info("录制任务已创建并启动: taskId={}, douyinId={}", 
                    task.getTaskId(), request.getDouyinId());
         
@@ -118,35 +154,80 @@ public class RecordingController {
      * 查询录制状态
      * GET /api/recordings/{taskId}/status
      * 
+     * 支持 If-None-Match：ETag 由任务版本号与进度组成，未变化时返回304
+     * 
      * @param taskId 任务ID
+     * @param webRequest 当前请求
      * @return 录制状态信息
      */
     @GetMapping("/{taskId}/status")
     public ResponseEntity<RecordingStatus> getRecordingStatus(
-            @PathVariable String taskId) {
+            @PathVariable String taskId, WebRequest webRequest) {
         
         logger.debug("查询录制状态: taskId={}", taskId);
         
+        // 先读版本号再构建状态：两者之间发生变更时，下一次查询的 ETag 必然不同
+        RecordingTask task = recordingManager.getTask(taskId);
+        long version = task != null ? task.getVersion() : -1L;
+        
         // 获取任务状态
         RecordingStatus status = recordingManager.getTaskStatus(taskId);
         
-        return ResponseEntity.ok(status);
+        String etag = statusEtag(version, status);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        
+        return ResponseEntity.ok().eTag(etag).body(status);
+    }
+    
+    /**
+     * 批量查询录制状态
+     * POST /api/recordings/statuses
+     * 
+     * @param request 任务ID列表（最多500个）
+     * @return 已找到任务的状态，以及不存在的任务ID
+     */
+    @PostMapping("/statuses")
+    public ResponseEntity<BatchStatusResponse> getRecordingStatuses(
+            @Valid @RequestBody BatchStatusRequest request) {
+        
+        logger.debug("批量查询录制状态: 数量={}", request.getTaskIds().size());
+        
+        Map<String, RecordingStatus> statuses = recordingManager.getTaskStatuses(request.getTaskIds());
+        Set<String> notFound = new LinkedHashSet<>();
+        for (String taskId : request.getTaskIds()) {
+            if (!statuses.containsKey(taskId)) {
+                notFound.add(taskId);
+            }
+        }
+        
+        return ResponseEntity.ok(new BatchStatusResponse(
+                new ArrayList<>(statuses.values()), new ArrayList<>(notFound)));
     }
     
     /**
      * 列出所有录制任务
      * GET /api/recordings
      * 
+     * 支持 If-None-Match：ETag 为任务变更序号，任务列表与内容均未变化时返回304
+     * 
+     * @param webRequest 当前请求
      * @return 录制任务列表
      */
     @GetMapping
-    public ResponseEntity<List<RecordingResponse>> listRecordings() {
+    public ResponseEntity<List<RecordingResponse>> listRecordings(WebRequest webRequest) {
         
         logger.debug("查询所有录制任务");
         
-        // 获取所有活动任务
+        // 先读变更序号再获取所有活动任务：两者之间发生变更时，下一次查询的 ETag 必然不同
+        String etag = listEtag(recordingManager.getChangeSequence());
         List<RecordingTask> tasks = recordingManager.listActiveTasks();
         
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        
         // 转换为响应DTO
         List<RecordingResponse> responses = tasks.stream()
                 .map(RecordingResponse::new)
@@ -154,7 +235,91 @@ public class RecordingController {
         
         logger.debug("返回录制任务列表: 数量={}", responses.size());
         
-        return ResponseEntity.ok(responses);
+        return ResponseEntity.ok().eTag(etag).body(responses);
+    }
+    
+    /**
+     * 分页查询录制任务（按创建时间倒序）
+     * GET /api/recordings/page?status=RECORDING,QUEUED&douyinIdPrefix=&from=&to=&cursor=&limit=50
+     * 
+     * @param status 状态过滤，可多选
+     * @param douyinIdPrefix 抖音号前缀
+     * @param from 创建时间下限（ISO格式）
+     * @param to 创建时间上限（ISO格式）
+     * @param cursor 上一页返回的游标
+     * @param limit 每页数量（1-500）
+     * @return 分页结果
+     */
+    @GetMapping("/page")
+    public ResponseEntity<TaskPageResponse> pageRecordings(
+            @RequestParam(required = false) List<TaskStatus> status,
+            @RequestParam(required = false) String douyinIdPrefix,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException(String.format("每页数量必须在1-%d之间", MAX_PAGE_SIZE));
+        }
+        
+        TaskStatusIndex.Page page = recordingManager.queryTasks(status, douyinIdPrefix, from, to, cursor, limit);
+        List<RecordingResponse> items = page.items().stream()
+                .map(RecordingResponse::new)
+                .collect(Collectors.toList());
+        
+        return ResponseEntity.ok(new TaskPageResponse(items, page.nextCursor(), limit));
+    }
+    
+    /**
+     * 各状态任务数汇总
+     * GET /api/recordings/summary
+     * 
+     * @return 状态汇总
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<TaskSummaryResponse> summary() {
+        return ResponseEntity.ok(new TaskSummaryResponse(recordingManager.getStatusSummary()));
+    }
+    
+    /**
+     * 订阅任务事件（Server-Sent Events）
+     * GET /api/recordings/events
+     * 推送 status（状态变更）、progress（录制进度变化）与 reset（需重新拉取列表）事件；
+     * 断线重连时浏览器自动携带 Last-Event-ID，服务端回放错过的事件
+     * 
+     * @param lastEventId 最后收到的事件ID
+     * @return 事件流
+     */
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeEvents(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        
+        Long afterId = null;
+        if (lastEventId != null && !lastEventId.trim().isEmpty()) {
+            try {
+                afterId = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("无效的Last-Event-ID: " + lastEventId);
+            }
+        }
+        
+        return taskEventBroadcaster.subscribe(afterId);
+    }
+    
+    private String statusEtag(long version, RecordingStatus status) {
+        // 任务版本号在重启恢复后可能与重启前重复，同样加上进程启动时间
+        StringBuilder etag = new StringBuilder("\"").append(Long.toHexString(STARTED_AT)).append('-').append(version);
+        RecordingStatus.Progress progress = status.getProgress();
+        if (progress != null) {
+            etag.append('-').append(progress.getFileSize()).append('-').append(progress.getDuration());
+        }
+        return etag.append('"').toString();
+    }
+    
+    private String listEtag(long changeSequence) {
+        // 变更序号在重启后从0开始，加上进程启动时间避免与重启前的 ETag 相同
+        return "\"" + Long.toHexString(STARTED_AT) + "-" + changeSequence + "\"";
     }
     
     /**
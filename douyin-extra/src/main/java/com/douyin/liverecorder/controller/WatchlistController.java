@@ -0,0 +1,116 @@
+package com.douyin.liverecorder.controller;
+
+import com.douyin.liverecorder.dto.WatchlistRequest;
+import com.douyin.liverecorder.dto.WatchlistResponse;
+import com.douyin.liverecorder.exception.SaveDirException;
+import com.douyin.liverecorder.infrastructure.FileSystemManager;
+import com.douyin.liverecorder.infrastructure.StoragePool;
+import com.douyin.liverecorder.model.WatchlistEntry;
+import com.douyin.liverecorder.service.WatchlistService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 关注列表控制器
+ * 管理需要每次开播都自动录制的主播
+ */
+@RestController
+@RequestMapping("/api/watchlist")
+public class WatchlistController {
+
+    private static final Logger logger = LoggerFactory.getLogger(WatchlistController.class);
+
+    private final WatchlistService watchlistService;
+    private final FileSystemManager fileSystemManager;
+    private final StoragePool storagePool;
+
+    public WatchlistController(WatchlistService watchlistService, FileSystemManager fileSystemManager,
+                               StoragePool storagePool) {
+        this.watchlistService = watchlistService;
+        this.fileSystemManager = fileSystemManager;
+        this.storagePool = storagePool;
+    }
+
+    /**
+     * 添加或更新关注
+     * POST /api/watchlist
+     *
+     * @param request 关注请求
+     * @return 关注条目
+     */
+    @PostMapping
+    public ResponseEntity<WatchlistResponse> addOrUpdate(@Valid @RequestBody WatchlistRequest request) {
+        String outputDir = request.getOutputDir();
+        logger.info("收到关注请求: douyinId={}, outputDir={}", request.getDouyinId(), outputDir);
+
+        // 配置了存储池时可以不指定保存目录，每次开播时由存储池选择
+        if (outputDir == null || outputDir.trim().isEmpty()) {
+            if (!storagePool.isEnabled()) {
+                throw new SaveDirException("SAVE_DIR_REQUIRED", "保存目录不能为空");
+            }
+            outputDir = null;
+        } else if (!fileSystemManager.isWritableDirectory(outputDir)) {
+            throw new SaveDirException("SAVE_DIR_INVALID", "保存目录不可用");
+        }
+
+        boolean existed = watchlistService.get(request.getDouyinId()) != null;
+        WatchlistEntry entry = watchlistService.addOrUpdate(
+                request.getDouyinId(), outputDir, request.getPriority());
+
+        return ResponseEntity.status(existed ? HttpStatus.OK : HttpStatus.CREATED)
+                .body(new WatchlistResponse(entry));
+    }
+
+    /**
+     * 列出关注列表
+     * GET /api/watchlist
+     *
+     * @return 关注条目列表
+     */
+    @GetMapping
+    public ResponseEntity<List<WatchlistResponse>> list() {
+        List<WatchlistResponse> responses = watchlistService.list().stream()
+                .map(WatchlistResponse::new)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(responses);
+    }
+
+    /**
+     * 查询关注条目
+     * GET /api/watchlist/{douyinId}
+     *
+     * @param douyinId 抖音号
+     * @return 关注条目
+     */
+    @GetMapping("/{douyinId}")
+    public ResponseEntity<WatchlistResponse> get(@PathVariable String douyinId) {
+        WatchlistEntry entry = watchlistService.get(douyinId);
+        if (entry == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(new WatchlistResponse(entry));
+    }
+
+    /**
+     * 取消关注
+     * DELETE /api/watchlist/{douyinId}
+     *
+     * @param douyinId 抖音号
+     * @return 无内容
+     */
+    @DeleteMapping("/{douyinId}")
+    public ResponseEntity<Void> remove(@PathVariable String douyinId) {
+        logger.info("收到取消关注请求: douyinId={}", douyinId);
+        if (!watchlistService.remove(douyinId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,31 @@
+package com.douyin.liverecorder.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * 批量查询任务状态请求DTO
+ */
+public class BatchStatusRequest {
+
+    @NotEmpty(message = "任务ID列表不能为空")
+    @Size(max = 500, message = "单次最多查询500个任务")
+    private List<String> taskIds;
+
+    public BatchStatusRequest() {
+    }
+
+    public BatchStatusRequest(List<String> taskIds) {
+        this.taskIds = taskIds;
+    }
+
+    public List<String> getTaskIds() {
+        return taskIds;
+    }
+
+    public void setTaskIds(List<String> taskIds) {
+        this.taskIds = taskIds;
+    }
+}
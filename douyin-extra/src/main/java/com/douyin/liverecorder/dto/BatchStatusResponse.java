@@ -0,0 +1,39 @@
+package com.douyin.liverecorder.dto;
+
+import com.douyin.liverecorder.model.RecordingStatus;
+
+import java.util.List;
+
+/**
+ * 批量查询任务状态响应DTO
+ * statuses 按请求顺序排列（重复的ID只返回一次），不存在的任务ID列在 notFound 中
+ */
+public class BatchStatusResponse {
+
+    private List<RecordingStatus> statuses;
+    private List<String> notFound;
+
+    public BatchStatusResponse() {
+    }
+
+    public BatchStatusResponse(List<RecordingStatus> statuses, List<String> notFound) {
+        this.statuses = statuses;
+        this.notFound = notFound;
+    }
+
+    public List<RecordingStatus> getStatuses() {
+        return statuses;
+    }
+
+    public void setStatuses(List<RecordingStatus> statuses) {
+        this.statuses = statuses;
+    }
+
+    public List<String> getNotFound() {
+        return notFound;
+    }
+
+    public void setNotFound(List<String> notFound) {
+        this.notFound = notFound;
+    }
+}
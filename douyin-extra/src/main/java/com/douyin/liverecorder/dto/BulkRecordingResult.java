@@ -0,0 +1,86 @@
+package com.douyin.liverecorder.dto;
+
+/**
+ * 批量创建录制任务的单项结果DTO
+ * 按输入顺序逐行返回
+ */
+public class BulkRecordingResult {
+
+    /**
+     * 已创建并启动
+     */
+    public static final String CREATED = "CREATED";
+    /**
+     * 该主播已有进行中的任务，已合并到该任务
+     */
+    public static final String ATTACHED = "ATTACHED";
+    /**
+     * 输入无效（抖音号或保存目录）
+     */
+    public static final String INVALID = "INVALID";
+    /**
+     * 与本批次前面的条目重复
+     */
+    public static final String DUPLICATE = "DUPLICATE";
+    /**
+     * 输入有效，但创建或启动失败（例如任务已达上限）
+     */
+    public static final String REJECTED = "REJECTED";
+
+    private int line;
+    private String douyinId;
+    private String result;
+    private String taskId;
+    private String error;
+
+    public BulkRecordingResult() {
+    }
+
+    public BulkRecordingResult(int line, String douyinId, String result, String taskId, String error) {
+        this.line = line;
+        this.douyinId = douyinId;
+        this.result = result;
+        this.taskId = taskId;
+        this.error = error;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public void setLine(int line) {
+        this.line = line;
+    }
+
+    public String getDouyinId() {
+        return douyinId;
+    }
+
+    public void setDouyinId(String douyinId) {
+        this.douyinId = douyinId;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public void setResult(String result) {
+        this.result = result;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(String taskId) {
+        this.taskId = taskId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
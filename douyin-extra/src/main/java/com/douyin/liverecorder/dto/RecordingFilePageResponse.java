@@ -0,0 +1,49 @@
+package com.douyin.liverecorder.dto;
+
+import com.douyin.liverecorder.model.RecordingFile;
+
+import java.util.List;
+
+/**
+ * 录制文件分页响应DTO
+ * nextCursor 为空表示没有更多数据
+ */
+public class RecordingFilePageResponse {
+
+    private List<RecordingFile> items;
+    private String nextCursor;
+    private int limit;
+
+    public RecordingFilePageResponse() {
+    }
+
+    public RecordingFilePageResponse(List<RecordingFile> items, String nextCursor, int limit) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.limit = limit;
+    }
+
+    public List<RecordingFile> getItems() {
+        return items;
+    }
+
+    public void setItems(List<RecordingFile> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
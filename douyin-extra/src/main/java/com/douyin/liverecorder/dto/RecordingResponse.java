@@ -1,6 +1,7 @@
 package com.douyin.liverecorder.dto;
 
 import com.douyin.liverecorder.model.RecordingTask;
+import com.douyin.liverecorder.model.TaskSnapshot;
 import com.douyin.liverecorder.model.TaskStatus;
 
 import java.time.LocalDateTime;
@@ -16,24 +17,35 @@ public class RecordingResponse {
     private TaskStatus status;
     private String streamUrl;
     private String outputPath;
+    private LocalDateTime createdTime;
     private LocalDateTime startTime;
     private LocalDateTime endTime;
     private Long fileSize;
     private String error;
+    private Integer priority;
     
     public RecordingResponse() {
     }
     
     public RecordingResponse(RecordingTask task) {
-        this.taskId = task.getTaskId();
-        this.douyinId = task.getDouyinId();
-        this.status = task.getStatus();
-        this.streamUrl = task.getStreamUrl();
-        this.outputPath = task.getOutputPath();
-        this.startTime = task.getStartTime();
-        this.endTime = task.getEndTime();
-        this.fileSize = task.getFileSize();
-        this.error = task.getError();
+        this(task.snapshot());
+    }
+    
+    /**
+     * 基于一份任务快照构建响应，各字段来自同一时刻
+     */
+    public RecordingResponse(TaskSnapshot snapshot) {
+        this.taskId = snapshot.taskId();
+        this.douyinId = snapshot.douyinId();
+        this.status = snapshot.status();
+        this.streamUrl = snapshot.streamUrl();
+        this.outputPath = snapshot.outputPath();
+        this.createdTime = snapshot.createdTime();
+        this.startTime = snapshot.startTime();
+        this.endTime = snapshot.endTime();
+        this.fileSize = snapshot.fileSize();
+        this.error = snapshot.error();
+        this.priority = snapshot.priority();
     }
     
     public String getTaskId() {
@@ -76,6 +88,14 @@ public class RecordingResponse {
         this.outputPath = outputPath;
     }
     
+    public LocalDateTime getCreatedTime() {
+        return createdTime;
+    }
+    
+    public void setCreatedTime(LocalDateTime createdTime) {
+        this.createdTime = createdTime;
+    }
+    
     public LocalDateTime getStartTime() {
         return startTime;
     }
@@ -107,4 +127,12 @@ public class RecordingResponse {
     public void setError(String error) {
         this.error = error;
     }
+
+    public Integer getPriority() {
+        return priority;
+    }
+    
+    public void setPriority(Integer priority) {
+        this.priority = priority;
+    }
 }
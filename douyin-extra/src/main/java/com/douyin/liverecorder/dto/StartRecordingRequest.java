@@ -14,6 +14,7 @@ public class StartRecordingRequest {
     private String douyinId;
     private Boolean auto;
     private String outputDir;
+    private Integer priority;
     
     public StartRecordingRequest() {
     }
@@ -50,4 +51,12 @@ public class StartRecordingRequest {
     public void setOutputDir(String outputDir) {
         this.outputDir = outputDir;
     }
+
+    public Integer getPriority() {
+        return priority;
+    }
+
+    public void setPriority(Integer priority) {
+        this.priority = priority;
+    }
 }
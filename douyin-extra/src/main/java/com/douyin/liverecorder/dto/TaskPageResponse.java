@@ -0,0 +1,47 @@
+package com.douyin.liverecorder.dto;
+
+import java.util.List;
+
+/**
+ * 任务分页响应DTO
+ * nextCursor 为空表示没有更多数据
+ */
+public class TaskPageResponse {
+
+    private List<RecordingResponse> items;
+    private String nextCursor;
+    private int limit;
+
+    public TaskPageResponse() {
+    }
+
+    public TaskPageResponse(List<RecordingResponse> items, String nextCursor, int limit) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.limit = limit;
+    }
+
+    public List<RecordingResponse> getItems() {
+        return items;
+    }
+
+    public void setItems(List<RecordingResponse> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
@@ -0,0 +1,39 @@
+package com.douyin.liverecorder.dto;
+
+import com.douyin.liverecorder.model.TaskStatus;
+
+import java.util.Map;
+
+/**
+ * 任务状态汇总响应DTO
+ * 统计内存中的任务（活动任务与保留窗口内的终态任务）
+ */
+public class TaskSummaryResponse {
+
+    private Map<TaskStatus, Long> counts;
+    private long total;
+
+    public TaskSummaryResponse() {
+    }
+
+    public TaskSummaryResponse(Map<TaskStatus, Long> counts) {
+        this.counts = counts;
+        this.total = counts.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public Map<TaskStatus, Long> getCounts() {
+        return counts;
+    }
+
+    public void setCounts(Map<TaskStatus, Long> counts) {
+        this.counts = counts;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+}
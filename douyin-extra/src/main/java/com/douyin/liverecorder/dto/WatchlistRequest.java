@@ -0,0 +1,49 @@
+package com.douyin.liverecorder.dto;
+
+import com.douyin.liverecorder.validation.ValidDouyinId;
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * 关注列表请求DTO
+ * 用于添加或更新关注的主播
+ */
+public class WatchlistRequest {
+
+    @NotBlank(message = "抖音号不能为空")
+    @ValidDouyinId
+    private String douyinId;
+    private String outputDir;
+    private Integer priority;
+
+    public WatchlistRequest() {
+    }
+
+    public WatchlistRequest(String douyinId, String outputDir) {
+        this.douyinId = douyinId;
+        this.outputDir = outputDir;
+    }
+
+    public String getDouyinId() {
+        return douyinId;
+    }
+
+    public void setDouyinId(String douyinId) {
+        this.douyinId = douyinId;
+    }
+
+    public String getOutputDir() {
+        return outputDir;
+    }
+
+    public void setOutputDir(String outputDir) {
+        this.outputDir = outputDir;
+    }
+
+    public Integer getPriority() {
+        return priority;
+    }
+
+    public void setPriority(Integer priority) {
+        this.priority = priority;
+    }
+}
@@ -0,0 +1,99 @@
+package com.douyin.liverecorder.dto;
+
+import com.douyin.liverecorder.model.WatchlistEntry;
+
+import java.time.LocalDateTime;
+
+/**
+ * 关注列表响应DTO
+ * 返回关注条目及其当前检测状态
+ */
+public class WatchlistResponse {
+
+    private String douyinId;
+    private String outputDir;
+    private Integer priority;
+    private LocalDateTime addedTime;
+    private LocalDateTime lastLiveTime;
+    private LocalDateTime lastCheckTime;
+    private long sessionCount;
+    private String activeTaskId;
+
+    public WatchlistResponse() {
+    }
+
+    public WatchlistResponse(WatchlistEntry entry) {
+        this.douyinId = entry.getDouyinId();
+        this.outputDir = entry.getOutputDir();
+        this.priority = entry.getPriority();
+        this.addedTime = entry.getAddedTime();
+        this.lastLiveTime = entry.getLastLiveTime();
+        this.lastCheckTime = entry.getLastCheckTime();
+        this.sessionCount = entry.getSessionCount();
+        this.activeTaskId = entry.getActiveTaskId();
+    }
+
+    public String getDouyinId() {
+        return douyinId;
+    }
+
+    public void setDouyinId(String douyinId) {
+        this.douyinId = douyinId;
+    }
+
+    public String getOutputDir() {
+        return outputDir;
+    }
+
+    public void setOutputDir(String outputDir) {
+        this.outputDir = outputDir;
+    }
+
+    public Integer getPriority() {
+        return priority;
+    }
+
+    public void setPriority(Integer priority) {
+        this.priority = priority;
+    }
+
+    public LocalDateTime getAddedTime() {
+        return addedTime;
+    }
+
+    public void setAddedTime(LocalDateTime addedTime) {
+        this.addedTime = addedTime;
+    }
+
+    public LocalDateTime getLastLiveTime() {
+        return lastLiveTime;
+    }
+
+    public void setLastLiveTime(LocalDateTime lastLiveTime) {
+        this.lastLiveTime = lastLiveTime;
+    }
+
+    public LocalDateTime getLastCheckTime() {
+        return lastCheckTime;
+    }
+
+    public void setLastCheckTime(LocalDateTime lastCheckTime) {
+        this.lastCheckTime = lastCheckTime;
+    }
+
+    public long getSessionCount() {
+        return sessionCount;
+    }
+
+    public void setSessionCount(long sessionCount) {
+        this.sessionCount = sessionCount;
+    }
+
+    public String getActiveTaskId() {
+        return activeTaskId;
+    }
+
+    public void setActiveTaskId(String activeTaskId) {
+        this.activeTaskId = activeTaskId;
+    }
+}
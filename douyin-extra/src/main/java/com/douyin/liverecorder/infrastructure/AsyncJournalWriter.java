@@ -0,0 +1,639 @@
+package com.douyin.liverecorder.infrastructure;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 异步日志写入器
+ * 调用方把记录放入无锁队列后立即返回，由单个写入线程批量合并写入（group commit）
+ * 写入线程持有打开的 FileChannel，按配置执行 fsync，并按大小滚动分段文件
+ *
+ * 支持两种格式：
+ * TEXT   - 每条记录按原样写入（调用方负责换行）
+ * BINARY - [长度][序号][时间戳][内容][CRC32] 定长头帧格式，并维护稀疏索引（.idx）用于按序号快速重放
+ *
+ * 活动分段固定使用配置的文件名，滚动后重命名为 "文件名.N"；
+ * 配置了保留数量时，滚动后删除最旧的分段，并从索引中移除指向已删除分段的索引项
+ */
+public class AsyncJournalWriter implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncJournalWriter.class);
+
+    /**
+     * 日志格式
+     */
+    public enum Format {
+        TEXT,
+        BINARY
+    }
+
+    // 二进制帧：长度(4) + 序号(8) + 时间戳(8) + 内容 + CRC(4)
+    private static final int FRAME_HEADER_BYTES = 20;
+    private static final int FRAME_TRAILER_BYTES = 4;
+    // 索引项：序号(8) + 分段号(4) + 偏移(8)
+    private static final int INDEX_ENTRY_BYTES = 20;
+    // 每隔多少条记录写一个索引项
+    private static final int INDEX_INTERVAL = 64;
+    // 写入线程空闲时的休眠时间
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    // 单条二进制记录的最大长度，用于识别损坏的帧
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+
+    private final Path activeFile;
+    private final Path indexFile;
+    private final Format format;
+    private final long maxSegmentBytes;
+    private final int maxRotatedSegments;
+    private final int maxBatchRecords;
+    private final long fsyncIntervalMs;
+    private final int maxPendingRecords;
+
+    private final ConcurrentLinkedQueue<byte[]> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong enqueuedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final ReentrantLock ioLock = new ReentrantLock();
+    private final Thread writerThread;
+
+    private volatile boolean running = true;
+    private FileChannel channel;
+    private FileChannel indexChannel;
+    private int segmentNumber;
+    private long nextSequence;
+    private long recordsSinceIndex = INDEX_INTERVAL;
+    private long lastFsyncMillis;
+    private ByteBuffer batchBuffer = ByteBuffer.allocate(64 * 1024);
+
+    /**
+     * @param activeFile 活动分段文件
+     * @param format 日志格式
+     * @param maxSegmentBytes 分段滚动大小（小于等于0表示不滚动）
+     * @param maxBatchRecords 单次合并写入的最大记录数
+     * @param fsyncIntervalMs fsync 间隔：小于0不主动 fsync，0 每批 fsync，大于0 按间隔 fsync
+     * @param maxPendingRecords 队列中允许积压的最大记录数，超出后丢弃新记录而不阻塞调用方
+     * @param threadName 写入线程名称
+     * @throws IOException 如果打开日志文件失败
+     */
+    public AsyncJournalWriter(Path activeFile, Format format, long maxSegmentBytes, int maxBatchRecords,
+                              long fsyncIntervalMs, int maxPendingRecords, String threadName) throws IOException {
+        this(activeFile, format, maxSegmentBytes, 0, maxBatchRecords, fsyncIntervalMs, maxPendingRecords, threadName);
+    }
+
+    /**
+     * @param activeFile 活动分段文件
+     * @param format 日志格式
+     * @param maxSegmentBytes 分段滚动大小（小于等于0表示不滚动）
+     * @param maxRotatedSegments 保留的已滚动分段数（小于等于0表示全部保留）
+     * @param maxBatchRecords 单次合并写入的最大记录数
+     * @param fsyncIntervalMs fsync 间隔：小于0不主动 fsync，0 每批 fsync，大于0 按间隔 fsync
+     * @param maxPendingRecords 队列中允许积压的最大记录数，超出后丢弃新记录而不阻塞调用方
+     * @param threadName 写入线程名称
+     * @throws IOException 如果打开日志文件失败
+     */
+    public AsyncJournalWriter(Path activeFile, Format format, long maxSegmentBytes, int maxRotatedSegments,
+                              int maxBatchRecords, long fsyncIntervalMs, int maxPendingRecords,
+                              String threadName) throws IOException {
+        this.activeFile = activeFile.toAbsolutePath();
+        this.indexFile = Path.of(this.activeFile + ".idx");
+        this.format = format;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.maxRotatedSegments = maxRotatedSegments;
+        this.maxBatchRecords = Math.max(1, maxBatchRecords);
+        this.fsyncIntervalMs = fsyncIntervalMs;
+        this.maxPendingRecords = Math.max(1, maxPendingRecords);
+
+        openFiles();
+
+        this.writerThread = new Thread(this::writeLoop, threadName);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * 追加一条记录，立即返回
+     *
+     * @param record 记录内容
+     * @return 放入队列返回true；队列积压超过上限或已关闭时返回false
+     */
+    public boolean append(byte[] record) {
+        if (!running || record == null) {
+            return false;
+        }
+        if (pending.incrementAndGet() > maxPendingRecords) {
+            pending.decrementAndGet();
+            if (droppedCount.incrementAndGet() % 1000 == 1) {
+                logger.warn("日志写入积压，丢弃记录: file={}, 已丢弃={}", activeFile, droppedCount.get());
+            }
+            return false;
+        }
+        queue.offer(record);
+        enqueuedCount.incrementAndGet();
+        LockSupport.unpark(writerThread);
+        return true;
+    }
+
+    /**
+     * 在调用线程上同步写入一条记录，不经过队列
+     * 用于不能丢弃的记录在队列积压（{@link #append} 返回false）时回退；与队列中的记录之间不保证先后顺序
+     *
+     * @param record 记录内容
+     * @throws IOException 如果写入失败或写入器已关闭
+     */
+    public void writeNow(byte[] record) throws IOException {
+        ioLock.lock();
+        try {
+            if (!running || channel == null) {
+                throw new IOException("日志写入器已关闭: " + activeFile);
+            }
+            writeBatch(List.of(record));
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    /**
+     * 等待调用前已放入队列的记录全部写入
+     *
+     * @param timeoutMs 最长等待时间
+     * @return 全部写入返回true，超时返回false
+     */
+    public boolean flush(long timeoutMs) {
+        long target = enqueuedCount.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (writtenCount.get() < target) {
+            if (!writerThread.isAlive() || System.nanoTime() > deadline) {
+                return writtenCount.get() >= target;
+            }
+            LockSupport.unpark(writerThread);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    /**
+     * 清空全部分段与索引（先写完已排队的记录）
+     *
+     * @throws IOException 如果删除或重新打开文件失败
+     */
+    public void truncate() throws IOException {
+        flush(TimeUnit.SECONDS.toMillis(10));
+        ioLock.lock();
+        try {
+            closeFiles();
+            for (Path segment : listRotatedSegments()) {
+                Files.deleteIfExists(segment);
+            }
+            Files.deleteIfExists(activeFile);
+            Files.deleteIfExists(indexFile);
+            openFiles();
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    /**
+     * 从指定序号开始重放二进制日志（先写完已排队的记录）
+     * 通过稀疏索引定位起始分段与偏移，遇到损坏的帧即停止
+     *
+     * @param fromSequence 起始序号（包含）
+     * @param consumer 记录处理器
+     * @return 重放的记录数
+     * @throws IOException 如果读取失败
+     */
+    public long replay(long fromSequence, Consumer<JournalRecord> consumer) throws IOException {
+        if (format != Format.BINARY) {
+            throw new IllegalStateException("只有二进制格式支持按序号重放");
+        }
+        flush(TimeUnit.SECONDS.toMillis(10));
+        ioLock.lock();
+        try {
+            int startSegment = firstSegmentNumber();
+            long startOffset = 0L;
+            for (long[] entry : readIndex()) {
+                if (entry[0] > fromSequence) {
+                    break;
+                }
+                startSegment = (int) entry[1];
+                startOffset = entry[2];
+            }
+
+            long replayed = 0;
+            for (int segment = startSegment; segment <= segmentNumber; segment++) {
+                Path file = segmentPath(segment);
+                if (!Files.exists(file)) {
+                    continue;
+                }
+                long offset = segment == startSegment ? startOffset : 0L;
+                try (FileChannel reader = FileChannel.open(file, StandardOpenOption.READ)) {
+                    List<JournalRecord> records = new ArrayList<>();
+                    scanFrames(reader, offset, records);
+                    for (JournalRecord record : records) {
+                        if (record.sequence() >= fromSequence) {
+                            consumer.accept(record);
+                            replayed++;
+                        }
+                    }
+                }
+            }
+            return replayed;
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        flush(TimeUnit.SECONDS.toMillis(5));
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ioLock.lock();
+        try {
+            if (channel != null) {
+                channel.force(false);
+            }
+            closeFiles();
+        } catch (IOException e) {
+            logger.debug("关闭日志文件失败: {}", e.getMessage());
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    private void writeLoop() {
+        List<byte[]> batch = new ArrayList<>(maxBatchRecords);
+        while (running || !queue.isEmpty()) {
+            byte[] record;
+            while (batch.size() < maxBatchRecords && (record = queue.poll()) != null) {
+                batch.add(record);
+            }
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+            ioLock.lock();
+            try {
+                writeBatch(batch);
+            } catch (IOException | RuntimeException e) {
+                // 任何异常都不能结束写入线程，否则队列不再消费，flush 全部超时
+                logger.error("写入日志失败: file={}, 丢弃{}条记录", activeFile, batch.size(), e);
+            } finally {
+                ioLock.unlock();
+                pending.addAndGet(-batch.size());
+                writtenCount.addAndGet(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<byte[]> batch) throws IOException {
+        ensureOpen();
+        batchBuffer.clear();
+        long batchStartOffset = channel.size();
+        long timestamp = System.currentTimeMillis();
+        CRC32 crc = new CRC32();
+
+        for (byte[] record : batch) {
+            int frameBytes = format == Format.BINARY
+                    ? FRAME_HEADER_BYTES + record.length + FRAME_TRAILER_BYTES
+                    : record.length;
+            ensureCapacity(frameBytes);
+
+            if (format == Format.TEXT) {
+                batchBuffer.put(record);
+                continue;
+            }
+
+            if (recordsSinceIndex >= INDEX_INTERVAL) {
+                writeIndexEntry(nextSequence, batchStartOffset + batchBuffer.position());
+                recordsSinceIndex = 0;
+            }
+            int frameStart = batchBuffer.position();
+            batchBuffer.putInt(record.length);
+            batchBuffer.putLong(nextSequence);
+            batchBuffer.putLong(timestamp);
+            batchBuffer.put(record);
+            crc.reset();
+            crc.update(batchBuffer.array(), frameStart + 4, 16 + record.length);
+            batchBuffer.putInt((int) crc.getValue());
+            nextSequence++;
+            recordsSinceIndex++;
+        }
+
+        batchBuffer.flip();
+        while (batchBuffer.hasRemaining()) {
+            channel.write(batchBuffer);
+        }
+
+        long now = System.currentTimeMillis();
+        if (fsyncIntervalMs == 0 || (fsyncIntervalMs > 0 && now - lastFsyncMillis >= fsyncIntervalMs)) {
+            channel.force(false);
+            lastFsyncMillis = now;
+        }
+
+        if (maxSegmentBytes > 0 && channel.size() >= maxSegmentBytes) {
+            try {
+                rotate();
+            } catch (IOException e) {
+                // 本批记录已经写入，滚动失败时继续写当前分段，下一批再尝试滚动
+                logger.warn("日志分段滚动失败，继续写入当前分段: file={}, error={}", activeFile, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 文件通道在滚动或重写索引失败后可能处于关闭状态，写入前重新打开
+     */
+    private void ensureOpen() throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            channel = FileChannel.open(activeFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        if (format == Format.BINARY && (indexChannel == null || !indexChannel.isOpen())) {
+            indexChannel = FileChannel.open(indexFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+    }
+
+    private void ensureCapacity(int frameBytes) {
+        if (batchBuffer.remaining() >= frameBytes) {
+            return;
+        }
+        int newCapacity = Math.max(batchBuffer.capacity() * 2, batchBuffer.position() + frameBytes);
+        ByteBuffer larger = ByteBuffer.allocate(newCapacity);
+        batchBuffer.flip();
+        larger.put(batchBuffer);
+        batchBuffer = larger;
+    }
+
+    private void rotate() throws IOException {
+        channel.force(false);
+        channel.close();
+        try {
+            Files.move(activeFile, Path.of(activeFile + "." + segmentNumber));
+            segmentNumber++;
+            recordsSinceIndex = INDEX_INTERVAL;
+        } finally {
+            // 重命名失败时重新打开原来的活动分段；这里也失败时由下一批写入前的 ensureOpen 重试
+            channel = FileChannel.open(activeFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        logger.info("日志分段已滚动: file={}, 新分段号={}", activeFile, segmentNumber);
+        if (maxRotatedSegments > 0) {
+            deleteExpiredSegments();
+        }
+    }
+
+    /**
+     * 删除超出保留数量的最旧分段，并重写索引去掉指向这些分段的索引项
+     */
+    private void deleteExpiredSegments() throws IOException {
+        List<Path> rotated = listRotatedSegments();
+        int excess = rotated.size() - maxRotatedSegments;
+        if (excess <= 0) {
+            return;
+        }
+        for (Path segment : rotated.subList(0, excess)) {
+            Files.deleteIfExists(segment);
+        }
+        int firstKept = segmentNumberOf(rotated.get(excess));
+        logger.info("删除过期的日志分段: file={}, 删除{}个, 保留自分段号={}", activeFile, excess, firstKept);
+        if (format != Format.BINARY) {
+            return;
+        }
+
+        ByteBuffer kept = ByteBuffer.allocate((int) Math.max(0L, Files.size(indexFile)));
+        for (long[] entry : readIndex()) {
+            if (entry[1] >= firstKept) {
+                kept.putLong(entry[0]).putInt((int) entry[1]).putLong(entry[2]);
+            }
+        }
+        kept.flip();
+        Path tmp = Path.of(indexFile + ".tmp");
+        try (FileChannel writer = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (kept.hasRemaining()) {
+                writer.write(kept);
+            }
+            writer.force(false);
+        }
+        indexChannel.close();
+        try {
+            Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            // 替换失败时继续追加到原索引；这里也失败时由下一批写入前的 ensureOpen 重试
+            indexChannel = FileChannel.open(indexFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+    }
+
+    private void writeIndexEntry(long sequence, long offset) throws IOException {
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+        entry.putLong(sequence).putInt(segmentNumber).putLong(offset).flip();
+        while (entry.hasRemaining()) {
+            indexChannel.write(entry);
+        }
+    }
+
+    private void openFiles() throws IOException {
+        Path parent = activeFile.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        List<Path> rotated = listRotatedSegments();
+        segmentNumber = rotated.isEmpty() ? 1 : segmentNumberOf(rotated.get(rotated.size() - 1)) + 1;
+
+        if (format == Format.BINARY) {
+            indexChannel = FileChannel.open(indexFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            recoverBinaryTail();
+        }
+        channel = FileChannel.open(activeFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * 恢复下一条记录的序号，并截掉活动分段末尾写到一半的帧
+     */
+    private void recoverBinaryTail() throws IOException {
+        nextSequence = 0L;
+        List<long[]> index = readIndex();
+        int scanSegment = firstSegmentNumber();
+        long scanOffset = 0L;
+        if (!index.isEmpty()) {
+            long[] last = index.get(index.size() - 1);
+            scanSegment = (int) last[1];
+            scanOffset = last[2];
+            nextSequence = last[0];
+        }
+        for (int segment = scanSegment; segment <= segmentNumber; segment++) {
+            Path file = segmentPath(segment);
+            if (!Files.exists(file)) {
+                continue;
+            }
+            try (FileChannel reader = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                List<JournalRecord> records = new ArrayList<>();
+                long validEnd = scanFrames(reader, segment == scanSegment ? scanOffset : 0L, records);
+                if (!records.isEmpty()) {
+                    nextSequence = records.get(records.size() - 1).sequence() + 1;
+                }
+                if (segment == segmentNumber && validEnd < reader.size()) {
+                    logger.warn("截断日志末尾损坏的记录: file={}, offset={}", file, validEnd);
+                    reader.truncate(validEnd);
+                }
+            }
+        }
+    }
+
+    /**
+     * 从偏移处开始解析帧，遇到损坏或不完整的帧即停止
+     *
+     * @return 最后一个完整帧之后的偏移
+     */
+    private long scanFrames(FileChannel reader, long offset, List<JournalRecord> records) throws IOException {
+        long size = reader.size();
+        long position = offset;
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_BYTES);
+        CRC32 crc = new CRC32();
+        while (position + FRAME_HEADER_BYTES + FRAME_TRAILER_BYTES <= size) {
+            header.clear();
+            readFully(reader, header, position);
+            header.flip();
+            int length = header.getInt();
+            long sequence = header.getLong();
+            long timestamp = header.getLong();
+            if (length < 0 || length > MAX_RECORD_BYTES
+                    || position + FRAME_HEADER_BYTES + length + FRAME_TRAILER_BYTES > size) {
+                break;
+            }
+            ByteBuffer body = ByteBuffer.allocate(length + FRAME_TRAILER_BYTES);
+            readFully(reader, body, position + FRAME_HEADER_BYTES);
+            body.flip();
+            byte[] payload = new byte[length];
+            body.get(payload);
+            int storedCrc = body.getInt();
+
+            crc.reset();
+            crc.update(header.array(), 4, 16);
+            crc.update(payload);
+            if ((int) crc.getValue() != storedCrc) {
+                break;
+            }
+            records.add(new JournalRecord(sequence, timestamp, payload));
+            position += FRAME_HEADER_BYTES + length + FRAME_TRAILER_BYTES;
+        }
+        return position;
+    }
+
+    private void readFully(FileChannel reader, ByteBuffer buffer, long position) throws IOException {
+        long current = position;
+        while (buffer.hasRemaining()) {
+            int read = reader.read(buffer, current);
+            if (read < 0) {
+                throw new IOException("日志文件意外结束");
+            }
+            current += read;
+        }
+    }
+
+    private List<long[]> readIndex() throws IOException {
+        List<long[]> entries = new ArrayList<>();
+        if (!Files.exists(indexFile)) {
+            return entries;
+        }
+        byte[] bytes = Files.readAllBytes(indexFile);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.remaining() >= INDEX_ENTRY_BYTES) {
+            entries.add(new long[]{buffer.getLong(), buffer.getInt(), buffer.getLong()});
+        }
+        return entries;
+    }
+
+    private int firstSegmentNumber() throws IOException {
+        List<Path> rotated = listRotatedSegments();
+        return rotated.isEmpty() ? segmentNumber : segmentNumberOf(rotated.get(0));
+    }
+
+    private List<Path> listRotatedSegments() throws IOException {
+        Path parent = activeFile.getParent();
+        if (parent == null || !Files.isDirectory(parent)) {
+            return new ArrayList<>();
+        }
+        String prefix = activeFile.getFileName() + ".";
+        try (Stream<Path> files = Files.list(parent)) {
+            return files
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(prefix) && name.substring(prefix.length()).chars().allMatch(Character::isDigit)
+                                && name.length() > prefix.length();
+                    })
+                    .sorted((a, b) -> Integer.compare(segmentNumberOf(a), segmentNumberOf(b)))
+                    .toList();
+        }
+    }
+
+    private int segmentNumberOf(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(name.lastIndexOf('.') + 1));
+    }
+
+    private Path segmentPath(int segment) {
+        return segment == segmentNumber ? activeFile : Path.of(activeFile + "." + segment);
+    }
+
+    private void closeFiles() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        if (indexChannel != null) {
+            indexChannel.close();
+            indexChannel = null;
+        }
+    }
+
+    /**
+     * 重放得到的日志记录
+     *
+     * @param sequence 序号
+     * @param timestamp 写入时间（毫秒）
+     * @param payload 记录内容
+     */
+    public record JournalRecord(long sequence, long timestamp, byte[] payload) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.douyin.liverecorder.infrastructure;
+
+import java.util.Set;
+
+/**
+ * FFmpeg探测结果
+ *
+ * @param path 可执行文件路径
+ * @param available 是否可用（-version 正常退出）
+ * @param version 版本信息（-version 输出的第一行），不可用时为null
+ * @param inputProtocols 支持的输入协议，探测失败时为空
+ */
+public record FFmpegInfo(String path, boolean available, String version, Set<String> inputProtocols) {
+
+    /**
+     * 是否支持指定的输入协议（如 http、https）
+     */
+    public boolean supportsInput(String protocol) {
+        return inputProtocols.contains(protocol);
+    }
+}
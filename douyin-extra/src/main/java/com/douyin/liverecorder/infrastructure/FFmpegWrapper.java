@@ -1,15 +1,23 @@
 package com.douyin.liverecorder.infrastructure;
 
+import com.douyin.liverecorder.jfr.FFmpegKillEvent;
+import com.douyin.liverecorder.jfr.FFmpegSpawnEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -21,8 +29,24 @@ public class FFmpegWrapper {
     
     private static final Logger logger = LoggerFactory.getLogger(FFmpegWrapper.class);
     
+    // FFmpeg可执行文件，默认从PATH中查找；压测时可指向 benchmarks/fake-ffmpeg.sh
+    @Value("${ffmpeg.path:ffmpeg}")
+    private String ffmpegPath = "ffmpeg";
+    
+    // 每个进程最多保留的输出字符数（FFmpeg 每秒都会输出进度，长时间录制时只保留末尾部分）
+    static final int MAX_OUTPUT_CHARS = 64 * 1024;
+    
+    // 进程结束后输出继续保留的时长，供调用方判断退出原因
+    static final long EXITED_RETENTION_NANOS = TimeUnit.SECONDS.toNanos(60);
+    
     // 存储进程和其输出的映射
-    private final ConcurrentHashMap<Process, StringBuilder> processOutputMap = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Process, ProcessOutput> processOutputMap = new ConcurrentHashMap<>();
+    
+    // 启动进程时所属的任务（用于JFR事件，终止进程的线程上没有任务的MDC上下文）
+    private final ConcurrentHashMap<Process, TaskContext> processTaskMap = new ConcurrentHashMap<>();
+    
+    // 输出已读完（进程已结束）的进程，按结束时间排序，超过保留时长后清理
+    private final ConcurrentLinkedQueue<ExitedProcess> exitedProcesses = new ConcurrentLinkedQueue<>();
     
     /**
      * 执行FFmpeg命令
@@ -37,15 +61,19 @@ public class FFmpegWrapper {
         }
         
         logger.info("执行FFmpeg命令: {}", String.join(" ", command));
+        purgeExitedProcesses();
         
+        FFmpegSpawnEvent event = FFmpegSpawnEvent.start(command.get(command.size() - 1));
         try {
             ProcessBuilder processBuilder = new ProcessBuilder(command);
             processBuilder.redirectErrorStream(true); // 合并标准输出和错误输出
             
             Process process = processBuilder.start();
+            event.started(process.pid());
+            processTaskMap.put(process, new TaskContext(MDC.get("taskId"), MDC.get("douyinId")));
             
             // 初始化输出缓冲区
-            StringBuilder outputBuffer = new StringBuilder();
+            ProcessOutput outputBuffer = new ProcessOutput();
             processOutputMap.put(process, outputBuffer);
             
             // 启动线程读取进程输出
@@ -55,6 +83,7 @@ public class FFmpegWrapper {
             return process;
             
         } catch (IOException e) {
+            event.failed();
             logger.error("启动FFmpeg进程失败", e);
             throw e;
         }
@@ -71,7 +100,7 @@ public class FFmpegWrapper {
      */
     public List<String> buildRecordingCommand(String streamUrl, String outputFile) {
         List<String> command = new ArrayList<>();
-        command.add("ffmpeg");
+        command.add(ffmpegPath);
         command.add("-i");
         command.add(streamUrl);
         command.add("-c");
@@ -100,7 +129,7 @@ public class FFmpegWrapper {
      */
     public List<String> buildRemuxCommand(String inputFile, String outputFile) {
         List<String> command = new ArrayList<>();
-        command.add("ffmpeg");
+        command.add(ffmpegPath);
         command.add("-i");
         command.add(inputFile);
         command.add("-c");
@@ -130,6 +159,8 @@ public class FFmpegWrapper {
             return true;
         }
         
+        TaskContext context = processTaskMap.getOrDefault(process, TaskContext.NONE);
+        FFmpegKillEvent event = FFmpegKillEvent.start(process.pid(), context.taskId(), context.douyinId());
         try {
             logger.info("正在终止FFmpeg进程，PID: {}", process.pid());
             
@@ -149,15 +180,18 @@ public class FFmpegWrapper {
             if (!exited) {
                 // 如果进程没有退出，强制终止
                 logger.warn("进程未能优雅退出，强制终止");
+                event.setForced(true);
                 process.destroyForcibly();
                 process.waitFor(2, TimeUnit.SECONDS);
             }
             
             cleanupProcess(process);
+            event.finish(true);
             logger.info("FFmpeg进程已终止");
             return true;
             
         } catch (InterruptedException e) {
+            event.finish(false);
             logger.error("等待进程终止时被中断", e);
             Thread.currentThread().interrupt();
             return false;
@@ -175,7 +209,7 @@ public class FFmpegWrapper {
             return "";
         }
         
-        StringBuilder output = processOutputMap.get(process);
+        ProcessOutput output = processOutputMap.get(process);
         if (output == null) {
             return "";
         }
@@ -217,14 +251,14 @@ public class FFmpegWrapper {
      * @param process 进程
      * @param outputBuffer 输出缓冲区
      */
-    private void startOutputReader(Process process, StringBuilder outputBuffer) {
+    private void startOutputReader(Process process, ProcessOutput outputBuffer) {
         Thread readerThread = new Thread(() -> {
             try (BufferedReader reader = new BufferedReader(
                     new InputStreamReader(process.getInputStream()))) {
                 
                 String line;
                 while ((line = reader.readLine()) != null) {
-                    outputBuffer.append(line).append("\n");
+                    outputBuffer.append(line);
                     
                     // 记录重要的FFmpeg输出
                     if (line.contains("error") || line.contains("Error") || 
@@ -237,6 +271,9 @@ public class FFmpegWrapper {
                 
             } catch (IOException e) {
                 logger.error("读取进程输出时发生错误", e);
+            } finally {
+                // 输出读完说明进程已结束（或关闭了输出），保留一段时间后清理
+                exitedProcesses.add(new ExitedProcess(process, System.nanoTime()));
             }
         });
         
@@ -245,6 +282,39 @@ public class FFmpegWrapper {
         readerThread.start();
     }
     
+    /**
+     * 清理已结束超过保留时长的进程
+     * 没有被 kill 的进程（自行退出、启动后很快失败、封装进程）都在这里释放输出缓冲区
+     */
+    public void purgeExitedProcesses() {
+        purgeExitedProcesses(System.nanoTime());
+    }
+    
+    void purgeExitedProcesses(long nowNanos) {
+        ExitedProcess head;
+        while ((head = exitedProcesses.peek()) != null
+                && nowNanos - head.exitedAtNanos() >= EXITED_RETENTION_NANOS) {
+            if (!exitedProcesses.remove(head)) {
+                continue;
+            }
+            if (head.process().isAlive()) {
+                // 关闭了输出但仍在运行，等下一个保留期
+                exitedProcesses.add(new ExitedProcess(head.process(), nowNanos));
+            } else {
+                cleanupProcess(head.process());
+            }
+        }
+    }
+    
+    /**
+     * 获取当前跟踪的进程数（包括已结束但仍在保留期内的进程）
+     * 
+     * @return 进程数
+     */
+    public int getTrackedProcessCount() {
+        return processOutputMap.size();
+    }
+    
     /**
      * 清理进程相关资源
      * 
@@ -253,29 +323,26 @@ public class FFmpegWrapper {
     private void cleanupProcess(Process process) {
         if (process != null) {
             processOutputMap.remove(process);
+            processTaskMap.remove(process);
         }
     }
     
+    /**
+     * 获取FFmpeg可执行文件路径
+     * 
+     * @return 配置的可执行文件路径
+     */
+    public String getFFmpegPath() {
+        return ffmpegPath;
+    }
+    
     /**
      * 检查FFmpeg是否可用
      * 
      * @return 如果FFmpeg可用返回true，否则返回false
      */
     public boolean isFFmpegAvailable() {
-        try {
-            ProcessBuilder processBuilder = new ProcessBuilder("ffmpeg", "-version");
-            Process process = processBuilder.start();
-            boolean exited = process.waitFor(5, TimeUnit.SECONDS);
-            
-            if (exited && process.exitValue() == 0) {
-                return true;
-            }
-            
-            return false;
-        } catch (Exception e) {
-            logger.debug("检查FFmpeg可用性失败", e);
-            return false;
-        }
+        return runProbe("-version") != null;
     }
     
     /**
@@ -284,24 +351,107 @@ public class FFmpegWrapper {
      * @return FFmpeg版本字符串
      */
     public String getFFmpegVersion() {
+        List<String> lines = runProbe("-version");
+        return lines != null && !lines.isEmpty() ? lines.get(0) : "未知版本";
+    }
+    
+    /**
+     * 探测FFmpeg的版本和支持的输入协议
+     * 会启动两个短时进程，调用方应缓存结果，不要在请求路径上调用
+     * 
+     * @return 探测结果
+     */
+    public FFmpegInfo probe() {
+        List<String> versionLines = runProbe("-version");
+        if (versionLines == null) {
+            return new FFmpegInfo(ffmpegPath, false, null, Set.of());
+        }
+        String version = versionLines.isEmpty() ? "未知版本" : versionLines.get(0);
+        
+        // 输出格式：Supported file protocols: / Input: / <协议>... / Output: / <协议>...
+        Set<String> inputProtocols = new TreeSet<>();
+        List<String> protocolLines = runProbe("-hide_banner", "-protocols");
+        if (protocolLines != null) {
+            boolean inInput = false;
+            for (String line : protocolLines) {
+                String trimmed = line.trim();
+                if (trimmed.equals("Input:")) {
+                    inInput = true;
+                } else if (trimmed.equals("Output:")) {
+                    break;
+                } else if (inInput && !trimmed.isEmpty()) {
+                    inputProtocols.add(trimmed);
+                }
+            }
+        }
+        return new FFmpegInfo(ffmpegPath, true, version, Collections.unmodifiableSet(inputProtocols));
+    }
+    
+    /**
+     * 运行一次FFmpeg探测命令
+     * 
+     * @param args 参数
+     * @return 输出的所有行，启动失败、超时或退出码非0时返回null
+     */
+    private List<String> runProbe(String... args) {
+        List<String> command = new ArrayList<>();
+        command.add(ffmpegPath);
+        command.addAll(List.of(args));
+        Process process = null;
         try {
-            ProcessBuilder processBuilder = new ProcessBuilder("ffmpeg", "-version");
-            Process process = processBuilder.start();
-            
+            process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            // 探测命令的输出只有几KB，不会写满管道，先等待退出再读取，避免进程卡住时一直阻塞
+            if (!process.waitFor(5, TimeUnit.SECONDS) || process.exitValue() != 0) {
+                return null;
+            }
+            List<String> lines = new ArrayList<>();
             try (BufferedReader reader = new BufferedReader(
                     new InputStreamReader(process.getInputStream()))) {
-                String firstLine = reader.readLine();
-                if (firstLine != null) {
-                    return firstLine;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line);
                 }
             }
-            
-            process.waitFor(5, TimeUnit.SECONDS);
-            return "未知版本";
-            
+            return lines;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
         } catch (Exception e) {
-            logger.debug("获取FFmpeg版本失败", e);
-            return "未知版本";
+            logger.debug("FFmpeg探测失败: {}", String.join(" ", command), e);
+            return null;
+        } finally {
+            if (process != null && process.isAlive()) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private record TaskContext(String taskId, String douyinId) {
+        static final TaskContext NONE = new TaskContext(null, null);
+    }
+
+    private record ExitedProcess(Process process, long exitedAtNanos) {
+    }
+
+    /**
+     * 进程输出缓冲区，超过上限时丢弃最早的一半
+     * 由读取线程写入、其他线程读取，方法需要同步
+     */
+    private static final class ProcessOutput {
+
+        private final StringBuilder buffer = new StringBuilder();
+
+        synchronized void append(String line) {
+            buffer.append(line).append('\n');
+            if (buffer.length() > MAX_OUTPUT_CHARS) {
+                int cut = buffer.indexOf("\n", buffer.length() - MAX_OUTPUT_CHARS / 2);
+                buffer.delete(0, cut >= 0 ? cut + 1 : buffer.length() - MAX_OUTPUT_CHARS / 2);
+            }
+        }
+
+        @Override
+        public synchronized String toString() {
+            return buffer.toString();
         }
     }
 }
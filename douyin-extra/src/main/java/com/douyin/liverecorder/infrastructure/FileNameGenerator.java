@@ -1,11 +1,17 @@
 package com.douyin.liverecorder.infrastructure;
 
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.util.function.BiConsumer;
 
 /**
  * 文件名生成器
- * 负责生成符合规范的录制文件名
+ * 负责生成符合规范的录制文件名，以及从文件名中解析抖音号和录制时间。
+ * 解析按字符单次扫描，不使用正则和 split，扫描大量文件时不产生中间数组；
+ * 分段规则与 {@code split("_")} 一致：末尾连续的下划线被忽略，分段数必须正好为3，
+ * 因此包含下划线的抖音号生成的文件名无法解析
  */
 public class FileNameGenerator {
     
@@ -29,12 +35,71 @@ public class FileNameGenerator {
             throw new IllegalArgumentException("时间戳不能为空");
         }
         
-        String datePart = timestamp.format(DATE_FORMATTER);
-        String timePart = timestamp.format(TIME_FORMATTER);
-        
-        return douyinId + "_" + datePart + "_" + timePart + FILE_EXTENSION;
+        int year = timestamp.getYear();
+        if (year < 1 || year > 9999) {
+            return douyinId + "_" + timestamp.format(DATE_FORMATTER) + "_" + timestamp.format(TIME_FORMATTER)
+                    + FILE_EXTENSION;
+        }
+        StringBuilder builder = new StringBuilder(douyinId.length() + 20);
+        builder.append(douyinId).append('_');
+        appendPadded(builder, year, 4);
+        appendPadded(builder, timestamp.getMonthValue(), 2);
+        appendPadded(builder, timestamp.getDayOfMonth(), 2);
+        builder.append('_');
+        appendPadded(builder, timestamp.getHour(), 2);
+        appendPadded(builder, timestamp.getMinute(), 2);
+        appendPadded(builder, timestamp.getSecond(), 2);
+        return builder.append(FILE_EXTENSION).toString();
     }
     
+    /**
+     * 解析录制文件名
+     *
+     * @param filename 文件名
+     * @return 解析结果，文件名格式不正确时返回null
+     */
+    public static ParsedFilename parse(String filename) {
+        if (filename == null || !filename.endsWith(FILE_EXTENSION)) {
+            return null;
+        }
+        int end = trimSeparators(filename, filename.length() - FILE_EXTENSION.length());
+        long separators = separators(filename, end);
+        if (separators < 0) {
+            return null;
+        }
+        int first = (int) (separators >>> 32);
+        int second = (int) separators;
+        if (first == 0) {
+            return null;
+        }
+        int date = digits(filename, first + 1, second, 8);
+        int time = digits(filename, second + 1, end, 6);
+        if (date < 0 || time < 0) {
+            return null;
+        }
+        return new ParsedFilename(filename.substring(0, first), date, time);
+    }
+
+    /**
+     * 批量解析目录列表，只对文件名格式正确的文件回调
+     *
+     * @param files 目录中的文件
+     * @param action 文件及其解析结果
+     * @return 文件名格式正确的文件数
+     */
+    public static int parseAll(Iterable<Path> files, BiConsumer<Path, ParsedFilename> action) {
+        int count = 0;
+        for (Path file : files) {
+            Path name = file.getFileName();
+            ParsedFilename parsed = name != null ? parse(name.toString()) : null;
+            if (parsed != null) {
+                action.accept(file, parsed);
+                count++;
+            }
+        }
+        return count;
+    }
+
     /**
      * 从文件名中解析抖音号
      * 
@@ -45,19 +110,9 @@ public class FileNameGenerator {
         if (filename == null || filename.isEmpty()) {
             return null;
         }
-        
-        // 移除.mp4扩展名
-        if (filename.endsWith(FILE_EXTENSION)) {
-            filename = filename.substring(0, filename.length() - FILE_EXTENSION.length());
-        }
-        
-        // 分割文件名
-        String[] parts = filename.split("_");
-        if (parts.length != 3) {
-            return null;
-        }
-        
-        return parts[0];
+        int end = trimSeparators(filename, withoutExtension(filename));
+        long separators = separators(filename, end);
+        return separators >= 0 ? filename.substring(0, (int) (separators >>> 32)) : null;
     }
     
     /**
@@ -70,19 +125,9 @@ public class FileNameGenerator {
         if (filename == null || filename.isEmpty()) {
             return null;
         }
-        
-        // 移除.mp4扩展名
-        if (filename.endsWith(FILE_EXTENSION)) {
-            filename = filename.substring(0, filename.length() - FILE_EXTENSION.length());
-        }
-        
-        // 分割文件名
-        String[] parts = filename.split("_");
-        if (parts.length != 3) {
-            return null;
-        }
-        
-        return parts[1];
+        int end = trimSeparators(filename, withoutExtension(filename));
+        long separators = separators(filename, end);
+        return separators >= 0 ? filename.substring((int) (separators >>> 32) + 1, (int) separators) : null;
     }
     
     /**
@@ -95,19 +140,9 @@ public class FileNameGenerator {
         if (filename == null || filename.isEmpty()) {
             return null;
         }
-        
-        // 移除.mp4扩展名
-        if (filename.endsWith(FILE_EXTENSION)) {
-            filename = filename.substring(0, filename.length() - FILE_EXTENSION.length());
-        }
-        
-        // 分割文件名
-        String[] parts = filename.split("_");
-        if (parts.length != 3) {
-            return null;
-        }
-        
-        return parts[2];
+        int end = trimSeparators(filename, withoutExtension(filename));
+        long separators = separators(filename, end);
+        return separators >= 0 ? filename.substring((int) separators + 1, end) : null;
     }
     
     /**
@@ -117,42 +152,112 @@ public class FileNameGenerator {
      * @return 如果格式正确返回true，否则返回false
      */
     public static boolean isValidFilename(String filename) {
-        if (filename == null || filename.isEmpty()) {
+        if (filename == null || !filename.endsWith(FILE_EXTENSION)) {
             return false;
         }
-        
-        // 检查扩展名
-        if (!filename.endsWith(FILE_EXTENSION)) {
+        int end = trimSeparators(filename, filename.length() - FILE_EXTENSION.length());
+        long separators = separators(filename, end);
+        if (separators < 0) {
             return false;
         }
-        
-        // 移除扩展名
-        String nameWithoutExt = filename.substring(0, filename.length() - FILE_EXTENSION.length());
-        
-        // 分割并验证格式
-        String[] parts = nameWithoutExt.split("_");
-        if (parts.length != 3) {
-            return false;
+        int first = (int) (separators >>> 32);
+        int second = (int) separators;
+        // 抖音号非空，日期8位数字，时间6位数字
+        return first > 0
+                && digits(filename, first + 1, second, 8) >= 0
+                && digits(filename, second + 1, end, 6) >= 0;
+    }
+
+    private static int withoutExtension(String filename) {
+        return filename.endsWith(FILE_EXTENSION) ? filename.length() - FILE_EXTENSION.length() : filename.length();
+    }
+
+    /**
+     * 去掉末尾连续的下划线（split 会丢弃末尾的空段）
+     */
+    private static int trimSeparators(String name, int end) {
+        while (end > 0 && name.charAt(end - 1) == '_') {
+            end--;
         }
-        
-        // 验证日期部分（8位数字）
-        String datePart = parts[1];
-        if (datePart.length() != 8 || !datePart.matches("\\d{8}")) {
-            return false;
+        return end;
+    }
+
+    /**
+     * 查找 [0, end) 中的两个下划线
+     *
+     * @return 高32位为第一个下划线位置、低32位为第二个；下划线不是正好两个时返回-1
+     */
+    private static long separators(String name, int end) {
+        int first = -1;
+        int second = -1;
+        for (int i = 0; i < end; i++) {
+            if (name.charAt(i) == '_') {
+                if (first < 0) {
+                    first = i;
+                } else if (second < 0) {
+                    second = i;
+                } else {
+                    return -1;
+                }
+            }
         }
-        
-        // 验证时间部分（6位数字）
-        String timePart = parts[2];
-        if (timePart.length() != 6 || !timePart.matches("\\d{6}")) {
-            return false;
+        return second < 0 ? -1 : ((long) first << 32) | second;
+    }
+
+    /**
+     * 把 [from, to) 按十进制数字解析
+     *
+     * @return 数值；长度不等于 length 或包含非 ASCII 数字时返回-1
+     */
+    private static int digits(String name, int from, int to, int length) {
+        if (to - from != length) {
+            return -1;
         }
-        
-        // 验证抖音号部分（非空）
-        String douyinIdPart = parts[0];
-        if (douyinIdPart.isEmpty()) {
-            return false;
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = name.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static void appendPadded(StringBuilder builder, int value, int width) {
+        for (int divisor = width == 4 ? 1000 : 10; divisor > 0; divisor /= 10) {
+            builder.append((char) ('0' + value / divisor % 10));
+        }
+    }
+
+    /**
+     * 文件名解析结果
+     *
+     * @param douyinId 抖音号
+     * @param date 日期，yyyyMMdd 对应的整数
+     * @param time 时间，HHmmss 对应的整数
+     */
+    public record ParsedFilename(String douyinId, int date, int time) {
+
+        /**
+         * 录制开始时间
+         * 与按 yyyyMMddHHmmss 宽松解析一致：日期超过当月天数时取当月最后一天
+         *
+         * @return 录制开始时间，年月或时分秒超出范围时返回null
+         */
+        public LocalDateTime recordedAt() {
+            int year = date / 10000;
+            int month = date / 100 % 100;
+            int day = date % 100;
+            int hour = time / 10000;
+            int minute = time / 100 % 100;
+            int second = time % 100;
+            if (year < 1 || month < 1 || month > 12 || day < 1 || day > 31
+                    || hour > 23 || minute > 59 || second > 59) {
+                return null;
+            }
+            return LocalDateTime.of(year, month, Math.min(day, YearMonth.of(year, month).lengthOfMonth()),
+                    hour, minute, second);
         }
-        
-        return true;
     }
 }
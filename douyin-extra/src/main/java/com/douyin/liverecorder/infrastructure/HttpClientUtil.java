@@ -1,8 +1,10 @@
 package com.douyin.liverecorder.infrastructure;
 
+import com.douyin.liverecorder.jfr.HttpRequestEvent;
 import okhttp3.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -29,6 +31,7 @@ public class HttpClientUtil {
     private static final int RETRY_DELAY_SECONDS = 2;
     
     private final OkHttpClient client;
+    private final RecordingMetrics metrics;
     @Value("${douyin.cookie:}")
     private String douyinCookie;
     @Value("${douyin.cookie-file:}")
@@ -38,6 +41,12 @@ public class HttpClientUtil {
     private volatile String runtimeCookie;
     
     public HttpClientUtil() {
+        this(RecordingMetrics.noop());
+    }
+    
+    @Autowired
+    public HttpClientUtil(RecordingMetrics metrics) {
+        this.metrics = metrics;
         this.client = new OkHttpClient.Builder()
                 .connectTimeout(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
                 .readTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
@@ -79,20 +88,32 @@ public class HttpClientUtil {
      */
     private String executeWithRetry(String url, int maxRetries) throws IOException {
         IOException lastException = null;
+        String method = "GET";
+        long startNanos = System.nanoTime();
         
         for (int attempt = 1; attempt <= maxRetries; attempt++) {
             try {
                 logger.debug("尝试请求 {} (第 {}/{} 次)", url, attempt, maxRetries);
-                String response = executeRequest(url);
+                HttpRequestEvent event = HttpRequestEvent.start(method, url, attempt, maxRetries);
+                String response;
+                try {
+                    response = executeRequest(url);
+                } catch (IOException e) {
+                    event.failed(statusOf(e), e.getMessage());
+                    throw e;
+                }
+                event.succeeded();
                 
                 if (attempt > 1) {
                     logger.info("请求成功 (第 {} 次尝试): {}", attempt, url);
                 }
                 
+                metrics.recordHttpRequest(method, true, attempt, System.nanoTime() - startNanos);
                 return response;
                 
             } catch (IOException e) {
                 lastException = e;
+                metrics.recordHttpAttemptFailure(method, statusOf(e), e);
                 logger.warn("请求失败 (第 {}/{} 次): {}, 错误: {}", 
                            attempt, maxRetries, url, e.getMessage());
                 
@@ -103,6 +124,7 @@ public class HttpClientUtil {
                         Thread.sleep(RETRY_DELAY_SECONDS * 1000L);
                     } catch (InterruptedException ie) {
                         Thread.currentThread().interrupt();
+                        metrics.recordHttpRequest(method, false, attempt, System.nanoTime() - startNanos);
                         throw new IOException("重试等待被中断", ie);
                     }
                 }
@@ -111,6 +133,7 @@ public class HttpClientUtil {
         
         // 所有重试都失败
         logger.error("所有重试都失败: {}", url);
+        metrics.recordHttpRequest(method, false, maxRetries, System.nanoTime() - startNanos);
         throw new IOException("请求失败，已重试 " + maxRetries + " 次", lastException);
     }
     
@@ -131,7 +154,8 @@ public class HttpClientUtil {
         
         try (Response response = client.newCall(request).execute()) {
             if (!response.isSuccessful()) {
-                throw new IOException("HTTP请求失败: " + response.code() + " " + response.message());
+                throw new HttpStatusException("HTTP请求失败: " + response.code() + " " + response.message(),
+                        response.code());
             }
             
             ResponseBody body = response.body();
@@ -166,20 +190,32 @@ public class HttpClientUtil {
      */
     private String postWithRetry(String url, String jsonBody, int maxRetries) throws IOException {
         IOException lastException = null;
+        String method = "POST";
+        long startNanos = System.nanoTime();
         
         for (int attempt = 1; attempt <= maxRetries; attempt++) {
             try {
                 logger.debug("尝试POST请求 {} (第 {}/{} 次)", url, attempt, maxRetries);
-                String response = executePostRequest(url, jsonBody);
+                HttpRequestEvent event = HttpRequestEvent.start(method, url, attempt, maxRetries);
+                String response;
+                try {
+                    response = executePostRequest(url, jsonBody);
+                } catch (IOException e) {
+                    event.failed(statusOf(e), e.getMessage());
+                    throw e;
+                }
+                event.succeeded();
                 
                 if (attempt > 1) {
                     logger.info("POST请求成功 (第 {} 次尝试): {}", attempt, url);
                 }
                 
+                metrics.recordHttpRequest(method, true, attempt, System.nanoTime() - startNanos);
                 return response;
                 
             } catch (IOException e) {
                 lastException = e;
+                metrics.recordHttpAttemptFailure(method, statusOf(e), e);
                 logger.warn("POST请求失败 (第 {}/{} 次): {}, 错误: {}", 
                            attempt, maxRetries, url, e.getMessage());
                 
@@ -190,6 +226,7 @@ public class HttpClientUtil {
                         Thread.sleep(RETRY_DELAY_SECONDS * 1000L);
                     } catch (InterruptedException ie) {
                         Thread.currentThread().interrupt();
+                        metrics.recordHttpRequest(method, false, attempt, System.nanoTime() - startNanos);
                         throw new IOException("重试等待被中断", ie);
                     }
                 }
@@ -198,6 +235,7 @@ public class HttpClientUtil {
         
         // 所有重试都失败
         logger.error("所有POST重试都失败: {}", url);
+        metrics.recordHttpRequest(method, false, maxRetries, System.nanoTime() - startNanos);
         throw new IOException("POST请求失败，已重试 " + maxRetries + " 次", lastException);
     }
     
@@ -225,7 +263,8 @@ public class HttpClientUtil {
         
         try (Response response = client.newCall(request).execute()) {
             if (!response.isSuccessful()) {
-                throw new IOException("HTTP POST请求失败: " + response.code() + " " + response.message());
+                throw new HttpStatusException("HTTP POST请求失败: " + response.code() + " " + response.message(),
+                        response.code());
             }
             
             ResponseBody responseBody = response.body();
@@ -308,4 +347,20 @@ public class HttpClientUtil {
         }
         this.runtimeCookie = cookie.trim();
     }
+
+    private static int statusOf(IOException e) {
+        return e instanceof HttpStatusException statusException ? statusException.statusCode : -1;
+    }
+
+    /**
+     * 服务端返回非2xx状态码
+     */
+    private static final class HttpStatusException extends IOException {
+        private final int statusCode;
+
+        HttpStatusException(String message, int statusCode) {
+            super(message);
+            this.statusCode = statusCode;
+        }
+    }
 }
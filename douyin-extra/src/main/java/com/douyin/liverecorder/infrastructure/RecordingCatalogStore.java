@@ -0,0 +1,170 @@
+package com.douyin.liverecorder.infrastructure;
+
+import com.douyin.liverecorder.model.RecordingFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 录制文件目录快照存储
+ * 重启时先从快照恢复目录，不必等全量扫描完成就能查询。
+ * 快照为 gzip 压缩的二进制格式：目录表只写一次，每条记录只保存目录序号、文件名、大小、时长和修改时间，
+ * 抖音号和开始录制时间在读取时从文件名解析；写入时先写临时文件再原子替换
+ */
+@Component
+public class RecordingCatalogStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecordingCatalogStore.class);
+
+    private static final int MAGIC = 0x52434154; // "RCAT"
+    private static final int VERSION = 1;
+
+    @Value("${recording.catalog.snapshot-file:./recording-catalog.bin}")
+    private String snapshotFile = "./recording-catalog.bin";
+
+    /**
+     * 读取快照
+     *
+     * @return 快照中的记录，文件不存在或无法解析时返回空列表
+     */
+    public List<RecordingFile> load() {
+        Path file = Paths.get(snapshotFile);
+        if (!Files.exists(file)) {
+            return new ArrayList<>();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file), 64 * 1024)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                logger.warn("录制目录快照格式不兼容，忽略: {}", file);
+                return new ArrayList<>();
+            }
+            int dirCount = in.readInt();
+            String[] dirs = new String[dirCount];
+            for (int i = 0; i < dirCount; i++) {
+                dirs[i] = in.readUTF();
+            }
+            int count = in.readInt();
+            List<RecordingFile> files = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String dir = dirs[in.readInt()];
+                String name = in.readUTF();
+                long size = in.readLong();
+                long durationSeconds = in.readLong();
+                long modifiedMillis = in.readLong();
+                RecordingFile recording = fromFilename(Paths.get(dir, name), size, durationSeconds, modifiedMillis);
+                if (recording != null) {
+                    files.add(recording);
+                }
+            }
+            return files;
+        } catch (IOException | RuntimeException e) {
+            logger.error("读取录制目录快照失败: {}", file, e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * 保存快照
+     *
+     * @param files 全部记录
+     * @return 保存成功返回true
+     */
+    public synchronized boolean save(Collection<RecordingFile> files) {
+        Path file = Paths.get(snapshotFile).toAbsolutePath();
+        Path tempFile = Paths.get(file + ".tmp");
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Map<String, Integer> dirIndex = new HashMap<>();
+            List<String> dirs = new ArrayList<>();
+            for (RecordingFile recording : files) {
+                String dir = Paths.get(recording.path()).getParent().toString();
+                if (dirIndex.putIfAbsent(dir, dirs.size()) == null) {
+                    dirs.add(dir);
+                }
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(tempFile), 64 * 1024)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(dirs.size());
+                for (String dir : dirs) {
+                    out.writeUTF(dir);
+                }
+                out.writeInt(files.size());
+                for (RecordingFile recording : files) {
+                    Path path = Paths.get(recording.path());
+                    out.writeInt(dirIndex.get(path.getParent().toString()));
+                    out.writeUTF(path.getFileName().toString());
+                    out.writeLong(recording.size());
+                    out.writeLong(recording.durationSeconds());
+                    out.writeLong(recording.modifiedMillis());
+                }
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            logger.error("保存录制目录快照失败: {}", file, e);
+            return false;
+        }
+    }
+
+    /**
+     * 按文件名构建记录
+     *
+     * @param path 文件路径
+     * @param size 文件大小
+     * @param durationSeconds 录制时长，为负数时按修改时间估算
+     * @param modifiedMillis 修改时间
+     * @return 记录，文件名不符合 {@link FileNameGenerator} 格式时返回null
+     */
+    public static RecordingFile fromFilename(Path path, long size, long durationSeconds, long modifiedMillis) {
+        FileNameGenerator.ParsedFilename parsed = FileNameGenerator.parse(path.getFileName().toString());
+        return parsed != null ? fromParsed(path, parsed, size, durationSeconds, modifiedMillis) : null;
+    }
+
+    /**
+     * 按已解析的文件名构建记录
+     *
+     * @param path 文件路径
+     * @param parsed 文件名解析结果
+     * @param size 文件大小
+     * @param durationSeconds 录制时长，为负数时按修改时间估算
+     * @param modifiedMillis 修改时间
+     * @return 记录，文件名中的时间无效时返回null
+     */
+    public static RecordingFile fromParsed(Path path, FileNameGenerator.ParsedFilename parsed, long size,
+                                           long durationSeconds, long modifiedMillis) {
+        LocalDateTime recordedAt = parsed.recordedAt();
+        if (recordedAt == null) {
+            return null;
+        }
+        if (durationSeconds < 0) {
+            long startMillis = recordedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            durationSeconds = Math.max(0, (modifiedMillis - startMillis) / 1000);
+        }
+        return new RecordingFile(path.toString(), parsed.douyinId(), recordedAt, size, durationSeconds,
+                modifiedMillis);
+    }
+}
@@ -0,0 +1,263 @@
+package com.douyin.liverecorder.infrastructure;
+
+import com.douyin.liverecorder.model.TaskStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * 录制相关的监控指标（通过 /actuator/prometheus 暴露）
+ * 覆盖直播检测、HTTP请求重试、任务状态、FFmpeg进程、封装和写入速率。
+ * 所有标签取值都来自固定集合（状态码、退出码等不在集合内的统一记为 other），
+ * 不使用抖音号、任务ID、URL等无界取值作为标签
+ */
+@Component
+public class RecordingMetrics {
+
+    public static final String KIND_RECORD = "record";
+    public static final String KIND_REMUX = "remux";
+
+    // 需要单独区分的抖音API状态码
+    private static final Set<Integer> KNOWN_API_STATUS_CODES = Set.of(0, 403, 404, 500, 4001, 4003, 5000);
+
+    // 需要单独区分的FFmpeg退出码（137/143 为被 SIGKILL/SIGTERM 终止）
+    private static final Set<Integer> KNOWN_EXIT_CODES = Set.of(0, 1, 137, 143, 255);
+
+    private static final String OTHER = "other";
+
+    private final MeterRegistry registry;
+    private final Counter bytesWritten;
+
+    public RecordingMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.bytesWritten = Counter.builder("recording.bytes.written")
+                .description("录制写入的字节数")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+    }
+
+    /**
+     * 不接入 Spring 时使用的实例，指标只保存在内存中
+     */
+    public static RecordingMetrics noop() {
+        return new RecordingMetrics(new SimpleMeterRegistry());
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * 注册任务数量的仪表
+     *
+     * @param counter 状态 -> 当前任务数
+     * @param active 未结束的任务数
+     */
+    public void registerTaskGauges(ToLongFunction<TaskStatus> counter, LongSupplier active) {
+        Gauge.builder("recording.tasks.active", active::getAsLong)
+                .description("未结束的录制任务数")
+                .register(registry);
+        for (TaskStatus status : TaskStatus.values()) {
+            Gauge.builder("recording.tasks", () -> counter.applyAsLong(status))
+                    .description("各状态的录制任务数")
+                    .tag("status", status.name().toLowerCase())
+                    .register(registry);
+        }
+    }
+
+    /**
+     * 注册FFmpeg进程数量的仪表（用于发现进程和输出缓冲区泄漏）
+     *
+     * @param recording 正在录制的进程数
+     * @param tracked 仍保留输出的进程数（含刚结束的进程）
+     */
+    public void registerProcessGauges(IntSupplier recording, IntSupplier tracked) {
+        Gauge.builder("ffmpeg.processes.recording", recording::getAsInt)
+                .description("正在录制的FFmpeg进程数")
+                .register(registry);
+        Gauge.builder("ffmpeg.processes.tracked", tracked::getAsInt)
+                .description("仍保留输出的FFmpeg进程数")
+                .register(registry);
+    }
+
+    /**
+     * 记录一次HTTP请求（含全部重试）
+     *
+     * @param method 请求方法
+     * @param success 是否最终成功
+     * @param attempts 实际尝试次数
+     * @param elapsedNanos 总耗时（含重试等待）
+     */
+    public void recordHttpRequest(String method, boolean success, int attempts, long elapsedNanos) {
+        String outcome = success ? "success" : "failure";
+        Timer.builder("douyin.http.requests")
+                .description("HTTP请求耗时（含重试）")
+                .tags("method", method, "outcome", outcome)
+                .register(registry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("douyin.http.attempts")
+                .description("每次HTTP请求的尝试次数")
+                .tags("method", method, "outcome", outcome)
+                .register(registry)
+                .record(attempts);
+    }
+
+    /**
+     * 记录一次失败的HTTP尝试
+     *
+     * @param method 请求方法
+     * @param httpStatus HTTP状态码，未收到响应时为-1
+     * @param error 失败原因
+     */
+    public void recordHttpAttemptFailure(String method, int httpStatus, IOException error) {
+        Counter.builder("douyin.http.attempt.failures")
+                .description("失败的HTTP尝试次数")
+                .tags("method", method, "reason", httpFailureReason(httpStatus, error))
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * 记录一次直播状态检测
+     *
+     * @param outcome 检测结果：live、offline、api_error、network_error、parse_error
+     * @param apiStatusCode 抖音API返回的状态码，没有时为null
+     * @param elapsedNanos 耗时
+     */
+    public void recordDetection(String outcome, Integer apiStatusCode, long elapsedNanos) {
+        Timer.builder("douyin.detection")
+                .description("直播状态检测耗时")
+                .tags("outcome", outcome, "status_code", apiStatusCodeTag(apiStatusCode))
+                .register(registry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录FFmpeg进程的启动耗时
+     *
+     * @param kind record 或 remux
+     * @param success 是否启动成功
+     * @param elapsedNanos 耗时
+     */
+    public void recordFfmpegSpawn(String kind, boolean success, long elapsedNanos) {
+        Timer.builder("ffmpeg.spawn")
+                .description("FFmpeg进程启动耗时")
+                .tags("kind", kind, "result", success ? "success" : "failure")
+                .register(registry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录FFmpeg进程的退出码
+     *
+     * @param kind record 或 remux
+     * @param exitCode 退出码
+     */
+    public void recordFfmpegExit(String kind, int exitCode) {
+        Counter.builder("ffmpeg.exits")
+                .description("FFmpeg进程退出次数")
+                .tags("kind", kind, "code", exitCodeTag(exitCode))
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * 记录录制结束的原因
+     *
+     * @param reason completed、user_stop、stream_end、disk_full、preempted、remux_failed、stream_interrupted、ffmpeg_error、interrupted
+     */
+    public void recordRecordingEnd(String reason) {
+        Counter.builder("recording.terminations")
+                .description("录制结束次数")
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * 记录一次MP4封装
+     *
+     * @param success 是否成功
+     * @param bytes 输入文件大小
+     * @param elapsedNanos 耗时
+     */
+    public void recordRemux(boolean success, long bytes, long elapsedNanos) {
+        Timer.builder("recording.remux")
+                .description("MP4封装耗时")
+                .tag("result", success ? "success" : "failure")
+                .register(registry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (success && bytes > 0 && elapsedNanos > 0) {
+            DistributionSummary.builder("recording.remux.throughput")
+                    .description("MP4封装吞吐量")
+                    .baseUnit("bytes_per_second")
+                    .register(registry)
+                    .record(bytes * 1_000_000_000.0 / elapsedNanos);
+        }
+    }
+
+    /**
+     * 累加录制写入的字节数（按时间求速率即为每秒写入字节数）
+     *
+     * @param bytes 新写入的字节数
+     */
+    public void recordBytesWritten(long bytes) {
+        if (bytes > 0) {
+            bytesWritten.increment(bytes);
+        }
+    }
+
+    /**
+     * 记录一次按配额或水位淘汰旧录制
+     *
+     * @param action delete 或 archive
+     * @param bytes 淘汰的文件大小
+     */
+    public void recordStorageEviction(String action, long bytes) {
+        Counter.builder("recording.storage.evictions")
+                .description("按配额或水位淘汰的录制文件数")
+                .tag("action", action)
+                .register(registry)
+                .increment();
+        Counter.builder("recording.storage.evicted.bytes")
+                .description("按配额或水位淘汰的录制字节数")
+                .baseUnit(BaseUnits.BYTES)
+                .tag("action", action)
+                .register(registry)
+                .increment(bytes);
+    }
+
+    static String apiStatusCodeTag(Integer statusCode) {
+        if (statusCode == null) {
+            return "none";
+        }
+        return KNOWN_API_STATUS_CODES.contains(statusCode) ? String.valueOf(statusCode) : OTHER;
+    }
+
+    static String exitCodeTag(int exitCode) {
+        return KNOWN_EXIT_CODES.contains(exitCode) ? String.valueOf(exitCode) : OTHER;
+    }
+
+    static String httpFailureReason(int httpStatus, IOException error) {
+        if (httpStatus >= 400 && httpStatus < 600) {
+            return httpStatus / 100 + "xx";
+        }
+        if (httpStatus > 0) {
+            return OTHER;
+        }
+        return error instanceof InterruptedIOException ? "timeout" : "io";
+    }
+}
@@ -0,0 +1,243 @@
+package com.douyin.liverecorder.infrastructure;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * 多磁盘存储池
+ * 未指定保存目录的录制在真正开始录制时才选择存储根目录：
+ * <ul>
+ *   <li>同一磁盘上的多个根目录视为一个设备，剩余空间和写入负载按设备统计</li>
+ *   <li>设备的写入负载为其上录制中任务的写入速率之和（尚未采样到速率的任务按预估码率计算）</li>
+ *   <li>选择“剩余空间 / 加入本次录制后的写入负载”最大的设备，即按当前负载最晚写满的设备，
+ *       磁盘大小相同时等价于选择负载最低的设备，使写入分散到各个磁盘</li>
+ *   <li>开启主播亲和时，主播已有录制所在的根目录剩余空间足够就继续使用，使同一主播的文件放在一起</li>
+ * </ul>
+ */
+@Component
+public class StoragePool {
+
+    private static final Logger logger = LoggerFactory.getLogger(StoragePool.class);
+
+    private static final long MB = 1024L * 1024L;
+
+    // 存储根目录，逗号分隔；为空时不启用存储池，录制必须指定保存目录
+    @Value("${recording.storage.pool.roots:}")
+    private String roots = "";
+    @Value("${recording.storage.pool.affinity:false}")
+    private boolean affinity = false;
+    // 尚未采样到写入速率的录制按此码率估算负载
+    @Value("${recording.storage.pool.expected-bitrate-kbps:4000}")
+    private long expectedBitrateKbps = 4000;
+    @Value("${recording.storage.min-free-mb:500}")
+    private long minFreeMb = 500;
+
+    private final StorageQuotaManager storageQuotaManager;
+
+    // 任务ID -> 所在根目录（包括由存储池选择的和调用方指定在根目录下的）
+    private final ConcurrentHashMap<String, Root> placements = new ConcurrentHashMap<>();
+
+    // 主播 -> 最近一次使用的根目录
+    private final ConcurrentHashMap<String, Root> lastRootByDouyinId = new ConcurrentHashMap<>();
+
+    // 任务ID -> 每秒写入字节数（未知时返回负数）
+    private volatile ToLongFunction<String> writeRates = taskId -> -1L;
+
+    private volatile List<Root> rootList;
+
+    public StoragePool(StorageQuotaManager storageQuotaManager) {
+        this.storageQuotaManager = storageQuotaManager;
+    }
+
+    /**
+     * 是否配置了存储池
+     */
+    public boolean isEnabled() {
+        return !getRoots().isEmpty();
+    }
+
+    /**
+     * 注册录制中任务的写入速率来源
+     *
+     * @param bytesPerSecond 任务ID -> 每秒写入字节数，未知时返回负数
+     */
+    public void registerWriteRates(ToLongFunction<String> bytesPerSecond) {
+        this.writeRates = bytesPerSecond;
+    }
+
+    /**
+     * 为一次录制选择存储根目录并计入该设备的负载
+     *
+     * @param taskId 任务ID
+     * @param douyinId 抖音号
+     * @return 选中的根目录；未启用存储池或所有根目录剩余空间都不足时返回null
+     */
+    public synchronized String place(String taskId, String douyinId) {
+        List<Root> all = getRoots();
+        if (all.isEmpty()) {
+            return null;
+        }
+        long required = minFreeMb * MB;
+
+        if (affinity) {
+            Root preferred = findAffinityRoot(douyinId, all);
+            if (preferred != null && storageQuotaManager.getUsableSpace(preferred.path()) >= required) {
+                return assign(taskId, douyinId, preferred, "亲和");
+            }
+        }
+
+        // 按设备统计写入负载
+        long expected = expectedBitrateKbps * 1000 / 8;
+        Map<FileStore, Long> loadByStore = new HashMap<>();
+        Map<Root, Integer> countByRoot = new HashMap<>();
+        for (Map.Entry<String, Root> entry : placements.entrySet()) {
+            long rate = writeRates.applyAsLong(entry.getKey());
+            loadByStore.merge(entry.getValue().store(), rate >= 0 ? rate : expected, Long::sum);
+            countByRoot.merge(entry.getValue(), 1, Integer::sum);
+        }
+
+        Root best = null;
+        double bestScore = -1;
+        for (Root root : all) {
+            long usable = storageQuotaManager.getUsableSpace(root.path());
+            if (usable < required) {
+                continue;
+            }
+            long load = loadByStore.getOrDefault(root.store(), 0L) + expected;
+            double score = (double) usable / load;
+            // 同一设备上的根目录得分相同，选择任务较少的根目录
+            if (best == null || score > bestScore || (score == bestScore
+                    && countByRoot.getOrDefault(root, 0) < countByRoot.getOrDefault(best, 0))) {
+                best = root;
+                bestScore = score;
+            }
+        }
+        if (best == null) {
+            logger.warn("存储池中没有剩余空间足够的根目录: taskId={}, 需要={}MB", taskId, minFreeMb);
+            return null;
+        }
+        return assign(taskId, douyinId, best, "负载");
+    }
+
+    /**
+     * 记录调用方指定的保存目录，位于存储池根目录下时计入该设备的负载
+     *
+     * @param taskId 任务ID
+     * @param directory 保存目录
+     */
+    public void track(String taskId, String directory) {
+        if (directory == null || !isEnabled()) {
+            return;
+        }
+        Path dir = normalize(directory);
+        for (Root root : getRoots()) {
+            if (dir.startsWith(Paths.get(root.path()))) {
+                placements.put(taskId, root);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 录制结束后释放任务占用的负载
+     *
+     * @param taskId 任务ID
+     */
+    public void release(String taskId) {
+        placements.remove(taskId);
+    }
+
+    /**
+     * 各根目录当前的录制数
+     *
+     * @return 根目录 -> 录制数
+     */
+    public Map<String, Integer> getPlacementCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (Root root : getRoots()) {
+            counts.put(root.path(), 0);
+        }
+        for (Root root : placements.values()) {
+            counts.merge(root.path(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private String assign(String taskId, String douyinId, Root root, String reason) {
+        placements.put(taskId, root);
+        lastRootByDouyinId.put(douyinId, root);
+        logger.info("存储池选择根目录: taskId={}, douyinId={}, root={}, 依据={}", taskId, douyinId, root.path(), reason);
+        return root.path();
+    }
+
+    /**
+     * 主播已有录制所在的根目录：优先使用本进程内最近一次的选择，否则在各根目录中查找该主播的录制文件
+     */
+    private Root findAffinityRoot(String douyinId, List<Root> all) {
+        Root last = lastRootByDouyinId.get(douyinId);
+        if (last != null) {
+            return last;
+        }
+        for (Root root : all) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(root.path()), douyinId + "_*")) {
+                if (files.iterator().hasNext()) {
+                    lastRootByDouyinId.put(douyinId, root);
+                    return root;
+                }
+            } catch (IOException e) {
+                logger.debug("查找主播录制失败: root={}, error={}", root.path(), e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private List<Root> getRoots() {
+        List<Root> list = rootList;
+        if (list != null) {
+            return list;
+        }
+        list = new ArrayList<>();
+        if (roots != null && !roots.trim().isEmpty()) {
+            for (String entry : roots.split(",")) {
+                if (entry.trim().isEmpty()) {
+                    continue;
+                }
+                Path dir = normalize(entry.trim());
+                try {
+                    Files.createDirectories(dir);
+                    list.add(new Root(dir.toString(), Files.getFileStore(dir)));
+                } catch (IOException e) {
+                    logger.error("存储池根目录不可用，已忽略: {}, error={}", dir, e.getMessage());
+                }
+            }
+            logger.info("存储池根目录: {}", list.stream().map(Root::path).toList());
+        }
+        list = Collections.unmodifiableList(list);
+        rootList = list;
+        return list;
+    }
+
+    private static Path normalize(String path) {
+        return Paths.get(path).toAbsolutePath().normalize();
+    }
+
+    private record Root(String path, FileStore store) {
+    }
+}
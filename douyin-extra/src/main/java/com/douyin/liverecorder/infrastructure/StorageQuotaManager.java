@@ -0,0 +1,522 @@
+package com.douyin.liverecorder.infrastructure;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 存储配额管理
+ * <ul>
+ *   <li>每个保存目录可配置配额，目录占用超过配额的高水位时按文件名中的录制时间从旧到新淘汰已完成的录制，直到低于低水位</li>
+ *   <li>开启磁盘水位淘汰后，磁盘使用率超过高水位时，同样在该磁盘上所有已知的保存目录中从旧到新淘汰，直到低于低水位；
+ *       默认关闭，未配置配额时不会删除任何录制</li>
+ *   <li>录制过程中持续检查剩余空间：剩余空间不足以容纳保留空间加上录制中文件的封装副本时，通知调用方提前停止录制，
+ *       避免写满磁盘后所有录制同时失败</li>
+ * </ul>
+ * 剩余空间按磁盘缓存采样结果，采样有效期内不重复查询文件系统；目录占用只按较长的间隔完整统计一次，
+ * 两次统计之间按淘汰、完成的录制和录制中文件的大小增量计算
+ */
+@Component
+public class StorageQuotaManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageQuotaManager.class);
+
+    private static final long MB = 1024L * 1024L;
+
+    public static final String EVICTION_DELETE = "delete";
+    public static final String EVICTION_ARCHIVE = "archive";
+    public static final String EVICTION_NONE = "none";
+
+    @Value("${recording.storage.path:./recordings}")
+    private String storagePath = "./recordings";
+    // 每个保存目录的默认配额，0 表示不限制
+    @Value("${recording.storage.quota-mb:0}")
+    private long defaultQuotaMb = 0;
+    // 单独指定的目录配额，格式：目录:MB,目录:MB
+    @Value("${recording.storage.quotas:}")
+    private String directoryQuotas = "";
+    @Value("${recording.storage.high-watermark-percent:90}")
+    private int highWatermarkPercent = 90;
+    @Value("${recording.storage.low-watermark-percent:80}")
+    private int lowWatermarkPercent = 80;
+    // 开始录制需要的最小剩余空间
+    @Value("${recording.storage.min-free-mb:500}")
+    private long minFreeMb = 500;
+    // 录制中剩余空间低于此值（加上录制中文件封装所需的空间）时提前停止录制
+    @Value("${recording.storage.stop-free-mb:200}")
+    private long stopFreeMb = 200;
+    @Value("${recording.storage.sample-ttl-ms:1000}")
+    private long sampleTtlMs = 1000;
+    // delete | archive | none
+    @Value("${recording.storage.eviction:delete}")
+    private String evictionAction = EVICTION_DELETE;
+    // 磁盘使用率超过高水位时是否淘汰该磁盘上所有已知保存目录中的录制，默认关闭
+    @Value("${recording.storage.disk-watermark-eviction:false}")
+    private boolean diskWatermarkEviction = false;
+    @Value("${recording.storage.archive-dir:}")
+    private String archiveDir = "";
+    // 目录占用的完整统计间隔
+    @Value("${recording.storage.usage-rescan-ms:300000}")
+    private long usageRescanMs = 300000;
+
+    private final RecordingMetrics metrics;
+
+    // 已知的保存目录（规范化的绝对路径），开启磁盘水位淘汰时只在这些目录中进行
+    private final Set<Path> knownDirectories = ConcurrentHashMap.newKeySet();
+
+    // 保存目录 -> 所在磁盘
+    private final ConcurrentHashMap<Path, FileStore> storeByDirectory = new ConcurrentHashMap<>();
+
+    // 磁盘 -> 最近一次空间采样
+    private final ConcurrentHashMap<FileStore, SpaceSample> samples = new ConcurrentHashMap<>();
+
+    // 保存目录 -> 已完成文件的占用（统计时正在使用的文件不计入，录制中文件的大小另外累加）
+    private final ConcurrentHashMap<Path, DirectoryUsage> usageByDirectory = new ConcurrentHashMap<>();
+
+    // 保存目录 -> 最近一次检查时录制中文件的总大小
+    private volatile Map<Path, Long> activeBytesByDirectory = Map.of();
+
+    private volatile Map<Path, Long> directoryQuotaMap;
+
+    private volatile boolean archiveOnSameStoreWarned;
+
+    public StorageQuotaManager(RecordingMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * 检查保存目录是否有足够空间开始一次新的录制（必要时先按配额和水位淘汰旧录制）
+     *
+     * @param directory 保存目录
+     * @param inUsePaths 正在使用的文件（录制中或封装中），不会被淘汰
+     * @return 剩余空间足够时返回true；无法获取剩余空间时也返回true，由录制过程中的检查兜底
+     */
+    public boolean hasRoomToStart(String directory, Set<String> inUsePaths) {
+        Path dir = register(directory);
+        enforceRetention(dir, normalizeAll(inUsePaths));
+        SpaceSample sample = sample(dir);
+        if (sample == null) {
+            return true;
+        }
+        long required = Math.max(minFreeMb, stopFreeMb) * MB;
+        if (sample.usable() < required) {
+            logger.warn("剩余空间不足，无法开始录制: dir={}, 可用={}MB, 需要={}MB",
+                    dir, sample.usable() / MB, required / MB);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 录制过程中的空间检查：先按配额和水位淘汰旧录制，再找出剩余空间不足、需要提前停止录制的目录
+     * 停止后每个录制还需要与临时文件大小相当的空间封装MP4，因此要求
+     * 剩余空间 >= 停止保留空间 + 同一磁盘上所有录制中文件的大小
+     *
+     * @param recordings 录制中的任务
+     * @param inUsePaths 所有未结束任务正在使用的文件（含停止中、正在封装的任务），不会被淘汰
+     * @return 需要停止录制的保存目录（与传入的目录字符串一致）
+     */
+    public Set<String> enforce(Collection<ActiveRecording> recordings, Set<String> inUsePaths) {
+        register(storagePath);
+        Set<Path> inUse = normalizeAll(inUsePaths);
+        Map<Path, List<ActiveRecording>> byDirectory = new HashMap<>();
+        Map<Path, Long> activeBytes = new HashMap<>();
+        for (ActiveRecording recording : recordings) {
+            Path dir = register(recording.directory());
+            byDirectory.computeIfAbsent(dir, k -> new ArrayList<>()).add(recording);
+            activeBytes.merge(dir, Math.max(0, recording.bytes()), Long::sum);
+            addNormalized(inUse, recording.tempPath());
+            addNormalized(inUse, recording.outputPath());
+        }
+        activeBytesByDirectory = activeBytes;
+
+        for (Path dir : knownDirectories) {
+            enforceRetention(dir, inUse);
+        }
+
+        // 同一磁盘上录制中文件的总大小
+        Map<FileStore, Long> activeBytesByStore = new HashMap<>();
+        for (Map.Entry<Path, List<ActiveRecording>> entry : byDirectory.entrySet()) {
+            FileStore store = store(entry.getKey());
+            if (store == null) {
+                continue;
+            }
+            long bytes = entry.getValue().stream().mapToLong(r -> Math.max(0, r.bytes())).sum();
+            activeBytesByStore.merge(store, bytes, Long::sum);
+        }
+
+        Set<String> lowSpace = new LinkedHashSet<>();
+        for (Map.Entry<Path, List<ActiveRecording>> entry : byDirectory.entrySet()) {
+            FileStore store = store(entry.getKey());
+            SpaceSample sample = sample(entry.getKey());
+            if (store == null || sample == null) {
+                continue;
+            }
+            long required = stopFreeMb * MB + activeBytesByStore.getOrDefault(store, 0L);
+            if (sample.usable() < required) {
+                logger.warn("剩余空间不足，提前停止录制: dir={}, 可用={}MB, 需要={}MB, 录制数={}",
+                        entry.getKey(), sample.usable() / MB, required / MB, entry.getValue().size());
+                for (ActiveRecording recording : entry.getValue()) {
+                    lowSpace.add(recording.directory());
+                }
+            }
+        }
+        return lowSpace;
+    }
+
+    /**
+     * 录制结束后计入新文件（封装完成的MP4或封装失败时保留的临时文件）的占用
+     *
+     * @param directory 保存目录
+     * @param path 文件路径
+     */
+    public void fileFinished(String directory, String path) {
+        DirectoryUsage usage = usageByDirectory.get(normalize(directory));
+        if (usage == null || path == null) {
+            return;
+        }
+        try {
+            usage.settledBytes().addAndGet(Files.size(Paths.get(path)));
+        } catch (IOException e) {
+            logger.debug("读取文件大小失败: {}, error={}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * 保存目录所在磁盘的可用空间（使用缓存的采样）
+     *
+     * @param directory 保存目录
+     * @return 可用空间（字节），无法获取时返回-1
+     */
+    public long getUsableSpace(String directory) {
+        SpaceSample sample = sample(normalize(directory));
+        return sample != null ? sample.usable() : -1;
+    }
+
+    /**
+     * 按目录配额和磁盘水位淘汰最旧的已完成录制
+     */
+    private synchronized void enforceRetention(Path dir, Set<Path> inUse) {
+        if (EVICTION_NONE.equalsIgnoreCase(evictionAction)) {
+            return;
+        }
+
+        long quota = quotaBytes(dir);
+        if (quota > 0) {
+            long used = directoryUsage(dir, inUse) + activeBytesByDirectory.getOrDefault(dir, 0L);
+            if (used > quota * highWatermarkPercent / 100) {
+                long target = used - quota * lowWatermarkPercent / 100;
+                logger.info("目录占用超过配额高水位: dir={}, 占用={}MB, 配额={}MB, 需要释放={}MB",
+                        dir, used / MB, quota / MB, target / MB);
+                evictOldest(listRecordings(List.of(dir), inUse), target);
+            }
+        }
+
+        if (!diskWatermarkEviction) {
+            return;
+        }
+        SpaceSample sample = sample(dir);
+        if (sample == null || sample.total() <= 0) {
+            return;
+        }
+        long used = sample.total() - sample.usable();
+        if (used > sample.total() * highWatermarkPercent / 100) {
+            long target = used - sample.total() * lowWatermarkPercent / 100;
+            FileStore store = store(dir);
+            if (!evictionFreesSpaceOn(store)) {
+                return;
+            }
+            List<Path> dirsOnStore = new ArrayList<>();
+            for (Path known : knownDirectories) {
+                if (store != null && store.equals(store(known))) {
+                    dirsOnStore.add(known);
+                }
+            }
+            logger.info("磁盘使用率超过高水位: store={}, 已用={}MB, 总计={}MB, 需要释放={}MB",
+                    store, used / MB, sample.total() / MB, target / MB);
+            evictOldest(listRecordings(dirsOnStore, inUse), target);
+        }
+    }
+
+    private void evictOldest(List<StoredRecording> candidates, long bytesToFree) {
+        candidates.sort(Comparator.comparing(StoredRecording::recordedAt)
+                .thenComparing(r -> r.path().getFileName().toString()));
+        long freed = 0;
+        Set<FileStore> touched = new HashSet<>();
+        for (StoredRecording recording : candidates) {
+            if (freed >= bytesToFree) {
+                break;
+            }
+            if (evict(recording.path())) {
+                freed += recording.size();
+                DirectoryUsage usage = usageByDirectory.get(recording.path().getParent());
+                if (usage != null) {
+                    usage.settledBytes().addAndGet(-recording.size());
+                }
+                FileStore store = store(recording.path().getParent());
+                if (store != null) {
+                    touched.add(store);
+                }
+            }
+        }
+        // 淘汰后立即重新采样
+        touched.forEach(samples::remove);
+        if (freed < bytesToFree && !candidates.isEmpty()) {
+            logger.warn("可淘汰的录制不足: 需要释放={}MB, 实际释放={}MB", bytesToFree / MB, freed / MB);
+        }
+    }
+
+    private boolean evict(Path file) {
+        try {
+            long size = Files.size(file);
+            if (EVICTION_ARCHIVE.equalsIgnoreCase(evictionAction) && !archiveDir.isEmpty()) {
+                Path target = Paths.get(archiveDir).resolve(file.getFileName());
+                Files.createDirectories(target.getParent());
+                Files.move(file, target);
+                logger.info("归档旧录制: {} -> {}, 大小={}MB", file, target, size / MB);
+            } else {
+                Files.deleteIfExists(file);
+                logger.info("删除旧录制: {}, 大小={}MB", file, size / MB);
+            }
+            metrics.recordStorageEviction(evictionAction.toLowerCase(), size);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            logger.warn("归档目录中已存在同名文件，跳过: {}", file.getFileName());
+            return false;
+        } catch (IOException e) {
+            logger.warn("淘汰旧录制失败: {}, error={}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 列出目录中可以淘汰的录制（文件名符合 {@link FileNameGenerator} 格式且不在使用中）
+     */
+    private List<StoredRecording> listRecordings(Collection<Path> dirs, Set<Path> inUse) {
+        List<StoredRecording> recordings = new ArrayList<>();
+        for (Path dir : dirs) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                FileNameGenerator.parseAll(files, (file, parsed) -> {
+                    LocalDateTime recordedAt = parsed.recordedAt();
+                    if (inUse.contains(file) || recordedAt == null) {
+                        return;
+                    }
+                    try {
+                        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                        if (attributes.isRegularFile()) {
+                            recordings.add(new StoredRecording(file, attributes.size(), recordedAt));
+                        }
+                    } catch (IOException e) {
+                        logger.debug("读取文件属性失败: {}", file);
+                    }
+                });
+            } catch (IOException e) {
+                logger.debug("列出目录失败: {}, error={}", dir, e.getMessage());
+            }
+        }
+        return recordings;
+    }
+
+    /**
+     * 归档到同一磁盘只是移动文件，不能降低磁盘使用率
+     */
+    private boolean evictionFreesSpaceOn(FileStore store) {
+        if (!EVICTION_ARCHIVE.equalsIgnoreCase(evictionAction) || archiveDir.isEmpty()) {
+            return true;
+        }
+        if (store == null || !store.equals(store(normalize(archiveDir)))) {
+            return true;
+        }
+        if (!archiveOnSameStoreWarned) {
+            archiveOnSameStoreWarned = true;
+            logger.warn("归档目录与保存目录位于同一磁盘，归档无法释放磁盘空间，磁盘水位淘汰不生效: archiveDir={}, store={}",
+                    archiveDir, store);
+        }
+        return false;
+    }
+
+    /**
+     * 目录中已完成文件的总大小（不含正在使用的文件），超过统计间隔时重新统计
+     */
+    private long directoryUsage(Path dir, Set<Path> inUse) {
+        long now = System.nanoTime();
+        DirectoryUsage usage = usageByDirectory.get(dir);
+        if (usage != null && now - usage.scannedAtNanos() < TimeUnit.MILLISECONDS.toNanos(usageRescanMs)) {
+            return usage.settledBytes().get();
+        }
+        long total = scanDirectory(dir, inUse);
+        usageByDirectory.put(dir, new DirectoryUsage(new AtomicLong(total), now));
+        return total;
+    }
+
+    private long scanDirectory(Path dir, Set<Path> inUse) {
+        long total = 0;
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (inUse.contains(file)) {
+                    continue;
+                }
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    if (attributes.isRegularFile()) {
+                        total += attributes.size();
+                    }
+                } catch (IOException e) {
+                    // 文件在列出后被删除
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("列出目录失败: {}, error={}", dir, e.getMessage());
+        }
+        return total;
+    }
+
+    /**
+     * 读取磁盘空间采样，超过有效期时重新查询
+     */
+    private SpaceSample sample(Path dir) {
+        FileStore store = store(dir);
+        if (store == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        SpaceSample sample = samples.get(store);
+        if (sample != null && now - sample.sampledAtNanos() < TimeUnit.MILLISECONDS.toNanos(sampleTtlMs)) {
+            return sample;
+        }
+        try {
+            sample = new SpaceSample(store.getUsableSpace(), store.getTotalSpace(), now);
+            samples.put(store, sample);
+            return sample;
+        } catch (IOException e) {
+            logger.debug("获取磁盘空间失败: {}, error={}", dir, e.getMessage());
+            return null;
+        }
+    }
+
+    private FileStore store(Path dir) {
+        FileStore store = storeByDirectory.get(dir);
+        if (store != null) {
+            return store;
+        }
+        // 目录尚未创建时使用最近的已存在的上级目录
+        Path existing = dir;
+        while (existing != null && !Files.exists(existing)) {
+            existing = existing.getParent();
+        }
+        if (existing == null) {
+            return null;
+        }
+        try {
+            store = Files.getFileStore(existing);
+        } catch (IOException e) {
+            logger.debug("获取目录所在磁盘失败: {}, error={}", dir, e.getMessage());
+            return null;
+        }
+        if (existing.equals(dir)) {
+            storeByDirectory.put(dir, store);
+        }
+        return store;
+    }
+
+    private Path register(String directory) {
+        Path dir = normalize(directory);
+        knownDirectories.add(dir);
+        return dir;
+    }
+
+    private long quotaBytes(Path dir) {
+        Long quotaMb = getDirectoryQuotaMap().get(dir);
+        return (quotaMb != null ? quotaMb : defaultQuotaMb) * MB;
+    }
+
+    private Map<Path, Long> getDirectoryQuotaMap() {
+        Map<Path, Long> map = directoryQuotaMap;
+        if (map != null) {
+            return map;
+        }
+        map = new HashMap<>();
+        if (directoryQuotas != null && !directoryQuotas.trim().isEmpty()) {
+            // 格式：目录:MB,目录:MB（按最后一个冒号分割，兼容 Windows 盘符）
+            for (String entry : directoryQuotas.split(",")) {
+                int separator = entry.lastIndexOf(':');
+                if (separator <= 0) {
+                    logger.warn("忽略无效的目录配额配置: {}", entry);
+                    continue;
+                }
+                try {
+                    map.put(normalize(entry.substring(0, separator).trim()),
+                            Long.parseLong(entry.substring(separator + 1).trim()));
+                } catch (NumberFormatException e) {
+                    logger.warn("忽略无效的目录配额配置: {}", entry);
+                }
+            }
+        }
+        directoryQuotaMap = map;
+        return map;
+    }
+
+    private static Path normalize(String path) {
+        return Paths.get(path == null || path.isEmpty() ? "." : path).toAbsolutePath().normalize();
+    }
+
+    private static Set<Path> normalizeAll(Set<String> paths) {
+        Set<Path> normalized = new HashSet<>();
+        if (paths != null) {
+            for (String path : paths) {
+                addNormalized(normalized, path);
+            }
+        }
+        return normalized;
+    }
+
+    private static void addNormalized(Set<Path> target, String path) {
+        if (path != null && !path.isEmpty()) {
+            target.add(normalize(path));
+        }
+    }
+
+    /**
+     * 录制中的任务
+     *
+     * @param directory 保存目录
+     * @param tempPath 录制中的临时文件
+     * @param outputPath 最终输出文件
+     * @param bytes 当前已写入的字节数
+     */
+    public record ActiveRecording(String directory, String tempPath, String outputPath, long bytes) {
+    }
+
+    private record StoredRecording(Path path, long size, LocalDateTime recordedAt) {
+    }
+
+    private record DirectoryUsage(AtomicLong settledBytes, long scannedAtNanos) {
+    }
+
+    private record SpaceSample(long usable, long total, long sampledAtNanos) {
+    }
+}
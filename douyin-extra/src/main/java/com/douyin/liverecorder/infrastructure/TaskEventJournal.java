@@ -0,0 +1,204 @@
+package com.douyin.liverecorder.infrastructure;
+
+import com.douyin.liverecorder.model.RecordingTask;
+import com.douyin.liverecorder.model.TaskStatus;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * 任务事件日志
+ * 记录任务生命周期事件（创建、排队、开始录制、完成等），写入由 {@link AsyncJournalWriter} 异步完成，不阻塞任务线程
+ * text 格式与原 task.txt 每行一条的格式一致；binary 格式更紧凑，并支持按序号重放
+ */
+@Component
+public class TaskEventJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskEventJournal.class);
+
+    @Value("${recording.task-log-path:./task.txt}")
+    private String taskLogPath;
+    @Value("${recording.task-log.format:text}")
+    private String format;
+    @Value("${recording.task-log.max-segment-bytes:67108864}")
+    private long maxSegmentBytes;
+    // 保留的已滚动分段数，<=0 表示全部保留
+    @Value("${recording.task-log.max-segments:16}")
+    private int maxSegments = 16;
+    @Value("${recording.task-log.max-batch:512}")
+    private int maxBatch = 512;
+    @Value("${recording.task-log.fsync-interval-ms:-1}")
+    private long fsyncIntervalMs;
+    @Value("${recording.task-log.max-pending:100000}")
+    private int maxPending = 100000;
+
+    private volatile AsyncJournalWriter writer;
+    private volatile boolean closed;
+
+    /**
+     * 记录一条任务事件，立即返回
+     *
+     * @param task 录制任务
+     * @param event 事件名称
+     */
+    public void append(RecordingTask task, String event) {
+        AsyncJournalWriter journal = getWriter();
+        if (journal == null || task == null) {
+            return;
+        }
+        try {
+            journal.append(isBinary() ? encodeBinary(task, event) : encodeText(task, event));
+        } catch (IOException e) {
+            logger.debug("编码任务事件失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从指定序号开始重放事件（仅 binary 格式）
+     *
+     * @param fromSequence 起始序号（包含）
+     * @param consumer 事件处理器
+     * @return 重放的事件数
+     * @throws IOException 如果读取失败
+     * @throws IllegalStateException 如果当前为 text 格式
+     */
+    public long replay(long fromSequence, Consumer<TaskEvent> consumer) throws IOException {
+        AsyncJournalWriter journal = getWriter();
+        if (journal == null) {
+            return 0L;
+        }
+        return journal.replay(fromSequence, record -> {
+            try {
+                consumer.accept(decodeBinary(record));
+            } catch (IOException e) {
+                logger.warn("解析任务事件失败: sequence={}, error={}", record.sequence(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 等待已提交的事件全部写入
+     *
+     * @param timeoutMs 最长等待时间
+     * @return 全部写入返回true
+     */
+    public boolean flush(long timeoutMs) {
+        AsyncJournalWriter journal = writer;
+        return journal == null || journal.flush(timeoutMs);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        closed = true;
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private AsyncJournalWriter getWriter() {
+        AsyncJournalWriter journal = writer;
+        if (journal != null || closed || taskLogPath == null || taskLogPath.trim().isEmpty()) {
+            return journal;
+        }
+        synchronized (this) {
+            if (writer == null && !closed) {
+                try {
+                    writer = new AsyncJournalWriter(
+                            Path.of(taskLogPath),
+                            isBinary() ? AsyncJournalWriter.Format.BINARY : AsyncJournalWriter.Format.TEXT,
+                            maxSegmentBytes,
+                            maxSegments,
+                            maxBatch,
+                            fsyncIntervalMs,
+                            maxPending,
+                            "task-event-journal");
+                } catch (IOException e) {
+                    logger.error("打开任务事件日志失败: {}", taskLogPath, e);
+                    closed = true;
+                }
+            }
+            return writer;
+        }
+    }
+
+    private boolean isBinary() {
+        return "binary".equals(format == null ? null : format.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private byte[] encodeText(RecordingTask task, String event) {
+        String line = String.format(
+                "%s event=%s taskId=%s douyinId=%s auto=%s status=%s output=%s temp=%s%n",
+                LocalDateTime.now(),
+                event,
+                task.getTaskId(),
+                task.getDouyinId(),
+                task.isAutoEnabled(),
+                task.getStatus(),
+                task.getOutputPath(),
+                task.getTempOutputPath()
+        );
+        return line.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] encodeBinary(RecordingTask task, String event) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(event);
+            out.writeUTF(task.getTaskId());
+            writeNullable(out, task.getDouyinId());
+            out.writeBoolean(task.isAutoEnabled());
+            writeNullable(out, task.getStatus() != null ? task.getStatus().name() : null);
+            writeNullable(out, task.getOutputPath());
+            writeNullable(out, task.getTempOutputPath());
+        }
+        return bytes.toByteArray();
+    }
+
+    private TaskEvent decodeBinary(AsyncJournalWriter.JournalRecord record) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record.payload()))) {
+            String event = in.readUTF();
+            String taskId = in.readUTF();
+            String douyinId = readNullable(in);
+            boolean autoEnabled = in.readBoolean();
+            String status = readNullable(in);
+            String outputPath = readNullable(in);
+            String tempOutputPath = readNullable(in);
+            return new TaskEvent(record.sequence(), record.timestamp(), event, taskId, douyinId, autoEnabled,
+                    status != null ? TaskStatus.valueOf(status) : null, outputPath, tempOutputPath);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("未知的任务状态", e);
+        }
+    }
+
+    private void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * 重放得到的任务事件
+     */
+    public record TaskEvent(long sequence, long timestamp, String event, String taskId, String douyinId,
+                            boolean autoEnabled, TaskStatus status, String outputPath, String tempOutputPath) {
+    }
+}
@@ -0,0 +1,412 @@
+package com.douyin.liverecorder.infrastructure;
+
+import com.douyin.liverecorder.model.RecordingTask;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * 任务历史存储
+ * 保存已从内存中淘汰的终态任务，支持按任务ID查询
+ * 记录按任务ID哈希分桶写入 JSON Lines 文件；内存中保存任务ID到最新记录位置的索引，
+ * 查询只读取一条记录，不存在的任务ID不访问磁盘。索引在首次使用时扫描所有分桶建立
+ * 超过保留时长或数量上限的记录在压缩分桶时删除，被后续记录覆盖的旧记录同时清除
+ */
+@Component
+public class TaskHistoryStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskHistoryStore.class);
+
+    private static final int BUCKET_COUNT = 64;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${recording.history.dir:./task-history}")
+    private String historyDir;
+    // 历史任务的保留天数，0 表示不按时长删除
+    @Value("${recording.history.max-age-days:90}")
+    private long maxAgeDays = 90;
+    // 历史任务的数量上限（按分桶平均分配），超过时删除结束时间最早的记录
+    @Value("${recording.history.max-tasks:100000}")
+    private int maxTasks = 100000;
+
+    // 追加和压缩独占，查询共享
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 任务ID -> 最新记录的位置，由 lock 保护写入
+    private final ConcurrentHashMap<String, Location> index = new ConcurrentHashMap<>();
+
+    // 各分桶的记录行数（含被覆盖的旧记录），由 lock 保护
+    private final int[] bucketLines = new int[BUCKET_COUNT];
+
+    private volatile boolean indexLoaded;
+
+    public TaskHistoryStore() {
+        this.objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * 批量写入历史任务
+     *
+     * @param tasks 终态任务
+     * @return 成功写入的任务数
+     */
+    public int appendAll(Collection<RecordingTask> tasks) {
+        if (tasks == null || tasks.isEmpty()) {
+            return 0;
+        }
+        ensureIndex();
+        lock.writeLock().lock();
+        try {
+            try {
+                Files.createDirectories(Paths.get(historyDir));
+            } catch (IOException e) {
+                logger.error("创建任务历史目录失败: {}", historyDir, e);
+                return 0;
+            }
+
+            // 同一分桶的记录合并为一次写入
+            int written = 0;
+            for (Map.Entry<Integer, List<RecordingTask>> bucketTasks : tasks.stream()
+                    .collect(Collectors.groupingBy(task -> bucketOf(task.getTaskId())))
+                    .entrySet()) {
+                written += appendBucket(bucketTasks.getKey(), bucketTasks.getValue());
+            }
+            return written;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 按任务ID查询历史任务
+     *
+     * @param taskId 任务ID
+     * @return 历史任务，不存在返回null
+     */
+    public RecordingTask find(String taskId) {
+        if (taskId == null || taskId.isEmpty()) {
+            return null;
+        }
+        ensureIndex();
+        lock.readLock().lock();
+        try {
+            Location location = index.get(taskId);
+            if (location == null) {
+                return null;
+            }
+            byte[] line = read(location);
+            return line != null ? parse(line) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 历史存储中是否已有该任务（只查询内存索引）
+     *
+     * @param taskId 任务ID
+     * @return 存在返回true
+     */
+    public boolean contains(String taskId) {
+        if (taskId == null || taskId.isEmpty()) {
+            return false;
+        }
+        ensureIndex();
+        return index.containsKey(taskId);
+    }
+
+    /**
+     * 历史任务数（不含被覆盖的旧记录）
+     */
+    public int size() {
+        ensureIndex();
+        return index.size();
+    }
+
+    /**
+     * 按保留时长和数量上限压缩分桶：删除过期或超出上限的记录以及被覆盖的旧记录
+     * 只重写需要压缩的分桶，由录制管理器的淘汰线程定期调用
+     */
+    public void compactIfNeeded() {
+        ensureIndex();
+        long expireBefore = maxAgeDays > 0
+                ? System.currentTimeMillis() - TimeUnit.DAYS.toMillis(maxAgeDays) : Long.MIN_VALUE;
+        int perBucketLimit = maxTasks > 0 ? Math.max(1, maxTasks / BUCKET_COUNT) : Integer.MAX_VALUE;
+
+        lock.writeLock().lock();
+        try {
+            Map<Integer, List<Map.Entry<String, Location>>> byBucket = new HashMap<>();
+            for (Map.Entry<String, Location> entry : index.entrySet()) {
+                byBucket.computeIfAbsent(entry.getValue().bucket(), k -> new ArrayList<>()).add(entry);
+            }
+            for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                List<Map.Entry<String, Location>> live = byBucket.getOrDefault(bucket, List.of());
+                boolean expired = live.stream().anyMatch(entry -> entry.getValue().endedAtMillis() < expireBefore);
+                boolean overwritten = bucketLines[bucket] > live.size() * 2 && bucketLines[bucket] - live.size() > 16;
+                if (expired || overwritten || live.size() > perBucketLimit) {
+                    compactBucket(bucket, live, expireBefore, perBucketLimit);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int appendBucket(int bucket, List<RecordingTask> tasks) {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        List<String> taskIds = new ArrayList<>();
+        List<long[]> spans = new ArrayList<>();
+        List<Long> endedAt = new ArrayList<>();
+        for (RecordingTask task : tasks) {
+            try {
+                byte[] line = objectMapper.writeValueAsBytes(task);
+                spans.add(new long[] {lines.size(), line.length});
+                lines.write(line);
+                lines.write('\n');
+                taskIds.add(task.getTaskId());
+                endedAt.add(endedAtMillis(task));
+            } catch (IOException e) {
+                logger.warn("序列化历史任务失败: taskId={}, error={}", task.getTaskId(), e.getMessage());
+            }
+        }
+        if (taskIds.isEmpty()) {
+            return 0;
+        }
+        Path bucketFile = bucketPath(bucket);
+        try (FileChannel channel = FileChannel.open(bucketFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long base = channel.size();
+            if (base > 0 && !endsWithNewline(bucketFile, base)) {
+                // 上次写到一半的记录单独成行，不影响新记录
+                channel.write(ByteBuffer.wrap(new byte[] {'\n'}));
+                base++;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            for (int i = 0; i < taskIds.size(); i++) {
+                long[] span = spans.get(i);
+                index.put(taskIds.get(i), new Location(bucket, base + span[0], (int) span[1], endedAt.get(i)));
+            }
+            bucketLines[bucket] += taskIds.size();
+            return taskIds.size();
+        } catch (IOException e) {
+            logger.error("写入任务历史失败: {}", bucketFile, e);
+            return 0;
+        }
+    }
+
+    /**
+     * 重写一个分桶，只保留未过期的最新记录；超过数量上限时保留结束时间最晚的记录
+     */
+    private void compactBucket(int bucket, List<Map.Entry<String, Location>> live, long expireBefore,
+                               int perBucketLimit) {
+        List<Map.Entry<String, Location>> kept = new ArrayList<>();
+        for (Map.Entry<String, Location> entry : live) {
+            if (entry.getValue().endedAtMillis() >= expireBefore) {
+                kept.add(entry);
+            }
+        }
+        kept.sort(Comparator.comparingLong(entry -> entry.getValue().endedAtMillis()));
+        if (kept.size() > perBucketLimit) {
+            kept = new ArrayList<>(kept.subList(kept.size() - perBucketLimit, kept.size()));
+        }
+
+        Path bucketFile = bucketPath(bucket);
+        Path tempFile = bucketFile.resolveSibling(bucketFile.getFileName() + ".tmp");
+        Map<String, Location> relocated = new HashMap<>();
+        try (FileChannel source = FileChannel.open(bucketFile, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = 0;
+            for (Map.Entry<String, Location> entry : kept) {
+                Location location = entry.getValue();
+                ByteBuffer line = ByteBuffer.allocate(location.length() + 1);
+                line.limit(location.length());
+                readFully(source, line, location.offset());
+                line.limit(line.capacity());
+                line.put((byte) '\n');
+                line.flip();
+                while (line.hasRemaining()) {
+                    target.write(line);
+                }
+                relocated.put(entry.getKey(), new Location(bucket, position, location.length(),
+                        location.endedAtMillis()));
+                position += location.length() + 1;
+            }
+        } catch (IOException e) {
+            logger.error("压缩任务历史失败: {}", bucketFile, e);
+            return;
+        }
+        try {
+            Files.move(tempFile, bucketFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("替换任务历史分桶失败: {}", bucketFile, e);
+            return;
+        }
+        for (Map.Entry<String, Location> entry : live) {
+            Location location = relocated.get(entry.getKey());
+            if (location != null) {
+                index.put(entry.getKey(), location);
+            } else {
+                index.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        logger.info("任务历史分桶已压缩: bucket={}, 记录数 {} -> {}, 删除过期或超出上限的任务数={}",
+                bucket, bucketLines[bucket], kept.size(), live.size() - kept.size());
+        bucketLines[bucket] = kept.size();
+    }
+
+    /**
+     * 首次使用时扫描所有分桶建立索引，后出现的记录覆盖先出现的记录
+     */
+    private void ensureIndex() {
+        if (indexLoaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (indexLoaded) {
+                return;
+            }
+            for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                loadBucket(bucket);
+            }
+            indexLoaded = true;
+            if (!index.isEmpty()) {
+                logger.info("任务历史索引已建立: 任务数={}", index.size());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void loadBucket(int bucket) {
+        Path bucketFile = bucketPath(bucket);
+        byte[] content;
+        try {
+            content = Files.readAllBytes(bucketFile);
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            logger.error("读取任务历史失败: {}", bucketFile, e);
+            return;
+        }
+        int start = 0;
+        for (int i = 0; i < content.length; i++) {
+            if (content[i] != '\n') {
+                continue;
+            }
+            if (i > start) {
+                byte[] line = new byte[i - start];
+                System.arraycopy(content, start, line, 0, line.length);
+                RecordingTask task = parse(line);
+                if (task != null && task.getTaskId() != null) {
+                    index.put(task.getTaskId(), new Location(bucket, start, line.length, endedAtMillis(task)));
+                }
+                bucketLines[bucket]++;
+            }
+            start = i + 1;
+        }
+        // 末尾写到一半的记录被忽略，后续追加从文件末尾开始，不影响已索引的位置
+    }
+
+    private byte[] read(Location location) {
+        Path bucketFile = bucketPath(location.bucket());
+        try (FileChannel channel = FileChannel.open(bucketFile, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(location.length());
+            readFully(channel, buffer, location.offset());
+            return buffer.array();
+        } catch (IOException e) {
+            logger.error("读取任务历史失败: {}", bucketFile, e);
+            return null;
+        }
+    }
+
+    private boolean endsWithNewline(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, size - 1);
+            return last.get(0) == '\n';
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("任务历史记录不完整: offset=" + offset);
+            }
+            position += read;
+        }
+    }
+
+    private RecordingTask parse(byte[] line) {
+        try {
+            return objectMapper.readValue(line, RecordingTask.class);
+        } catch (IOException e) {
+            logger.warn("解析历史任务失败: error={}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static long endedAtMillis(RecordingTask task) {
+        LocalDateTime time = task.getEndTime() != null ? task.getEndTime() : task.getCreatedTime();
+        if (time == null) {
+            return System.currentTimeMillis();
+        }
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private Path bucketPath(int bucket) {
+        return Paths.get(historyDir, String.format("tasks-%02d.jsonl", bucket));
+    }
+
+    private int bucketOf(String taskId) {
+        return Math.floorMod(taskId.hashCode(), BUCKET_COUNT);
+    }
+
+    /**
+     * 记录在分桶文件中的位置
+     *
+     * @param bucket 分桶
+     * @param offset 起始字节
+     * @param length 字节数（不含换行）
+     * @param endedAtMillis 任务结束时间，用于按保留时长删除
+     */
+    private record Location(int bucket, long offset, int length, long endedAtMillis) {
+    }
+}
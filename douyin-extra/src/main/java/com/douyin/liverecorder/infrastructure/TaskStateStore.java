@@ -0,0 +1,235 @@
+package com.douyin.liverecorder.infrastructure;
+
+import com.douyin.liverecorder.model.RecordingTask;
+import com.douyin.liverecorder.model.TaskSnapshot;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 任务状态存储
+ * 以"快照 + 追加日志"的方式持久化任务状态，服务重启后据此恢复任务
+ * 每次状态变更追加一条完整的任务快照（带版本号）；日志超过阈值时把当前内存任务写成新快照并清空日志
+ * 日志由 {@link AsyncJournalWriter} 合并写入，调用方不等待磁盘 I/O（队列积压时回退为同步写入）；
+ * 多个线程写入同一任务时记录的落盘顺序不保证与变更顺序一致，重放时按版本号保留每个任务最新的记录
+ */
+@Component
+public class TaskStateStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskStateStore.class);
+
+    private static final String SNAPSHOT_FILE = "tasks.snapshot";
+    private static final String LOG_FILE = "tasks.log";
+    private static final long FLUSH_TIMEOUT_MS = 10_000L;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${recording.state.enabled:true}")
+    private boolean enabled;
+    @Value("${recording.state.dir:./task-state}")
+    private String stateDir;
+    @Value("${recording.state.fsync:false}")
+    private boolean fsync;
+    @Value("${recording.state.compact-threshold-bytes:8388608}")
+    private long compactThresholdBytes;
+    @Value("${recording.state.max-batch:512}")
+    private int maxBatch = 512;
+    @Value("${recording.state.max-pending:100000}")
+    private int maxPending = 100000;
+
+    // 压缩时独占，追加时共享
+    private final ReentrantReadWriteLock compactionLock = new ReentrantReadWriteLock();
+    private volatile AsyncJournalWriter journalWriter;
+    private volatile boolean closed;
+
+    public TaskStateStore() {
+        this.objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 追加一条任务状态记录
+     * 记录在调用线程序列化后交给异步写入器，不等待落盘
+     *
+     * @param snapshot 任务快照（应在完成变更的同一个临界区内取得）
+     */
+    public void record(TaskSnapshot snapshot) {
+        if (!enabled || snapshot == null) {
+            return;
+        }
+        compactionLock.readLock().lock();
+        try {
+            byte[] line = (objectMapper.writeValueAsString(snapshot) + "\n").getBytes(StandardCharsets.UTF_8);
+            AsyncJournalWriter journal = getJournal();
+            if (journal != null && !journal.append(line)) {
+                // 状态日志是恢复任务的依据，队列积压时改为在调用线程上同步写入，不丢弃记录
+                journal.writeNow(line);
+            }
+        } catch (IOException e) {
+            logger.warn("写入任务状态失败: taskId={}, error={}", snapshot.taskId(), e.getMessage());
+        } finally {
+            compactionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 日志超过阈值时压缩：把当前任务写成新快照并清空日志
+     *
+     * @param tasks 当前内存中的全部任务
+     */
+    public void compactIfNeeded(Collection<RecordingTask> tasks) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Path logFile = Paths.get(stateDir, LOG_FILE);
+            if (!Files.exists(logFile) || Files.size(logFile) < compactThresholdBytes) {
+                return;
+            }
+            compact(tasks);
+        } catch (IOException e) {
+            logger.warn("检查任务状态日志大小失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 把当前任务写成新快照并清空日志
+     * 压缩期间暂停追加，先写完已排队的记录，避免旧状态在快照之后落入新日志
+     *
+     * @param tasks 当前内存中的全部任务
+     */
+    public void compact(Collection<RecordingTask> tasks) {
+        if (!enabled) {
+            return;
+        }
+        Path dir = Paths.get(stateDir);
+        Path tempSnapshot = dir.resolve(SNAPSHOT_FILE + ".tmp");
+        compactionLock.writeLock().lock();
+        try {
+            AsyncJournalWriter journal = getJournal();
+            if (journal != null) {
+                journal.flush(FLUSH_TIMEOUT_MS);
+            }
+            Files.createDirectories(dir);
+            try (BufferedWriter writer = Files.newBufferedWriter(tempSnapshot, StandardCharsets.UTF_8)) {
+                for (RecordingTask task : tasks) {
+                    writer.write(objectMapper.writeValueAsString(task.snapshot()));
+                    writer.newLine();
+                }
+            }
+            Files.move(tempSnapshot, dir.resolve(SNAPSHOT_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (journal != null) {
+                journal.truncate();
+            }
+            logger.info("任务状态已压缩为快照: 任务数={}", tasks.size());
+        } catch (IOException e) {
+            logger.error("压缩任务状态失败", e);
+        } finally {
+            compactionLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 读取快照并重放日志，得到每个任务的最新状态
+     * 同一任务按版本号保留最新的记录（版本相同时以后读到的为准），日志末尾写到一半的记录会被忽略
+     *
+     * @return 任务ID到最新任务状态的映射
+     */
+    public Map<String, RecordingTask> load() {
+        Map<String, RecordingTask> tasks = new LinkedHashMap<>();
+        if (!enabled) {
+            return tasks;
+        }
+        AsyncJournalWriter journal = journalWriter;
+        if (journal != null) {
+            journal.flush(FLUSH_TIMEOUT_MS);
+        }
+        Path dir = Paths.get(stateDir);
+        Map<String, TaskSnapshot> latest = new LinkedHashMap<>();
+        readInto(dir.resolve(SNAPSHOT_FILE), latest);
+        readInto(dir.resolve(LOG_FILE), latest);
+        latest.forEach((taskId, snapshot) -> tasks.put(taskId, RecordingTask.fromSnapshot(snapshot)));
+        return tasks;
+    }
+
+    private void readInto(Path file, Map<String, TaskSnapshot> tasks) {
+        if (!Files.exists(file)) {
+            return;
+        }
+        int skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    TaskSnapshot snapshot = objectMapper.readValue(line, TaskSnapshot.class);
+                    tasks.merge(snapshot.taskId(), snapshot,
+                            (current, candidate) -> candidate.version() >= current.version() ? candidate : current);
+                } catch (IOException e) {
+                    skipped++;
+                }
+            }
+        } catch (IOException e) {
+            logger.error("读取任务状态文件失败: {}", file, e);
+        }
+        if (skipped > 0) {
+            logger.warn("任务状态文件中有{}条记录无法解析，已跳过: {}", skipped, file);
+        }
+    }
+
+    private AsyncJournalWriter getJournal() throws IOException {
+        AsyncJournalWriter journal = journalWriter;
+        if (journal != null) {
+            return journal;
+        }
+        synchronized (this) {
+            if (journalWriter == null && !closed) {
+                journalWriter = new AsyncJournalWriter(
+                        Paths.get(stateDir, LOG_FILE),
+                        AsyncJournalWriter.Format.TEXT,
+                        0L,
+                        maxBatch,
+                        fsync ? 0L : -1L,
+                        maxPending,
+                        "task-state-journal");
+            }
+            return journalWriter;
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        closed = true;
+        if (journalWriter != null) {
+            journalWriter.close();
+            journalWriter = null;
+        }
+    }
+}
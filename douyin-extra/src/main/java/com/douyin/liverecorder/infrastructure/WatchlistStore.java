@@ -0,0 +1,106 @@
+package com.douyin.liverecorder.infrastructure;
+
+import com.douyin.liverecorder.model.WatchlistEntry;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 关注列表存储
+ * 以 JSON 数组保存关注列表，写入时先写临时文件再原子替换，避免写到一半的文件；
+ * 文件无法解析时先备份，并在本次运行中拒绝保存，避免用空列表覆盖原有的关注列表
+ */
+@Component
+public class WatchlistStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(WatchlistStore.class);
+
+    private final ObjectMapper objectMapper;
+
+    private static final DateTimeFormatter BACKUP_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    @Value("${recording.watchlist.file:./watchlist.json}")
+    private String watchlistFile;
+
+    // 读取失败后不再保存，直到人工修复文件并重启
+    private volatile boolean loadFailed;
+
+    public WatchlistStore() {
+        this.objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * 读取关注列表
+     *
+     * @return 关注列表，文件不存在或无法解析时返回空列表（无法解析时文件会被备份，之后的保存都会被拒绝）
+     */
+    public List<WatchlistEntry> load() {
+        Path file = Paths.get(watchlistFile);
+        if (!Files.exists(file)) {
+            return new ArrayList<>();
+        }
+        try {
+            List<WatchlistEntry> entries = objectMapper.readValue(file.toFile(),
+                    new TypeReference<List<WatchlistEntry>>() {
+                    });
+            loadFailed = false;
+            return entries != null ? entries : new ArrayList<>();
+        } catch (IOException e) {
+            loadFailed = true;
+            Path backup = Paths.get(file + ".corrupt-" + LocalDateTime.now().format(BACKUP_SUFFIX));
+            try {
+                Files.copy(file, backup, StandardCopyOption.REPLACE_EXISTING);
+                logger.error("读取关注列表失败，已备份到 {}，修复文件前不会保存关注列表的变更: {}", backup, file, e);
+            } catch (IOException backupError) {
+                logger.error("读取关注列表失败，修复文件前不会保存关注列表的变更: {}", file, e);
+                logger.error("备份关注列表失败: {}, error={}", backup, backupError.getMessage());
+            }
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * 保存关注列表
+     *
+     * @param entries 全部关注条目
+     * @return 保存成功返回true；读取失败后拒绝保存，返回false
+     */
+    public synchronized boolean save(Collection<WatchlistEntry> entries) {
+        Path file = Paths.get(watchlistFile).toAbsolutePath();
+        if (loadFailed) {
+            logger.error("关注列表文件读取失败，拒绝覆盖，请修复后重启: {}", file);
+            return false;
+        }
+        Path tempFile = Paths.get(file + ".tmp");
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(tempFile.toFile(), new ArrayList<>(entries));
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            logger.error("保存关注列表失败: {}", file, e);
+            return false;
+        }
+    }
+}
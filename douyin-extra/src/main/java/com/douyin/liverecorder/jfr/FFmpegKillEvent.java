@@ -0,0 +1,53 @@
+package com.douyin.liverecorder.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 终止FFmpeg进程
+ */
+@Name("com.douyin.liverecorder.FFmpegKill")
+@Label("FFmpeg Kill")
+@Description("终止FFmpeg进程的耗时，forced 表示优雅退出超时后被强制终止")
+public class FFmpegKillEvent extends TaskJfrEvent {
+
+    @Label("PID")
+    long pid;
+
+    @Label("Forced")
+    boolean forced;
+
+    @Label("Success")
+    boolean success;
+
+    /**
+     * 开始终止进程
+     *
+     * @param pid 进程ID
+     * @param taskId 启动进程时的任务ID
+     * @param douyinId 启动进程时的抖音号
+     * @return 已开始计时的事件
+     */
+    public static FFmpegKillEvent start(long pid, String taskId, String douyinId) {
+        FFmpegKillEvent event = new FFmpegKillEvent();
+        event.bindTask(taskId, douyinId);
+        event.pid = pid;
+        event.begin();
+        return event;
+    }
+
+    public void setForced(boolean forced) {
+        this.forced = forced;
+    }
+
+    /**
+     * 结束并提交事件
+     *
+     * @param success 是否成功终止
+     */
+    public void finish(boolean success) {
+        this.success = success;
+        commit();
+    }
+}
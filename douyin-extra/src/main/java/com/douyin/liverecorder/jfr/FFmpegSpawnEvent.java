@@ -0,0 +1,55 @@
+package com.douyin.liverecorder.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 启动FFmpeg进程
+ */
+@Name("com.douyin.liverecorder.FFmpegSpawn")
+@Label("FFmpeg Spawn")
+@Description("启动FFmpeg进程的耗时")
+public class FFmpegSpawnEvent extends TaskJfrEvent {
+
+    @Label("PID")
+    long pid;
+
+    @Label("Output File")
+    String outputFile;
+
+    @Label("Success")
+    boolean success;
+
+    /**
+     * 开始启动进程
+     *
+     * @param outputFile 输出文件
+     * @return 已开始计时的事件
+     */
+    public static FFmpegSpawnEvent start(String outputFile) {
+        FFmpegSpawnEvent event = new FFmpegSpawnEvent();
+        event.bindTaskFromMdc();
+        event.outputFile = outputFile;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * 进程已启动
+     *
+     * @param pid 进程ID
+     */
+    public void started(long pid) {
+        this.pid = pid;
+        this.success = true;
+        commit();
+    }
+
+    /**
+     * 进程启动失败
+     */
+    public void failed() {
+        commit();
+    }
+}
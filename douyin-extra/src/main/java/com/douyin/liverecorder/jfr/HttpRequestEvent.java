@@ -0,0 +1,85 @@
+package com.douyin.liverecorder.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import okhttp3.HttpUrl;
+
+/**
+ * 单次HTTP请求尝试（重试时每次尝试各一个事件）
+ */
+@Name("com.douyin.liverecorder.HttpRequest")
+@Label("HTTP Request")
+@Description("单次HTTP请求尝试，attempt 大于1表示重试")
+public class HttpRequestEvent extends TaskJfrEvent {
+
+    @Label("Method")
+    String method;
+
+    @Label("Host")
+    String host;
+
+    @Label("Path")
+    String path;
+
+    @Label("Attempt")
+    int attempt;
+
+    @Label("Max Attempts")
+    int maxAttempts;
+
+    @Label("HTTP Status")
+    int statusCode;
+
+    @Label("Success")
+    boolean success;
+
+    @Label("Error")
+    String error;
+
+    /**
+     * 开始一次请求尝试
+     *
+     * @param method 请求方法
+     * @param url 请求URL（只记录主机和路径，不记录查询参数）
+     * @param attempt 第几次尝试
+     * @param maxAttempts 最大尝试次数
+     * @return 已开始计时的事件
+     */
+    public static HttpRequestEvent start(String method, String url, int attempt, int maxAttempts) {
+        HttpRequestEvent event = new HttpRequestEvent();
+        if (event.isEnabled()) {
+            event.bindTaskFromMdc();
+            event.method = method;
+            HttpUrl parsed = HttpUrl.parse(url);
+            if (parsed != null) {
+                event.host = parsed.host();
+                event.path = parsed.encodedPath();
+            }
+            event.attempt = attempt;
+            event.maxAttempts = maxAttempts;
+        }
+        event.begin();
+        return event;
+    }
+
+    /**
+     * 请求成功
+     */
+    public void succeeded() {
+        success = true;
+        commit();
+    }
+
+    /**
+     * 请求失败
+     *
+     * @param statusCode HTTP状态码，未收到响应时为-1
+     * @param error 失败原因
+     */
+    public void failed(int statusCode, String error) {
+        this.statusCode = statusCode;
+        this.error = error;
+        commit();
+    }
+}
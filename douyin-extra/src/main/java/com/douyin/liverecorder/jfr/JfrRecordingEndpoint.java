@@ -0,0 +1,179 @@
+package com.douyin.liverecorder.jfr;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JFR录制管理端点（/actuator/jfr）
+ * 默认在启动后开启一个按时长和大小滚动的持续录制，出现延迟抖动时通过 dump 导出最近一段时间的事件，
+ * 无需在生产环境挂载外部代理。
+ * <ul>
+ *   <li>GET /actuator/jfr：当前录制状态</li>
+ *   <li>POST /actuator/jfr/start：开始录制（已在录制时不做处理）</li>
+ *   <li>POST /actuator/jfr/dump：把当前录制导出到 dump 目录</li>
+ *   <li>POST /actuator/jfr/stop：停止录制</li>
+ * </ul>
+ */
+@Component
+@Endpoint(id = "jfr")
+public class JfrRecordingEndpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(JfrRecordingEndpoint.class);
+
+    private static final DateTimeFormatter DUMP_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    @Value("${recording.jfr.continuous:true}")
+    private boolean continuous = true;
+    @Value("${recording.jfr.settings:default}")
+    private String settings = "default";
+    @Value("${recording.jfr.max-age-minutes:30}")
+    private long maxAgeMinutes = 30;
+    @Value("${recording.jfr.max-size-mb:64}")
+    private long maxSizeMb = 64;
+    @Value("${recording.jfr.dump-dir:./logs/jfr}")
+    private String dumpDir = "./logs/jfr";
+
+    // 当前录制，由 this 保护
+    private Recording recording;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (continuous) {
+            try {
+                start();
+            } catch (IOException | ParseException | RuntimeException e) {
+                logger.warn("启动JFR持续录制失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 当前录制状态
+     */
+    @ReadOperation
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", recording != null ? recording.getState().name() : RecordingState.CLOSED.name());
+        if (recording != null) {
+            status.put("name", recording.getName());
+            status.put("startTime", recording.getStartTime());
+            status.put("maxAgeMinutes", maxAgeMinutes);
+            status.put("maxSizeMb", maxSizeMb);
+        }
+        status.put("dumpDir", Paths.get(dumpDir).toAbsolutePath().toString());
+        return status;
+    }
+
+    /**
+     * 执行录制操作
+     *
+     * @param action start、dump 或 stop
+     * @return 操作结果
+     */
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> control(@Selector String action) {
+        try {
+            switch (action) {
+                case "start":
+                    start();
+                    return new WebEndpointResponse<>(status());
+                case "dump":
+                    Path path = dump();
+                    if (path == null) {
+                        return error(WebEndpointResponse.STATUS_BAD_REQUEST, "当前没有进行中的JFR录制");
+                    }
+                    Map<String, Object> result = status();
+                    result.put("file", path.toAbsolutePath().toString());
+                    result.put("size", Files.size(path));
+                    return new WebEndpointResponse<>(result);
+                case "stop":
+                    stop();
+                    return new WebEndpointResponse<>(status());
+                default:
+                    return error(WebEndpointResponse.STATUS_BAD_REQUEST, "不支持的操作: " + action);
+            }
+        } catch (IOException | ParseException e) {
+            logger.error("JFR操作失败: action={}", action, e);
+            return error(WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR, "JFR操作失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 开始录制，已在录制时不做处理
+     */
+    synchronized void start() throws IOException, ParseException {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return;
+        }
+        Recording newRecording = new Recording(Configuration.getConfiguration(settings));
+        newRecording.setName("live-recorder");
+        newRecording.setToDisk(true);
+        newRecording.setMaxAge(Duration.ofMinutes(maxAgeMinutes));
+        newRecording.setMaxSize(maxSizeMb * 1024 * 1024);
+        newRecording.start();
+        if (recording != null) {
+            recording.close();
+        }
+        recording = newRecording;
+        logger.info("JFR录制已开始: settings={}, maxAge={}分钟, maxSize={}MB", settings, maxAgeMinutes, maxSizeMb);
+    }
+
+    /**
+     * 导出当前录制
+     *
+     * @return 导出的文件，没有进行中的录制时返回null
+     */
+    synchronized Path dump() throws IOException {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            return null;
+        }
+        Path dir = Paths.get(dumpDir);
+        Files.createDirectories(dir);
+        Path path = dir.resolve("live-recorder-" + LocalDateTime.now().format(DUMP_NAME_FORMAT) + ".jfr");
+        recording.dump(path);
+        logger.info("JFR录制已导出: {}", path.toAbsolutePath());
+        return path;
+    }
+
+    /**
+     * 停止录制
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+            logger.info("JFR录制已停止");
+        }
+    }
+
+    private WebEndpointResponse<Map<String, Object>> error(int status, String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", message);
+        return new WebEndpointResponse<>(body, status);
+    }
+}
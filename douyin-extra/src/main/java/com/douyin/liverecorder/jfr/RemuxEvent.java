@@ -0,0 +1,53 @@
+package com.douyin.liverecorder.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 封装为MP4
+ */
+@Name("com.douyin.liverecorder.Remux")
+@Label("Remux To MP4")
+@Description("录制结束后把临时文件封装为MP4的耗时")
+public class RemuxEvent extends TaskJfrEvent {
+
+    @Label("Input Size")
+    @DataAmount
+    long inputBytes;
+
+    @Label("Exit Code")
+    int exitCode = -1;
+
+    @Label("Success")
+    boolean success;
+
+    /**
+     * 开始封装
+     *
+     * @param inputBytes 输入文件大小
+     * @return 已开始计时的事件
+     */
+    public static RemuxEvent start(long inputBytes) {
+        RemuxEvent event = new RemuxEvent();
+        event.bindTaskFromMdc();
+        event.inputBytes = inputBytes;
+        event.begin();
+        return event;
+    }
+
+    public void setExitCode(int exitCode) {
+        this.exitCode = exitCode;
+    }
+
+    /**
+     * 结束并提交事件
+     *
+     * @param success 是否封装成功
+     */
+    public void finish(boolean success) {
+        this.success = success;
+        commit();
+    }
+}
@@ -0,0 +1,48 @@
+package com.douyin.liverecorder.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import org.slf4j.MDC;
+
+/**
+ * 录制相关JFR事件的基类
+ * 每个事件都带有任务ID和抖音号；调用方不直接持有任务时（HTTP请求、FFmpeg进程等）从MDC上下文读取
+ */
+@Category("Douyin Live Recorder")
+@StackTrace(false)
+public abstract class TaskJfrEvent extends Event {
+
+    @Label("Task ID")
+    protected String taskId;
+
+    @Label("Douyin ID")
+    protected String douyinId;
+
+    /**
+     * 绑定任务信息
+     *
+     * @param taskId 任务ID
+     * @param douyinId 抖音号
+     */
+    public void bindTask(String taskId, String douyinId) {
+        this.taskId = taskId;
+        this.douyinId = douyinId;
+    }
+
+    /**
+     * 从当前线程的MDC上下文绑定任务信息
+     */
+    public void bindTaskFromMdc() {
+        bindTask(MDC.get("taskId"), MDC.get("douyinId"));
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public String getDouyinId() {
+        return douyinId;
+    }
+}
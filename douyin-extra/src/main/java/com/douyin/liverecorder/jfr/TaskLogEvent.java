@@ -0,0 +1,38 @@
+package com.douyin.liverecorder.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 写入任务事件日志
+ */
+@Name("com.douyin.liverecorder.TaskLog")
+@Label("Task Log Append")
+@Description("追加任务事件日志的耗时")
+public class TaskLogEvent extends TaskJfrEvent {
+
+    @Label("Event")
+    String event;
+
+    @Label("Status")
+    String status;
+
+    /**
+     * 开始写入
+     *
+     * @param taskId 任务ID
+     * @param douyinId 抖音号
+     * @param event 日志事件
+     * @param status 任务状态
+     * @return 已开始计时的事件
+     */
+    public static TaskLogEvent start(String taskId, String douyinId, String event, String status) {
+        TaskLogEvent jfrEvent = new TaskLogEvent();
+        jfrEvent.bindTask(taskId, douyinId);
+        jfrEvent.event = event;
+        jfrEvent.status = status;
+        jfrEvent.begin();
+        return jfrEvent;
+    }
+}
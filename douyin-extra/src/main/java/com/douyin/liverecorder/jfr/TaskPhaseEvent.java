@@ -0,0 +1,52 @@
+package com.douyin.liverecorder.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 录制任务执行阶段：detect、extract、spawn、record
+ */
+@Name("com.douyin.liverecorder.TaskPhase")
+@Label("Task Phase")
+@Description("录制任务执行阶段的耗时与结果")
+public class TaskPhaseEvent extends TaskJfrEvent {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Outcome")
+    String outcome;
+
+    /**
+     * 开始一个阶段
+     *
+     * @param taskId 任务ID
+     * @param douyinId 抖音号
+     * @param phase 阶段名称
+     * @return 已开始计时的事件
+     */
+    public static TaskPhaseEvent start(String taskId, String douyinId, String phase) {
+        TaskPhaseEvent event = new TaskPhaseEvent();
+        event.bindTask(taskId, douyinId);
+        event.phase = phase;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * 结束阶段并提交事件，重复调用时只有第一次生效
+     *
+     * @param outcome 阶段结果
+     */
+    public void finish(String outcome) {
+        if (this.outcome != null) {
+            return;
+        }
+        this.outcome = outcome;
+        end();
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
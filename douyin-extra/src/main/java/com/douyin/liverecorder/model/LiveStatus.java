@@ -27,6 +27,11 @@ public class LiveStatus {
      */
     private LocalDateTime startTime;
     
+    /**
+     * 当前在线观众数（可选，未知时为0）
+     */
+    private long audienceCount;
+    
     /**
      * 默认构造函数
      */
@@ -76,4 +81,12 @@ public class LiveStatus {
     public void setStartTime(LocalDateTime startTime) {
         this.startTime = startTime;
     }
+    
+    public long getAudienceCount() {
+        return audienceCount;
+    }
+    
+    public void setAudienceCount(long audienceCount) {
+        this.audienceCount = audienceCount;
+    }
 }
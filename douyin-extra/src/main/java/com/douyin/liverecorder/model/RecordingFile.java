@@ -0,0 +1,22 @@
+package com.douyin.liverecorder.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * 录制文件目录中的一条记录（不可变）
+ *
+ * @param path 文件的绝对路径
+ * @param douyinId 抖音号（从文件名解析）
+ * @param recordedAt 开始录制时间（从文件名解析）
+ * @param size 文件大小（字节）
+ * @param durationSeconds 录制时长（秒）：由录制任务写入时为实际时长，扫描得到时按文件修改时间与开始录制时间之差估算
+ * @param modifiedMillis 文件最后修改时间（毫秒）
+ */
+public record RecordingFile(
+        String path,
+        String douyinId,
+        LocalDateTime recordedAt,
+        long size,
+        long durationSeconds,
+        long modifiedMillis) {
+}
@@ -1,198 +1,252 @@
 package com.douyin.liverecorder.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.time.LocalDateTime;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
 /**
  * 录制任务实体类
  * 表示一个直播录制任务的完整信息
+ * 任务的全部字段保存在一个不可变的 {@link TaskSnapshot} 中，每次修改都通过 CAS 整体替换快照并递增版本号，
+ * 读取方无需加锁即可通过 {@link #snapshot()} 拿到一致的视图；状态变更通过 {@link #transitionTo} 按
+ * {@link TaskStatus#canTransitionTo} 定义的状态机校验
  */
 public class RecordingTask {
+
     /**
-     * 唯一任务ID
-     */
-    private String taskId;
-    
-    /**
-     * 抖音号
-     */
-    private String douyinId;
-    
-    /**
-     * 任务状态
-     */
-    private TaskStatus status;
-    
-    /**
-     * 直播流URL
+     * 当前状态快照
      */
-    private String streamUrl;
+    private final AtomicReference<TaskSnapshot> state;
     
     /**
-     * 输出文件路径
+     * 默认构造函数
      */
-    private String outputPath;
+    public RecordingTask() {
+        this.state = new AtomicReference<>(TaskSnapshot.initial(UUID.randomUUID().toString()));
+    }
     
     /**
-     * 保存目录
+     * 带抖音号的构造函数
      */
-    private String outputDir;
+    public RecordingTask(String douyinId) {
+        this();
+        setDouyinId(douyinId);
+    }
 
-    /**
-     * 录制临时文件路径（例如 .flv）
-     */
-    private String tempOutputPath;
+    private RecordingTask(TaskSnapshot snapshot) {
+        this.state = new AtomicReference<>(snapshot);
+    }
 
     /**
-     * 是否启用自动录制（等待开播/自动停播）
+     * 由持久化的快照重建任务，保留快照中的状态与版本号
+     *
+     * @param snapshot 任务快照
+     * @return 录制任务
      */
-    private boolean autoEnabled;
+    public static RecordingTask fromSnapshot(TaskSnapshot snapshot) {
+        return new RecordingTask(snapshot);
+    }
 
     /**
-     * 停止请求是否由用户触发
-     */
-    private boolean stopRequestedByUser;
-    
-    /**
-     * 开始时间
+     * 获取当前状态快照（各字段相互一致）
      */
-    private LocalDateTime startTime;
-    
-    /**
-     * 结束时间（可选）
-     */
-    private LocalDateTime endTime;
-    
+    @JsonIgnore
+    public TaskSnapshot snapshot() {
+        return state.get();
+    }
+
     /**
-     * 文件大小（字节）
+     * 快照版本号，每次修改递增
      */
-    private long fileSize;
-    
+    @JsonIgnore
+    public long getVersion() {
+        return state.get().version();
+    }
+
     /**
-     * 错误信息（可选）
+     * 原子地修改任务字段
+     *
+     * @param changes 基于当前快照生成新快照
+     * @return 修改后的快照
      */
-    private String error;
-    
+    public TaskSnapshot update(UnaryOperator<TaskSnapshot> changes) {
+        while (true) {
+            TaskSnapshot current = state.get();
+            TaskSnapshot next = changes.apply(current).withVersion(current.version() + 1);
+            if (state.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
     /**
-     * 默认构造函数
+     * 按状态机原子地变更状态，并在同一个快照中应用其它字段的修改（如错误信息、结束时间）
+     *
+     * @param next 目标状态
+     * @param changes 同时应用的字段修改
+     * @return 变更前的快照；当前状态不能变更为目标状态时返回null
      */
-    public RecordingTask() {
-        this.taskId = UUID.randomUUID().toString();
-        this.status = TaskStatus.PENDING;
-        this.fileSize = 0L;
+    public TaskSnapshot transitionTo(TaskStatus next, UnaryOperator<TaskSnapshot> changes) {
+        while (true) {
+            TaskSnapshot current = state.get();
+            if (current.status() != null && !current.status().canTransitionTo(next)) {
+                return null;
+            }
+            TaskSnapshot updated = changes.apply(current.withStatus(next)).withVersion(current.version() + 1);
+            if (state.compareAndSet(current, updated)) {
+                return current;
+            }
+        }
     }
-    
+
     /**
-     * 带抖音号的构造函数
+     * 服务重启后让尚未开始录制的任务回到等待启动状态，重新执行开播检测
+     * 这是状态机之外唯一的回退，只用于恢复重启前持久化的任务
+     *
+     * @return 变更成功返回true；任务已开始录制或已结束时返回false
      */
-    public RecordingTask(String douyinId) {
-        this();
-        this.douyinId = douyinId;
+    public boolean resetForRestart() {
+        while (true) {
+            TaskSnapshot current = state.get();
+            TaskStatus status = current.status();
+            if (status == null || status.isTerminal() || status == TaskStatus.RECORDING || status == TaskStatus.STOPPING) {
+                return false;
+            }
+            TaskSnapshot next = current.withStatus(TaskStatus.PENDING).withError(null).withVersion(current.version() + 1);
+            if (state.compareAndSet(current, next)) {
+                return true;
+            }
+        }
     }
     
     // Getters and Setters
     
     public String getTaskId() {
-        return taskId;
+        return state.get().taskId();
     }
     
     public void setTaskId(String taskId) {
-        this.taskId = taskId;
+        update(s -> s.withTaskId(taskId));
     }
     
     public String getDouyinId() {
-        return douyinId;
+        return state.get().douyinId();
     }
     
     public void setDouyinId(String douyinId) {
-        this.douyinId = douyinId;
+        update(s -> s.withDouyinId(douyinId));
     }
     
     public TaskStatus getStatus() {
-        return status;
+        return state.get().status();
     }
     
-    public void setStatus(TaskStatus status) {
-        this.status = status;
+    /**
+     * 直接设置状态，不经过状态机校验，仅用于反序列化持久化的任务
+     * 其它状态变更使用 {@link #transitionTo}
+     */
+    @JsonProperty("status")
+    void setStatus(TaskStatus status) {
+        update(s -> s.withStatus(status));
     }
     
     public String getStreamUrl() {
-        return streamUrl;
+        return state.get().streamUrl();
     }
     
     public void setStreamUrl(String streamUrl) {
-        this.streamUrl = streamUrl;
+        update(s -> s.withStreamUrl(streamUrl));
     }
     
     public String getOutputPath() {
-        return outputPath;
+        return state.get().outputPath();
     }
     
     public void setOutputPath(String outputPath) {
-        this.outputPath = outputPath;
+        update(s -> s.withOutputPath(outputPath));
     }
     
     public String getOutputDir() {
-        return outputDir;
+        return state.get().outputDir();
     }
     
     public void setOutputDir(String outputDir) {
-        this.outputDir = outputDir;
+        update(s -> s.withOutputDir(outputDir));
     }
-
+    
     public String getTempOutputPath() {
-        return tempOutputPath;
+        return state.get().tempOutputPath();
     }
-
+    
     public void setTempOutputPath(String tempOutputPath) {
-        this.tempOutputPath = tempOutputPath;
+        update(s -> s.withTempOutputPath(tempOutputPath));
     }
-
+    
     public boolean isAutoEnabled() {
-        return autoEnabled;
+        return state.get().autoEnabled();
     }
-
+    
     public void setAutoEnabled(boolean autoEnabled) {
-        this.autoEnabled = autoEnabled;
+        update(s -> s.withAutoEnabled(autoEnabled));
     }
-
+    
+    public int getPriority() {
+        return state.get().priority();
+    }
+    
+    public void setPriority(int priority) {
+        update(s -> s.withPriority(priority));
+    }
+    
     public boolean isStopRequestedByUser() {
-        return stopRequestedByUser;
+        return state.get().stopRequestedByUser();
     }
-
+    
     public void setStopRequestedByUser(boolean stopRequestedByUser) {
-        this.stopRequestedByUser = stopRequestedByUser;
+        update(s -> s.withStopRequestedByUser(stopRequestedByUser));
+    }
+    
+    public LocalDateTime getCreatedTime() {
+        return state.get().createdTime();
+    }
+    
+    public void setCreatedTime(LocalDateTime createdTime) {
+        update(s -> s.withCreatedTime(createdTime));
     }
     
     public LocalDateTime getStartTime() {
-        return startTime;
+        return state.get().startTime();
     }
     
     public void setStartTime(LocalDateTime startTime) {
-        this.startTime = startTime;
+        update(s -> s.withStartTime(startTime));
     }
     
     public LocalDateTime getEndTime() {
-        return endTime;
+        return state.get().endTime();
     }
     
     public void setEndTime(LocalDateTime endTime) {
-        this.endTime = endTime;
+        update(s -> s.withEndTime(endTime));
     }
     
     public long getFileSize() {
-        return fileSize;
+        return state.get().fileSize();
     }
     
     public void setFileSize(long fileSize) {
-        this.fileSize = fileSize;
+        update(s -> s.withFileSize(fileSize));
     }
     
     public String getError() {
-        return error;
+        return state.get().error();
     }
     
     public void setError(String error) {
-        this.error = error;
+        update(s -> s.withError(error));
     }
 }
@@ -0,0 +1,122 @@
+package com.douyin.liverecorder.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+
+/**
+ * 录制任务状态快照（不可变）
+ * RecordingTask 通过 AtomicReference 整体替换快照，读取方拿到的一份快照内各字段总是相互一致；
+ * version 每次替换递增，可用于判断两次读取之间任务是否发生过变化
+ */
+public record TaskSnapshot(
+        String taskId,
+        String douyinId,
+        TaskStatus status,
+        String streamUrl,
+        String outputPath,
+        String outputDir,
+        String tempOutputPath,
+        boolean autoEnabled,
+        int priority,
+        boolean stopRequestedByUser,
+        LocalDateTime createdTime,
+        LocalDateTime startTime,
+        LocalDateTime endTime,
+        long fileSize,
+        String error,
+        long version) {
+
+    /**
+     * 新建任务的初始快照
+     */
+    static TaskSnapshot initial(String taskId) {
+        return new TaskSnapshot(taskId, null, TaskStatus.PENDING, null, null, null, null,
+                false, 0, false, LocalDateTime.now(), null, null, 0L, null, 0L);
+    }
+
+    @JsonIgnore
+    public boolean isTerminal() {
+        return status != null && status.isTerminal();
+    }
+
+    public TaskSnapshot withTaskId(String value) {
+        return new TaskSnapshot(value, douyinId, status, streamUrl, outputPath, outputDir, tempOutputPath,
+                autoEnabled, priority, stopRequestedByUser, createdTime, startTime, endTime, fileSize, error, version);
+    }
+
+    public TaskSnapshot withDouyinId(String value) {
+        return new TaskSnapshot(taskId, value, status, streamUrl, outputPath, outputDir, tempOutputPath,
+                autoEnabled, priority, stopRequestedByUser, createdTime, startTime, endTime, fileSize, error, version);
+    }
+
+    public TaskSnapshot withStatus(TaskStatus value) {
+        return new TaskSnapshot(taskId, douyinId, value, streamUrl, outputPath, outputDir, tempOutputPath,
+                autoEnabled, priority, stopRequestedByUser, createdTime, startTime, endTime, fileSize, error, version);
+    }
+
+    public TaskSnapshot withStreamUrl(String value) {
+        return new TaskSnapshot(taskId, douyinId, status, value, outputPath, outputDir, tempOutputPath,
+                autoEnabled, priority, stopRequestedByUser, createdTime, startTime, endTime, fileSize, error, version);
+    }
+
+    public TaskSnapshot withOutputPath(String value) {
+        return new TaskSnapshot(taskId, douyinId, status, streamUrl, value, outputDir, tempOutputPath,
+                autoEnabled, priority, stopRequestedByUser, createdTime, startTime, endTime, fileSize, error, version);
+    }
+
+    public TaskSnapshot withOutputDir(String value) {
+        return new TaskSnapshot(taskId, douyinId, status, streamUrl, outputPath, value, tempOutputPath,
+                autoEnabled, priority, stopRequestedByUser, createdTime, startTime, endTime, fileSize, error, version);
+    }
+
+    public TaskSnapshot withTempOutputPath(String value) {
+        return new TaskSnapshot(taskId, douyinId, status, streamUrl, outputPath, outputDir, value,
+                autoEnabled, priority, stopRequestedByUser, createdTime, startTime, endTime, fileSize, error, version);
+    }
+
+    public TaskSnapshot withAutoEnabled(boolean value) {
+        return new TaskSnapshot(taskId, douyinId, status, streamUrl, outputPath, outputDir, tempOutputPath,
+                value, priority, stopRequestedByUser, createdTime, startTime, endTime, fileSize, error, version);
+    }
+
+    public TaskSnapshot withPriority(int value) {
+        return new TaskSnapshot(taskId, douyinId, status, streamUrl, outputPath, outputDir, tempOutputPath,
+                autoEnabled, value, stopRequestedByUser, createdTime, startTime, endTime, fileSize, error, version);
+    }
+
+    public TaskSnapshot withStopRequestedByUser(boolean value) {
+        return new TaskSnapshot(taskId, douyinId, status, streamUrl, outputPath, outputDir, tempOutputPath,
+                autoEnabled, priority, value, createdTime, startTime, endTime, fileSize, error, version);
+    }
+
+    public TaskSnapshot withCreatedTime(LocalDateTime value) {
+        return new TaskSnapshot(taskId, douyinId, status, streamUrl, outputPath, outputDir, tempOutputPath,
+                autoEnabled, priority, stopRequestedByUser, value, startTime, endTime, fileSize, error, version);
+    }
+
+    public TaskSnapshot withStartTime(LocalDateTime value) {
+        return new TaskSnapshot(taskId, douyinId, status, streamUrl, outputPath, outputDir, tempOutputPath,
+                autoEnabled, priority, stopRequestedByUser, createdTime, value, endTime, fileSize, error, version);
+    }
+
+    public TaskSnapshot withEndTime(LocalDateTime value) {
+        return new TaskSnapshot(taskId, douyinId, status, streamUrl, outputPath, outputDir, tempOutputPath,
+                autoEnabled, priority, stopRequestedByUser, createdTime, startTime, value, fileSize, error, version);
+    }
+
+    public TaskSnapshot withFileSize(long value) {
+        return new TaskSnapshot(taskId, douyinId, status, streamUrl, outputPath, outputDir, tempOutputPath,
+                autoEnabled, priority, stopRequestedByUser, createdTime, startTime, endTime, value, error, version);
+    }
+
+    public TaskSnapshot withError(String value) {
+        return new TaskSnapshot(taskId, douyinId, status, streamUrl, outputPath, outputDir, tempOutputPath,
+                autoEnabled, priority, stopRequestedByUser, createdTime, startTime, endTime, fileSize, value, version);
+    }
+
+    TaskSnapshot withVersion(long value) {
+        return new TaskSnapshot(taskId, douyinId, status, streamUrl, outputPath, outputDir, tempOutputPath,
+                autoEnabled, priority, stopRequestedByUser, createdTime, startTime, endTime, fileSize, error, value);
+    }
+}
@@ -10,6 +10,9 @@ public enum TaskStatus {
      */
     PENDING,
 
+    /**
+     * 等待开播中 - 自动录制任务按间隔轮询直播间，开播后进入检测阶段
+     */
     WAITING,
     
     /**
@@ -17,6 +20,11 @@ public enum TaskStatus {
      */
     DETECTING,
     
+    /**
+     * 排队中 - 已开播但录制槽位已满，按优先级等待空闲槽位
+     */
+    QUEUED,
+    
     /**
      * 录制中 - 正在录制直播流
      */
@@ -40,5 +48,53 @@ public enum TaskStatus {
     /**
      * 已取消 - 用户取消了录制任务
      */
-    CANCELLED
+    CANCELLED;
+
+    /**
+     * 是否为终态（已完成、失败、已取消）
+     */
+    public boolean isTerminal() {
+        return this == COMPLETED || this == FAILED || this == CANCELLED;
+    }
+
+    /**
+     * 状态机：判断能否从当前状态变更为指定状态
+     * <ul>
+     *   <li>PENDING → WAITING / DETECTING</li>
+     *   <li>WAITING → DETECTING</li>
+     *   <li>DETECTING → QUEUED / RECORDING</li>
+     *   <li>QUEUED → RECORDING</li>
+     *   <li>RECORDING → STOPPING</li>
+     * </ul>
+     * 未结束的任务随时可以停止（STOPPING）或直接结束（终态）；同一状态的重复设置视为合法；终态不能再变更为其它状态
+     *
+     * @param next 目标状态
+     * @return 是否为合法的状态变更
+     */
+    public boolean canTransitionTo(TaskStatus next) {
+        if (next == null) {
+            return false;
+        }
+        if (next == this) {
+            return true;
+        }
+        if (isTerminal()) {
+            return false;
+        }
+        if (next == STOPPING || next.isTerminal()) {
+            return true;
+        }
+        switch (this) {
+            case PENDING:
+                return next == WAITING || next == DETECTING;
+            case WAITING:
+                return next == DETECTING;
+            case DETECTING:
+                return next == QUEUED || next == RECORDING;
+            case QUEUED:
+                return next == RECORDING;
+            default:
+                return false;
+        }
+    }
 }
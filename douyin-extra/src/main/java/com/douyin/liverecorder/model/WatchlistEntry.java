@@ -0,0 +1,117 @@
+package com.douyin.liverecorder.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+
+/**
+ * 关注列表条目
+ * 关注的主播及其录制选项，持久化保存；每次开播都会自动创建一个录制任务
+ */
+public class WatchlistEntry {
+
+    private String douyinId;
+    // 录制选项由接口线程更新，统计由检测线程更新，保存和查询在其它线程读取
+    private volatile String outputDir;
+    private volatile Integer priority;
+    private LocalDateTime addedTime;
+    private volatile LocalDateTime lastLiveTime;
+    private volatile long sessionCount;
+
+    // 运行时状态，不持久化
+    @JsonIgnore
+    private volatile String activeTaskId;
+    @JsonIgnore
+    private volatile LocalDateTime lastCheckTime;
+    // 录制中首次检测到未开播的时间，-1 表示仍在直播
+    @JsonIgnore
+    private volatile long notLiveSinceMillis = -1L;
+
+    public WatchlistEntry() {
+    }
+
+    public WatchlistEntry(String douyinId, String outputDir, Integer priority) {
+        this.douyinId = douyinId;
+        this.outputDir = outputDir;
+        this.priority = priority;
+        this.addedTime = LocalDateTime.now();
+    }
+
+    public String getDouyinId() {
+        return douyinId;
+    }
+
+    public void setDouyinId(String douyinId) {
+        this.douyinId = douyinId;
+    }
+
+    public String getOutputDir() {
+        return outputDir;
+    }
+
+    public void setOutputDir(String outputDir) {
+        this.outputDir = outputDir;
+    }
+
+    public Integer getPriority() {
+        return priority;
+    }
+
+    public void setPriority(Integer priority) {
+        this.priority = priority;
+    }
+
+    public LocalDateTime getAddedTime() {
+        return addedTime;
+    }
+
+    public void setAddedTime(LocalDateTime addedTime) {
+        this.addedTime = addedTime;
+    }
+
+    public LocalDateTime getLastLiveTime() {
+        return lastLiveTime;
+    }
+
+    public void setLastLiveTime(LocalDateTime lastLiveTime) {
+        this.lastLiveTime = lastLiveTime;
+    }
+
+    public long getSessionCount() {
+        return sessionCount;
+    }
+
+    public void setSessionCount(long sessionCount) {
+        this.sessionCount = sessionCount;
+    }
+
+    @JsonIgnore
+    public String getActiveTaskId() {
+        return activeTaskId;
+    }
+
+    @JsonIgnore
+    public void setActiveTaskId(String activeTaskId) {
+        this.activeTaskId = activeTaskId;
+    }
+
+    @JsonIgnore
+    public LocalDateTime getLastCheckTime() {
+        return lastCheckTime;
+    }
+
+    @JsonIgnore
+    public void setLastCheckTime(LocalDateTime lastCheckTime) {
+        this.lastCheckTime = lastCheckTime;
+    }
+
+    @JsonIgnore
+    public long getNotLiveSinceMillis() {
+        return notLiveSinceMillis;
+    }
+
+    @JsonIgnore
+    public void setNotLiveSinceMillis(long notLiveSinceMillis) {
+        this.notLiveSinceMillis = notLiveSinceMillis;
+    }
+}
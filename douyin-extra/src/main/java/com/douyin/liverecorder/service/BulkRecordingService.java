@@ -0,0 +1,317 @@
+package com.douyin.liverecorder.service;
+
+import com.douyin.liverecorder.dto.BulkRecordingResult;
+import com.douyin.liverecorder.dto.StartRecordingRequest;
+import com.douyin.liverecorder.infrastructure.FileSystemManager;
+import com.douyin.liverecorder.infrastructure.StoragePool;
+import com.douyin.liverecorder.model.RecordingTask;
+import com.douyin.liverecorder.validation.DouyinIdValidator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 批量录制服务
+ * 解析 NDJSON 或 CSV 格式的主播列表，并行校验抖音号，每个保存目录只校验一次，
+ * 然后按输入顺序一次性创建并启动任务，逐条回调结果
+ * 回调失败（例如客户端断开导致写出结果失败）只停止回调，剩余条目照常创建，不会留下只导入了一部分的批次
+ */
+@Service
+public class BulkRecordingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkRecordingService.class);
+
+    /**
+     * 输入格式
+     */
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    // CSV 无表头时的默认列顺序
+    private static final String[] DEFAULT_CSV_COLUMNS = {"douyinid", "outputdir", "auto", "priority"};
+
+    private final RecordingManager recordingManager;
+    private final FileSystemManager fileSystemManager;
+    private final StoragePool storagePool;
+    private final ObjectMapper objectMapper;
+
+    @Value("${recording.auto-enabled:true}")
+    private boolean defaultAutoEnabled;
+    @Value("${recording.bulk.max-items:10000}")
+    private int maxItems;
+
+    public BulkRecordingService(RecordingManager recordingManager, FileSystemManager fileSystemManager,
+                                StoragePool storagePool) {
+        this.recordingManager = recordingManager;
+        this.fileSystemManager = fileSystemManager;
+        this.storagePool = storagePool;
+        this.objectMapper = new ObjectMapper()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * 解析请求体
+     * 未指定的字段使用 defaults 中的值
+     *
+     * @param reader 请求体
+     * @param format 输入格式
+     * @param defaults 默认的自动录制、保存目录与优先级
+     * @return 按输入顺序排列的条目（无法解析的行带有错误信息）
+     * @throws IOException 如果读取请求体失败
+     * @throws IllegalArgumentException 如果条目数超过上限
+     */
+    public List<BulkItem> parse(Reader reader, Format format, StartRecordingRequest defaults) throws IOException {
+        List<BulkItem> items = new ArrayList<>();
+        String[] columns = DEFAULT_CSV_COLUMNS;
+        boolean firstLine = true;
+
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (format == Format.CSV && firstLine && trimmed.toLowerCase(Locale.ROOT).startsWith("douyinid")) {
+                columns = splitCsv(trimmed.toLowerCase(Locale.ROOT));
+                firstLine = false;
+                continue;
+            }
+            firstLine = false;
+
+            if (items.size() >= maxItems) {
+                throw new IllegalArgumentException(String.format("单次最多导入%d个主播", maxItems));
+            }
+            items.add(format == Format.CSV
+                    ? parseCsvLine(lineNumber, trimmed, columns, defaults)
+                    : parseJsonLine(lineNumber, trimmed, defaults));
+        }
+        return items;
+    }
+
+    /**
+     * 校验并创建任务，按输入顺序逐条回调结果
+     * 回调抛出异常后不再回调，但仍创建全部条目
+     *
+     * @param items 解析得到的条目
+     * @param resultSink 结果回调
+     * @return 成功创建的任务数
+     */
+    public int createAll(List<BulkItem> items, Consumer<BulkRecordingResult> resultSink) {
+        long startNanos = System.nanoTime();
+        ResultSink sink = new ResultSink(resultSink);
+
+        // 并行校验抖音号
+        items.parallelStream().forEach(item -> {
+            if (item.error == null && !DouyinIdValidator.isValidDouyinId(item.request.getDouyinId())) {
+                item.error = "无效的抖音号格式";
+            }
+        });
+
+        // 每个不同的保存目录只校验一次
+        Map<String, Boolean> writableDirs = new ConcurrentHashMap<>();
+        items.stream()
+                .filter(item -> item.error == null)
+                .map(item -> item.request.getOutputDir())
+                .filter(dir -> dir != null && !dir.trim().isEmpty())
+                .distinct()
+                .toList()
+                .parallelStream()
+                .forEach(dir -> writableDirs.put(dir, fileSystemManager.isWritableDirectory(dir)));
+
+        // 按输入顺序一次性创建并启动任务
+        Set<String> seen = new HashSet<>();
+        int created = 0;
+        for (BulkItem item : items) {
+            StartRecordingRequest request = item.request;
+            String douyinId = request.getDouyinId();
+            String outputDir = request.getOutputDir();
+
+            if (item.error == null) {
+                if (outputDir == null || outputDir.trim().isEmpty()) {
+                    // 配置了存储池时由存储池选择保存目录
+                    if (storagePool.isEnabled()) {
+                        outputDir = null;
+                    } else {
+                        item.error = "保存目录不能为空";
+                    }
+                } else if (!writableDirs.getOrDefault(outputDir, false)) {
+                    item.error = "保存目录不可用";
+                }
+            }
+            if (item.error != null) {
+                sink.accept(new BulkRecordingResult(item.line, douyinId, BulkRecordingResult.INVALID, null, item.error));
+                continue;
+            }
+            if (!seen.add(douyinId)) {
+                sink.accept(new BulkRecordingResult(item.line, douyinId, BulkRecordingResult.DUPLICATE, null,
+                        "与本批次前面的条目重复"));
+                continue;
+            }
+
+            try {
+                boolean autoEnabled = request.getAuto() != null ? request.getAuto() : defaultAutoEnabled;
+                RecordingTask task = recordingManager.createTask(douyinId, autoEnabled, outputDir, request.getPriority());
+                if (recordingManager.startTask(task.getTaskId())) {
+                    created++;
+                    sink.accept(new BulkRecordingResult(item.line, douyinId, BulkRecordingResult.CREATED,
+                            task.getTaskId(), null));
+                } else {
+                    sink.accept(new BulkRecordingResult(item.line, douyinId, BulkRecordingResult.ATTACHED,
+                            task.getTaskId(), null));
+                }
+            } catch (RuntimeException e) {
+                sink.accept(new BulkRecordingResult(item.line, douyinId, BulkRecordingResult.REJECTED, null,
+                        e.getMessage()));
+            }
+        }
+
+        if (sink.unreported > 0) {
+            logger.warn("批量创建录制任务的结果未能全部返回（客户端可能已断开），任务已照常创建: 未返回={}, 原因={}",
+                    sink.unreported, sink.failure.getMessage());
+        }
+        logger.info("批量创建录制任务完成: 条目数={}, 创建={}, 保存目录数={}, 耗时={}ms",
+                items.size(), created, writableDirs.size(), (System.nanoTime() - startNanos) / 1_000_000L);
+        return created;
+    }
+
+    private BulkItem parseJsonLine(int lineNumber, String line, StartRecordingRequest defaults) {
+        try {
+            StartRecordingRequest request = objectMapper.readValue(line, StartRecordingRequest.class);
+            applyDefaults(request, defaults);
+            return new BulkItem(lineNumber, request, null);
+        } catch (IOException e) {
+            return new BulkItem(lineNumber, new StartRecordingRequest(), "无法解析的JSON");
+        }
+    }
+
+    private BulkItem parseCsvLine(int lineNumber, String line, String[] columns, StartRecordingRequest defaults) {
+        String[] values = splitCsv(line);
+        Map<String, String> row = new HashMap<>();
+        for (int i = 0; i < columns.length && i < values.length; i++) {
+            if (!values[i].isEmpty()) {
+                row.put(columns[i], values[i]);
+            }
+        }
+
+        StartRecordingRequest request = new StartRecordingRequest(row.get("douyinid"));
+        request.setOutputDir(row.get("outputdir"));
+        String error = null;
+        if (row.containsKey("auto")) {
+            String auto = row.get("auto");
+            if ("true".equalsIgnoreCase(auto)) {
+                request.setAuto(true);
+            } else if ("false".equalsIgnoreCase(auto)) {
+                request.setAuto(false);
+            } else {
+                error = "无效的auto值（应为true或false）: " + auto;
+            }
+        }
+        if (error == null && row.containsKey("priority")) {
+            try {
+                request.setPriority(Integer.parseInt(row.get("priority")));
+            } catch (NumberFormatException e) {
+                error = "无效的优先级: " + row.get("priority");
+            }
+        }
+        applyDefaults(request, defaults);
+        return new BulkItem(lineNumber, request, error);
+    }
+
+    private void applyDefaults(StartRecordingRequest request, StartRecordingRequest defaults) {
+        if (defaults == null) {
+            return;
+        }
+        if (request.getAuto() == null) {
+            request.setAuto(defaults.getAuto());
+        }
+        if (request.getOutputDir() == null || request.getOutputDir().trim().isEmpty()) {
+            request.setOutputDir(defaults.getOutputDir());
+        }
+        if (request.getPriority() == null) {
+            request.setPriority(defaults.getPriority());
+        }
+    }
+
+    private String[] splitCsv(String line) {
+        String[] values = line.split(",", -1);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = values[i].trim();
+        }
+        return values;
+    }
+
+    /**
+     * 包装结果回调：第一次回调失败后丢弃之后的结果，只计数
+     */
+    private static final class ResultSink {
+
+        private final Consumer<BulkRecordingResult> delegate;
+        private RuntimeException failure;
+        private int unreported;
+
+        ResultSink(Consumer<BulkRecordingResult> delegate) {
+            this.delegate = delegate;
+        }
+
+        void accept(BulkRecordingResult result) {
+            if (failure == null) {
+                try {
+                    delegate.accept(result);
+                    return;
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+            }
+            unreported++;
+        }
+    }
+
+    /**
+     * 批量请求中的一个条目
+     */
+    public static final class BulkItem {
+
+        private final int line;
+        private final StartRecordingRequest request;
+        private volatile String error;
+
+        BulkItem(int line, StartRecordingRequest request, String error) {
+            this.line = line;
+            this.request = request;
+            this.error = error;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public StartRecordingRequest getRequest() {
+            return request;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
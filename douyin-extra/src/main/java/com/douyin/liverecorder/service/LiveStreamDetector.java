@@ -1,11 +1,13 @@
 package com.douyin.liverecorder.service;
 
 import com.douyin.liverecorder.infrastructure.HttpClientUtil;
+import com.douyin.liverecorder.infrastructure.RecordingMetrics;
 import com.douyin.liverecorder.model.LiveStatus;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
@@ -23,12 +25,18 @@ public class LiveStreamDetector {
     
     private final HttpClientUtil httpClient;
     private final ObjectMapper objectMapper;
+    private final RecordingMetrics metrics;
     
-    // 抖音Web接口URL模板（注意：实际URL可能需要根据抖音API变化调整）
-    private static final String DOUYIN_LIVE_API_TEMPLATE = "https://live.douyin.com/webcast/room/web/enter/?aid=6383&web_rid=%s";
+    // 抖音Web接口路径模板（注意：实际URL可能需要根据抖音API变化调整）
+    private static final String DOUYIN_LIVE_API_PATH = "/webcast/room/web/enter/?aid=6383&web_rid=%s";
     
-    public LiveStreamDetector(HttpClientUtil httpClient) {
+    // 抖音Web接口地址（压测时可指向本地模拟服务）
+    @Value("${douyin.api-base-url:https://live.douyin.com}")
+    private String apiBaseUrl = "https://live.douyin.com";
+    
+    public LiveStreamDetector(HttpClientUtil httpClient, RecordingMetrics metrics) {
         this.httpClient = httpClient;
+        this.metrics = metrics;
         this.objectMapper = new ObjectMapper();
     }
     
@@ -47,15 +55,19 @@ public class LiveStreamDetector {
         
         logger.info("检查直播状态: {}", douyinId);
         
+        long startNanos = System.nanoTime();
+        String failureOutcome = "network_error";
         try {
             // 构建API URL
-            String apiUrl = String.format(DOUYIN_LIVE_API_TEMPLATE, douyinId);
+            String apiUrl = apiBaseUrl + String.format(DOUYIN_LIVE_API_PATH, douyinId);
             
             // 发送HTTP请求（带重试机制）
             String response = httpClient.get(apiUrl);
+            failureOutcome = "parse_error";
             
             // 解析响应
             LiveStatus liveStatus = parseLiveStatusResponse(response, douyinId);
+            metrics.recordDetection(liveStatus.isLive() ? "live" : "offline", 0, System.nanoTime() - startNanos);
             
             if (liveStatus.isLive()) {
                 logger.info("用户 {} 正在直播，直播间ID: {}, 标题: {}", 
@@ -67,9 +79,15 @@ public class LiveStreamDetector {
             return liveStatus;
             
         } catch (IOException e) {
+            if (e instanceof DouyinApiException apiError) {
+                metrics.recordDetection("api_error", apiError.statusCode, System.nanoTime() - startNanos);
+            } else {
+                metrics.recordDetection(failureOutcome, null, System.nanoTime() - startNanos);
+            }
             logger.error("检查直播状态失败: {}, 错误: {}", douyinId, e.getMessage());
             throw new IOException("网络连接失败，请检查网络连接后重试", e);
         } catch (Exception e) {
+            metrics.recordDetection("parse_error", null, System.nanoTime() - startNanos);
             logger.error("解析直播状态响应失败: {}", douyinId, e);
             throw new IOException("解析直播状态失败: " + e.getMessage(), e);
         }
@@ -91,7 +109,7 @@ public class LiveStreamDetector {
         
         try {
             // 构建API URL
-            String apiUrl = String.format(DOUYIN_LIVE_API_TEMPLATE, douyinId);
+            String apiUrl = apiBaseUrl + String.format(DOUYIN_LIVE_API_PATH, douyinId);
             
             // 发送HTTP请求（带重试机制）
             String response = httpClient.get(apiUrl);
@@ -151,7 +169,7 @@ public class LiveStreamDetector {
                         errorMessage = "抖音API错误: " + statusMsg;
                 }
                 
-                throw new IOException(errorMessage);
+                throw new DouyinApiException(errorMessage, statusCode);
             }
             
             // 解析数据
@@ -188,7 +206,9 @@ public class LiveStreamDetector {
                     java.time.ZoneOffset.ofHours(8)); // 使用东八区时间
             }
             
-            return new LiveStatus(isLive, roomId, title, startTime);
+            LiveStatus liveStatus = new LiveStatus(isLive, roomId, title, startTime);
+            liveStatus.setAudienceCount(parseAudienceCount(room));
+            return liveStatus;
             
         } catch (IOException e) {
             // 重新抛出IOException（包括API错误）
@@ -351,6 +371,33 @@ public class LiveStreamDetector {
         return response.substring(0, maxLen) + "...";
     }
 
+    /**
+     * 解析在线观众数（兼容 user_count_str 与 stats.user_count_str，支持"万"单位）
+     *
+     * @param room 直播间节点
+     * @return 观众数，无法解析时返回0
+     */
+    private long parseAudienceCount(JsonNode room) {
+        String text = room.path("user_count_str").asText(null);
+        if (text == null || text.isEmpty()) {
+            text = room.path("stats").path("user_count_str").asText(null);
+        }
+        if (text == null || text.isEmpty()) {
+            return 0L;
+        }
+        try {
+            String trimmed = text.trim();
+            if (trimmed.endsWith("万")) {
+                double value = Double.parseDouble(trimmed.substring(0, trimmed.length() - 1));
+                return (long) (value * 10_000);
+            }
+            return Long.parseLong(trimmed);
+        } catch (NumberFormatException e) {
+            logger.debug("无法解析观众数: {}", text);
+            return 0L;
+        }
+    }
+
     private JsonNode resolveRoomNode(JsonNode data) {
         if (data == null || data.isMissingNode()) {
             return null;
@@ -381,4 +428,16 @@ public class LiveStreamDetector {
         }
         return null;
     }
+
+    /**
+     * 抖音API返回非0状态码
+     */
+    private static final class DouyinApiException extends IOException {
+        private final int statusCode;
+
+        DouyinApiException(String message, int statusCode) {
+            super(message);
+            this.statusCode = statusCode;
+        }
+    }
 }
@@ -0,0 +1,177 @@
+package com.douyin.liverecorder.service;
+
+import com.douyin.liverecorder.model.RecordingStatus;
+import com.douyin.liverecorder.model.TaskSnapshot;
+
+import java.io.File;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 录制进度采样器
+ * 由后台线程按固定节奏统一获取所有录制中任务的文件大小，每个任务保留最近若干个（时间, 大小）样本，
+ * 码率按窗口内首尾样本计算（瞬时码率而非整个录制过程的平均值）；
+ * 状态查询只读取最近一次的采样结果，不访问文件系统
+ */
+public class ProgressSampler {
+
+    /**
+     * 每个任务保留的样本数
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 10;
+
+    private final int windowSize;
+
+    // 采样窗口（taskId -> 样本），只在采样线程上访问
+    private final ConcurrentHashMap<String, ArrayDeque<Sample>> windows = new ConcurrentHashMap<>();
+
+    // 最近一次采样结果（taskId -> 结果），供查询线程读取
+    private final ConcurrentHashMap<String, SampledProgress> latest = new ConcurrentHashMap<>();
+
+    public ProgressSampler() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    public ProgressSampler(int windowSize) {
+        if (windowSize < 2) {
+            throw new IllegalArgumentException("采样窗口至少需要2个样本");
+        }
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * 对录制中的任务采样一次，并清理已不在录制中的任务
+     *
+     * @param recording 录制中任务的快照
+     * @return 与上一次采样相比新写入的总字节数
+     */
+    public long sample(Collection<TaskSnapshot> recording) {
+        return sample(recording, System.nanoTime());
+    }
+
+    long sample(Collection<TaskSnapshot> recording, long nowNanos) {
+        Set<String> sampled = new HashSet<>();
+        long written = 0;
+        for (TaskSnapshot snapshot : recording) {
+            long size = currentFileSize(snapshot);
+            if (size < 0) {
+                continue;
+            }
+            sampled.add(snapshot.taskId());
+
+            ArrayDeque<Sample> window = windows.computeIfAbsent(snapshot.taskId(), id -> new ArrayDeque<>());
+            Sample previous = window.peekLast();
+            if (previous != null && size > previous.size()) {
+                written += size - previous.size();
+            }
+            window.addLast(new Sample(nowNanos, size));
+            while (window.size() > windowSize) {
+                window.removeFirst();
+            }
+
+            long bitsPerSecond = bitrate(window, snapshot, size);
+            latest.put(snapshot.taskId(), new SampledProgress(size, bitsPerSecond, formatBitrate(bitsPerSecond)));
+        }
+        windows.keySet().retainAll(sampled);
+        latest.keySet().retainAll(sampled);
+        return written;
+    }
+
+    /**
+     * 读取任务的录制进度
+     * 时长按当前时间计算，文件大小与码率取最近一次采样；尚未采样时只有时长
+     *
+     * @param snapshot 录制任务快照
+     * @return 进度信息
+     */
+    public RecordingStatus.Progress progress(TaskSnapshot snapshot) {
+        RecordingStatus.Progress progress = new RecordingStatus.Progress();
+        if (snapshot.startTime() != null) {
+            progress.setDuration((int) Duration.between(snapshot.startTime(), LocalDateTime.now()).getSeconds());
+        }
+        SampledProgress sampled = latest.get(snapshot.taskId());
+        if (sampled != null) {
+            progress.setFileSize(sampled.fileSize());
+            progress.setBitrate(sampled.bitrate());
+        }
+        return progress;
+    }
+
+    /**
+     * 最近一次采样的文件大小
+     *
+     * @param taskId 任务ID
+     * @return 文件大小（字节），尚未采样时返回0
+     */
+    public long latestFileSize(String taskId) {
+        SampledProgress sampled = latest.get(taskId);
+        return sampled != null ? sampled.fileSize() : 0L;
+    }
+
+    /**
+     * 最近一次采样的写入速率
+     *
+     * @param taskId 任务ID
+     * @return 每秒写入字节数，尚未采样或无法计算时返回-1
+     */
+    public long latestBytesPerSecond(String taskId) {
+        SampledProgress sampled = latest.get(taskId);
+        return sampled != null && sampled.bitsPerSecond() >= 0 ? sampled.bitsPerSecond() / 8 : -1L;
+    }
+
+    /**
+     * 移除任务的采样数据
+     *
+     * @param taskId 任务ID
+     */
+    public void remove(String taskId) {
+        windows.remove(taskId);
+        latest.remove(taskId);
+    }
+
+    private long currentFileSize(TaskSnapshot snapshot) {
+        // 与停止时统计文件大小的顺序一致：先看输出文件，不存在时看录制中的临时文件
+        for (String path : new String[] {snapshot.outputPath(), snapshot.tempOutputPath()}) {
+            if (path != null) {
+                File file = new File(path);
+                long length = file.length();
+                if (length > 0 || file.exists()) {
+                    return length;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private long bitrate(ArrayDeque<Sample> window, TaskSnapshot snapshot, long size) {
+        Sample first = window.peekFirst();
+        Sample last = window.peekLast();
+        long elapsedNanos = last.nanos() - first.nanos();
+        if (window.size() >= 2 && elapsedNanos > 0) {
+            return (long) ((last.size() - first.size()) * 8.0 * 1_000_000_000L / elapsedNanos);
+        }
+        // 只有一个样本时退回到整个录制过程的平均码率
+        if (snapshot.startTime() != null) {
+            long seconds = Duration.between(snapshot.startTime(), LocalDateTime.now()).getSeconds();
+            if (seconds > 0) {
+                return size * 8 / seconds;
+            }
+        }
+        return -1;
+    }
+
+    private String formatBitrate(long bitsPerSecond) {
+        return bitsPerSecond >= 0 ? String.format("%.2f Mbps", bitsPerSecond / 1_000_000.0) : null;
+    }
+
+    private record Sample(long nanos, long size) {
+    }
+
+    private record SampledProgress(long fileSize, long bitsPerSecond, String bitrate) {
+    }
+}
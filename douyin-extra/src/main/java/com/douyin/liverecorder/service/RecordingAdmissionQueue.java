@@ -0,0 +1,275 @@
+package com.douyin.liverecorder.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 录制准入队列
+ * 管理有限的录制槽位：槽位已满时任务按优先级排队，槽位释放后立即交给队首任务
+ */
+@Component
+public class RecordingAdmissionQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecordingAdmissionQueue.class);
+
+    // 排队线程检查取消状态的间隔
+    private static final long CANCEL_CHECK_INTERVAL_MS = 1000L;
+
+    // 优先级高者在前，同优先级先到先得
+    private static final Comparator<Ticket> TICKET_ORDER = Comparator
+            .comparingInt((Ticket ticket) -> ticket.priority).reversed()
+            .thenComparingLong(ticket -> ticket.sequence);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotChanged = lock.newCondition();
+
+    // 等待槽位的任务
+    private final PriorityQueue<Ticket> waiting = new PriorityQueue<>(TICKET_ORDER);
+
+    // 已占用槽位的任务（taskId -> Ticket）
+    private final Map<String, Ticket> running = new HashMap<>();
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Timer waitTimer;
+
+    @Value("${recording.max-concurrent-tasks:5}")
+    private int maxSlots;
+    @Value("${recording.admission.queue-enabled:true}")
+    private boolean queueEnabled;
+    @Value("${recording.admission.max-queue-size:100}")
+    private int maxQueueSize;
+    @Value("${recording.admission.preemption-enabled:false}")
+    private boolean preemptionEnabled;
+
+    public RecordingAdmissionQueue(MeterRegistry meterRegistry) {
+        Gauge.builder("recording.admission.queue.depth", this, RecordingAdmissionQueue::getQueueDepth)
+                .description("等待录制槽位的任务数")
+                .register(meterRegistry);
+        Gauge.builder("recording.admission.slots.used", this, RecordingAdmissionQueue::getRunningCount)
+                .description("已占用的录制槽位数")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("recording.admission.wait")
+                .description("任务从排队到获得录制槽位的等待时间")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 是否还能接收新任务（有空闲槽位或队列未满）
+     *
+     * @return 可接收返回true
+     */
+    public boolean hasRoom() {
+        lock.lock();
+        try {
+            if (running.size() < maxSlots) {
+                return true;
+            }
+            return queueEnabled && waiting.size() < maxQueueSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 申请录制槽位
+     * 有空闲槽位且没有更高优先级的任务在排队时立即获得，否则进入等待队列
+     *
+     * @param taskId 任务ID
+     * @param priority 优先级
+     * @return 排队凭证；队列已满或未启用排队且无空闲槽位时返回null
+     */
+    public Ticket enqueue(String taskId, int priority) {
+        lock.lock();
+        try {
+            Ticket ticket = new Ticket(taskId, priority, sequence.incrementAndGet());
+            waiting.add(ticket);
+            grantFreeSlots();
+            if (ticket.granted) {
+                return ticket;
+            }
+            if (!queueEnabled || waiting.size() > maxQueueSize) {
+                waiting.remove(ticket);
+                return null;
+            }
+            logger.info("录制槽位已满，任务进入排队: taskId={}, priority={}, 队列长度={}",
+                    taskId, priority, waiting.size());
+            return ticket;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 等待凭证获得槽位
+     *
+     * @param ticket 排队凭证
+     * @param cancelled 取消检查（返回true时放弃排队）
+     * @return 获得槽位返回true，被取消返回false
+     * @throws InterruptedException 如果等待被中断
+     */
+    public boolean await(Ticket ticket, BooleanSupplier cancelled) throws InterruptedException {
+        lock.lock();
+        try {
+            while (!ticket.granted) {
+                if (ticket.cancelled || cancelled.getAsBoolean()) {
+                    waiting.remove(ticket);
+                    return false;
+                }
+                slotChanged.await(CANCEL_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            waiting.remove(ticket);
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 为排队中的凭证挑选可抢占的低优先级录制任务
+     * 每个凭证最多触发一次抢占，被选中的任务不会被重复选中
+     *
+     * @param ticket 排队凭证
+     * @return 被抢占任务的ID；未启用抢占或没有合适任务时返回null
+     */
+    public String selectPreemptionVictim(Ticket ticket) {
+        if (!preemptionEnabled) {
+            return null;
+        }
+        lock.lock();
+        try {
+            if (ticket.granted || ticket.preemptionRequested) {
+                return null;
+            }
+            Ticket victim = null;
+            for (Ticket candidate : running.values()) {
+                if (candidate.preempted || candidate.priority >= ticket.priority) {
+                    continue;
+                }
+                if (victim == null || candidate.priority < victim.priority
+                        || (candidate.priority == victim.priority && candidate.sequence > victim.sequence)) {
+                    victim = candidate;
+                }
+            }
+            if (victim == null) {
+                return null;
+            }
+            victim.preempted = true;
+            ticket.preemptionRequested = true;
+            return victim.taskId;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 释放任务占用的槽位或排队位置，并把空闲槽位交给队首任务
+     *
+     * @param taskId 任务ID
+     */
+    public void release(String taskId) {
+        lock.lock();
+        try {
+            Ticket ticket = running.remove(taskId);
+            waiting.removeIf(waitingTicket -> {
+                if (waitingTicket.taskId.equals(taskId)) {
+                    waitingTicket.cancelled = true;
+                    return true;
+                }
+                return false;
+            });
+            if (ticket != null) {
+                logger.debug("释放录制槽位: taskId={}", taskId);
+            }
+            grantFreeSlots();
+            slotChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return waiting.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getRunningCount() {
+        lock.lock();
+        try {
+            return running.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxSlots() {
+        return maxSlots;
+    }
+
+    private void grantFreeSlots() {
+        boolean granted = false;
+        while (running.size() < maxSlots && !waiting.isEmpty()) {
+            Ticket head = waiting.poll();
+            head.granted = true;
+            running.put(head.taskId, head);
+            long waitedNanos = System.nanoTime() - head.enqueuedNanos;
+            waitTimer.record(waitedNanos, TimeUnit.NANOSECONDS);
+            granted = true;
+        }
+        if (granted) {
+            slotChanged.signalAll();
+        }
+    }
+
+    /**
+     * 排队凭证
+     */
+    public static final class Ticket {
+        private final String taskId;
+        private final int priority;
+        private final long sequence;
+        private final long enqueuedNanos = System.nanoTime();
+        private volatile boolean granted;
+        private boolean cancelled;
+        private boolean preempted;
+        private boolean preemptionRequested;
+
+        private Ticket(String taskId, int priority, long sequence) {
+            this.taskId = taskId;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        public String getTaskId() {
+            return taskId;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        public boolean isGranted() {
+            return granted;
+        }
+    }
+}
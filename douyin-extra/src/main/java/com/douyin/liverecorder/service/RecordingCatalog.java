@@ -0,0 +1,648 @@
+package com.douyin.liverecorder.service;
+
+import com.douyin.liverecorder.infrastructure.FileNameGenerator;
+import com.douyin.liverecorder.infrastructure.RecordingCatalogStore;
+import com.douyin.liverecorder.infrastructure.StoragePool;
+import com.douyin.liverecorder.model.RecordingFile;
+import com.douyin.liverecorder.model.TaskSnapshot;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * 录制文件目录
+ * 在内存中维护所有已完成录制文件的索引，按主播和录制时间查询时不访问文件系统：
+ * <ul>
+ *   <li>启动时先从快照恢复，再在后台按目录并行扫描存储根目录进行校正</li>
+ *   <li>录制任务结束时按任务的开始/结束时间写入准确时长；扫描发现的文件按修改时间估算时长</li>
+ *   <li>通过 WatchService 监听已扫描的目录，文件的新增、删除（包括配额淘汰）增量更新到索引，
+ *       事件溢出时重新扫描该目录</li>
+ *   <li>未结束任务正在写入的文件（录制中或封装中）不收录，任务结束时再加入索引</li>
+ *   <li>索引有变化时按间隔保存快照</li>
+ * </ul>
+ * 查询按录制时间倒序分页，游标为上一页最后一条记录的排序键
+ */
+@Service
+public class RecordingCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecordingCatalog.class);
+
+    private final RecordingManager recordingManager;
+    private final RecordingCatalogStore catalogStore;
+    private final StoragePool storagePool;
+
+    @Value("${recording.catalog.enabled:true}")
+    private boolean enabled = true;
+    @Value("${recording.catalog.watch:true}")
+    private boolean watch = true;
+    @Value("${recording.storage.path:./recordings}")
+    private String storagePath = "./recordings";
+    // 扫描根目录时向下的目录层数（0 只扫描根目录本身）
+    @Value("${recording.catalog.scan-depth:2}")
+    private int scanDepth = 2;
+    @Value("${recording.catalog.scan-threads:4}")
+    private int scanThreads = 4;
+    @Value("${recording.catalog.snapshot-interval-ms:60000}")
+    private long snapshotIntervalMs = 60000;
+
+    // 全部记录（按录制时间排序）
+    private final ConcurrentSkipListMap<CatalogKey, RecordingFile> byTime = new ConcurrentSkipListMap<>();
+    // 抖音号 -> 该主播的记录（按录制时间排序）
+    private final ConcurrentHashMap<String, ConcurrentSkipListMap<CatalogKey, RecordingFile>> byDouyinId =
+            new ConcurrentHashMap<>();
+    // 文件路径 -> 记录
+    private final ConcurrentHashMap<String, RecordingFile> byPath = new ConcurrentHashMap<>();
+    // 目录 -> 目录下记录的文件路径，用于按目录校正和删除
+    private final ConcurrentHashMap<String, Set<String>> byDirectory = new ConcurrentHashMap<>();
+    // 索引写入锁：一条记录涉及多个索引，写入串行化，查询不加锁
+    private final Object writeLock = new Object();
+
+    private final Set<Path> watchedDirectories = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final AtomicBoolean scanning = new AtomicBoolean();
+
+    private final ScheduledExecutorService snapshotExecutor;
+    private volatile WatchService watchService;
+    private volatile Thread watcherThread;
+
+    public RecordingCatalog(RecordingManager recordingManager, RecordingCatalogStore catalogStore,
+                            StoragePool storagePool) {
+        this.recordingManager = recordingManager;
+        this.catalogStore = catalogStore;
+        this.storagePool = storagePool;
+        this.snapshotExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "recording-catalog-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        recordingManager.addStatusListener(this::onStatusChanged);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        List<RecordingFile> restored = catalogStore.load();
+        synchronized (writeLock) {
+            for (RecordingFile recording : restored) {
+                put(recording);
+            }
+        }
+        logger.info("从快照恢复录制目录: {}条记录", restored.size());
+
+        if (watch) {
+            startWatcher();
+        }
+        if (snapshotIntervalMs > 0) {
+            snapshotExecutor.scheduleWithFixedDelay(this::saveIfDirty, snapshotIntervalMs, snapshotIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        }
+        rescan();
+    }
+
+    /**
+     * 在后台重新扫描全部目录
+     *
+     * @return 已有扫描在进行时返回false
+     */
+    public boolean rescan() {
+        if (!enabled || !scanning.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                scan();
+                saveIfDirty();
+            } finally {
+                scanning.set(false);
+            }
+        }, "recording-catalog-scan");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    /**
+     * 是否正在扫描
+     */
+    public boolean isScanning() {
+        return scanning.get();
+    }
+
+    /**
+     * 扫描存储根目录、存储池根目录以及索引中已有记录所在的目录，每个目录一个任务并行校正
+     */
+    void scan() {
+        long startNanos = System.nanoTime();
+        Set<Path> roots = new LinkedHashSet<>();
+        roots.add(normalize(storagePath));
+        for (String root : storagePool.getPlacementCounts().keySet()) {
+            roots.add(normalize(root));
+        }
+        Set<Path> directories = new LinkedHashSet<>();
+        for (Path root : roots) {
+            if (!Files.isDirectory(root)) {
+                continue;
+            }
+            try (Stream<Path> walk = Files.walk(root, Math.max(0, scanDepth))) {
+                walk.filter(path -> Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)).forEach(directories::add);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("遍历录制目录失败: root={}, error={}", root, e.getMessage());
+            }
+        }
+        for (String directory : byDirectory.keySet()) {
+            directories.add(Paths.get(directory));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, scanThreads), runnable -> {
+            Thread thread = new Thread(runnable, "recording-catalog-scan-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Path directory : directories) {
+                futures.add(executor.submit(() -> reconcileDirectory(directory)));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (Exception e) {
+                    logger.warn("扫描录制目录失败: {}", e.getMessage());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        logger.info("录制目录扫描完成: 目录={}, 记录={}, 耗时={}ms", directories.size(), byPath.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * 按目录当前内容校正索引：新增或已变化的文件重新建立记录，已不存在的文件从索引删除
+     *
+     * @param directory 目录
+     */
+    void reconcileDirectory(Path directory) {
+        Map<String, RecordingFile> found = new HashMap<>();
+        if (Files.isDirectory(directory)) {
+            Set<Path> inUse = inUsePaths();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.mp4")) {
+                FileNameGenerator.parseAll(files, (file, parsed) -> {
+                    if (inUse.contains(file.toAbsolutePath().normalize())) {
+                        return;
+                    }
+                    RecordingFile recording = read(file, parsed, -1);
+                    if (recording != null) {
+                        found.put(recording.path(), recording);
+                    }
+                });
+            } catch (IOException e) {
+                logger.warn("读取录制目录失败: {}, error={}", directory, e.getMessage());
+                return;
+            }
+            watchDirectory(directory);
+        }
+        synchronized (writeLock) {
+            Set<String> known = byDirectory.get(directory.toString());
+            if (known != null) {
+                for (String path : new ArrayList<>(known)) {
+                    if (!found.containsKey(path)) {
+                        remove(path);
+                    }
+                }
+            }
+            for (RecordingFile recording : found.values()) {
+                putIfChanged(recording);
+            }
+        }
+    }
+
+    /**
+     * 按文件当前状态更新一条记录：文件存在时新增或更新，不存在时删除
+     * 未结束任务正在写入的文件跳过，由任务结束时的状态通知加入
+     *
+     * @param file 文件路径
+     */
+    void refreshFile(Path file) {
+        if (inUsePaths().contains(file.toAbsolutePath().normalize())) {
+            return;
+        }
+        RecordingFile recording = read(file, -1);
+        synchronized (writeLock) {
+            if (recording != null) {
+                putIfChanged(recording);
+            } else {
+                remove(file.toString());
+            }
+        }
+    }
+
+    /**
+     * 录制任务结束时写入准确时长，并监听其所在目录
+     */
+    void onStatusChanged(TaskSnapshot snapshot) {
+        if (!enabled || !snapshot.isTerminal() || snapshot.outputPath() == null) {
+            return;
+        }
+        long durationSeconds = snapshot.startTime() != null && snapshot.endTime() != null
+                ? Math.max(0, Duration.between(snapshot.startTime(), snapshot.endTime()).getSeconds()) : -1;
+        Path file = normalize(snapshot.outputPath());
+        RecordingFile recording = read(file, durationSeconds);
+        if (recording == null) {
+            return;
+        }
+        synchronized (writeLock) {
+            put(recording);
+        }
+        if (watch && file.getParent() != null) {
+            watchDirectory(file.getParent());
+        }
+    }
+
+    /**
+     * 分页查询（按录制时间倒序）
+     *
+     * @param douyinId 抖音号过滤，可为null
+     * @param from 录制时间下限（包含），可为null
+     * @param to 录制时间上限（包含），可为null
+     * @param cursor 上一页返回的游标，首页为null
+     * @param limit 每页数量
+     * @return 分页结果
+     * @throws IllegalArgumentException 如果游标无效
+     */
+    public Page query(String douyinId, LocalDateTime from, LocalDateTime to, String cursor, int limit) {
+        NavigableMap<CatalogKey, RecordingFile> view;
+        if (douyinId != null && !douyinId.isEmpty()) {
+            view = byDouyinId.get(douyinId);
+            if (view == null) {
+                return new Page(List.of(), null);
+            }
+        } else {
+            view = byTime;
+        }
+
+        CatalogKey upper = cursor != null && !cursor.isEmpty() ? CatalogKey.decode(cursor) : null;
+        boolean upperInclusive = false;
+        if (to != null) {
+            CatalogKey toKey = new CatalogKey(to, String.valueOf(Character.MAX_VALUE));
+            if (upper == null || toKey.compareTo(upper) < 0) {
+                upper = toKey;
+                upperInclusive = true;
+            }
+        }
+        if (upper != null) {
+            view = view.headMap(upper, upperInclusive);
+        }
+        if (from != null) {
+            view = view.tailMap(new CatalogKey(from, ""), true);
+        }
+
+        List<RecordingFile> items = new ArrayList<>(Math.min(limit, 1024));
+        CatalogKey lastKey = null;
+        boolean hasMore = false;
+        for (Map.Entry<CatalogKey, RecordingFile> entry : view.descendingMap().entrySet()) {
+            if (items.size() == limit) {
+                hasMore = true;
+                break;
+            }
+            items.add(entry.getValue());
+            lastKey = entry.getKey();
+        }
+        return new Page(items, hasMore && lastKey != null ? lastKey.encode() : null);
+    }
+
+    /**
+     * 按路径查找记录
+     *
+     * @param path 文件路径
+     * @return 记录，不在目录中时返回null
+     */
+    public RecordingFile find(String path) {
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+        try {
+            return byPath.get(normalize(path).toString());
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 各主播的录制统计
+     *
+     * @return 按抖音号排序的统计
+     */
+    public List<StreamerSummary> streamers() {
+        Map<String, StreamerSummary> summaries = new TreeMap<>();
+        for (Map.Entry<String, ConcurrentSkipListMap<CatalogKey, RecordingFile>> entry : byDouyinId.entrySet()) {
+            long count = 0;
+            long totalBytes = 0;
+            long totalSeconds = 0;
+            LocalDateTime latest = null;
+            for (RecordingFile recording : entry.getValue().values()) {
+                count++;
+                totalBytes += recording.size();
+                totalSeconds += recording.durationSeconds();
+                latest = recording.recordedAt();
+            }
+            if (count > 0) {
+                summaries.put(entry.getKey(),
+                        new StreamerSummary(entry.getKey(), count, totalBytes, totalSeconds, latest));
+            }
+        }
+        return new ArrayList<>(summaries.values());
+    }
+
+    /**
+     * 记录总数
+     */
+    public int size() {
+        return byPath.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshotExecutor.shutdownNow();
+        Thread thread = watcherThread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        WatchService service = watchService;
+        watchService = null;
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException e) {
+                logger.debug("关闭目录监听失败: {}", e.getMessage());
+            }
+        }
+        if (enabled) {
+            saveIfDirty();
+        }
+    }
+
+    private void saveIfDirty() {
+        if (dirty.compareAndSet(true, false) && !catalogStore.save(new ArrayList<>(byPath.values()))) {
+            dirty.set(true);
+        }
+    }
+
+    private RecordingFile read(Path file, long durationSeconds) {
+        Path name = file.getFileName();
+        FileNameGenerator.ParsedFilename parsed = name != null ? FileNameGenerator.parse(name.toString()) : null;
+        return parsed != null ? read(file, parsed, durationSeconds) : null;
+    }
+
+    private RecordingFile read(Path file, FileNameGenerator.ParsedFilename parsed, long durationSeconds) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return null;
+            }
+            return RecordingCatalogStore.fromParsed(file.toAbsolutePath().normalize(), parsed, attributes.size(),
+                    durationSeconds, attributes.lastModifiedTime().toMillis());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 文件大小和修改时间都未变化时保留原记录（其中可能是录制任务写入的准确时长）
+     */
+    private void putIfChanged(RecordingFile recording) {
+        RecordingFile existing = byPath.get(recording.path());
+        if (existing != null && existing.size() == recording.size()
+                && existing.modifiedMillis() == recording.modifiedMillis()) {
+            return;
+        }
+        put(recording);
+    }
+
+    private void put(RecordingFile recording) {
+        RecordingFile previous = byPath.put(recording.path(), recording);
+        if (previous != null) {
+            removeFromIndexes(previous);
+        }
+        CatalogKey key = CatalogKey.of(recording);
+        byTime.put(key, recording);
+        byDouyinId.computeIfAbsent(recording.douyinId(), id -> new ConcurrentSkipListMap<>()).put(key, recording);
+        byDirectory.computeIfAbsent(parentOf(recording.path()), dir -> ConcurrentHashMap.newKeySet())
+                .add(recording.path());
+        dirty.set(true);
+    }
+
+    private void remove(String path) {
+        RecordingFile previous = byPath.remove(path);
+        if (previous == null) {
+            return;
+        }
+        removeFromIndexes(previous);
+        Set<String> paths = byDirectory.get(parentOf(path));
+        if (paths != null) {
+            paths.remove(path);
+            if (paths.isEmpty()) {
+                byDirectory.remove(parentOf(path));
+            }
+        }
+        dirty.set(true);
+    }
+
+    private void removeFromIndexes(RecordingFile recording) {
+        CatalogKey key = CatalogKey.of(recording);
+        byTime.remove(key);
+        ConcurrentSkipListMap<CatalogKey, RecordingFile> streamer = byDouyinId.get(recording.douyinId());
+        if (streamer != null) {
+            streamer.remove(key);
+            if (streamer.isEmpty()) {
+                byDouyinId.remove(recording.douyinId());
+            }
+        }
+    }
+
+    private void startWatcher() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            logger.warn("无法创建目录监听，录制目录只在扫描时更新: {}", e.getMessage());
+            return;
+        }
+        Thread thread = new Thread(this::watchLoop, "recording-catalog-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        watcherThread = thread;
+    }
+
+    private void watchDirectory(Path directory) {
+        WatchService service = watchService;
+        if (service == null || !watchedDirectories.add(directory)) {
+            return;
+        }
+        try {
+            directory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | ClosedWatchServiceException e) {
+            watchedDirectories.remove(directory);
+            logger.debug("监听录制目录失败: {}, error={}", directory, e.getMessage());
+        }
+    }
+
+    private void watchLoop() {
+        while (true) {
+            WatchService service = watchService;
+            if (service == null) {
+                return;
+            }
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path directory = (Path) key.watchable();
+            try {
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        reconcileDirectory(directory);
+                        continue;
+                    }
+                    Path file = directory.resolve((Path) event.context());
+                    if (file.getFileName().toString().endsWith(".mp4")) {
+                        refreshFile(file);
+                    }
+                }
+            } catch (RuntimeException e) {
+                logger.warn("处理录制目录变更失败: {}, error={}", directory, e.getMessage());
+            }
+            if (!key.reset()) {
+                // 目录已被删除或不可访问
+                watchedDirectories.remove(directory);
+                reconcileDirectory(directory);
+            }
+        }
+    }
+
+    /**
+     * 未结束任务正在使用的文件（规范化的绝对路径）
+     */
+    private Set<Path> inUsePaths() {
+        Set<Path> paths = new HashSet<>();
+        for (String path : recordingManager.inUsePaths()) {
+            try {
+                paths.add(normalize(path));
+            } catch (InvalidPathException e) {
+                logger.debug("无效的任务文件路径: {}", path);
+            }
+        }
+        return paths;
+    }
+
+    private static String parentOf(String path) {
+        Path parent = Paths.get(path).getParent();
+        return parent != null ? parent.toString() : "";
+    }
+
+    private static Path normalize(String path) {
+        return Paths.get(path).toAbsolutePath().normalize();
+    }
+
+    /**
+     * 分页结果
+     *
+     * @param items 本页记录
+     * @param nextCursor 下一页游标，没有更多数据时为null
+     */
+    public record Page(List<RecordingFile> items, String nextCursor) {
+    }
+
+    /**
+     * 主播录制统计
+     *
+     * @param douyinId 抖音号
+     * @param count 录制文件数
+     * @param totalBytes 文件总大小（字节）
+     * @param totalDurationSeconds 总时长（秒）
+     * @param latestRecordedAt 最近一次录制时间
+     */
+    public record StreamerSummary(String douyinId, long count, long totalBytes, long totalDurationSeconds,
+                                  LocalDateTime latestRecordedAt) {
+    }
+
+    /**
+     * 排序键：录制时间 + 文件路径
+     */
+    record CatalogKey(LocalDateTime recordedAt, String path) implements Comparable<CatalogKey> {
+
+        static CatalogKey of(RecordingFile recording) {
+            return new CatalogKey(recording.recordedAt(), recording.path());
+        }
+
+        @Override
+        public int compareTo(CatalogKey other) {
+            int byTime = recordedAt.compareTo(other.recordedAt);
+            return byTime != 0 ? byTime : path.compareTo(other.path);
+        }
+
+        String encode() {
+            String raw = recordedAt + "|" + path;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static CatalogKey decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                if (separator <= 0) {
+                    throw new IllegalArgumentException("无效的分页游标");
+                }
+                return new CatalogKey(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new IllegalArgumentException("无效的分页游标", e);
+            }
+        }
+    }
+}
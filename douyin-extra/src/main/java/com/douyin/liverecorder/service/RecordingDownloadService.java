@@ -0,0 +1,318 @@
+package com.douyin.liverecorder.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 录制文件下载服务
+ * <ul>
+ *   <li>支持单个 Range 请求（206）和 If-Range，多个区间时返回完整文件</li>
+ *   <li>ETag 由文件大小和修改时间组成，配合 Last-Modified 支持 304 和 412</li>
+ *   <li>可选的限速（默认关闭）：同一客户端的所有下载共享一个令牌桶，全部下载再共享一个全局令牌桶，
+ *       避免下载占满磁盘带宽影响录制写入</li>
+ *   <li>不限速时交给 Tomcat 的 sendfile 由内核直接发送（零拷贝）；开启任一限速后不再使用 sendfile，
+ *       改为按块调用 FileChannel.transferTo 并在每块之前等待令牌</li>
+ *   <li>同时进行的下载数包含交给 sendfile 的下载：sendfile 在请求返回后才发送，完成时间不可见，
+ *       按文件大小和预估速率占用一个下载名额</li>
+ * </ul>
+ */
+@Service
+public class RecordingDownloadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecordingDownloadService.class);
+
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // 每个客户端的下载速率上限，<=0 表示不限速；开启后不再使用 sendfile
+    @Value("${recording.download.max-bytes-per-second-per-client:0}")
+    private long maxBytesPerSecondPerClient = 0;
+    // 全部下载合计的速率上限，<=0 表示不限速；开启后不再使用 sendfile
+    @Value("${recording.download.max-bytes-per-second:0}")
+    private long maxBytesPerSecond = 0;
+    // 估算 sendfile 传输时长使用的速率，<=0 表示 sendfile 下载不占用下载名额
+    @Value("${recording.download.sendfile-lease-bytes-per-second:10485760}")
+    private long sendfileLeaseBytesPerSecond = 10485760;
+    @Value("${recording.download.max-concurrent:16}")
+    private int maxConcurrent = 16;
+    @Value("${recording.download.chunk-size:262144}")
+    private int chunkSize = 262144;
+    @Value("${recording.download.sendfile:true}")
+    private boolean sendfile = true;
+
+    private final AtomicInteger activeDownloads = new AtomicInteger();
+    // 交给 sendfile 的下载预计完成的时间（System.nanoTime），由自身加锁保护
+    private final PriorityQueue<Long> sendfileLeases = new PriorityQueue<>();
+
+    // 客户端地址 -> 令牌桶，没有进行中的下载时移除
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private volatile TokenBucket globalBucket;
+
+    /**
+     * 发送文件
+     *
+     * @param file 文件路径
+     * @param request 当前请求
+     * @param response 当前响应
+     * @return 文件不存在时返回false，由调用方返回404
+     * @throws IllegalStateException 如果同时进行的下载数已达上限
+     * @throws IOException 如果读取文件失败
+     */
+    public boolean serve(Path file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return false;
+        }
+        if (!attributes.isRegularFile()) {
+            return false;
+        }
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        // 设置 ETag/Last-Modified，条件请求命中时已写好 304 或 412
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return true;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        boolean partial = false;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && ifRangeMatches(request, etag, lastModified)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                // 无法解析的 Range 按规范忽略
+                ranges = List.of();
+            }
+            if (ranges.size() == 1) {
+                try {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                } catch (IllegalArgumentException e) {
+                    start = length;
+                }
+                // 起点超出文件长度的区间无法满足
+                if (start >= length || start > end) {
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    return true;
+                }
+                partial = true;
+            }
+        }
+        long count = end - start + 1;
+
+        response.setStatus(partial ? HttpServletResponse.SC_PARTIAL_CONTENT : HttpServletResponse.SC_OK);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentType("video/mp4");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(file.getFileName().toString(), StandardCharsets.UTF_8).build().toString());
+        if (partial) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+        response.setContentLengthLong(count);
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || count <= 0) {
+            return true;
+        }
+
+        boolean throttled = maxBytesPerSecondPerClient > 0 || maxBytesPerSecond > 0;
+        if (!throttled && sendfile && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            acquireSlot(count, response);
+            // 由 Tomcat 在请求处理结束后通过 sendfile 发送
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return true;
+        }
+
+        acquireSlot(-1L, response);
+        String client = request.getRemoteAddr();
+        TokenBucket bucket = acquireBucket(client);
+        TokenBucket global = globalBucket();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long chunk = Math.min(chunkSize, remaining);
+                if (bucket != null) {
+                    bucket.throttle(chunk);
+                }
+                if (global != null) {
+                    global.throttle(chunk);
+                }
+                long written = channel.transferTo(position, chunk, out);
+                if (written <= 0) {
+                    break;
+                }
+                position += written;
+                remaining -= written;
+            }
+            response.flushBuffer();
+        } catch (IOException e) {
+            // 客户端中途断开（拖动进度条时很常见）
+            logger.debug("下载中断: file={}, client={}, error={}", file, client, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            releaseBucket(client);
+            activeDownloads.decrementAndGet();
+        }
+        return true;
+    }
+
+    /**
+     * 当前进行中的下载数（交给 sendfile 的下载按预估的传输时长计入）
+     */
+    public int getActiveDownloads() {
+        synchronized (sendfileLeases) {
+            expireLeases(System.nanoTime());
+            return activeDownloads.get() + sendfileLeases.size();
+        }
+    }
+
+    /**
+     * 占用一个下载名额
+     *
+     * @param sendfileBytes 交给 sendfile 发送的字节数，按块发送时为-1（发送结束后由调用方释放名额）
+     * @param response 当前响应，名额已满时清空已设置的响应头
+     * @throws IllegalStateException 如果同时进行的下载数已达上限
+     */
+    private void acquireSlot(long sendfileBytes, HttpServletResponse response) {
+        synchronized (sendfileLeases) {
+            long now = System.nanoTime();
+            expireLeases(now);
+            if (activeDownloads.get() + sendfileLeases.size() >= maxConcurrent) {
+                response.reset();
+                throw new IllegalStateException(String.format("同时进行的下载数已达上限（%d个）", maxConcurrent));
+            }
+            if (sendfileBytes < 0) {
+                activeDownloads.incrementAndGet();
+            } else if (sendfileLeaseBytesPerSecond > 0) {
+                long leaseNanos = Math.max(TimeUnit.SECONDS.toNanos(1),
+                        (long) (sendfileBytes * 1_000_000_000.0 / sendfileLeaseBytesPerSecond));
+                sendfileLeases.add(now + leaseNanos);
+            }
+        }
+    }
+
+    private void expireLeases(long now) {
+        Long expiresAt;
+        while ((expiresAt = sendfileLeases.peek()) != null && expiresAt - now <= 0) {
+            sendfileLeases.poll();
+        }
+    }
+
+    private boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range 只接受强校验
+            return ifRange.equals(etag);
+        }
+        try {
+            long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return date >= 0 && date / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private TokenBucket acquireBucket(String client) {
+        if (maxBytesPerSecondPerClient <= 0) {
+            return null;
+        }
+        return buckets.compute(client, (key, bucket) -> {
+            TokenBucket result = bucket != null ? bucket : new TokenBucket(maxBytesPerSecondPerClient);
+            result.users++;
+            return result;
+        });
+    }
+
+    private void releaseBucket(String client) {
+        buckets.computeIfPresent(client, (key, bucket) -> --bucket.users > 0 ? bucket : null);
+    }
+
+    private TokenBucket globalBucket() {
+        if (maxBytesPerSecond <= 0) {
+            return null;
+        }
+        TokenBucket bucket = globalBucket;
+        if (bucket == null) {
+            synchronized (this) {
+                if (globalBucket == null) {
+                    globalBucket = new TokenBucket(maxBytesPerSecond);
+                }
+                bucket = globalBucket;
+            }
+        }
+        return bucket;
+    }
+
+    /**
+     * 令牌桶：最多积累1秒的额度；额度不足时先记账再等待，共享同一个令牌桶的下载按请求顺序分享速率
+     */
+    static final class TokenBucket {
+
+        private final long bytesPerSecond;
+        private long available;
+        private long lastRefillNanos;
+        // 使用该客户端令牌桶的下载数，由 buckets.compute 保护
+        private int users;
+
+        TokenBucket(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+            this.available = bytesPerSecond;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        void throttle(long bytes) throws InterruptedException {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long refill = (long) ((now - lastRefillNanos) / 1_000_000_000.0 * bytesPerSecond);
+                if (refill > 0) {
+                    available = Math.min(bytesPerSecond, available + refill);
+                    lastRefillNanos = now;
+                }
+                available -= bytes;
+                waitNanos = available >= 0 ? 0 : (long) (-available * 1_000_000_000.0 / bytesPerSecond);
+            }
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+    }
+}
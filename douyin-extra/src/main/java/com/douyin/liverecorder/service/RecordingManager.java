@@ -1,10 +1,19 @@
 package com.douyin.liverecorder.service;
 
 import com.douyin.liverecorder.infrastructure.FileSystemManager;
+import com.douyin.liverecorder.infrastructure.RecordingMetrics;
+import com.douyin.liverecorder.infrastructure.StoragePool;
+import com.douyin.liverecorder.infrastructure.StorageQuotaManager;
+import com.douyin.liverecorder.infrastructure.TaskEventJournal;
+import com.douyin.liverecorder.infrastructure.TaskHistoryStore;
+import com.douyin.liverecorder.infrastructure.TaskStateStore;
+import com.douyin.liverecorder.jfr.TaskLogEvent;
+import com.douyin.liverecorder.jfr.TaskPhaseEvent;
 import com.douyin.liverecorder.model.LiveStatus;
 import com.douyin.liverecorder.model.RecordingStatus;
 import com.douyin.liverecorder.model.RecordingTask;
 import com.douyin.liverecorder.model.StreamInfo;
+import com.douyin.liverecorder.model.TaskSnapshot;
 import com.douyin.liverecorder.model.TaskStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,16 +23,27 @@ import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 /**
  * 录制管理器
@@ -34,20 +54,70 @@ public class RecordingManager {
     
     private static final Logger logger = LoggerFactory.getLogger(RecordingManager.class);
     
+    private static final long RETENTION_SWEEP_INTERVAL_SECONDS = 60L;
+    private static final long PROGRESS_SAMPLE_INTERVAL_MS = 1000L;
+    private static final long STORAGE_CHECK_INTERVAL_MS = 2000L;
+    
     private final LiveStreamDetector liveStreamDetector;
     private final StreamExtractor streamExtractor;
     private final RecordingService recordingService;
     private final FileSystemManager fileSystemManager;
+    private final StorageQuotaManager storageQuotaManager;
+    private final StoragePool storagePool;
+    private final RecordingAdmissionQueue admissionQueue;
+    private final TaskHistoryStore taskHistoryStore;
+    private final TaskStateStore taskStateStore;
+    private final TaskEventJournal taskEventJournal;
+    private final RecordingMetrics metrics;
     
-    // 任务映射表（taskId -> RecordingTask）
+    // 任务映射表（taskId -> RecordingTask），包含活动任务与保留窗口内的终态任务
     private final ConcurrentHashMap<String, RecordingTask> taskMap = new ConcurrentHashMap<>();
     
+    // 活动任务映射表（taskId -> RecordingTask），只包含未结束的任务
+    private final ConcurrentHashMap<String, RecordingTask> activeTaskMap = new ConcurrentHashMap<>();
+    
+    // 主播索引（douyinId -> 未结束的任务），每个主播同时最多一个未结束的任务
+    private final ConcurrentHashMap<String, RecordingTask> activeTaskByDouyinId = new ConcurrentHashMap<>();
+    
+    // 状态索引（内存中的全部任务按状态分组），用于分页查询与状态汇总
+    private final TaskStatusIndex statusIndex = new TaskStatusIndex();
+    
+    // 任务变更序号：任务创建、字段或状态变更、移出活动任务表或转存到历史存储时递增，用作任务列表的ETag
+    private final AtomicLong changeSequence = new AtomicLong();
+    
+    // 已提交执行的任务ID，用于合并重复的启动请求
+    private final Set<String> submittedTaskIds = ConcurrentHashMap.newKeySet();
+    
+    // 保留在内存中的终态任务（按结束顺序）
+    private final ConcurrentLinkedDeque<RecordingTask> retainedTerminalTasks = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger retainedTerminalCount = new AtomicInteger();
+    
+    // 录制进度采样器，状态查询只读取采样结果
+    private final ProgressSampler progressSampler = new ProgressSampler();
+    
+    // 状态变更监听器（如 SSE 推送），在状态变更生效后回调
+    private final List<Consumer<TaskSnapshot>> statusListeners = new CopyOnWriteArrayList<>();
+    
+    // 因剩余空间不足被提前停止的任务ID
+    private final Set<String> diskStoppedTaskIds = ConcurrentHashMap.newKeySet();
+    
+    // 被更高优先级任务抢占的任务ID，结束后以相同配置重新排队
+    private final Set<String> preemptedTaskIds = ConcurrentHashMap.newKeySet();
+    
+    private static final String PREEMPTED_ERROR = "被更高优先级的任务抢占，录制已提前停止";
+    
     // 任务进程映射表（taskId -> Process）
     private final ConcurrentHashMap<String, Process> taskProcessMap = new ConcurrentHashMap<>();
     
     // 异步任务执行器
     private final ExecutorService executorService;
     
+    // 终态任务淘汰执行器
+    private final ScheduledExecutorService retentionExecutor = Executors.newSingleThreadScheduledExecutor();
+    
+    // 录制进度采样执行器（文件系统较慢时不影响终态任务淘汰）
+    private final ScheduledExecutorService progressExecutor = Executors.newSingleThreadScheduledExecutor();
+    
     // 最大并发任务数
     @Value("${recording.max-concurrent-tasks:5}")
     private int maxConcurrentTasks;
@@ -57,22 +127,80 @@ public class RecordingManager {
     private long maxWaitMs;
     @Value("${recording.end-detect-grace-ms:15000}")
     private long endDetectGraceMs;
-    @Value("${recording.task-log-path:./task.txt}")
-    private String taskLogPath;
+    @Value("${recording.admission.default-priority:0}")
+    private int defaultPriority;
+    @Value("${recording.admission.streamer-priorities:}")
+    private String streamerPriorities;
+    @Value("${recording.admission.audience-priority-step:10000}")
+    private long audiencePriorityStep;
+    @Value("${recording.admission.max-audience-bonus:10}")
+    private int maxAudienceBonus;
+    @Value("${recording.retention.max-terminal-tasks:1000}")
+    private int maxRetainedTerminalTasks;
+    @Value("${recording.retention.max-age-ms:3600000}")
+    private long retainedTaskMaxAgeMs;
+    
+    // 主播默认优先级（douyinId -> priority），由 streamer-priorities 配置解析
+    private volatile Map<String, Integer> streamerPriorityMap;
     
     public RecordingManager(
             LiveStreamDetector liveStreamDetector,
             StreamExtractor streamExtractor,
             RecordingService recordingService,
-            FileSystemManager fileSystemManager) {
+            FileSystemManager fileSystemManager,
+            StorageQuotaManager storageQuotaManager,
+            StoragePool storagePool,
+            RecordingAdmissionQueue admissionQueue,
+            TaskHistoryStore taskHistoryStore,
+            TaskStateStore taskStateStore,
+            TaskEventJournal taskEventJournal,
+            RecordingMetrics metrics) {
         this.liveStreamDetector = liveStreamDetector;
         this.streamExtractor = streamExtractor;
         this.recordingService = recordingService;
         this.fileSystemManager = fileSystemManager;
+        this.storageQuotaManager = storageQuotaManager;
+        this.storagePool = storagePool;
+        this.admissionQueue = admissionQueue;
+        this.taskHistoryStore = taskHistoryStore;
+        this.taskStateStore = taskStateStore;
+        this.taskEventJournal = taskEventJournal;
+        this.metrics = metrics;
+        metrics.registerTaskGauges(statusIndex::count, activeTaskMap::size);
+        storagePool.registerWriteRates(progressSampler::latestBytesPerSecond);
         
         // 创建固定大小的线程池
         this.executorService = Executors.newCachedThreadPool();
         
+        // 定期把超出保留窗口的终态任务转存到历史存储
+        retentionExecutor.scheduleAtFixedRate(() -> {
+            try {
+                evictTerminalTasks();
+                taskStateStore.compactIfNeeded(taskMap.values());
+                taskHistoryStore.compactIfNeeded();
+            } catch (Exception e) {
+                logger.error("终态任务淘汰失败", e);
+            }
+        }, RETENTION_SWEEP_INTERVAL_SECONDS, RETENTION_SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        
+        // 定期采样录制进度
+        progressExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                sampleProgress();
+            } catch (Exception e) {
+                logger.warn("录制进度采样失败: {}", e.getMessage());
+            }
+        }, PROGRESS_SAMPLE_INTERVAL_MS, PROGRESS_SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        
+        // 录制过程中持续检查剩余空间，不足时在写满磁盘前提前停止录制
+        progressExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                checkStorage();
+            } catch (Exception e) {
+                logger.warn("存储空间检查失败: {}", e.getMessage());
+            }
+        }, STORAGE_CHECK_INTERVAL_MS, STORAGE_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        
         logger.info("录制管理器已初始化，最大并发任务数: {}", maxConcurrentTasks);
     }
     
@@ -85,28 +213,58 @@ public class RecordingManager {
      * @throws IllegalStateException 如果达到并发限制
      */
     public RecordingTask createTask(String douyinId, boolean autoEnabled, String outputDir) {
+        return createTask(douyinId, autoEnabled, outputDir, null);
+    }
+    
+    /**
+     * 创建录制任务（指定优先级）
+     * 同一主播已有未结束的任务时不再创建新任务，直接返回该任务，避免重复录制同一直播
+     * 
+     * @param douyinId 抖音号
+     * @param autoEnabled 是否自动录制
+     * @param outputDir 保存目录，为空时开始录制时由存储池选择
+     * @param priority 请求指定的优先级，为null时使用主播配置或默认优先级
+     * @return 创建的录制任务，或该主播已有的未结束任务
+     * @throws IllegalArgumentException 如果抖音号无效
+     * @throws IllegalStateException 如果录制槽位与排队队列均已满
+     */
+    public RecordingTask createTask(String douyinId, boolean autoEnabled, String outputDir, Integer priority) {
         if (douyinId == null || douyinId.trim().isEmpty()) {
             throw new IllegalArgumentException("抖音号不能为空");
         }
         
-        // 检查并发限制
-        int activeTaskCount = getActiveTaskCount();
-        if (activeTaskCount >= maxConcurrentTasks) {
-            throw new IllegalStateException(
-                String.format("当前录制任务已达上限（%d个），请稍后重试", maxConcurrentTasks));
+        RecordingTask existing = activeTaskByDouyinId.get(douyinId);
+        if (existing != null) {
+            logger.info("主播已有未结束的任务，合并请求: taskId={}, douyinId={}, 状态={}",
+                    existing.getTaskId(), douyinId, existing.getStatus());
+            return existing;
         }
         
-        // 创建新任务
+        // 检查并发限制（槽位已满时仍可进入排队队列）
+        checkAdmissionRoom();
+        
+        // 先创建任务再用 putIfAbsent 占位，持久化等I/O不在映射表的锁内执行
         RecordingTask task = new RecordingTask(douyinId);
         task.setAutoEnabled(autoEnabled);
         task.setOutputDir(outputDir);
-        task.setStatus(TaskStatus.PENDING);
+        task.setPriority(resolvePriority(douyinId, priority));
+        
+        RecordingTask owner = activeTaskByDouyinId.putIfAbsent(douyinId, task);
+        if (owner != null) {
+            logger.info("主播已有未结束的任务，合并请求: taskId={}, douyinId={}", owner.getTaskId(), douyinId);
+            return owner;
+        }
         
         // 存储任务
         taskMap.put(task.getTaskId(), task);
+        activeTaskMap.put(task.getTaskId(), task);
+        updateStatus(task, TaskStatus.PENDING);
         
-        logger.info("创建录制任务: taskId={}, douyinId={}, outputDir={}", task.getTaskId(), douyinId, outputDir);
+        changeSequence.incrementAndGet();
+        logger.info("创建录制任务: taskId={}, douyinId={}, outputDir={}, priority={}",
+                task.getTaskId(), douyinId, outputDir, task.getPriority());
         appendTaskLog(task, "CREATED");
+        notifyStatusListeners(task.snapshot());
         
         return task;
     }
@@ -115,11 +273,24 @@ public class RecordingManager {
      * 启动录制任务（异步执行）
      * 
      * @param taskId 任务ID
-     * @return 如果任务成功提交返回true，否则返回false
+     * @return 如果任务成功提交返回true；任务已经启动过（重复的启动请求被合并）返回false
      * @throws IllegalArgumentException 如果任务ID无效
      * @throws IllegalStateException 如果任务状态不允许启动
      */
     public boolean startTask(String taskId) {
+        return startTask(taskId, null);
+    }
+    
+    /**
+     * 启动录制任务，使用调用方已经检测到的开播状态，跳过开播检测（例如关注列表的共享检测循环）
+     * 
+     * @param taskId 任务ID
+     * @param detected 已检测到的开播状态，为null或未开播时按任务配置重新检测
+     * @return 如果任务成功提交返回true；任务已经启动过（重复的启动请求被合并）返回false
+     * @throws IllegalArgumentException 如果任务ID无效
+     * @throws IllegalStateException 如果任务状态不允许启动
+     */
+    public boolean startTask(String taskId, LiveStatus detected) {
         if (taskId == null || taskId.trim().isEmpty()) {
             throw new IllegalArgumentException("任务ID不能为空");
         }
@@ -129,24 +300,31 @@ public class RecordingManager {
             throw new IllegalArgumentException("任务不存在: " + taskId);
         }
         
-        // 检查任务状态
-        if (task.getStatus() != TaskStatus.PENDING) {
-            throw new IllegalStateException(
-                String.format("任务状态不允许启动: %s (当前状态: %s)", 
-                    taskId, task.getStatus()));
+        // 同一任务只提交一次，重复的启动请求直接合并
+        if (!submittedTaskIds.add(taskId)) {
+            logger.info("任务已启动，合并重复的启动请求: taskId={}", taskId);
+            return false;
         }
         
-        // 检查并发限制
-        int activeTaskCount = getActiveTaskCount();
-        if (activeTaskCount >= maxConcurrentTasks) {
-            throw new IllegalStateException(
-                String.format("当前录制任务已达上限（%d个），请稍后重试", maxConcurrentTasks));
+        try {
+            // 检查任务状态
+            if (task.getStatus() != TaskStatus.PENDING) {
+                throw new IllegalStateException(
+                    String.format("任务状态不允许启动: %s (当前状态: %s)", 
+                        taskId, task.getStatus()));
+            }
+            
+            // 检查并发限制
+            checkAdmissionRoom();
+        } catch (IllegalStateException e) {
+            submittedTaskIds.remove(taskId);
+            throw e;
         }
         
         logger.info("启动录制任务: taskId={}, douyinId={}", taskId, task.getDouyinId());
         
         // 异步执行录制任务
-        executorService.submit(() -> executeTask(task));
+        executorService.submit(() -> executeTask(task, detected));
         
         return true;
     }
@@ -161,6 +339,17 @@ public class RecordingManager {
     public boolean stopTask(String taskId) {
         return stopTaskInternal(taskId, true);
     }
+    
+    /**
+     * 直播结束时停止录制（由外部的开播检测发起，不视为用户停止，已录制的内容正常封装为已完成）
+     * 
+     * @param taskId 任务ID
+     * @return 如果任务成功停止返回true，否则返回false
+     * @throws IllegalArgumentException 如果任务ID无效
+     */
+    public boolean stopTaskOnLiveEnd(String taskId) {
+        return stopTaskInternal(taskId, false);
+    }
 
     private boolean stopTaskInternal(String taskId, boolean userRequested) {
         if (taskId == null || taskId.trim().isEmpty()) {
@@ -175,8 +364,10 @@ public class RecordingManager {
         logger.info("停止录制任务: taskId={}, douyinId={}, 当前状态={}, userRequested={}",
                 taskId, task.getDouyinId(), task.getStatus(), userRequested);
 
-        task.setStopRequestedByUser(userRequested);
-        task.setStatus(TaskStatus.STOPPING);
+        if (!updateStatus(task, TaskStatus.STOPPING, s -> s.withStopRequestedByUser(userRequested))) {
+            logger.info("录制任务已结束，无需停止: taskId={}, 状态={}", taskId, task.getStatus());
+            return true;
+        }
 
         Process process = taskProcessMap.get(taskId);
         if (process != null) {
@@ -185,6 +376,7 @@ public class RecordingManager {
             if (stopped) {
                 task.setEndTime(LocalDateTime.now());
                 updateFileSize(task);
+                changeSequence.incrementAndGet();
                 taskProcessMap.remove(taskId);
                 logger.info("录制任务已停止: taskId={}", taskId);
                 return true;
@@ -194,8 +386,12 @@ public class RecordingManager {
             return false;
         }
 
-        task.setStatus(TaskStatus.CANCELLED);
-        task.setEndTime(LocalDateTime.now());
+        boolean preempted = preemptedTaskIds.contains(taskId);
+        updateStatus(task, TaskStatus.CANCELLED, s -> preempted
+                ? s.withEndTime(LocalDateTime.now()).withError(PREEMPTED_ERROR)
+                : s.withEndTime(LocalDateTime.now()));
+        admissionQueue.release(taskId);
+        retireTask(task);
         logger.info("录制任务已取消（未开始录制）: taskId={}", taskId);
         return true;
     }
@@ -212,25 +408,51 @@ public class RecordingManager {
             throw new IllegalArgumentException("任务ID不能为空");
         }
         
-        RecordingTask task = taskMap.get(taskId);
+        RecordingTask task = getTask(taskId);
         if (task == null) {
             throw new IllegalArgumentException("任务不存在: " + taskId);
         }
         
-        // 创建录制状态对象
+        return buildStatus(task.snapshot());
+    }
+    
+    /**
+     * 批量获取任务状态
+     * 一次遍历完成全部任务的状态构建，录制中任务的文件大小在同一遍中获取（优先使用进度缓存）
+     * 
+     * @param taskIds 任务ID列表
+     * @return 按请求顺序排列的状态（taskId -> 状态），不存在的任务不包含在结果中
+     */
+    public Map<String, RecordingStatus> getTaskStatuses(Collection<String> taskIds) {
+        Map<String, RecordingStatus> statuses = new LinkedHashMap<>();
+        for (String taskId : taskIds) {
+            if (taskId == null || statuses.containsKey(taskId)) {
+                continue;
+            }
+            RecordingTask task = getTask(taskId);
+            if (task != null) {
+                statuses.put(taskId, buildStatus(task.snapshot()));
+            }
+        }
+        return statuses;
+    }
+    
+    /**
+     * 基于同一份快照构建状态，避免读到状态与错误信息不一致的中间态
+     */
+    private RecordingStatus buildStatus(TaskSnapshot snapshot) {
         RecordingStatus status = new RecordingStatus();
-        status.setTaskId(taskId);
-        status.setStatus(task.getStatus());
+        status.setTaskId(snapshot.taskId());
+        status.setStatus(snapshot.status());
         
         // 如果任务正在录制，计算进度信息
-        if (task.getStatus() == TaskStatus.RECORDING) {
-            RecordingStatus.Progress progress = calculateProgress(task);
-            status.setProgress(progress);
+        if (snapshot.status() == TaskStatus.RECORDING) {
+            status.setProgress(progressSampler.progress(snapshot));
         }
         
         // 如果有错误信息，设置错误
-        if (task.getError() != null) {
-            status.setError(task.getError());
+        if (snapshot.error() != null) {
+            status.setError(snapshot.error());
         }
         
         return status;
@@ -244,11 +466,12 @@ public class RecordingManager {
     public List<RecordingTask> listActiveTasks() {
         List<RecordingTask> activeTasks = new ArrayList<>();
         
-        for (RecordingTask task : taskMap.values()) {
+        for (RecordingTask task : activeTaskMap.values()) {
             // 只返回活动状态的任务
             if (task.getStatus() == TaskStatus.PENDING ||
                 task.getStatus() == TaskStatus.WAITING ||
                 task.getStatus() == TaskStatus.DETECTING ||
+                task.getStatus() == TaskStatus.QUEUED ||
                 task.getStatus() == TaskStatus.RECORDING ||
                 task.getStatus() == TaskStatus.STOPPING) {
                 activeTasks.add(task);
@@ -259,11 +482,96 @@ public class RecordingManager {
         return activeTasks;
     }
 
+    /**
+     * 按任务ID获取任务，内存中不存在时从历史存储中查询
+     * 
+     * @param taskId 任务ID
+     * @return 录制任务，不存在返回null
+     */
     public RecordingTask getTask(String taskId) {
         if (taskId == null || taskId.trim().isEmpty()) {
             return null;
         }
-        return taskMap.get(taskId);
+        RecordingTask task = taskMap.get(taskId);
+        if (task != null) {
+            return task;
+        }
+        return taskHistoryStore.find(taskId);
+    }
+    
+    /**
+     * 查找指定主播尚未结束的任务
+     * 
+     * @param douyinId 抖音号
+     * @return 未结束的任务，不存在返回null
+     */
+    public RecordingTask findActiveTask(String douyinId) {
+        return douyinId != null ? activeTaskByDouyinId.get(douyinId) : null;
+    }
+    
+    /**
+     * 判断任务是否尚未结束
+     * 
+     * @param taskId 任务ID
+     * @return 任务存在且未结束返回true
+     */
+    public boolean isTaskActive(String taskId) {
+        return taskId != null && activeTaskMap.containsKey(taskId);
+    }
+    
+    /**
+     * 获取内存中的任务数量（活动任务与保留窗口内的终态任务）
+     * 
+     * @return 内存中的任务数量
+     */
+    public int getInMemoryTaskCount() {
+        return taskMap.size();
+    }
+    
+    /**
+     * 获取内存中的全部任务（活动任务与保留窗口内的终态任务）
+     * 
+     * @return 任务列表
+     */
+    public List<RecordingTask> listInMemoryTasks() {
+        return new ArrayList<>(taskMap.values());
+    }
+    
+    /**
+     * 分页查询内存中的任务（按创建时间倒序）
+     * 
+     * @param statuses 状态过滤，为空表示全部状态
+     * @param douyinIdPrefix 抖音号前缀过滤，可为null
+     * @param createdFrom 创建时间下限（包含），可为null
+     * @param createdTo 创建时间上限（包含），可为null
+     * @param cursor 上一页返回的游标，首页为null
+     * @param limit 每页数量
+     * @return 分页结果
+     * @throws IllegalArgumentException 如果游标无效
+     */
+    public TaskStatusIndex.Page queryTasks(Collection<TaskStatus> statuses, String douyinIdPrefix,
+                                           LocalDateTime createdFrom, LocalDateTime createdTo,
+                                           String cursor, int limit) {
+        return statusIndex.query(statuses, douyinIdPrefix, createdFrom, createdTo, cursor, limit);
+    }
+    
+    /**
+     * 获取内存中各状态的任务数
+     * 
+     * @return 状态到任务数的映射
+     */
+    public Map<TaskStatus, Long> getStatusSummary() {
+        return statusIndex.summary();
+    }
+    
+    /**
+     * 任务变更序号，任务列表或其中任意任务变化后必然不同
+     * 先读取序号再读取任务列表，两者之间发生的变更会使下一次读取的序号不同
+     * 
+     * @return 当前变更序号
+     */
+    public long getChangeSequence() {
+        return changeSequence.get();
     }
     
     /**
@@ -276,15 +584,134 @@ public class RecordingManager {
     }
     
     /**
-     * 获取活动任务数量
+     * 获取排队等待录制槽位的任务数
+     * 
+     * @return 排队任务数
+     */
+    public int getQueuedTaskCount() {
+        return admissionQueue.getQueueDepth();
+    }
+    
+    /**
+     * 检查是否还能接收任务（有空闲槽位或排队队列未满）
+     * 
+     * @throws IllegalStateException 如果录制槽位与排队队列均已满
+     */
+    private void checkAdmissionRoom() {
+        if (!admissionQueue.hasRoom()) {
+            throw new IllegalStateException(
+                String.format("当前录制任务已达上限（%d个），请稍后重试", maxConcurrentTasks));
+        }
+    }
+    
+    /**
+     * 解析任务优先级：请求指定 > 主播配置 > 默认优先级
+     */
+    private int resolvePriority(String douyinId, Integer requested) {
+        if (requested != null) {
+            return requested;
+        }
+        return getStreamerPriorityMap().getOrDefault(douyinId, defaultPriority);
+    }
+    
+    private Map<String, Integer> getStreamerPriorityMap() {
+        Map<String, Integer> map = streamerPriorityMap;
+        if (map != null) {
+            return map;
+        }
+        map = new HashMap<>();
+        if (streamerPriorities != null && !streamerPriorities.trim().isEmpty()) {
+            // 格式：douyinId:priority,douyinId:priority
+            for (String entry : streamerPriorities.split(",")) {
+                String[] pair = entry.trim().split(":");
+                if (pair.length != 2) {
+                    logger.warn("忽略无效的主播优先级配置: {}", entry);
+                    continue;
+                }
+                try {
+                    map.put(pair[0].trim(), Integer.parseInt(pair[1].trim()));
+                } catch (NumberFormatException e) {
+                    logger.warn("忽略无效的主播优先级配置: {}", entry);
+                }
+            }
+        }
+        streamerPriorityMap = map;
+        return map;
+    }
+    
+    /**
+     * 按开播时的在线观众数计算优先级加成
+     */
+    private int audienceBonus(LiveStatus liveStatus) {
+        if (liveStatus == null || audiencePriorityStep <= 0 || liveStatus.getAudienceCount() <= 0) {
+            return 0;
+        }
+        long bonus = liveStatus.getAudienceCount() / audiencePriorityStep;
+        return (int) Math.min(bonus, maxAudienceBonus);
+    }
+    
+    /**
+     * 申请录制槽位，槽位已满时进入排队状态直到获得槽位
      * 
-     * @return 活动任务数量
+     * @param task 录制任务
+     * @param liveStatus 开播状态（用于观众数加成）
+     * @return 获得槽位返回true；任务被取消、排队队列已满或等待被中断时返回false
      */
-    private int getActiveTaskCount() {
-        return (int) taskMap.values().stream()
-            .filter(task -> task.getStatus() == TaskStatus.DETECTING ||
-                           task.getStatus() == TaskStatus.RECORDING)
-            .count();
+    private boolean acquireRecordingSlot(RecordingTask task, LiveStatus liveStatus) {
+        String taskId = task.getTaskId();
+        int priority = task.getPriority() + audienceBonus(liveStatus);
+        
+        RecordingAdmissionQueue.Ticket ticket = admissionQueue.enqueue(taskId, priority);
+        if (ticket == null) {
+            updateStatus(task, TaskStatus.FAILED, s -> s
+                    .withError(String.format("当前录制任务已达上限（%d个）", maxConcurrentTasks))
+                    .withEndTime(LocalDateTime.now()));
+            logger.error("并发限制: taskId={}, 排队队列已满", taskId);
+            appendTaskLog(task, "FAILED_QUEUE_FULL");
+            return false;
+        }
+        if (ticket.isGranted()) {
+            return true;
+        }
+        
+        updateStatus(task, TaskStatus.QUEUED);
+        appendTaskLog(task, "QUEUED");
+        
+        String victimTaskId = admissionQueue.selectPreemptionVictim(ticket);
+        if (victimTaskId != null) {
+            RecordingTask victim = taskMap.get(victimTaskId);
+            logger.info("抢占低优先级录制任务: victimTaskId={}, taskId={}, priority={}",
+                    victimTaskId, taskId, priority);
+            if (victim != null) {
+                appendTaskLog(victim, "PREEMPTED");
+            }
+            preemptedTaskIds.add(victimTaskId);
+            try {
+                stopTaskInternal(victimTaskId, false);
+            } catch (IllegalArgumentException e) {
+                preemptedTaskIds.remove(victimTaskId);
+                logger.debug("被抢占任务已不存在: taskId={}", victimTaskId);
+            }
+        }
+        
+        try {
+            boolean admitted = admissionQueue.await(ticket, () ->
+                    task.getStatus() == TaskStatus.STOPPING || task.getStatus() == TaskStatus.CANCELLED);
+            if (!admitted) {
+                updateStatus(task, TaskStatus.CANCELLED, s -> s.withEndTime(LocalDateTime.now()));
+                logger.info("排队被取消: taskId={}", taskId);
+                appendTaskLog(task, "CANCELLED");
+                return false;
+            }
+            logger.info("获得录制槽位: taskId={}, priority={}", taskId, priority);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            updateStatus(task, TaskStatus.CANCELLED, s -> s.withEndTime(LocalDateTime.now()));
+            logger.warn("排队被中断: taskId={}", taskId);
+            appendTaskLog(task, "CANCELLED");
+            return false;
+        }
     }
     
     /**
@@ -292,8 +719,9 @@ public class RecordingManager {
      * 完整流程：检测直播 → 提取流 → 开始录制 → 监控状态
      * 
      * @param task 录制任务
+     * @param detected 调用方已检测到的开播状态，可为null
      */
-    private void executeTask(RecordingTask task) {
+    private void executeTask(RecordingTask task, LiveStatus detected) {
         String taskId = task.getTaskId();
         String douyinId = task.getDouyinId();
         
@@ -301,114 +729,144 @@ public class RecordingManager {
         MDC.put("taskId", taskId);
         MDC.put("douyinId", douyinId);
         
+        // 当前执行阶段（JFR事件），异常或提前结束时以任务状态作为阶段结果
+        TaskPhaseEvent phase = null;
         try {
             logger.info("开始执行录制任务: taskId={}, douyinId={}", taskId, douyinId);
             
             // 步骤1: 检测直播状态
+            phase = TaskPhaseEvent.start(taskId, douyinId, "detect");
             LiveStatus liveStatus;
-            if (task.isAutoEnabled()) {
+            if (detected != null && detected.isLive()) {
+                if (!updateStatus(task, TaskStatus.DETECTING)) {
+                    return;
+                }
+                liveStatus = detected;
+            } else if (task.isAutoEnabled()) {
                 liveStatus = waitForLive(task);
-                if (liveStatus == null) {
+                if (liveStatus == null || !updateStatus(task, TaskStatus.DETECTING)) {
                     return;
                 }
             } else {
-                task.setStatus(TaskStatus.DETECTING);
+                if (!updateStatus(task, TaskStatus.DETECTING)) {
+                    return;
+                }
                 logger.info("检测直播状态: taskId={}, douyinId={}", taskId, douyinId);
                 liveStatus = liveStreamDetector.checkLiveStatus(douyinId);
 
                 if (!liveStatus.isLive()) {
-                    task.setStatus(TaskStatus.FAILED);
-                    task.setError("该用户当前未在直播");
+                    updateStatus(task, TaskStatus.FAILED, s -> s.withError("该用户当前未在直播"));
                     logger.warn("直播未开始: taskId={}, douyinId={}", taskId, douyinId);
                     return;
                 }
             }
             
+            phase.finish("live");
             logger.info("直播已开始: taskId={}, douyinId={}, 直播间ID={}, 标题={}", 
                        taskId, douyinId, liveStatus.getRoomId(), liveStatus.getTitle());
             
+            // 申请录制槽位（槽位已满时按优先级排队）
+            if (!acquireRecordingSlot(task, liveStatus)) {
+                return;
+            }
+            
             // 步骤2: 提取流URL
             logger.info("提取流URL: taskId={}, douyinId={}", taskId, douyinId);
             
+            phase = TaskPhaseEvent.start(taskId, douyinId, "extract");
             StreamInfo streamInfo = streamExtractor.extractStreamUrl(douyinId);
             
             if (!streamInfo.isValid() || streamInfo.getUrl() == null) {
                 // 流URL无效
-                task.setStatus(TaskStatus.FAILED);
-                task.setError("未能获取有效的流URL");
+                updateStatus(task, TaskStatus.FAILED, s -> s.withError("未能获取有效的流URL"));
                 logger.error("流URL无效: taskId={}, douyinId={}", taskId, douyinId);
                 return;
             }
             
             task.setStreamUrl(streamInfo.getUrl());
+            changeSequence.incrementAndGet();
+            phase.finish("ok");
             logger.info("成功提取流URL: taskId={}, format={}, quality={}", 
                        taskId, streamInfo.getFormat(), streamInfo.getQuality());
             
-            // 步骤3: 生成输出文件路径
-            String filename = fileSystemManager.generateFilename(douyinId, LocalDateTime.now());
+            // 步骤3: 生成输出文件路径（未指定保存目录时由存储池按剩余空间和写入负载选择）
             String outputDir = task.getOutputDir();
+            if (outputDir == null || outputDir.trim().isEmpty()) {
+                outputDir = storagePool.place(taskId, douyinId);
+                if (outputDir == null) {
+                    updateStatus(task, TaskStatus.FAILED, s -> s.withError("磁盘空间不足，录制已停止"));
+                    logger.error("存储池中没有可用的保存目录: taskId={}", taskId);
+                    return;
+                }
+                task.setOutputDir(outputDir);
+            } else {
+                storagePool.track(taskId, outputDir);
+            }
+            String filename = fileSystemManager.generateFilename(douyinId, LocalDateTime.now());
             String outputPath = fileSystemManager.getFullPath(outputDir, filename);
             String tempOutputPath = replaceExtension(outputPath, ".flv");
             task.setOutputPath(outputPath);
             task.setTempOutputPath(tempOutputPath);
+            changeSequence.incrementAndGet();
             
             // 确保存储目录存在
             if (!fileSystemManager.ensureDirectory(outputDir)) {
-                task.setStatus(TaskStatus.FAILED);
-                task.setError("无法创建存储目录");
+                updateStatus(task, TaskStatus.FAILED, s -> s.withError("无法创建存储目录"));
                 logger.error("无法创建存储目录: taskId={}", taskId);
                 return;
             }
             
-            // 检查磁盘空间
-            long availableSpace = fileSystemManager.getAvailableSpace(outputPath);
-            if (availableSpace < 100 * 1024 * 1024) { // 至少需要100MB
-                task.setStatus(TaskStatus.FAILED);
-                task.setError("磁盘空间不足，录制已停止");
+            // 检查磁盘空间（必要时先按配额和水位淘汰旧录制）
+            if (!storageQuotaManager.hasRoomToStart(outputDir, inUsePaths())) {
+                updateStatus(task, TaskStatus.FAILED, s -> s.withError("磁盘空间不足，录制已停止"));
                 logger.error("磁盘空间不足: taskId={}, 可用空间={}MB", 
-                           taskId, availableSpace / 1024 / 1024);
+                           taskId, storageQuotaManager.getUsableSpace(outputDir) / 1024 / 1024);
                 return;
             }
             
             // 步骤4: 开始录制
-            int activeTaskCount = getActiveTaskCount();
-            if (activeTaskCount >= maxConcurrentTasks) {
-                task.setStatus(TaskStatus.FAILED);
-                task.setError(String.format("当前录制任务已达上限（%d个）", maxConcurrentTasks));
-                logger.error("并发限制: taskId={}, 当前活动任务数={}", taskId, activeTaskCount);
+            if (!updateStatus(task, TaskStatus.RECORDING, s -> s.withStartTime(LocalDateTime.now()))) {
+                logger.info("录制任务在开始录制前已结束: taskId={}, 状态={}", taskId, task.getStatus());
                 return;
             }
-
-            task.setStatus(TaskStatus.RECORDING);
-            task.setStartTime(LocalDateTime.now());
             logger.info("开始录制: taskId={}, outputPath={}", taskId, outputPath);
             appendTaskLog(task, "RECORDING_STARTED");
             
+            phase = TaskPhaseEvent.start(taskId, douyinId, "spawn");
             Process process = recordingService.startRecording(streamInfo.getUrl(), tempOutputPath);
             taskProcessMap.put(taskId, process);
+            phase.finish("ok");
 
             startLiveEndMonitor(task, process);
             
             // 步骤5: 监控录制状态
+            phase = TaskPhaseEvent.start(taskId, douyinId, "record");
             monitorRecording(task, process);
             
         } catch (IOException e) {
             // 网络或IO错误
-            task.setStatus(TaskStatus.FAILED);
-            task.setError("录制失败: " + e.getMessage());
-            task.setEndTime(LocalDateTime.now());
+            updateStatus(task, TaskStatus.FAILED, s -> s
+                    .withError("录制失败: " + e.getMessage())
+                    .withEndTime(LocalDateTime.now()));
             logger.error("录制任务失败: taskId={}, douyinId={}, error={}", taskId, douyinId, e.getMessage(), e);
             
         } catch (Exception e) {
             // 其他错误
-            task.setStatus(TaskStatus.FAILED);
-            task.setError("录制失败: " + e.getMessage());
-            task.setEndTime(LocalDateTime.now());
+            updateStatus(task, TaskStatus.FAILED, s -> s
+                    .withError("录制失败: " + e.getMessage())
+                    .withEndTime(LocalDateTime.now()));
             logger.error("录制任务发生未知错误: taskId={}, douyinId={}, error={}", taskId, douyinId, e.getMessage(), e);
             
         } finally {
+            if (phase != null) {
+                phase.finish(task.getStatus().name().toLowerCase());
+            }
             // 清理资源
             taskProcessMap.remove(taskId);
+            diskStoppedTaskIds.remove(taskId);
+            storagePool.release(taskId);
+            admissionQueue.release(taskId);
+            retireTask(task);
             // 清理MDC上下文
             MDC.clear();
         }
@@ -426,20 +884,36 @@ public class RecordingManager {
         try {
             // 等待进程结束
             int exitCode = process.waitFor();
+            metrics.recordFfmpegExit(RecordingMetrics.KIND_RECORD, exitCode);
+            // 录制进程已退出，封装MP4不占用录制槽位，立即交给排队的任务（例如抢占本任务的高优先级任务）
+            admissionQueue.release(taskId);
             
             task.setEndTime(LocalDateTime.now());
 
             boolean remuxed = finalizeRecording(task);
             updateFileSize(task);
+            changeSequence.incrementAndGet();
 
             if (task.getStatus() == TaskStatus.STOPPING || task.getStatus() == TaskStatus.CANCELLED) {
+                boolean diskFull = diskStoppedTaskIds.remove(taskId);
+                boolean preempted = preemptedTaskIds.contains(taskId);
                 if (task.isStopRequestedByUser()) {
-                    task.setStatus(TaskStatus.CANCELLED);
+                    updateStatus(task, TaskStatus.CANCELLED);
+                    metrics.recordRecordingEnd("user_stop");
+                } else if (remuxed && preempted) {
+                    // 已录制的内容完整保留，直播仍在进行，任务结束后重新排队
+                    updateStatus(task, TaskStatus.COMPLETED, s -> s.withError(PREEMPTED_ERROR));
+                    metrics.recordRecordingEnd("preempted");
+                } else if (remuxed && diskFull) {
+                    // 已录制的内容完整保留，错误信息说明提前结束的原因
+                    updateStatus(task, TaskStatus.COMPLETED, s -> s.withError("磁盘空间不足，录制已提前停止"));
+                    metrics.recordRecordingEnd("disk_full");
                 } else if (remuxed) {
-                    task.setStatus(TaskStatus.COMPLETED);
+                    updateStatus(task, TaskStatus.COMPLETED);
+                    metrics.recordRecordingEnd("stream_end");
                 } else {
-                    task.setStatus(TaskStatus.FAILED);
-                    task.setError("封装MP4失败");
+                    updateStatus(task, TaskStatus.FAILED, s -> s.withError("封装MP4失败"));
+                    metrics.recordRecordingEnd("remux_failed");
                 }
                 appendTaskLog(task, "FINALIZED");
                 logger.info("录制任务已停止: taskId={}, exitCode={}, status={}", taskId, exitCode, task.getStatus());
@@ -448,20 +922,21 @@ public class RecordingManager {
 
             if (exitCode == 0) {
                 // 录制成功完成
-                task.setStatus(TaskStatus.COMPLETED);
+                updateStatus(task, TaskStatus.COMPLETED);
+                metrics.recordRecordingEnd("completed");
                 appendTaskLog(task, "COMPLETED");
                 logger.info("录制任务完成: taskId={}, fileSize={}MB", 
                            taskId, task.getFileSize() / 1024 / 1024);
             } else {
                 // 录制失败
-                task.setStatus(TaskStatus.FAILED);
-                
                 // 检查是否为流中断
                 if (recordingService.isStreamInterrupted(process)) {
-                    task.setError("录制过程中直播流中断");
+                    updateStatus(task, TaskStatus.FAILED, s -> s.withError("录制过程中直播流中断"));
+                    metrics.recordRecordingEnd("stream_interrupted");
                     logger.warn("录制过程中直播流中断: taskId={}", taskId);
                 } else {
-                    task.setError("录制失败，退出码: " + exitCode);
+                    updateStatus(task, TaskStatus.FAILED, s -> s.withError("录制失败，退出码: " + exitCode));
+                    metrics.recordRecordingEnd("ffmpeg_error");
                     logger.error("录制失败: taskId={}, exitCode={}", taskId, exitCode);
                 }
                 appendTaskLog(task, "FAILED");
@@ -475,9 +950,10 @@ public class RecordingManager {
             
         } catch (InterruptedException e) {
             // 被中断
-            task.setStatus(TaskStatus.CANCELLED);
-            task.setEndTime(LocalDateTime.now());
-            task.setError("录制被中断");
+            updateStatus(task, TaskStatus.CANCELLED, s -> s
+                    .withEndTime(LocalDateTime.now())
+                    .withError("录制被中断"));
+            metrics.recordRecordingEnd("interrupted");
             logger.warn("录制任务被中断: taskId={}", taskId);
             Thread.currentThread().interrupt();
         }
@@ -494,6 +970,7 @@ public class RecordingManager {
             File file = new File(outputPath);
             if (file.exists()) {
                 task.setFileSize(file.length());
+                changeSequence.incrementAndGet();
                 return;
             }
         }
@@ -502,49 +979,72 @@ public class RecordingManager {
             File tempFile = new File(tempPath);
             if (tempFile.exists()) {
                 task.setFileSize(tempFile.length());
+                changeSequence.incrementAndGet();
             }
         }
     }
     
     /**
-     * 计算录制进度
-     * 
-     * @param task 录制任务
-     * @return 进度信息
+     * 统一采样所有录制中任务的文件大小
      */
-    private RecordingStatus.Progress calculateProgress(RecordingTask task) {
-        RecordingStatus.Progress progress = new RecordingStatus.Progress();
-        
-        // 计算录制时长（秒）
-        if (task.getStartTime() != null) {
-            long duration = java.time.Duration.between(
-                task.getStartTime(), LocalDateTime.now()).getSeconds();
-            progress.setDuration((int) duration);
+    private void sampleProgress() {
+        List<TaskSnapshot> recording = new ArrayList<>();
+        for (RecordingTask task : activeTaskMap.values()) {
+            TaskSnapshot snapshot = task.snapshot();
+            if (snapshot.status() == TaskStatus.RECORDING) {
+                recording.add(snapshot);
+            }
         }
-        
-        // 获取当前文件大小
-        File sizeFile = null;
-        if (task.getOutputPath() != null) {
-            File file = new File(task.getOutputPath());
-            if (file.exists()) {
-                sizeFile = file;
+        metrics.recordBytesWritten(progressSampler.sample(recording));
+    }
+
+    /**
+     * 按配额和水位淘汰旧录制，并提前停止剩余空间不足的目录中的录制
+     */
+    private void checkStorage() {
+        List<StorageQuotaManager.ActiveRecording> recordings = new ArrayList<>();
+        Map<String, List<String>> taskIdsByDirectory = new HashMap<>();
+        for (RecordingTask task : activeTaskMap.values()) {
+            TaskSnapshot snapshot = task.snapshot();
+            if (snapshot.status() != TaskStatus.RECORDING || snapshot.outputDir() == null) {
+                continue;
             }
+            recordings.add(new StorageQuotaManager.ActiveRecording(snapshot.outputDir(),
+                    snapshot.tempOutputPath(), snapshot.outputPath(),
+                    progressSampler.latestFileSize(snapshot.taskId())));
+            taskIdsByDirectory.computeIfAbsent(snapshot.outputDir(), k -> new ArrayList<>()).add(snapshot.taskId());
         }
-        if (sizeFile == null && task.getTempOutputPath() != null) {
-            File tempFile = new File(task.getTempOutputPath());
-            if (tempFile.exists()) {
-                sizeFile = tempFile;
+        
+        for (String directory : storageQuotaManager.enforce(recordings, inUsePaths())) {
+            for (String taskId : taskIdsByDirectory.getOrDefault(directory, List.of())) {
+                diskStoppedTaskIds.add(taskId);
+                try {
+                    stopTaskInternal(taskId, false);
+                } catch (Exception e) {
+                    diskStoppedTaskIds.remove(taskId);
+                    logger.error("剩余空间不足，停止录制失败: taskId={}", taskId, e);
+                }
             }
         }
-        if (sizeFile != null) {
-            progress.setFileSize(sizeFile.length());
-            if (progress.getDuration() > 0) {
-                long bitrate = (sizeFile.length() * 8) / progress.getDuration(); // bits per second
-                progress.setBitrate(String.format("%.2f Mbps", bitrate / 1_000_000.0));
+    }
+    
+    /**
+     * 未结束任务正在使用的文件（录制中的临时文件和封装中的输出文件），不能被淘汰，也不应被录制目录收录
+     *
+     * @return 文件路径（与任务中保存的路径一致）
+     */
+    public Set<String> inUsePaths() {
+        Set<String> paths = new HashSet<>();
+        for (RecordingTask task : activeTaskMap.values()) {
+            TaskSnapshot snapshot = task.snapshot();
+            if (snapshot.outputPath() != null) {
+                paths.add(snapshot.outputPath());
+            }
+            if (snapshot.tempOutputPath() != null) {
+                paths.add(snapshot.tempOutputPath());
             }
         }
-        
-        return progress;
+        return paths;
     }
 
     private boolean finalizeRecording(RecordingTask task) {
@@ -560,9 +1060,11 @@ public class RecordingManager {
         boolean remuxed = recordingService.remuxToMp4(tempPath, outputPath);
         if (remuxed) {
             fileSystemManager.deleteFile(tempPath);
+            storageQuotaManager.fileFinished(task.getOutputDir(), outputPath);
             return true;
         } else {
             logger.warn("封装失败，保留临时文件: {}", tempPath);
+            storageQuotaManager.fileFinished(task.getOutputDir(), tempPath);
             return false;
         }
     }
@@ -583,13 +1085,14 @@ public class RecordingManager {
         String taskId = task.getTaskId();
         String douyinId = task.getDouyinId();
 
-        task.setStatus(TaskStatus.WAITING);
+        if (!updateStatus(task, TaskStatus.WAITING)) {
+            return null;
+        }
         logger.info("等待开播: taskId={}, douyinId={}", taskId, douyinId);
 
         while (true) {
             if (task.getStatus() == TaskStatus.STOPPING || task.getStatus() == TaskStatus.CANCELLED) {
-                task.setStatus(TaskStatus.CANCELLED);
-                task.setEndTime(LocalDateTime.now());
+                updateStatus(task, TaskStatus.CANCELLED, s -> s.withEndTime(LocalDateTime.now()));
                 logger.info("等待开播被取消: taskId={}", taskId);
                 appendTaskLog(task, "CANCELLED");
                 return null;
@@ -607,8 +1110,7 @@ public class RecordingManager {
             }
 
             if (System.currentTimeMillis() - startTime > maxWaitMs) {
-                task.setStatus(TaskStatus.FAILED);
-                task.setError("等待开播超时");
+                updateStatus(task, TaskStatus.FAILED, s -> s.withError("等待开播超时"));
                 logger.warn("等待开播超时: taskId={}, maxWaitMs={}", taskId, maxWaitMs);
                 appendTaskLog(task, "FAILED_WAIT_TIMEOUT");
                 return null;
@@ -618,8 +1120,7 @@ public class RecordingManager {
                 Thread.sleep(pollIntervalMs);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
-                task.setStatus(TaskStatus.CANCELLED);
-                task.setEndTime(LocalDateTime.now());
+                updateStatus(task, TaskStatus.CANCELLED, s -> s.withEndTime(LocalDateTime.now()));
                 logger.warn("等待开播被中断: taskId={}", taskId);
                 appendTaskLog(task, "CANCELLED");
                 return null;
@@ -674,32 +1175,182 @@ public class RecordingManager {
         });
     }
 
-    private synchronized void appendTaskLog(RecordingTask task, String event) {
-        if (taskLogPath == null || taskLogPath.trim().isEmpty()) {
+    /**
+     * 更新任务状态并持久化状态变更
+     * 
+     * @param task 录制任务
+     * @param status 新状态
+     */
+    private boolean updateStatus(RecordingTask task, TaskStatus status) {
+        return updateStatus(task, status, UnaryOperator.identity());
+    }
+
+    /**
+     * 按状态机更新任务状态，并在同一个快照中应用其它字段的修改，使读取方不会看到
+     * “状态已失败但错误信息尚未写入”之类的中间状态
+     * 
+     * @param task 录制任务
+     * @param status 新状态
+     * @param changes 同时应用的字段修改
+     * @return 状态变更合法并已生效返回true；任务已处于不能变更为该状态的状态（如已取消）时返回false
+     */
+    private boolean updateStatus(RecordingTask task, TaskStatus status, UnaryOperator<TaskSnapshot> changes) {
+        // 写入方之间仍按任务串行，保证状态索引的移动顺序与快照替换顺序一致；读取方不加锁
+        TaskSnapshot previous;
+        TaskSnapshot current;
+        synchronized (task) {
+            previous = task.transitionTo(status, changes);
+            if (previous == null) {
+                logger.warn("忽略非法的任务状态变更: taskId={}, {} -> {}", task.getTaskId(), task.getStatus(), status);
+                return false;
+            }
+            statusIndex.move(task, previous.status(), status);
+            current = task.snapshot();
+        }
+        changeSequence.incrementAndGet();
+        // 持久化临界区内取得的快照，记录中的字段来自同一次变更，落盘顺序错乱时由版本号区分新旧
+        taskStateStore.record(current);
+        if (previous.status() != status) {
+            notifyStatusListeners(current);
+        }
+        return true;
+    }
+    
+    /**
+     * 注册状态变更监听器
+     * 监听器在执行任务的线程上同步回调，不应阻塞
+     * 
+     * @param listener 接收变更后的任务快照
+     */
+    public void addStatusListener(Consumer<TaskSnapshot> listener) {
+        statusListeners.add(listener);
+    }
+    
+    private void notifyStatusListeners(TaskSnapshot snapshot) {
+        for (Consumer<TaskSnapshot> listener : statusListeners) {
+            try {
+                listener.accept(snapshot);
+            } catch (RuntimeException e) {
+                logger.warn("状态变更监听器执行失败: taskId={}, error={}", snapshot.taskId(), e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * 恢复服务重启前持久化的任务（由 TaskRecoveryService 在启动时调用）
+     * 终态任务进入保留窗口，其余任务进入活动任务表；
+     * 已转存到历史存储的终态任务不再载入内存，也不再重复写入状态存储
+     * 
+     * @param task 恢复的任务
+     * @return 载入内存返回true；任务已在历史存储中返回false
+     */
+    public boolean restoreTask(RecordingTask task) {
+        if (task.getStatus().isTerminal() && taskHistoryStore.contains(task.getTaskId())) {
+            return false;
+        }
+        taskMap.put(task.getTaskId(), task);
+        activeTaskMap.put(task.getTaskId(), task);
+        activeTaskByDouyinId.putIfAbsent(task.getDouyinId(), task);
+        statusIndex.add(task);
+        changeSequence.incrementAndGet();
+        retireTask(task);
+        return true;
+    }
+    
+    /**
+     * 任务进入终态后移出活动任务表，放入终态保留窗口
+     * 
+     * @param task 录制任务
+     */
+    private void retireTask(RecordingTask task) {
+        TaskStatus status = task.getStatus();
+        if (status != TaskStatus.COMPLETED && status != TaskStatus.FAILED && status != TaskStatus.CANCELLED) {
+            return;
+        }
+        if (activeTaskMap.remove(task.getTaskId()) == null) {
             return;
         }
-        String line = String.format(
-                "%s event=%s taskId=%s douyinId=%s auto=%s status=%s output=%s temp=%s%n",
-                LocalDateTime.now(),
-                event,
-                task.getTaskId(),
-                task.getDouyinId(),
-                task.isAutoEnabled(),
-                task.getStatus(),
-                task.getOutputPath(),
-                task.getTempOutputPath()
-        );
+        activeTaskByDouyinId.remove(task.getDouyinId(), task);
+        changeSequence.incrementAndGet();
+        submittedTaskIds.remove(task.getTaskId());
+        progressSampler.remove(task.getTaskId());
+        if (task.getEndTime() == null) {
+            task.setEndTime(LocalDateTime.now());
+            changeSequence.incrementAndGet();
+        }
+        // 记录包含错误信息、结束时间与文件大小的最终状态
+        taskStateStore.record(task.snapshot());
+        retainedTerminalTasks.addLast(task);
+        if (retainedTerminalCount.incrementAndGet() > maxRetainedTerminalTasks) {
+            retentionExecutor.execute(this::evictTerminalTasks);
+        }
+        if (preemptedTaskIds.remove(task.getTaskId()) && !task.isStopRequestedByUser()) {
+            try {
+                executorService.execute(() -> requeuePreempted(task));
+            } catch (RejectedExecutionException e) {
+                logger.debug("录制管理器正在关闭，被抢占的任务不再重新排队: taskId={}", task.getTaskId());
+            }
+        }
+    }
+    
+    /**
+     * 被抢占的任务结束后以相同配置重新创建任务并启动：直播仍在进行时进入排队，
+     * 等高优先级任务释放槽位后继续录制（关注列表的检测循环会接管新任务）
+     * 
+     * @param victim 被抢占并已结束的任务
+     */
+    private void requeuePreempted(RecordingTask victim) {
         try {
-            Files.writeString(
-                    Path.of(taskLogPath),
-                    line,
-                    StandardCharsets.UTF_8,
-                    StandardOpenOption.CREATE,
-                    StandardOpenOption.APPEND
-            );
-        } catch (IOException e) {
-            logger.debug("写入任务日志失败: {}", e.getMessage());
+            RecordingTask task = createTask(victim.getDouyinId(), victim.isAutoEnabled(),
+                    victim.getOutputDir(), victim.getPriority());
+            startTask(task.getTaskId());
+            logger.info("被抢占的任务已重新排队: taskId={}, douyinId={}, 原任务={}",
+                    task.getTaskId(), victim.getDouyinId(), victim.getTaskId());
+        } catch (RuntimeException e) {
+            logger.warn("被抢占的任务重新排队失败: taskId={}, douyinId={}, error={}",
+                    victim.getTaskId(), victim.getDouyinId(), e.getMessage());
+        }
+    }
+    
+    /**
+     * 把超出数量上限或保留时长的终态任务转存到历史存储并移出内存
+     * 只在淘汰执行器的单线程上运行
+     */
+    private void evictTerminalTasks() {
+        LocalDateTime expireBefore = LocalDateTime.now().minusNanos(retainedTaskMaxAgeMs * 1_000_000L);
+        List<RecordingTask> evicted = new ArrayList<>();
+        
+        RecordingTask oldest;
+        while ((oldest = retainedTerminalTasks.peekFirst()) != null) {
+            boolean overCount = retainedTerminalCount.get() > maxRetainedTerminalTasks;
+            boolean expired = oldest.getEndTime() != null && oldest.getEndTime().isBefore(expireBefore);
+            if (!overCount && !expired) {
+                break;
+            }
+            retainedTerminalTasks.pollFirst();
+            retainedTerminalCount.decrementAndGet();
+            evicted.add(oldest);
         }
+        
+        if (evicted.isEmpty()) {
+            return;
+        }
+        
+        // 先写入历史存储再移出内存，保证按任务ID始终可查
+        taskHistoryStore.appendAll(evicted);
+        for (RecordingTask task : evicted) {
+            if (taskMap.remove(task.getTaskId(), task)) {
+                statusIndex.remove(task, task.getStatus());
+            }
+        }
+        changeSequence.incrementAndGet();
+        logger.info("已将{}个终态任务转存到历史存储，内存中剩余任务数: {}", evicted.size(), taskMap.size());
+    }
+
+    private void appendTaskLog(RecordingTask task, String event) {
+        TaskLogEvent jfrEvent = TaskLogEvent.start(task.getTaskId(), task.getDouyinId(), event, task.getStatus().name());
+        taskEventJournal.append(task, event);
+        jfrEvent.commit();
     }
     
     /**
@@ -718,6 +1369,8 @@ public class RecordingManager {
         }
         
         // 关闭执行器
+        retentionExecutor.shutdown();
+        progressExecutor.shutdown();
         executorService.shutdown();
         try {
             if (!executorService.awaitTermination(10, java.util.concurrent.TimeUnit.SECONDS)) {
@@ -1,6 +1,8 @@
 package com.douyin.liverecorder.service;
 
 import com.douyin.liverecorder.infrastructure.FFmpegWrapper;
+import com.douyin.liverecorder.infrastructure.RecordingMetrics;
+import com.douyin.liverecorder.jfr.RemuxEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -23,6 +25,7 @@ public class RecordingService {
     private static final Logger logger = LoggerFactory.getLogger(RecordingService.class);
     
     private final FFmpegWrapper ffmpegWrapper;
+    private final RecordingMetrics metrics;
     
     // 存储录制进程的映射（输出路径 -> 进程）
     private final ConcurrentHashMap<String, Process> recordingProcesses = new ConcurrentHashMap<>();
@@ -30,8 +33,10 @@ public class RecordingService {
     // 进程监控器
     private final ScheduledExecutorService monitorExecutor = Executors.newScheduledThreadPool(1);
     
-    public RecordingService(FFmpegWrapper ffmpegWrapper) {
+    public RecordingService(FFmpegWrapper ffmpegWrapper, RecordingMetrics metrics) {
         this.ffmpegWrapper = ffmpegWrapper;
+        this.metrics = metrics;
+        metrics.registerProcessGauges(recordingProcesses::size, ffmpegWrapper::getTrackedProcessCount);
         
         // 启动进程监控任务
         startProcessMonitor();
@@ -82,7 +87,7 @@ public class RecordingService {
             List<String> command = ffmpegWrapper.buildRecordingCommand(streamUrl, outputPath);
             
             // 启动FFmpeg进程
-            Process process = ffmpegWrapper.execute(command);
+            Process process = spawn(command, RecordingMetrics.KIND_RECORD);
             
             // 存储进程引用
             recordingProcesses.put(outputPath, process);
@@ -113,12 +118,19 @@ public class RecordingService {
         }
 
         logger.info("开始封装为MP4: input={}, output={}", inputPath, outputPath);
+        long startNanos = System.nanoTime();
+        long inputSize = new File(inputPath).length();
+        boolean success = false;
+        RemuxEvent event = RemuxEvent.start(inputSize);
         try {
             List<String> command = ffmpegWrapper.buildRemuxCommand(inputPath, outputPath);
-            Process process = ffmpegWrapper.execute(command);
+            Process process = spawn(command, RecordingMetrics.KIND_REMUX);
             int exitCode = process.waitFor();
+            event.setExitCode(exitCode);
+            metrics.recordFfmpegExit(RecordingMetrics.KIND_REMUX, exitCode);
             if (exitCode == 0) {
                 logger.info("封装成功: {}", outputPath);
+                success = true;
                 return true;
             }
             String output = ffmpegWrapper.getOutput(process);
@@ -134,6 +146,29 @@ public class RecordingService {
         } catch (Exception e) {
             logger.warn("封装失败: {}", e.getMessage());
             return false;
+        } finally {
+            event.finish(success);
+            metrics.recordRemux(success, inputSize, System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * 启动FFmpeg进程并记录启动耗时
+     *
+     * @param command FFmpeg命令
+     * @param kind record 或 remux
+     * @return 启动的进程
+     * @throws IOException 如果启动进程失败
+     */
+    private Process spawn(List<String> command, String kind) throws IOException {
+        long startNanos = System.nanoTime();
+        boolean started = false;
+        try {
+            Process process = ffmpegWrapper.execute(command);
+            started = true;
+            return process;
+        } finally {
+            metrics.recordFfmpegSpawn(kind, started, System.nanoTime() - startNanos);
         }
     }
     
@@ -306,7 +341,7 @@ public class RecordingService {
     
     /**
      * 启动进程监控任务
-     * 定期检查录制进程状态，清理已结束的进程
+     * 定期检查录制进程状态，清理已结束的进程和过了保留期的进程输出
      */
     private void startProcessMonitor() {
         monitorExecutor.scheduleAtFixedRate(() -> {
@@ -335,6 +370,9 @@ public class RecordingService {
                     return false;
                 });
                 
+                // 释放已结束进程的输出缓冲区
+                ffmpegWrapper.purgeExitedProcesses();
+                
             } catch (Exception e) {
                 logger.error("进程监控任务发生错误", e);
             }
@@ -6,6 +6,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
@@ -30,8 +31,12 @@ public class StreamExtractor {
     private static final Pattern FLV_PATTERN = Pattern.compile(".*\\.flv(\\?.*)?$", Pattern.CASE_INSENSITIVE);
     private static final Pattern M3U8_PATTERN = Pattern.compile(".*\\.m3u8(\\?.*)?$", Pattern.CASE_INSENSITIVE);
     
-    // 抖音流信息API模板
-    private static final String STREAM_API_TEMPLATE = "https://live.douyin.com/webcast/room/web/enter/?aid=6383&web_rid=%s";
+    // 抖音流信息API路径模板
+    private static final String STREAM_API_PATH = "/webcast/room/web/enter/?aid=6383&web_rid=%s";
+    
+    // 抖音Web接口地址（压测时可指向本地模拟服务）
+    @Value("${douyin.api-base-url:https://live.douyin.com}")
+    private String apiBaseUrl = "https://live.douyin.com";
     
     public StreamExtractor(HttpClientUtil httpClient) {
         this.httpClient = httpClient;
@@ -54,7 +59,7 @@ public class StreamExtractor {
         
         try {
             // 构建API URL
-            String apiUrl = String.format(STREAM_API_TEMPLATE, douyinId);
+            String apiUrl = apiBaseUrl + String.format(STREAM_API_PATH, douyinId);
             
             // 发送HTTP请求
             String response = httpClient.get(apiUrl);
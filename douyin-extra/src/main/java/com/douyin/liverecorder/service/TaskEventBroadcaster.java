@@ -0,0 +1,303 @@
+package com.douyin.liverecorder.service;
+
+import com.douyin.liverecorder.model.RecordingStatus;
+import com.douyin.liverecorder.model.RecordingTask;
+import com.douyin.liverecorder.model.TaskSnapshot;
+import com.douyin.liverecorder.model.TaskStatus;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 任务事件推送服务（Server-Sent Events）
+ * 订阅 RecordingManager 的状态变更并推送给所有订阅者，录制中的任务按固定间隔推送进度（文件大小有变化时才推送）。
+ * 最近的事件保存在回放缓冲区中，客户端断线重连时携带 Last-Event-ID 即可补齐错过的事件；
+ * 缓冲区已无法覆盖时推送 reset 事件，由客户端重新拉取任务列表。
+ * 所有发送都在单个派发线程上按事件ID顺序执行，执行任务的线程只负责入队，不会被慢客户端阻塞
+ */
+@Service
+public class TaskEventBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskEventBroadcaster.class);
+
+    public static final String EVENT_STATUS = "status";
+    public static final String EVENT_PROGRESS = "progress";
+    public static final String EVENT_RESET = "reset";
+
+    private final RecordingManager recordingManager;
+
+    // 订阅者
+    private final Set<SseEmitter> subscribers = ConcurrentHashMap.newKeySet();
+
+    // 回放缓冲区（按事件ID递增），由 bufferLock 保护
+    private final ArrayDeque<StreamEvent> buffer = new ArrayDeque<>();
+    private final Object bufferLock = new Object();
+    private long latestEventId;
+    // 已提交回放、尚未加入订阅者的连接数，由 bufferLock 保护
+    private int pendingSubscribers;
+
+    // 最近一次推送进度时的文件大小（taskId -> fileSize），只在进度线程上访问
+    private final Map<String, Long> lastProgressSize = new ConcurrentHashMap<>();
+
+    private final ExecutorService dispatcher;
+    private final ScheduledExecutorService progressExecutor;
+    private volatile long lastSendMillis = System.currentTimeMillis();
+
+    @Value("${recording.events.replay-size:1024}")
+    private int replaySize = 1024;
+    @Value("${recording.events.max-subscribers:256}")
+    private int maxSubscribers = 256;
+    @Value("${recording.events.progress-interval-ms:2000}")
+    private long progressIntervalMs = 2000;
+    @Value("${recording.events.heartbeat-interval-ms:15000}")
+    private long heartbeatIntervalMs = 15000;
+    @Value("${recording.events.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs = 1800000;
+
+    public TaskEventBroadcaster(RecordingManager recordingManager) {
+        this.recordingManager = recordingManager;
+        this.dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-event-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.progressExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-event-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        recordingManager.addStatusListener(this::onStatusChanged);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        progressExecutor.scheduleWithFixedDelay(this::tick, progressIntervalMs, progressIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 新增订阅
+     *
+     * @param lastEventId 客户端最后收到的事件ID（断线重连时由浏览器携带），首次连接为null
+     * @return SSE 连接
+     * @throws IllegalStateException 如果订阅者数量已达上限
+     */
+    public SseEmitter subscribe(Long lastEventId) {
+        if (subscribers.size() + pendingSubscribers >= maxSubscribers) {
+            throw new IllegalStateException(String.format("事件订阅数已达上限（%d个）", maxSubscribers));
+        }
+
+        SseEmitter emitter = newEmitter();
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(error -> subscribers.remove(emitter));
+
+        // 在派发线程上先回放再加入订阅者：回放截止到入队时的最新事件，之后的事件由派发任务送达，不重复也不遗漏。
+        // 加入前按待加入的连接计数，期间发布的事件照常入队派发，排在回放之后执行时订阅者已经加入
+        synchronized (bufferLock) {
+            long upTo = latestEventId;
+            List<StreamEvent> replay = lastEventId != null ? eventsAfter(lastEventId) : List.of();
+            pendingSubscribers++;
+            dispatcher.execute(() -> {
+                boolean replayed = true;
+                try {
+                    if (replay == null) {
+                        replayed = send(emitter, new StreamEvent(upTo, EVENT_RESET, null));
+                    } else {
+                        for (StreamEvent event : replay) {
+                            if (!send(emitter, event)) {
+                                replayed = false;
+                                break;
+                            }
+                        }
+                    }
+                } finally {
+                    synchronized (bufferLock) {
+                        pendingSubscribers--;
+                        if (replayed) {
+                            subscribers.add(emitter);
+                        }
+                    }
+                }
+            });
+        }
+        logger.debug("新增任务事件订阅: lastEventId={}, 订阅数={}", lastEventId, subscribers.size() + 1);
+        return emitter;
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(emitterTimeoutMs);
+    }
+
+    /**
+     * 指定事件之后的缓冲事件
+     *
+     * @param afterId 已收到的最后一个事件ID
+     * @return 之后的事件；缓冲区已不包含紧随其后的事件时返回null
+     */
+    List<StreamEvent> eventsAfter(long afterId) {
+        synchronized (bufferLock) {
+            if (afterId > latestEventId) {
+                return null;
+            }
+            StreamEvent oldest = buffer.peekFirst();
+            if (oldest != null && oldest.id() > afterId + 1) {
+                return null;
+            }
+            List<StreamEvent> events = new ArrayList<>();
+            for (StreamEvent event : buffer) {
+                if (event.id() > afterId) {
+                    events.add(event);
+                }
+            }
+            return events;
+        }
+    }
+
+    /**
+     * 订阅者数量
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private void onStatusChanged(TaskSnapshot snapshot) {
+        RecordingStatus status = new RecordingStatus(snapshot.taskId(), snapshot.status(), null);
+        status.setError(snapshot.error());
+        publish(EVENT_STATUS, status);
+    }
+
+    private void tick() {
+        try {
+            if (subscribers.isEmpty()) {
+                lastProgressSize.clear();
+                return;
+            }
+            if (!publishProgress()
+                    && System.currentTimeMillis() - lastSendMillis >= heartbeatIntervalMs) {
+                dispatcher.execute(this::heartbeat);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("推送录制进度失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 为录制中且文件大小有变化的任务推送进度
+     *
+     * @return 是否推送了事件
+     */
+    boolean publishProgress() {
+        boolean published = false;
+        Set<String> recording = new HashSet<>();
+        for (RecordingTask task : recordingManager.listActiveTasks()) {
+            TaskSnapshot snapshot = task.snapshot();
+            if (snapshot.status() != TaskStatus.RECORDING) {
+                continue;
+            }
+            recording.add(snapshot.taskId());
+            RecordingStatus status;
+            try {
+                status = recordingManager.getTaskStatus(snapshot.taskId());
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            if (status.getProgress() == null) {
+                continue;
+            }
+            Long previous = lastProgressSize.put(snapshot.taskId(), status.getProgress().getFileSize());
+            if (previous == null || previous != status.getProgress().getFileSize()) {
+                publish(EVENT_PROGRESS, status);
+                published = true;
+            }
+        }
+        lastProgressSize.keySet().retainAll(recording);
+        return published;
+    }
+
+    private void publish(String type, RecordingStatus data) {
+        synchronized (bufferLock) {
+            StreamEvent event = new StreamEvent(++latestEventId, type, data);
+            buffer.addLast(event);
+            while (buffer.size() > replaySize) {
+                buffer.removeFirst();
+            }
+            if (!subscribers.isEmpty() || pendingSubscribers > 0) {
+                dispatcher.execute(() -> {
+                    for (SseEmitter emitter : subscribers) {
+                        send(emitter, event);
+                    }
+                });
+            }
+        }
+    }
+
+    private boolean send(SseEmitter emitter, StreamEvent event) {
+        try {
+            SseEmitter.SseEventBuilder builder = SseEmitter.event()
+                    .id(String.valueOf(event.id()))
+                    .name(event.type());
+            emitter.send(event.data() != null
+                    ? builder.data(event.data(), MediaType.APPLICATION_JSON)
+                    : builder.data(""));
+            lastSendMillis = System.currentTimeMillis();
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开
+            subscribers.remove(emitter);
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private void heartbeat() {
+        for (SseEmitter emitter : subscribers) {
+            try {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(emitter);
+                emitter.completeWithError(e);
+            }
+        }
+        lastSendMillis = System.currentTimeMillis();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        progressExecutor.shutdownNow();
+        dispatcher.shutdownNow();
+        for (SseEmitter emitter : subscribers) {
+            emitter.complete();
+        }
+        subscribers.clear();
+    }
+
+    /**
+     * 推送的事件
+     *
+     * @param id 事件ID（递增）
+     * @param type 事件类型：status、progress 或 reset
+     * @param data 任务状态，reset 事件为null
+     */
+    record StreamEvent(long id, String type, RecordingStatus data) {
+    }
+}
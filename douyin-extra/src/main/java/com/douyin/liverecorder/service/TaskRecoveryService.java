@@ -0,0 +1,231 @@
+package com.douyin.liverecorder.service;
+
+import com.douyin.liverecorder.infrastructure.FileSystemManager;
+import com.douyin.liverecorder.infrastructure.TaskStateStore;
+import com.douyin.liverecorder.model.RecordingTask;
+import com.douyin.liverecorder.model.TaskStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 任务恢复服务
+ * 服务启动时从任务状态存储重建任务表：
+ * 等待开播的自动任务重新启动，崩溃时正在录制的临时文件封装为MP4
+ */
+@Service
+public class TaskRecoveryService implements InfoContributor {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskRecoveryService.class);
+
+    private final TaskStateStore taskStateStore;
+    private final RecordingManager recordingManager;
+    private final RecordingService recordingService;
+    private final FileSystemManager fileSystemManager;
+
+    @Value("${recording.state.recovery-threads:4}")
+    private int recoveryThreads;
+
+    // 最近一次恢复的结果，通过 /actuator/info 暴露
+    private volatile Map<String, Object> lastReport;
+
+    public TaskRecoveryService(
+            TaskStateStore taskStateStore,
+            RecordingManager recordingManager,
+            RecordingService recordingService,
+            FileSystemManager fileSystemManager) {
+        this.taskStateStore = taskStateStore;
+        this.recordingManager = recordingManager;
+        this.recordingService = recordingService;
+        this.fileSystemManager = fileSystemManager;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (taskStateStore.isEnabled()) {
+            recover();
+        }
+    }
+
+    /**
+     * 执行任务恢复
+     */
+    public void recover() {
+        long startNanos = System.nanoTime();
+        Map<String, RecordingTask> tasks = taskStateStore.load();
+
+        AtomicInteger restored = new AtomicInteger();
+        AtomicInteger archived = new AtomicInteger();
+        AtomicInteger rearmed = new AtomicInteger();
+        AtomicInteger finalized = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        List<RecordingTask> toRearm = new ArrayList<>();
+        List<RecordingTask> orphaned = new ArrayList<>();
+
+        for (RecordingTask task : tasks.values()) {
+            switch (task.getStatus()) {
+                case COMPLETED, FAILED, CANCELLED -> {
+                    // 已转存到历史存储的任务只是尚未从状态存储中压缩掉
+                    if (recordingManager.restoreTask(task)) {
+                        restored.incrementAndGet();
+                    } else {
+                        archived.incrementAndGet();
+                    }
+                }
+                case RECORDING, STOPPING -> orphaned.add(task);
+                default -> {
+                    if (task.isAutoEnabled()) {
+                        toRearm.add(task);
+                    } else {
+                        markInterrupted(task, "服务重启，任务已中断");
+                        recordingManager.restoreTask(task);
+                        failed.incrementAndGet();
+                    }
+                }
+            }
+        }
+
+        // 并行封装崩溃时遗留的临时录制文件
+        ExecutorService recoveryExecutor = Executors.newFixedThreadPool(Math.max(1, recoveryThreads));
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (RecordingTask task : orphaned) {
+                futures.add(CompletableFuture.runAsync(() -> {
+                    if (finalizeOrphan(task)) {
+                        finalized.incrementAndGet();
+                    } else {
+                        failed.incrementAndGet();
+                    }
+                    recordingManager.restoreTask(task);
+                }, recoveryExecutor));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } finally {
+            recoveryExecutor.shutdown();
+        }
+
+        // 重新启动等待开播的自动任务；崩溃时正在录制的自动任务也继续监听同一主播
+        for (RecordingTask task : toRearm) {
+            if (rearm(task)) {
+                rearmed.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+            }
+        }
+        for (RecordingTask task : orphaned) {
+            if (task.isAutoEnabled() && rearmAsNewTask(task)) {
+                rearmed.incrementAndGet();
+            }
+        }
+
+        long durationMs = (System.nanoTime() - startNanos) / 1_000_000L;
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("recoveredAt", LocalDateTime.now().toString());
+        report.put("durationMs", durationMs);
+        report.put("loaded", tasks.size());
+        report.put("restored", restored.get());
+        report.put("archived", archived.get());
+        report.put("rearmed", rearmed.get());
+        report.put("finalized", finalized.get());
+        report.put("failed", failed.get());
+        lastReport = report;
+
+        // 恢复完成后立即压缩，避免重复重放已处理的记录
+        taskStateStore.compact(recordingManager.listInMemoryTasks());
+
+        logger.info("任务恢复完成: 耗时={}ms, 加载={}, 恢复终态={}, 已归档={}, 重新启动={}, 封装遗留录制={}, 失败={}",
+                durationMs, tasks.size(), restored.get(), archived.get(), rearmed.get(), finalized.get(), failed.get());
+    }
+
+    @Override
+    public void contribute(Info.Builder builder) {
+        Map<String, Object> report = lastReport;
+        if (report != null) {
+            builder.withDetail("taskRecovery", report);
+        }
+    }
+
+    /**
+     * 封装崩溃时遗留的临时录制文件
+     *
+     * @param task 崩溃时正在录制的任务
+     * @return 封装成功（或MP4已存在）返回true
+     */
+    private boolean finalizeOrphan(RecordingTask task) {
+        String tempPath = task.getTempOutputPath();
+        String outputPath = task.getOutputPath();
+        task.setEndTime(LocalDateTime.now());
+
+        File tempFile = tempPath != null ? new File(tempPath) : null;
+        if (tempFile != null && tempFile.exists() && tempFile.length() > 0 && outputPath != null) {
+            if (recordingService.remuxToMp4(tempPath, outputPath)) {
+                fileSystemManager.deleteFile(tempPath);
+                task.transitionTo(TaskStatus.COMPLETED, s -> s.withFileSize(new File(outputPath).length()));
+                logger.info("已封装遗留录制文件: taskId={}, output={}", task.getTaskId(), outputPath);
+                return true;
+            }
+            markInterrupted(task, "服务重启，封装MP4失败，已保留临时文件");
+            return false;
+        }
+
+        if (outputPath != null && new File(outputPath).exists()) {
+            task.transitionTo(TaskStatus.COMPLETED, s -> s.withFileSize(new File(outputPath).length()));
+            return true;
+        }
+
+        markInterrupted(task, "服务重启，未找到录制文件");
+        return false;
+    }
+
+    private boolean rearm(RecordingTask task) {
+        if (!task.resetForRestart()) {
+            return false;
+        }
+        recordingManager.restoreTask(task);
+        try {
+            recordingManager.startTask(task.getTaskId());
+            logger.info("已重新启动自动录制任务: taskId={}, douyinId={}", task.getTaskId(), task.getDouyinId());
+            return true;
+        } catch (RuntimeException e) {
+            logger.warn("重新启动自动录制任务失败: taskId={}, error={}", task.getTaskId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean rearmAsNewTask(RecordingTask previous) {
+        try {
+            RecordingTask task = recordingManager.createTask(
+                    previous.getDouyinId(), true, previous.getOutputDir(), previous.getPriority());
+            recordingManager.startTask(task.getTaskId());
+            logger.info("已为崩溃前的录制任务重新启动监听: previousTaskId={}, taskId={}, douyinId={}",
+                    previous.getTaskId(), task.getTaskId(), previous.getDouyinId());
+            return true;
+        } catch (RuntimeException e) {
+            logger.warn("重新启动监听失败: douyinId={}, error={}", previous.getDouyinId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void markInterrupted(RecordingTask task, String error) {
+        task.transitionTo(TaskStatus.FAILED, s -> s
+                .withError(error)
+                .withEndTime(s.endTime() != null ? s.endTime() : LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,231 @@
+package com.douyin.liverecorder.service;
+
+import com.douyin.liverecorder.model.RecordingTask;
+import com.douyin.liverecorder.model.TaskStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 任务状态索引
+ * 每个 TaskStatus 一个按（创建时间, 任务ID）排序的跳表，状态变更时在索引间移动任务，
+ * 计数使用 LongAdder，状态汇总为 O(1)；分页按创建时间倒序，游标为上一页最后一个任务的排序键
+ */
+public class TaskStatusIndex {
+
+    private final EnumMap<TaskStatus, ConcurrentSkipListMap<TaskKey, RecordingTask>> indexes =
+            new EnumMap<>(TaskStatus.class);
+    private final EnumMap<TaskStatus, LongAdder> counts = new EnumMap<>(TaskStatus.class);
+
+    public TaskStatusIndex() {
+        for (TaskStatus status : TaskStatus.values()) {
+            indexes.put(status, new ConcurrentSkipListMap<>());
+            counts.put(status, new LongAdder());
+        }
+    }
+
+    /**
+     * 按任务当前状态加入索引
+     *
+     * @param task 录制任务
+     */
+    public void add(RecordingTask task) {
+        if (task.getStatus() != null && indexes.get(task.getStatus()).put(TaskKey.of(task), task) == null) {
+            counts.get(task.getStatus()).increment();
+        }
+    }
+
+    /**
+     * 状态变更时把任务从旧状态索引移到新状态索引
+     *
+     * @param task 录制任务
+     * @param from 旧状态
+     * @param to 新状态
+     */
+    public void move(RecordingTask task, TaskStatus from, TaskStatus to) {
+        if (from == to && from != null && indexes.get(from).containsKey(TaskKey.of(task))) {
+            return;
+        }
+        remove(task, from);
+        if (to != null && indexes.get(to).put(TaskKey.of(task), task) == null) {
+            counts.get(to).increment();
+        }
+    }
+
+    /**
+     * 从索引中移除任务
+     *
+     * @param task 录制任务
+     * @param status 任务所在的状态索引
+     */
+    public void remove(RecordingTask task, TaskStatus status) {
+        if (status != null && indexes.get(status).remove(TaskKey.of(task)) != null) {
+            counts.get(status).decrement();
+        }
+    }
+
+    /**
+     * 指定状态的任务数
+     */
+    public long count(TaskStatus status) {
+        return counts.get(status).sum();
+    }
+
+    /**
+     * 各状态任务数
+     */
+    public Map<TaskStatus, Long> summary() {
+        Map<TaskStatus, Long> summary = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus status : TaskStatus.values()) {
+            summary.put(status, counts.get(status).sum());
+        }
+        return summary;
+    }
+
+    /**
+     * 分页查询（按创建时间倒序）
+     *
+     * @param statuses 状态过滤，为空表示全部状态
+     * @param douyinIdPrefix 抖音号前缀过滤，可为null
+     * @param createdFrom 创建时间下限（包含），可为null
+     * @param createdTo 创建时间上限（包含），可为null
+     * @param cursor 上一页返回的游标，首页为null
+     * @param limit 每页数量
+     * @return 分页结果
+     * @throws IllegalArgumentException 如果游标无效
+     */
+    public Page query(Collection<TaskStatus> statuses, String douyinIdPrefix,
+                      LocalDateTime createdFrom, LocalDateTime createdTo, String cursor, int limit) {
+        Collection<TaskStatus> selected = statuses == null || statuses.isEmpty()
+                ? List.of(TaskStatus.values()) : statuses;
+
+        // 起点：游标之后，且不晚于创建时间上限
+        TaskKey upper = cursor != null && !cursor.isEmpty() ? TaskKey.decode(cursor) : null;
+        boolean upperInclusive = false;
+        if (createdTo != null) {
+            TaskKey toKey = new TaskKey(createdTo, String.valueOf(Character.MAX_VALUE));
+            if (upper == null || toKey.compareTo(upper) < 0) {
+                upper = toKey;
+                upperInclusive = true;
+            }
+        }
+
+        // 多个状态索引按排序键归并
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(Comparator.comparing((Cursor c) -> c.current.getKey())
+                .reversed());
+        for (TaskStatus status : selected) {
+            NavigableMap<TaskKey, RecordingTask> view = indexes.get(status);
+            view = upper != null ? view.headMap(upper, upperInclusive) : view;
+            Iterator<Map.Entry<TaskKey, RecordingTask>> iterator = view.descendingMap().entrySet().iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Cursor(iterator));
+            }
+        }
+
+        List<RecordingTask> items = new ArrayList<>(Math.min(limit, 1024));
+        TaskKey lastKey = null;
+        boolean hasMore = false;
+        while (!heads.isEmpty()) {
+            Cursor head = heads.poll();
+            Map.Entry<TaskKey, RecordingTask> entry = head.current;
+            TaskKey key = entry.getKey();
+            // 倒序遍历，早于下限后该状态索引中剩余的任务都不满足条件
+            if (createdFrom != null && key.createdTime().isBefore(createdFrom)) {
+                continue;
+            }
+            if (head.advance()) {
+                heads.add(head);
+            }
+
+            RecordingTask task = entry.getValue();
+            if (douyinIdPrefix != null && !douyinIdPrefix.isEmpty()
+                    && (task.getDouyinId() == null || !task.getDouyinId().startsWith(douyinIdPrefix))) {
+                continue;
+            }
+            if (items.size() == limit) {
+                hasMore = true;
+                break;
+            }
+            items.add(task);
+            lastKey = key;
+        }
+
+        return new Page(items, hasMore && lastKey != null ? lastKey.encode() : null);
+    }
+
+    /**
+     * 分页结果
+     *
+     * @param items 本页任务
+     * @param nextCursor 下一页游标，没有更多数据时为null
+     */
+    public record Page(List<RecordingTask> items, String nextCursor) {
+    }
+
+    private static final class Cursor {
+
+        private final Iterator<Map.Entry<TaskKey, RecordingTask>> iterator;
+        private Map.Entry<TaskKey, RecordingTask> current;
+
+        private Cursor(Iterator<Map.Entry<TaskKey, RecordingTask>> iterator) {
+            this.iterator = iterator;
+            this.current = iterator.next();
+        }
+
+        private boolean advance() {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            current = iterator.next();
+            return true;
+        }
+    }
+
+    /**
+     * 排序键：创建时间 + 任务ID
+     */
+    record TaskKey(LocalDateTime createdTime, String taskId) implements Comparable<TaskKey> {
+
+        static TaskKey of(RecordingTask task) {
+            LocalDateTime created = task.getCreatedTime() != null ? task.getCreatedTime() : LocalDateTime.MIN;
+            return new TaskKey(created, task.getTaskId());
+        }
+
+        @Override
+        public int compareTo(TaskKey other) {
+            int byTime = createdTime.compareTo(other.createdTime);
+            return byTime != 0 ? byTime : taskId.compareTo(other.taskId);
+        }
+
+        String encode() {
+            String raw = createdTime + "|" + taskId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static TaskKey decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                if (separator <= 0) {
+                    throw new IllegalArgumentException("无效的分页游标");
+                }
+                return new TaskKey(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new IllegalArgumentException("无效的分页游标", e);
+            }
+        }
+    }
+}
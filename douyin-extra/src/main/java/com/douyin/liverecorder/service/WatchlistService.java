@@ -0,0 +1,443 @@
+package com.douyin.liverecorder.service;
+
+import com.douyin.liverecorder.infrastructure.WatchlistStore;
+import com.douyin.liverecorder.model.LiveStatus;
+import com.douyin.liverecorder.model.RecordingTask;
+import com.douyin.liverecorder.model.TaskStatus;
+import com.douyin.liverecorder.model.WatchlistEntry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 关注列表服务
+ * 持久化保存关注的主播，所有主播共用一个检测循环：
+ * 调度线程按到期时间取出待检测的主播，交给固定大小的检测线程池；
+ * 检测到开播时用已检测到的开播状态直接开始录制，录制中由同一个循环检测下播并停止录制，
+ * 不再为每场录制单独轮询；任务结束后继续关注，下次开播再创建新任务
+ */
+@Service
+public class WatchlistService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WatchlistService.class);
+
+    private final WatchlistStore watchlistStore;
+    private final LiveStreamDetector liveStreamDetector;
+    private final RecordingManager recordingManager;
+
+    // 关注列表（douyinId -> WatchlistEntry）
+    private final ConcurrentHashMap<String, WatchlistEntry> entries = new ConcurrentHashMap<>();
+
+    // 已取消关注但本场录制尚未结束的条目（douyinId -> WatchlistEntry），继续检测下播直到录制结束
+    private final ConcurrentHashMap<String, WatchlistEntry> endingSessions = new ConcurrentHashMap<>();
+
+    // 按到期时间排列的待检测队列
+    private final DelayQueue<WatchCheck> checkQueue = new DelayQueue<>();
+
+    @Value("${recording.watchlist.enabled:true}")
+    private boolean enabled;
+    @Value("${recording.watchlist.poll-interval-ms:120000}")
+    private long pollIntervalMs;
+    @Value("${recording.watchlist.detect-threads:8}")
+    private int detectThreads;
+    @Value("${recording.watchlist.initial-spread-ms:10000}")
+    private long initialSpreadMs;
+    @Value("${recording.end-detect-grace-ms:15000}")
+    private long endDetectGraceMs = 15000;
+    // 统计信息的保存间隔，0 表示只在增删关注和关闭时保存
+    @Value("${recording.watchlist.stats-save-interval-ms:60000}")
+    private long statsSaveIntervalMs = 60000;
+
+    private ExecutorService detectExecutor;
+    private ScheduledExecutorService statsExecutor;
+    private Semaphore detectPermits;
+    private Thread dispatcherThread;
+    private volatile boolean running;
+
+    // 开播次数等统计信息有变化但尚未保存，按间隔或关闭时保存
+    private volatile boolean statsDirty;
+
+    public WatchlistService(
+            WatchlistStore watchlistStore,
+            LiveStreamDetector liveStreamDetector,
+            RecordingManager recordingManager) {
+        this.watchlistStore = watchlistStore;
+        this.liveStreamDetector = liveStreamDetector;
+        this.recordingManager = recordingManager;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            start();
+        }
+    }
+
+    /**
+     * 加载关注列表并启动检测循环
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        for (WatchlistEntry entry : watchlistStore.load()) {
+            if (entry.getDouyinId() != null) {
+                entries.put(entry.getDouyinId(), entry);
+            }
+        }
+
+        int threads = Math.max(1, detectThreads);
+        detectExecutor = Executors.newFixedThreadPool(threads);
+        detectPermits = new Semaphore(threads);
+        running = true;
+
+        // 启动时把首次检测分散开，避免同时请求上千个直播间
+        for (WatchlistEntry entry : entries.values()) {
+            schedule(entry, initialSpreadMs > 0 ? ThreadLocalRandom.current().nextLong(initialSpreadMs) : 0L);
+        }
+
+        dispatcherThread = new Thread(this::dispatchLoop, "watchlist-dispatcher");
+        dispatcherThread.setDaemon(true);
+        dispatcherThread.start();
+
+        if (statsSaveIntervalMs > 0) {
+            statsExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "watchlist-stats");
+                thread.setDaemon(true);
+                return thread;
+            });
+            statsExecutor.scheduleWithFixedDelay(this::persistStatsIfDirty, statsSaveIntervalMs, statsSaveIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        }
+
+        logger.info("关注列表已启动: 主播数={}, 检测间隔={}ms, 检测线程数={}", entries.size(), pollIntervalMs, threads);
+    }
+
+    /**
+     * 添加或更新关注的主播
+     *
+     * @param douyinId 抖音号
+     * @param outputDir 保存目录
+     * @param priority 录制优先级，为null时使用主播配置或默认优先级
+     * @return 关注条目
+     * @throws IllegalStateException 如果关注列表未启用
+     */
+    public WatchlistEntry addOrUpdate(String douyinId, String outputDir, Integer priority) {
+        checkEnabled();
+        if (douyinId == null || douyinId.trim().isEmpty()) {
+            throw new IllegalArgumentException("抖音号不能为空");
+        }
+
+        WatchlistEntry existing = entries.get(douyinId);
+        if (existing != null) {
+            if (Objects.equals(existing.getOutputDir(), outputDir) && Objects.equals(existing.getPriority(), priority)) {
+                return existing;
+            }
+            existing.setOutputDir(outputDir);
+            existing.setPriority(priority);
+            persist();
+            logger.info("已更新关注: douyinId={}, outputDir={}, priority={}", douyinId, outputDir, priority);
+            return existing;
+        }
+
+        WatchlistEntry entry = new WatchlistEntry(douyinId, outputDir, priority);
+        WatchlistEntry raced = entries.putIfAbsent(douyinId, entry);
+        if (raced != null) {
+            return addOrUpdate(douyinId, outputDir, priority);
+        }
+        // 重新关注时由新条目接管仍在进行的录制
+        endingSessions.remove(douyinId);
+        persist();
+        if (running) {
+            schedule(entry, 0L);
+        }
+        logger.info("已添加关注: douyinId={}, outputDir={}, priority={}", douyinId, outputDir, priority);
+        return entry;
+    }
+
+    /**
+     * 取消关注（正在进行的录制不受影响，仍由检测循环检测下播并停止，结束后不再创建新任务）
+     *
+     * @param douyinId 抖音号
+     * @return 存在并已移除返回true
+     * @throws IllegalStateException 如果关注列表未启用
+     */
+    public boolean remove(String douyinId) {
+        checkEnabled();
+        WatchlistEntry removed = entries.remove(douyinId);
+        if (removed == null) {
+            return false;
+        }
+        if (removed.getActiveTaskId() != null) {
+            endingSessions.put(douyinId, removed);
+        }
+        persist();
+        logger.info("已取消关注: douyinId={}", douyinId);
+        return true;
+    }
+
+    /**
+     * 查询关注条目
+     *
+     * @param douyinId 抖音号
+     * @return 关注条目，不存在返回null
+     */
+    public WatchlistEntry get(String douyinId) {
+        return douyinId != null ? entries.get(douyinId) : null;
+    }
+
+    /**
+     * 列出全部关注条目（按添加时间排序）
+     *
+     * @return 关注条目列表
+     */
+    public List<WatchlistEntry> list() {
+        List<WatchlistEntry> result = new ArrayList<>(entries.values());
+        result.sort(Comparator.comparing(WatchlistEntry::getAddedTime,
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+        return result;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 检测一个主播：录制中时检测是否下播，未录制时检测是否开播并开始录制
+     * 由检测线程调用，测试中也可直接调用
+     *
+     * @param entry 关注条目
+     */
+    void check(WatchlistEntry entry) {
+        String douyinId = entry.getDouyinId();
+        entry.setLastCheckTime(LocalDateTime.now());
+
+        // 本场录制尚未结束，不需要检测
+        String activeTaskId = entry.getActiveTaskId();
+        if (activeTaskId != null) {
+            if (recordingManager.isTaskActive(activeTaskId)) {
+                checkLiveEnd(entry, activeTaskId);
+                return;
+            }
+            entry.setActiveTaskId(null);
+            entry.setNotLiveSinceMillis(-1L);
+        }
+
+        // 已取消关注的条目在本场录制结束后不再检测
+        if (entries.get(douyinId) != entry) {
+            endingSessions.remove(douyinId, entry);
+            return;
+        }
+
+        // 已有其他途径创建的任务（例如手动开始或重启恢复），直接接管
+        RecordingTask existing = recordingManager.findActiveTask(douyinId);
+        if (existing != null) {
+            entry.setActiveTaskId(existing.getTaskId());
+            return;
+        }
+
+        LiveStatus liveStatus;
+        try {
+            liveStatus = liveStreamDetector.checkLiveStatus(douyinId);
+        } catch (IOException e) {
+            logger.debug("关注列表检测失败: douyinId={}, error={}", douyinId, e.getMessage());
+            return;
+        }
+        if (!liveStatus.isLive() || !isWatched(entry)) {
+            return;
+        }
+
+        try {
+            // 开播已由本循环确认，任务不再自行等待开播和轮询下播
+            RecordingTask task = recordingManager.createTask(douyinId, false, entry.getOutputDir(), entry.getPriority());
+            recordingManager.startTask(task.getTaskId(), liveStatus);
+            entry.setActiveTaskId(task.getTaskId());
+            entry.setNotLiveSinceMillis(-1L);
+            entry.setLastLiveTime(LocalDateTime.now());
+            entry.setSessionCount(entry.getSessionCount() + 1);
+            statsDirty = true;
+            // 检测期间被取消关注：继续检测本场录制的下播
+            if (entries.get(douyinId) == null) {
+                endingSessions.putIfAbsent(douyinId, entry);
+            }
+            logger.info("关注的主播已开播，已创建录制任务: douyinId={}, taskId={}, 第{}场",
+                    douyinId, task.getTaskId(), entry.getSessionCount());
+        } catch (RuntimeException e) {
+            logger.warn("关注的主播已开播，但创建录制任务失败，下次检测时重试: douyinId={}, error={}",
+                    douyinId, e.getMessage());
+        }
+    }
+
+    /**
+     * 录制中检测下播：连续未开播超过确认时间后停止录制
+     * 自动录制的任务（例如手动创建的自动任务）自行检测下播，这里跳过
+     */
+    private void checkLiveEnd(WatchlistEntry entry, String taskId) {
+        RecordingTask task = recordingManager.getTask(taskId);
+        if (task == null || task.isAutoEnabled() || task.getStatus() != TaskStatus.RECORDING) {
+            return;
+        }
+        LiveStatus liveStatus;
+        try {
+            liveStatus = liveStreamDetector.checkLiveStatus(entry.getDouyinId());
+        } catch (IOException e) {
+            logger.debug("关注列表检测下播失败: douyinId={}, error={}", entry.getDouyinId(), e.getMessage());
+            return;
+        }
+        if (liveStatus.isLive()) {
+            entry.setNotLiveSinceMillis(-1L);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (entry.getNotLiveSinceMillis() < 0) {
+            entry.setNotLiveSinceMillis(now);
+            logger.info("关注的主播疑似下播，等待确认: douyinId={}, taskId={}", entry.getDouyinId(), taskId);
+        }
+        if (now - entry.getNotLiveSinceMillis() >= endDetectGraceMs) {
+            logger.info("关注的主播已下播，停止录制: douyinId={}, taskId={}", entry.getDouyinId(), taskId);
+            try {
+                recordingManager.stopTaskOnLiveEnd(taskId);
+            } catch (IllegalArgumentException e) {
+                logger.debug("录制任务已不存在: taskId={}", taskId);
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        dispatcherThread.interrupt();
+        detectExecutor.shutdownNow();
+        if (statsExecutor != null) {
+            statsExecutor.shutdownNow();
+            statsExecutor = null;
+        }
+        checkQueue.clear();
+        if (statsDirty) {
+            persist();
+        }
+        logger.info("关注列表已停止");
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                WatchCheck due = checkQueue.take();
+                WatchlistEntry entry = due.entry;
+                // 已取消关注（且录制已结束）或已被替换的条目不再检测
+                if (!isWatched(entry) && !isEnding(entry)) {
+                    continue;
+                }
+                detectPermits.acquire();
+                try {
+                    detectExecutor.execute(() -> runCheck(entry));
+                } catch (RuntimeException e) {
+                    detectPermits.release();
+                    throw e;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                if (running) {
+                    logger.error("关注列表调度失败", e);
+                }
+            }
+        }
+    }
+
+    private void runCheck(WatchlistEntry entry) {
+        MDC.put("douyinId", entry.getDouyinId());
+        try {
+            check(entry);
+        } catch (Exception e) {
+            logger.error("关注列表检测异常: douyinId={}", entry.getDouyinId(), e);
+        } finally {
+            MDC.remove("douyinId");
+            detectPermits.release();
+            if (running && (isWatched(entry) || isEnding(entry))) {
+                schedule(entry, pollIntervalMs);
+            }
+        }
+    }
+
+    private boolean isWatched(WatchlistEntry entry) {
+        return entries.get(entry.getDouyinId()) == entry;
+    }
+
+    private boolean isEnding(WatchlistEntry entry) {
+        return endingSessions.get(entry.getDouyinId()) == entry;
+    }
+
+    private void schedule(WatchlistEntry entry, long delayMs) {
+        checkQueue.offer(new WatchCheck(entry, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs)));
+    }
+
+    /**
+     * 统计信息有变化时保存，由统计保存线程按间隔调用
+     */
+    void persistStatsIfDirty() {
+        if (statsDirty) {
+            persist();
+        }
+    }
+
+    private void persist() {
+        statsDirty = false;
+        watchlistStore.save(entries.values());
+    }
+
+    private void checkEnabled() {
+        if (!enabled) {
+            throw new IllegalStateException("关注列表功能未启用");
+        }
+    }
+
+    /**
+     * 一次待执行的检测
+     */
+    private static final class WatchCheck implements Delayed {
+
+        private final WatchlistEntry entry;
+        private final long dueNanos;
+
+        private WatchCheck(WatchlistEntry entry, long dueNanos) {
+            this.entry = entry;
+            this.dueNanos = dueNanos;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, ((WatchCheck) other).dueNanos);
+        }
+    }
+}
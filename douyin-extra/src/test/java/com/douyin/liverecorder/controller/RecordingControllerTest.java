@@ -1,12 +1,15 @@
 package com.douyin.liverecorder.controller;
 
+import com.douyin.liverecorder.dto.BatchStatusRequest;
 import com.douyin.liverecorder.dto.RecordingResponse;
 import com.douyin.liverecorder.dto.StartRecordingRequest;
 import com.douyin.liverecorder.infrastructure.FileSystemManager;
+import com.douyin.liverecorder.infrastructure.StoragePool;
 import com.douyin.liverecorder.model.RecordingStatus;
 import com.douyin.liverecorder.model.RecordingTask;
 import com.douyin.liverecorder.model.TaskStatus;
 import com.douyin.liverecorder.service.RecordingManager;
+import com.douyin.liverecorder.service.TaskEventBroadcaster;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,13 +18,19 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import static org.hamcrest.Matchers.contains;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -43,13 +52,19 @@ class RecordingControllerTest {
 
     @MockBean
     private FileSystemManager fileSystemManager;
+
+    @MockBean
+    private StoragePool storagePool;
+
+    @MockBean
+    private TaskEventBroadcaster taskEventBroadcaster;
     
     private RecordingTask testTask;
     
     @BeforeEach
     void setUp() {
         testTask = new RecordingTask("test123");
-        testTask.setStatus(TaskStatus.PENDING);
+        testTask.transitionTo(TaskStatus.PENDING, s -> s);
         testTask.setStartTime(LocalDateTime.now());
     }
     
@@ -59,7 +74,7 @@ class RecordingControllerTest {
         request.setOutputDir("D:\\recordings");
         
         when(fileSystemManager.isWritableDirectory(anyString())).thenReturn(true);
-        when(recordingManager.createTask(anyString(), anyBoolean(), anyString())).thenReturn(testTask);
+        when(recordingManager.createTask(anyString(), anyBoolean(), anyString(), any())).thenReturn(testTask);
         when(recordingManager.startTask(anyString())).thenReturn(true);
         
         mockMvc.perform(post("/api/recordings/start")
@@ -99,7 +114,7 @@ class RecordingControllerTest {
         request.setOutputDir("D:\\recordings");
         
         when(fileSystemManager.isWritableDirectory(anyString())).thenReturn(true);
-        when(recordingManager.createTask(anyString(), anyBoolean(), anyString()))
+        when(recordingManager.createTask(anyString(), anyBoolean(), anyString(), any()))
                 .thenThrow(new IllegalStateException("当前录制任务已达上限（5个），请稍后重试"));
         
         mockMvc.perform(post("/api/recordings/start")
@@ -137,7 +152,7 @@ class RecordingControllerTest {
     @Test
     void testStopRecording_Success() throws Exception {
         String taskId = testTask.getTaskId();
-        testTask.setStatus(TaskStatus.CANCELLED);
+        testTask.transitionTo(TaskStatus.CANCELLED, s -> s);
         testTask.setEndTime(LocalDateTime.now());
         
         when(recordingManager.stopTask(taskId)).thenReturn(true);
@@ -165,7 +180,8 @@ class RecordingControllerTest {
     @Test
     void testGetRecordingStatus_Success() throws Exception {
         String taskId = testTask.getTaskId();
-        testTask.setStatus(TaskStatus.RECORDING);
+        testTask.transitionTo(TaskStatus.DETECTING, s -> s);
+        testTask.transitionTo(TaskStatus.RECORDING, s -> s);
         RecordingStatus status = createRecordingStatus(testTask);
         
         when(recordingManager.getTaskStatus(taskId)).thenReturn(status);
@@ -191,10 +207,11 @@ class RecordingControllerTest {
     @Test
     void testListRecordings_Success() throws Exception {
         RecordingTask task1 = new RecordingTask("test123");
-        task1.setStatus(TaskStatus.RECORDING);
+        task1.transitionTo(TaskStatus.DETECTING, s -> s);
+        task1.transitionTo(TaskStatus.RECORDING, s -> s);
         
         RecordingTask task2 = new RecordingTask("test456");
-        task2.setStatus(TaskStatus.DETECTING);
+        task2.transitionTo(TaskStatus.DETECTING, s -> s);
         
         List<RecordingTask> tasks = Arrays.asList(task1, task2);
         
@@ -209,6 +226,87 @@ class RecordingControllerTest {
                 .andExpect(jsonPath("$[1].status").value("DETECTING"));
     }
     
+    @Test
+    void testGetRecordingStatus_NotModifiedUntilTaskChanges() throws Exception {
+        String taskId = testTask.getTaskId();
+        when(recordingManager.getTask(taskId)).thenReturn(testTask);
+        when(recordingManager.getTaskStatus(taskId)).thenAnswer(invocation -> createRecordingStatus(testTask));
+        
+        String etag = mockMvc.perform(get("/api/recordings/{taskId}/status", taskId))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+        
+        mockMvc.perform(get("/api/recordings/{taskId}/status", taskId)
+                .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        
+        // 重启前同一版本号（不带进程启动时间）的 ETag 不能命中
+        mockMvc.perform(get("/api/recordings/{taskId}/status", taskId)
+                .header("If-None-Match", "\"" + etag.substring(etag.indexOf('-') + 1)))
+                .andExpect(status().isOk());
+        
+        testTask.transitionTo(TaskStatus.DETECTING, s -> s);
+        testTask.transitionTo(TaskStatus.RECORDING, s -> s);
+        mockMvc.perform(get("/api/recordings/{taskId}/status", taskId)
+                .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("RECORDING"));
+    }
+    
+    @Test
+    void testListRecordings_NotModifiedUntilTaskChanges() throws Exception {
+        RecordingTask task = new RecordingTask("test123");
+        task.transitionTo(TaskStatus.WAITING, s -> s);
+        when(recordingManager.listActiveTasks()).thenReturn(List.of(task));
+        when(recordingManager.getChangeSequence()).thenReturn(1L);
+        
+        String etag = mockMvc.perform(get("/api/recordings"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        
+        mockMvc.perform(get("/api/recordings").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        
+        task.transitionTo(TaskStatus.DETECTING, s -> s);
+        when(recordingManager.getChangeSequence()).thenReturn(2L);
+        mockMvc.perform(get("/api/recordings").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("DETECTING"));
+    }
+    
+    @Test
+    void testGetRecordingStatuses_ReturnsPartialResults() throws Exception {
+        RecordingTask other = new RecordingTask("test456");
+        other.transitionTo(TaskStatus.FAILED, s -> s);
+        other.setError("录制失败");
+        Map<String, RecordingStatus> statuses = new LinkedHashMap<>();
+        statuses.put(testTask.getTaskId(), createRecordingStatus(testTask));
+        statuses.put(other.getTaskId(), createRecordingStatus(other));
+        when(recordingManager.getTaskStatuses(any())).thenReturn(statuses);
+        
+        BatchStatusRequest request = new BatchStatusRequest(
+                List.of(testTask.getTaskId(), "missing", other.getTaskId(), "missing"));
+        
+        mockMvc.perform(post("/api/recordings/statuses")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.statuses.length()").value(2))
+                .andExpect(jsonPath("$.statuses[0].taskId").value(testTask.getTaskId()))
+                .andExpect(jsonPath("$.statuses[1].error").value("录制失败"))
+                .andExpect(jsonPath("$.notFound", contains("missing")));
+    }
+    
+    @Test
+    void testGetRecordingStatuses_EmptyRequest() throws Exception {
+        mockMvc.perform(post("/api/recordings/statuses")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"taskIds\":[]}"))
+                .andExpect(status().isBadRequest());
+    }
+    
     @Test
     void testListRecordings_EmptyList() throws Exception {
         when(recordingManager.listActiveTasks()).thenReturn(Arrays.asList());
@@ -233,6 +331,24 @@ class RecordingControllerTest {
                 .andExpect(status().isBadRequest());
     }
     
+    @Test
+    void testSubscribeEvents_PassesLastEventId() throws Exception {
+        when(taskEventBroadcaster.subscribe(42L)).thenReturn(new SseEmitter());
+        
+        mockMvc.perform(get("/api/recordings/events")
+                .header("Last-Event-ID", "42"))
+                .andExpect(request().asyncStarted());
+        
+        verify(taskEventBroadcaster).subscribe(42L);
+    }
+    
+    @Test
+    void testSubscribeEvents_InvalidLastEventId() throws Exception {
+        mockMvc.perform(get("/api/recordings/events")
+                .header("Last-Event-ID", "abc"))
+                .andExpect(status().isBadRequest());
+    }
+    
     private RecordingStatus createRecordingStatus(RecordingTask task) {
         RecordingStatus status = new RecordingStatus();
         status.setTaskId(task.getTaskId());
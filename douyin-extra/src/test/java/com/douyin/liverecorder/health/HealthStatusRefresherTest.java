@@ -0,0 +1,75 @@
+package com.douyin.liverecorder.health;
+
+import com.douyin.liverecorder.config.HealthCheckConfig;
+import com.douyin.liverecorder.config.HealthStatusRefresher;
+import com.douyin.liverecorder.infrastructure.FFmpegInfo;
+import com.douyin.liverecorder.infrastructure.FFmpegWrapper;
+import com.douyin.liverecorder.infrastructure.FileSystemManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 健康检查缓存测试：健康检查请求不启动FFmpeg进程，只在启动和按需时探测
+ */
+class HealthStatusRefresherTest {
+
+    @Test
+    void healthChecksServeCachedProbeResult() {
+        CountingFFmpegWrapper ffmpegWrapper = new CountingFFmpegWrapper();
+        FileSystemManager fileSystemManager = new FileSystemManager();
+        ReflectionTestUtils.setField(fileSystemManager, "storagePath", ".");
+        HealthStatusRefresher refresher = new HealthStatusRefresher(ffmpegWrapper, fileSystemManager);
+        HealthIndicator indicator = new HealthCheckConfig().ffmpegHealthIndicator(refresher);
+
+        try {
+            assertThat(indicator.health().getStatus()).isEqualTo(Status.UNKNOWN);
+            assertThat(ffmpegWrapper.probes.get()).isZero();
+
+            refresher.refreshFFmpeg();
+            for (int i = 0; i < 100; i++) {
+                assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+            }
+            assertThat(ffmpegWrapper.probes.get()).isEqualTo(1);
+            assertThat(indicator.health().getDetails()).containsEntry("supportsHttps", true);
+
+            // 按需重新探测
+            refresher.refreshFFmpeg();
+            assertThat(ffmpegWrapper.probes.get()).isEqualTo(2);
+        } finally {
+            refresher.shutdown();
+        }
+    }
+
+    @Test
+    void storageStatusIsCheckedOnceUntilRefreshed() {
+        FileSystemManager fileSystemManager = new FileSystemManager();
+        ReflectionTestUtils.setField(fileSystemManager, "storagePath", ".");
+        HealthStatusRefresher refresher = new HealthStatusRefresher(new CountingFFmpegWrapper(), fileSystemManager);
+
+        try {
+            HealthStatusRefresher.StorageStatus first = refresher.getStorageStatus();
+            assertThat(first.totalSpace()).isPositive();
+            assertThat(refresher.getStorageStatus()).isSameAs(first);
+            assertThat(refresher.refreshStorage()).isNotSameAs(first);
+        } finally {
+            refresher.shutdown();
+        }
+    }
+
+    private static class CountingFFmpegWrapper extends FFmpegWrapper {
+        final AtomicInteger probes = new AtomicInteger();
+
+        @Override
+        public FFmpegInfo probe() {
+            probes.incrementAndGet();
+            return new FFmpegInfo("ffmpeg", true, "ffmpeg version test", Set.of("file", "http", "https"));
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.douyin.liverecorder.infrastructure;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 异步日志写入器测试
+ */
+class AsyncJournalWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void concurrentAppendsAreAllWritten() throws Exception {
+        Path file = tempDir.resolve("events.log");
+        int threads = 8;
+        int perThread = 500;
+        try (AsyncJournalWriter writer = new AsyncJournalWriter(file, AsyncJournalWriter.Format.TEXT,
+                0L, 64, -1L, 100_000, "test-journal")) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        writer.append((thread + "-" + i + "\n").getBytes(StandardCharsets.UTF_8));
+                    }
+                    done.countDown();
+                });
+            }
+            assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+            executor.shutdown();
+            assertThat(writer.flush(10_000)).isTrue();
+        }
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertThat(lines).hasSize(threads * perThread);
+        assertThat(new HashSet<>(lines)).hasSize(threads * perThread);
+    }
+
+    @Test
+    void binaryJournalRotatesAndReplaysFromSequence() throws Exception {
+        Path file = tempDir.resolve("events.bin");
+        try (AsyncJournalWriter writer = new AsyncJournalWriter(file, AsyncJournalWriter.Format.BINARY,
+                4096L, 16, 0L, 100_000, "test-journal")) {
+            for (int i = 0; i < 1000; i++) {
+                writer.append(("event-" + i).getBytes(StandardCharsets.UTF_8));
+            }
+
+            List<String> replayed = new ArrayList<>();
+            long count = writer.replay(900, record -> {
+                assertThat(new String(record.payload(), StandardCharsets.UTF_8))
+                        .isEqualTo("event-" + record.sequence());
+                replayed.add(new String(record.payload(), StandardCharsets.UTF_8));
+            });
+
+            assertThat(count).isEqualTo(100);
+            assertThat(replayed.get(0)).isEqualTo("event-900");
+            assertThat(replayed.get(99)).isEqualTo("event-999");
+        }
+        assertThat(Files.exists(tempDir.resolve("events.bin.1"))).isTrue();
+        assertThat(Files.exists(tempDir.resolve("events.bin.idx"))).isTrue();
+    }
+
+    @Test
+    void rotatedSegmentsBeyondLimitAreDeletedWithTheirIndexEntries() throws Exception {
+        Path file = tempDir.resolve("events.bin");
+        try (AsyncJournalWriter writer = new AsyncJournalWriter(file, AsyncJournalWriter.Format.BINARY,
+                4096L, 2, 16, 0L, 100_000, "test-journal")) {
+            for (int i = 0; i < 1000; i++) {
+                writer.append(("event-" + i).getBytes(StandardCharsets.UTF_8));
+            }
+
+            List<Long> sequences = new ArrayList<>();
+            writer.replay(0, record -> sequences.add(record.sequence()));
+            // 只剩最近两个已滚动分段与活动分段，且仍然连续到最新一条
+            assertThat(sequences).isNotEmpty();
+            assertThat(sequences.get(0)).isGreaterThan(0L);
+            assertThat(sequences.get(sequences.size() - 1)).isEqualTo(999L);
+            assertThat(sequences).isSorted();
+            assertThat(writer.replay(990, record -> { })).isEqualTo(10);
+        }
+        try (var files = Files.list(tempDir)) {
+            assertThat(files.filter(f -> f.getFileName().toString().matches("events\\.bin\\.\\d+"))).hasSize(2);
+        }
+        long indexEntries = Files.size(tempDir.resolve("events.bin.idx")) / 20;
+        // 每个分段（4KB）约有两百条记录，每64条一个索引项
+        assertThat(indexEntries).isLessThan(20);
+    }
+
+    @Test
+    void textSegmentsBeyondLimitAreDeleted() throws Exception {
+        Path file = tempDir.resolve("task.txt");
+        try (AsyncJournalWriter writer = new AsyncJournalWriter(file, AsyncJournalWriter.Format.TEXT,
+                1024L, 3, 16, -1L, 100_000, "test-journal")) {
+            for (int i = 0; i < 1000; i++) {
+                writer.append(("line-" + i + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            assertThat(writer.flush(10_000)).isTrue();
+        }
+        List<Path> rotated;
+        try (var files = Files.list(tempDir)) {
+            rotated = files.filter(f -> f.getFileName().toString().startsWith("task.txt.")).toList();
+        }
+        assertThat(rotated).hasSize(3);
+        List<String> remaining = new ArrayList<>();
+        for (Path segment : rotated) {
+            remaining.addAll(Files.readAllLines(segment, StandardCharsets.UTF_8));
+        }
+        remaining.addAll(Files.readAllLines(file, StandardCharsets.UTF_8));
+        assertThat(remaining).contains("line-999").doesNotContain("line-0");
+    }
+
+    @Test
+    void failedRotationKeepsWritingToActiveSegment() throws Exception {
+        Path file = tempDir.resolve("task.txt");
+        try (AsyncJournalWriter writer = new AsyncJournalWriter(file, AsyncJournalWriter.Format.TEXT,
+                64L, 16, -1L, 100_000, "test-journal")) {
+            // 滚动的目标路径被非空目录占用，重命名失败
+            Path blocked = Files.createDirectories(tempDir.resolve("task.txt.1"));
+            Files.writeString(blocked.resolve("keep"), "x");
+            for (int i = 0; i < 50; i++) {
+                writer.append(("line-" + i + "\n").getBytes(StandardCharsets.UTF_8));
+                assertThat(writer.flush(10_000)).isTrue();
+            }
+        }
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertThat(lines).hasSize(50);
+        assertThat(lines.get(49)).isEqualTo("line-49");
+    }
+
+    @Test
+    void reopenTruncatesTornTailAndContinuesSequence() throws Exception {
+        Path file = tempDir.resolve("events.bin");
+        try (AsyncJournalWriter writer = new AsyncJournalWriter(file, AsyncJournalWriter.Format.BINARY,
+                0L, 16, -1L, 100_000, "test-journal")) {
+            for (int i = 0; i < 10; i++) {
+                writer.append(("event-" + i).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        Files.write(file, new byte[]{0, 0, 0, 9, 1, 2}, StandardOpenOption.APPEND);
+
+        try (AsyncJournalWriter writer = new AsyncJournalWriter(file, AsyncJournalWriter.Format.BINARY,
+                0L, 16, -1L, 100_000, "test-journal")) {
+            writer.append("event-10".getBytes(StandardCharsets.UTF_8));
+
+            Set<Long> sequences = new HashSet<>();
+            long count = writer.replay(0, record -> sequences.add(record.sequence()));
+            assertThat(count).isEqualTo(11);
+            assertThat(sequences).contains(0L, 10L);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.douyin.liverecorder.infrastructure;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * FFmpeg包装器测试：可执行文件路径可配置，自行退出的进程会被清理
+ */
+class FFmpegWrapperTest {
+
+    @Test
+    void commandsUseConfiguredExecutable() {
+        FFmpegWrapper wrapper = new FFmpegWrapper();
+        assertThat(wrapper.buildRecordingCommand("http://example.com/a.flv", "out.flv")).startsWith("ffmpeg");
+
+        ReflectionTestUtils.setField(wrapper, "ffmpegPath", "/opt/tools/fake-ffmpeg.sh");
+
+        assertThat(wrapper.buildRecordingCommand("http://example.com/a.flv", "out.flv"))
+                .startsWith("/opt/tools/fake-ffmpeg.sh", "-i", "http://example.com/a.flv");
+        assertThat(wrapper.buildRemuxCommand("in.flv", "out.mp4"))
+                .startsWith("/opt/tools/fake-ffmpeg.sh", "-i", "in.flv");
+    }
+
+    @Test
+    void missingExecutableIsReportedUnavailable() {
+        FFmpegWrapper wrapper = new FFmpegWrapper();
+        ReflectionTestUtils.setField(wrapper, "ffmpegPath", "/nonexistent/ffmpeg");
+
+        assertThat(wrapper.isFFmpegAvailable()).isFalse();
+        assertThat(wrapper.getFFmpegVersion()).isEqualTo("未知版本");
+    }
+
+    @Test
+    void exitedProcessesArePurgedAfterRetention() throws Exception {
+        FFmpegWrapper wrapper = new FFmpegWrapper();
+        String java = ProcessHandle.current().info().command().orElse("java");
+
+        Process process = wrapper.execute(List.of(java, "-version"));
+        assertThat(process.waitFor(30, TimeUnit.SECONDS)).isTrue();
+        // 等待读取线程读完输出
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!wrapper.getOutput(process).contains("version") && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        Thread.sleep(100);
+
+        // 保留期内仍可读取输出
+        wrapper.purgeExitedProcesses(System.nanoTime());
+        assertThat(wrapper.getTrackedProcessCount()).isEqualTo(1);
+        assertThat(wrapper.getOutput(process)).contains("version");
+
+        wrapper.purgeExitedProcesses(System.nanoTime() + FFmpegWrapper.EXITED_RETENTION_NANOS);
+        assertThat(wrapper.getTrackedProcessCount()).isZero();
+        assertThat(wrapper.getOutput(process)).isEmpty();
+    }
+}
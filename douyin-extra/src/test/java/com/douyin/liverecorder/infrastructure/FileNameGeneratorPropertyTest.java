@@ -256,4 +256,78 @@ class FileNameGeneratorPropertyTest {
         assertThat(FileNameGenerator.parseDate(filename)).isEqualTo("20260103");
         assertThat(FileNameGenerator.parseTime(filename)).isEqualTo("143025");
     }
+
+    /**
+     * 单次扫描的解析结果应与按 split("_") 和正则实现的解析完全一致，
+     * 包括末尾下划线被忽略、抖音号包含下划线时无法解析等边界情况
+     */
+    @Property(tries = 1000)
+    @Label("单次扫描解析应与 split 实现一致")
+    void singlePassParsingShouldMatchSplitReference(@ForAll("filenameLike") String filename) {
+        String[] parts = referenceParts(filename);
+        assertThat(FileNameGenerator.parseDouyinId(filename)).isEqualTo(parts != null ? parts[0] : null);
+        assertThat(FileNameGenerator.parseDate(filename)).isEqualTo(parts != null ? parts[1] : null);
+        assertThat(FileNameGenerator.parseTime(filename)).isEqualTo(parts != null ? parts[2] : null);
+
+        boolean referenceValid = filename.endsWith(".mp4") && parts != null && !parts[0].isEmpty()
+                && parts[1].matches("\\d{8}") && parts[2].matches("\\d{6}");
+        assertThat(FileNameGenerator.isValidFilename(filename)).as(filename).isEqualTo(referenceValid);
+
+        FileNameGenerator.ParsedFilename parsed = FileNameGenerator.parse(filename);
+        assertThat(parsed != null).isEqualTo(referenceValid);
+        if (parsed != null) {
+            assertThat(parsed.douyinId()).isEqualTo(parts[0]);
+            assertThat(parsed.date()).isEqualTo(Integer.parseInt(parts[1]));
+            assertThat(parsed.time()).isEqualTo(Integer.parseInt(parts[2]));
+        }
+    }
+
+    @Property(tries = 100)
+    @Label("解析出的录制时间应与生成文件名的时间一致")
+    void parsedRecordedAtShouldRoundTrip(
+            @ForAll @AlphaChars @NumericChars @StringLength(min = 1, max = 50) String douyinId,
+            @ForAll("timestamps") LocalDateTime timestamp) {
+        String filename = FileNameGenerator.generateFilename(douyinId, timestamp);
+
+        FileNameGenerator.ParsedFilename parsed = FileNameGenerator.parse(filename);
+        assertThat(parsed).isNotNull();
+        assertThat(parsed.douyinId()).isEqualTo(douyinId);
+        assertThat(parsed.recordedAt()).isEqualTo(timestamp.withNano(0));
+    }
+
+    @Example
+    @Label("解析边界情况")
+    void parsingEdgeCases() {
+        // split 忽略末尾的空段
+        assertThat(FileNameGenerator.isValidFilename("abc_20260103_143025_.mp4")).isTrue();
+        // 抖音号包含下划线时无法解析
+        assertThat(FileNameGenerator.parse("my_id_20260103_143025.mp4")).isNull();
+        // 非 ASCII 数字不是合法的日期
+        assertThat(FileNameGenerator.isValidFilename("abc_２0260103_143025.mp4")).isFalse();
+        // 日期超过当月天数时取当月最后一天，时分秒超出范围时无效
+        assertThat(FileNameGenerator.parse("abc_20240231_080000.mp4").recordedAt())
+                .isEqualTo(LocalDateTime.of(2024, 2, 29, 8, 0, 0));
+        assertThat(FileNameGenerator.parse("abc_20241301_080000.mp4").recordedAt()).isNull();
+        assertThat(FileNameGenerator.parse("abc_20240101_246000.mp4").recordedAt()).isNull();
+    }
+
+    // 自定义生成器：由少量字符组成、容易出现下划线和数字边界情况的文件名
+    @Provide
+    Arbitrary<String> filenameLike() {
+        Arbitrary<String> body = Arbitraries.strings().withChars("ab_0123456789").ofMaxLength(24);
+        return Arbitraries.oneOf(body, body.map(s -> s + ".mp4"),
+                Combinators.combine(Arbitraries.strings().withChars("ab_1").ofMinLength(0).ofMaxLength(5),
+                        Arbitraries.strings().numeric().ofLength(8), Arbitraries.strings().numeric().ofLength(6),
+                        Arbitraries.strings().withChars("_").ofMaxLength(2))
+                        .as((id, date, time, tail) -> id + "_" + date + "_" + time + tail + ".mp4"));
+    }
+
+    private static String[] referenceParts(String filename) {
+        if (filename == null || filename.isEmpty()) {
+            return null;
+        }
+        String name = filename.endsWith(".mp4") ? filename.substring(0, filename.length() - 4) : filename;
+        String[] parts = name.split("_");
+        return parts.length == 3 ? parts : null;
+    }
 }
@@ -0,0 +1,59 @@
+package com.douyin.liverecorder.infrastructure;
+
+import com.douyin.liverecorder.model.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 录制文件目录快照测试
+ */
+class RecordingCatalogStoreTest {
+
+    @TempDir
+    Path base;
+
+    @Test
+    void snapshotRoundTrip() {
+        RecordingCatalogStore store = newStore();
+        RecordingFile first = RecordingCatalogStore.fromFilename(base.resolve("a").resolve("alice_20240101_080000.mp4"),
+                1024, 90, 1_700_000_000_000L);
+        RecordingFile second = RecordingCatalogStore.fromFilename(base.resolve("b").resolve("bob_20240102_093000.mp4"),
+                2048, 120, 1_700_000_100_000L);
+
+        assertThat(store.save(List.of(first, second))).isTrue();
+
+        List<RecordingFile> loaded = store.load();
+        assertThat(loaded).containsExactlyInAnyOrder(first, second);
+        assertThat(second.douyinId()).isEqualTo("bob");
+        assertThat(second.recordedAt()).isEqualTo(LocalDateTime.of(2024, 1, 2, 9, 30, 0));
+    }
+
+    @Test
+    void missingOrCorruptSnapshotLoadsEmpty() throws IOException {
+        RecordingCatalogStore store = newStore();
+        assertThat(store.load()).isEmpty();
+
+        Files.write(base.resolve("catalog.bin"), new byte[] {1, 2, 3});
+        assertThat(store.load()).isEmpty();
+    }
+
+    @Test
+    void invalidFilenameIsNotARecording() {
+        assertThat(RecordingCatalogStore.fromFilename(base.resolve("notes.mp4"), 1, 1, 0)).isNull();
+    }
+
+    private RecordingCatalogStore newStore() {
+        RecordingCatalogStore store = new RecordingCatalogStore();
+        ReflectionTestUtils.setField(store, "snapshotFile", base.resolve("catalog.bin").toString());
+        return store;
+    }
+}
@@ -0,0 +1,74 @@
+package com.douyin.liverecorder.infrastructure;
+
+import com.douyin.liverecorder.model.TaskStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 录制监控指标测试：标签取值有界
+ */
+class RecordingMetricsTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final RecordingMetrics metrics = new RecordingMetrics(registry);
+
+    @Test
+    void unknownCodesCollapseIntoOther() {
+        for (int code = 2; code < 50; code++) {
+            metrics.recordFfmpegExit(RecordingMetrics.KIND_RECORD, code);
+            metrics.recordDetection("api_error", 10000 + code, 1);
+        }
+        metrics.recordFfmpegExit(RecordingMetrics.KIND_RECORD, 255);
+        metrics.recordDetection("api_error", 4003, 1);
+
+        assertThat(registry.find("ffmpeg.exits").counters()).hasSize(2);
+        assertThat(registry.get("ffmpeg.exits").tag("code", "other").counter().count()).isEqualTo(48);
+        assertThat(registry.find("douyin.detection").timers()).hasSize(2);
+        assertThat(registry.get("douyin.detection").tag("status_code", "4003").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void httpFailuresAreGroupedByStatusClass() {
+        metrics.recordHttpAttemptFailure("GET", 503, new IOException("HTTP请求失败: 503"));
+        metrics.recordHttpAttemptFailure("GET", 502, new IOException("HTTP请求失败: 502"));
+        metrics.recordHttpAttemptFailure("GET", -1, new SocketTimeoutException("timeout"));
+        metrics.recordHttpRequest("GET", true, 3, TimeUnit.SECONDS.toNanos(4));
+
+        assertThat(registry.get("douyin.http.attempt.failures").tag("reason", "5xx").counter().count())
+                .isEqualTo(2);
+        assertThat(registry.get("douyin.http.attempt.failures").tag("reason", "timeout").counter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("douyin.http.attempts").tag("outcome", "success").summary().totalAmount())
+                .isEqualTo(3);
+    }
+
+    @Test
+    void taskGaugesReadCurrentCounts() {
+        Map<TaskStatus, Long> counts = new EnumMap<>(TaskStatus.class);
+        counts.put(TaskStatus.WAITING, 2L);
+        metrics.registerTaskGauges(status -> counts.getOrDefault(status, 0L), () -> 2);
+
+        assertThat(registry.get("recording.tasks").tag("status", "waiting").gauge().value()).isEqualTo(2);
+        counts.put(TaskStatus.QUEUED, 1L);
+        assertThat(registry.get("recording.tasks").tag("status", "queued").gauge().value()).isEqualTo(1);
+        assertThat(registry.get("recording.tasks.active").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void remuxThroughputIsBytesPerSecond() {
+        metrics.recordRemux(true, 50_000_000, TimeUnit.SECONDS.toNanos(2));
+        metrics.recordRemux(false, 50_000_000, TimeUnit.SECONDS.toNanos(1));
+
+        assertThat(registry.get("recording.remux").tag("result", "failure").timer().count()).isEqualTo(1);
+        assertThat(registry.get("recording.remux.throughput").summary().max()).isEqualTo(25_000_000);
+    }
+}
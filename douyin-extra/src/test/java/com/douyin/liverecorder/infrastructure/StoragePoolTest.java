@@ -0,0 +1,71 @@
+package com.douyin.liverecorder.infrastructure;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 存储池测试：按负载分散到各根目录，主播亲和，剩余空间不足时不放置
+ */
+class StoragePoolTest {
+
+    @TempDir
+    Path base;
+
+    @Test
+    void placementsSpreadAcrossRootsAndAreReleased() {
+        Path a = base.resolve("a");
+        Path b = base.resolve("b");
+        StoragePool pool = newPool(a + "," + b);
+
+        assertThat(pool.isEnabled()).isTrue();
+        assertThat(pool.place("t1", "streamer1")).isEqualTo(a.toString());
+        assertThat(pool.place("t2", "streamer2")).isEqualTo(b.toString());
+
+        pool.release("t1");
+        assertThat(pool.place("t3", "streamer3")).isEqualTo(a.toString());
+        assertThat(pool.getPlacementCounts()).containsEntry(a.toString(), 1).containsEntry(b.toString(), 1);
+    }
+
+    @Test
+    void affinityKeepsStreamerOnRootWithExistingRecordings() throws IOException {
+        Path a = base.resolve("a");
+        Path b = base.resolve("b");
+        Files.createDirectories(b);
+        Files.write(b.resolve("streamer1_20240101_080000.mp4"), new byte[16]);
+        StoragePool pool = newPool(a + "," + b);
+        ReflectionTestUtils.setField(pool, "affinity", true);
+
+        pool.track("other", b.resolve("sub").toString());
+        assertThat(pool.place("t1", "streamer1")).isEqualTo(b.toString());
+        assertThat(pool.place("t2", "streamer2")).isEqualTo(a.toString());
+    }
+
+    @Test
+    void noRootWithEnoughSpaceYieldsNoPlacement() {
+        StoragePool pool = newPool(base.resolve("a").toString());
+        ReflectionTestUtils.setField(pool, "minFreeMb", Long.MAX_VALUE / (1024 * 1024));
+
+        assertThat(pool.place("t1", "streamer1")).isNull();
+    }
+
+    @Test
+    void disabledWithoutRoots() {
+        StoragePool pool = newPool("");
+
+        assertThat(pool.isEnabled()).isFalse();
+        assertThat(pool.place("t1", "streamer1")).isNull();
+    }
+
+    private StoragePool newPool(String roots) {
+        StoragePool pool = new StoragePool(new StorageQuotaManager(RecordingMetrics.noop()));
+        ReflectionTestUtils.setField(pool, "roots", roots);
+        return pool;
+    }
+}
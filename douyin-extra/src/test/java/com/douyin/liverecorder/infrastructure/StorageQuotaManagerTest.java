@@ -0,0 +1,163 @@
+package com.douyin.liverecorder.infrastructure;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 存储配额测试：超过配额时从旧到新淘汰已完成的录制，剩余空间不足时要求提前停止录制
+ */
+class StorageQuotaManagerTest {
+
+    private static final int MB = 1024 * 1024;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void quotaEvictsOldestFinishedRecordingsFirst() throws IOException {
+        Path inUse = write("streamer1_20240101_080000.mp4");
+        Path oldest = write("streamer2_20240102_080000.mp4");
+        Path older = write("streamer1_20240103_080000.mp4");
+        Path newer = write("streamer2_20240104_080000.mp4");
+        Path newest = write("streamer1_20240105_080000.mp4");
+        Path unmanaged = write("notes.txt");
+
+        StorageQuotaManager manager = newManager();
+        ReflectionTestUtils.setField(manager, "defaultQuotaMb", 4L);
+
+        // 6MB > 4MB * 90%，需要释放到 4MB * 80% 以下
+        manager.enforce(List.of(new StorageQuotaManager.ActiveRecording(dir.toString(),
+                dir.resolve("streamer3_20240106_080000.flv").toString(), inUse.toString(), MB)), Set.of());
+
+        assertThat(inUse).exists();
+        assertThat(oldest).doesNotExist();
+        assertThat(older).doesNotExist();
+        assertThat(newer).doesNotExist();
+        assertThat(newest).exists();
+        assertThat(unmanaged).exists();
+    }
+
+    @Test
+    void stoppingTaskOutputSurvivesEviction() throws IOException {
+        // 停止中的任务不在录制列表中，但正在封装的输出文件仍在使用
+        Path remuxing = write("streamer1_20240101_080000.mp4");
+        Path oldest = write("streamer2_20240102_080000.mp4");
+        Path newest = write("streamer1_20240103_080000.mp4");
+
+        StorageQuotaManager manager = newManager();
+        ReflectionTestUtils.setField(manager, "defaultQuotaMb", 1L);
+
+        manager.enforce(List.of(), Set.of(remuxing.toString()));
+
+        assertThat(remuxing).exists();
+        assertThat(oldest).doesNotExist();
+        assertThat(newest).doesNotExist();
+    }
+
+    @Test
+    void archiveMovesEvictedRecordings(@TempDir Path archive) throws IOException {
+        Path oldest = write("streamer1_20240101_080000.mp4");
+        Path newest = write("streamer1_20240102_080000.mp4");
+
+        StorageQuotaManager manager = newManager();
+        ReflectionTestUtils.setField(manager, "directoryQuotas", dir + ":2");
+        ReflectionTestUtils.setField(manager, "evictionAction", StorageQuotaManager.EVICTION_ARCHIVE);
+        ReflectionTestUtils.setField(manager, "archiveDir", archive.toString());
+
+        assertThat(manager.hasRoomToStart(dir.toString(), Set.of())).isTrue();
+
+        assertThat(oldest).doesNotExist();
+        assertThat(archive.resolve(oldest.getFileName())).exists();
+        assertThat(newest).exists();
+    }
+
+    @Test
+    void usageIsCachedBetweenRescansAndUpdatedByFinishedFiles() throws IOException {
+        Path oldest = write("streamer1_20240101_080000.mp4");
+        StorageQuotaManager manager = newManager();
+        ReflectionTestUtils.setField(manager, "defaultQuotaMb", 2L);
+        manager.enforce(List.of(), Set.of());
+
+        // 统计间隔内不重新列出目录，新文件只有在录制结束通知后才计入
+        Path finished = write("streamer1_20240102_080000.mp4");
+        manager.enforce(List.of(), Set.of());
+        assertThat(oldest).exists();
+
+        manager.fileFinished(dir.toString(), finished.toString());
+        manager.enforce(List.of(), Set.of());
+        assertThat(oldest).doesNotExist();
+        assertThat(finished).exists();
+    }
+
+    @Test
+    void diskWatermarkEvictionIsOffByDefault() throws IOException {
+        Path recording = write("streamer1_20240101_080000.mp4");
+        StorageQuotaManager manager = newManager();
+        ReflectionTestUtils.setField(manager, "highWatermarkPercent", 0);
+        ReflectionTestUtils.setField(manager, "lowWatermarkPercent", 0);
+
+        manager.enforce(List.of(), Set.of());
+
+        assertThat(recording).exists();
+    }
+
+    @Test
+    void diskWatermarkEvictsWhenEnabled() throws IOException {
+        Path recording = write("streamer1_20240101_080000.mp4");
+        StorageQuotaManager manager = newManager();
+        ReflectionTestUtils.setField(manager, "highWatermarkPercent", 0);
+        ReflectionTestUtils.setField(manager, "lowWatermarkPercent", 0);
+        ReflectionTestUtils.setField(manager, "diskWatermarkEviction", true);
+
+        manager.enforce(List.of(), Set.of());
+
+        assertThat(recording).doesNotExist();
+    }
+
+    @Test
+    void archiveOnSameDiskDoesNotEvictForDiskWatermark(@TempDir Path archive) throws IOException {
+        Path recording = write("streamer1_20240101_080000.mp4");
+        StorageQuotaManager manager = newManager();
+        ReflectionTestUtils.setField(manager, "highWatermarkPercent", 0);
+        ReflectionTestUtils.setField(manager, "lowWatermarkPercent", 0);
+        ReflectionTestUtils.setField(manager, "diskWatermarkEviction", true);
+        ReflectionTestUtils.setField(manager, "evictionAction", StorageQuotaManager.EVICTION_ARCHIVE);
+        ReflectionTestUtils.setField(manager, "archiveDir", archive.toString());
+
+        manager.enforce(List.of(), Set.of());
+
+        assertThat(recording).exists();
+        assertThat(archive.resolve(recording.getFileName())).doesNotExist();
+    }
+
+    @Test
+    void lowSpaceStopsRecordingsInDirectory() {
+        StorageQuotaManager manager = newManager();
+        ReflectionTestUtils.setField(manager, "stopFreeMb", Long.MAX_VALUE / MB);
+
+        Set<String> lowSpace = manager.enforce(List.of(new StorageQuotaManager.ActiveRecording(
+                dir.toString(), dir.resolve("a.flv").toString(), dir.resolve("a.mp4").toString(), 0)), Set.of());
+
+        assertThat(lowSpace).containsExactly(dir.toString());
+        assertThat(manager.hasRoomToStart(dir.toString(), Set.of())).isFalse();
+    }
+
+    private StorageQuotaManager newManager() {
+        StorageQuotaManager manager = new StorageQuotaManager(RecordingMetrics.noop());
+        ReflectionTestUtils.setField(manager, "storagePath", dir.toString());
+        return manager;
+    }
+
+    private Path write(String name) throws IOException {
+        return Files.write(dir.resolve(name), new byte[MB]);
+    }
+}
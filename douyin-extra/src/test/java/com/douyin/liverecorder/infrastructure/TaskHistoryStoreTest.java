@@ -0,0 +1,137 @@
+package com.douyin.liverecorder.infrastructure;
+
+import com.douyin.liverecorder.model.RecordingTask;
+import com.douyin.liverecorder.model.TaskStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 任务历史存储测试
+ */
+class TaskHistoryStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private TaskHistoryStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new TaskHistoryStore();
+        ReflectionTestUtils.setField(store, "historyDir", tempDir.toString());
+    }
+
+    @Test
+    void evictedTasksCanBeFoundById() {
+        List<RecordingTask> tasks = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            RecordingTask task = new RecordingTask("user" + i);
+            task.transitionTo(i % 2 == 0 ? TaskStatus.COMPLETED : TaskStatus.FAILED, s -> s);
+            task.setStartTime(LocalDateTime.of(2024, 1, 1, 12, 0));
+            task.setEndTime(LocalDateTime.of(2024, 1, 1, 13, 0));
+            task.setFileSize(i * 1024L);
+            tasks.add(task);
+        }
+
+        assertThat(store.appendAll(tasks)).isEqualTo(tasks.size());
+
+        for (RecordingTask expected : tasks) {
+            RecordingTask found = store.find(expected.getTaskId());
+            assertThat(found).isNotNull();
+            assertThat(found.getDouyinId()).isEqualTo(expected.getDouyinId());
+            assertThat(found.getStatus()).isEqualTo(expected.getStatus());
+            assertThat(found.getEndTime()).isEqualTo(expected.getEndTime());
+            assertThat(found.getFileSize()).isEqualTo(expected.getFileSize());
+        }
+    }
+
+    @Test
+    void latestRecordWinsAndUnknownIdReturnsNull() {
+        RecordingTask task = new RecordingTask("user1");
+        task.transitionTo(TaskStatus.FAILED, s -> s);
+        store.appendAll(List.of(task));
+        store.appendAll(List.of(rewritten(task, TaskStatus.COMPLETED)));
+
+        assertThat(store.find(task.getTaskId()).getStatus()).isEqualTo(TaskStatus.COMPLETED);
+        assertThat(store.find("missing-task")).isNull();
+    }
+
+    @Test
+    void indexIsRebuiltAfterRestart() {
+        RecordingTask task = new RecordingTask("user1");
+        task.transitionTo(TaskStatus.COMPLETED, s -> s);
+        store.appendAll(List.of(task));
+
+        TaskHistoryStore restarted = new TaskHistoryStore();
+        ReflectionTestUtils.setField(restarted, "historyDir", tempDir.toString());
+
+        assertThat(restarted.contains(task.getTaskId())).isTrue();
+        assertThat(restarted.contains("missing-task")).isFalse();
+        assertThat(restarted.find(task.getTaskId()).getStatus()).isEqualTo(TaskStatus.COMPLETED);
+    }
+
+    @Test
+    void compactionDropsExpiredAndOverwrittenRecords() {
+        ReflectionTestUtils.setField(store, "maxAgeDays", 30L);
+        RecordingTask expired = new RecordingTask("user1");
+        expired.transitionTo(TaskStatus.COMPLETED, s -> s);
+        expired.setEndTime(LocalDateTime.now().minusDays(31));
+        RecordingTask recent = new RecordingTask("user2");
+        recent.transitionTo(TaskStatus.FAILED, s -> s);
+        recent.setEndTime(LocalDateTime.now().minusDays(1));
+        store.appendAll(List.of(expired, recent));
+        store.appendAll(List.of(rewritten(recent, TaskStatus.COMPLETED)));
+
+        store.compactIfNeeded();
+
+        assertThat(store.find(expired.getTaskId())).isNull();
+        assertThat(store.find(recent.getTaskId()).getStatus()).isEqualTo(TaskStatus.COMPLETED);
+        assertThat(store.size()).isEqualTo(1);
+
+        // 压缩后的分桶重启后仍可读取
+        TaskHistoryStore restarted = new TaskHistoryStore();
+        ReflectionTestUtils.setField(restarted, "historyDir", tempDir.toString());
+        assertThat(restarted.find(recent.getTaskId()).getStatus()).isEqualTo(TaskStatus.COMPLETED);
+        assertThat(restarted.size()).isEqualTo(1);
+    }
+
+    @Test
+    void compactionKeepsNewestTasksWithinLimit() {
+        // 上限按分桶平均分配：64 个分桶时每个分桶最多保留 1 个任务
+        ReflectionTestUtils.setField(store, "maxTasks", 64);
+        List<RecordingTask> tasks = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            RecordingTask task = new RecordingTask("user" + i);
+            task.transitionTo(TaskStatus.COMPLETED, s -> s);
+            task.setEndTime(LocalDateTime.now().minusMinutes(500 - i));
+            tasks.add(task);
+        }
+        store.appendAll(tasks);
+
+        store.compactIfNeeded();
+
+        assertThat(store.size()).isLessThanOrEqualTo(64);
+        assertThat(store.find(tasks.get(499).getTaskId())).isNotNull();
+        assertThat(store.find(tasks.get(0).getTaskId())).isNull();
+    }
+
+    /**
+     * 同一任务ID的另一条记录（终态不能再变更，因此构造新的任务对象）
+     */
+    private static RecordingTask rewritten(RecordingTask task, TaskStatus status) {
+        RecordingTask copy = new RecordingTask(task.getDouyinId());
+        copy.setTaskId(task.getTaskId());
+        copy.setEndTime(task.getEndTime());
+        copy.transitionTo(status, s -> s);
+        return copy;
+    }
+}
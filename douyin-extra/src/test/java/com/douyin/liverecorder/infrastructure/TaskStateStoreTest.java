@@ -0,0 +1,141 @@
+package com.douyin.liverecorder.infrastructure;
+
+import com.douyin.liverecorder.model.RecordingTask;
+import com.douyin.liverecorder.model.TaskSnapshot;
+import com.douyin.liverecorder.model.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 任务状态存储测试
+ */
+class TaskStateStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private TaskStateStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = newStore();
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void replayReturnsLatestStateOfEachTask() {
+        RecordingTask waiting = new RecordingTask("user1");
+        waiting.setAutoEnabled(true);
+        waiting.transitionTo(TaskStatus.PENDING, s -> s);
+        store.record(waiting.snapshot());
+        waiting.transitionTo(TaskStatus.WAITING, s -> s);
+        store.record(waiting.snapshot());
+
+        RecordingTask recording = new RecordingTask("user2");
+        recording.transitionTo(TaskStatus.DETECTING, s -> s);
+        recording.transitionTo(TaskStatus.RECORDING, s -> s);
+        recording.setTempOutputPath("/tmp/user2.flv");
+        store.record(recording.snapshot());
+        store.close();
+
+        Map<String, RecordingTask> loaded = newStore().load();
+
+        assertThat(loaded).hasSize(2);
+        assertThat(loaded.get(waiting.getTaskId()).getStatus()).isEqualTo(TaskStatus.WAITING);
+        assertThat(loaded.get(waiting.getTaskId()).isAutoEnabled()).isTrue();
+        assertThat(loaded.get(recording.getTaskId()).getTempOutputPath()).isEqualTo("/tmp/user2.flv");
+    }
+
+    @Test
+    void compactionKeepsStateAndTruncatesLog() throws Exception {
+        RecordingTask task = new RecordingTask("user1");
+        task.transitionTo(TaskStatus.WAITING, s -> s);
+        store.record(task.snapshot());
+        store.record(task.snapshot());
+
+        store.compact(List.of(task));
+        assertThat(Files.size(tempDir.resolve("tasks.log"))).isZero();
+
+        task.transitionTo(TaskStatus.DETECTING, s -> s);
+        task.transitionTo(TaskStatus.RECORDING, s -> s);
+        store.record(task.snapshot());
+
+        Map<String, RecordingTask> loaded = store.load();
+        assertThat(loaded).hasSize(1);
+        assertThat(loaded.get(task.getTaskId()).getStatus()).isEqualTo(TaskStatus.RECORDING);
+    }
+
+    @Test
+    void replayKeepsHighestVersionWhenRecordsArriveOutOfOrder() {
+        RecordingTask task = new RecordingTask("user1");
+        task.transitionTo(TaskStatus.WAITING, s -> s);
+        TaskSnapshot older = task.snapshot();
+        task.transitionTo(TaskStatus.DETECTING, s -> s.withError("检测中"));
+        TaskSnapshot newer = task.snapshot();
+
+        // 两个线程交错写入时，较旧的记录可能后落盘
+        store.record(newer);
+        store.record(older);
+        store.close();
+
+        RecordingTask loaded = newStore().load().get(task.getTaskId());
+        assertThat(loaded.getStatus()).isEqualTo(TaskStatus.DETECTING);
+        assertThat(loaded.getError()).isEqualTo("检测中");
+        assertThat(loaded.getVersion()).isEqualTo(newer.version());
+    }
+
+    @Test
+    void recordsBeyondQueueLimitAreWrittenSynchronously() {
+        store.close();
+        store = newStore();
+        ReflectionTestUtils.setField(store, "maxPending", 1);
+        List<String> taskIds = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            RecordingTask task = new RecordingTask("user" + i);
+            taskIds.add(task.getTaskId());
+            store.record(task.snapshot());
+        }
+        store.close();
+
+        assertThat(newStore().load()).containsOnlyKeys(taskIds);
+    }
+
+    @Test
+    void tornTrailingRecordIsIgnored() throws Exception {
+        RecordingTask task = new RecordingTask("user1");
+        task.transitionTo(TaskStatus.WAITING, s -> s);
+        store.record(task.snapshot());
+        store.close();
+
+        Files.writeString(tempDir.resolve("tasks.log"), "{\"taskId\":\"broken", StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+
+        Map<String, RecordingTask> loaded = newStore().load();
+        assertThat(loaded).containsOnlyKeys(task.getTaskId());
+    }
+
+    private TaskStateStore newStore() {
+        TaskStateStore stateStore = new TaskStateStore();
+        ReflectionTestUtils.setField(stateStore, "enabled", true);
+        ReflectionTestUtils.setField(stateStore, "stateDir", tempDir.toString());
+        ReflectionTestUtils.setField(stateStore, "compactThresholdBytes", 1024L);
+        return stateStore;
+    }
+}
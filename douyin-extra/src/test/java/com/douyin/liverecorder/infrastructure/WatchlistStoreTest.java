@@ -0,0 +1,60 @@
+package com.douyin.liverecorder.infrastructure;
+
+import com.douyin.liverecorder.model.WatchlistEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 关注列表存储测试：文件无法解析时备份并拒绝覆盖
+ */
+class WatchlistStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void savedEntriesAreLoadedBack() {
+        WatchlistStore store = newStore();
+        assertThat(store.save(List.of(new WatchlistEntry("streamer1", "/data/a", 5)))).isTrue();
+
+        List<WatchlistEntry> loaded = newStore().load();
+
+        assertThat(loaded).extracting(WatchlistEntry::getDouyinId).containsExactly("streamer1");
+        assertThat(loaded.get(0).getPriority()).isEqualTo(5);
+    }
+
+    @Test
+    void corruptFileIsBackedUpAndNeverOverwritten() throws IOException {
+        Path file = tempDir.resolve("watchlist.json");
+        String corrupt = "[{\"douyinId\": \"streamer1\", ";
+        Files.writeString(file, corrupt, StandardCharsets.UTF_8);
+        WatchlistStore store = newStore();
+
+        assertThat(store.load()).isEmpty();
+        assertThat(store.save(List.of(new WatchlistEntry("streamer2", null, null)))).isFalse();
+
+        assertThat(Files.readString(file, StandardCharsets.UTF_8)).isEqualTo(corrupt);
+        try (Stream<Path> files = Files.list(tempDir)) {
+            List<Path> backups = files.filter(path -> path.getFileName().toString().startsWith("watchlist.json.corrupt-"))
+                    .toList();
+            assertThat(backups).hasSize(1);
+            assertThat(Files.readString(backups.get(0), StandardCharsets.UTF_8)).isEqualTo(corrupt);
+        }
+    }
+
+    private WatchlistStore newStore() {
+        WatchlistStore store = new WatchlistStore();
+        ReflectionTestUtils.setField(store, "watchlistFile", tempDir.resolve("watchlist.json").toString());
+        return store;
+    }
+}
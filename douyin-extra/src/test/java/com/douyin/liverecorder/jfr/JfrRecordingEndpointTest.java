@@ -0,0 +1,63 @@
+package com.douyin.liverecorder.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JFR录制端点测试：开始、导出、停止
+ */
+class JfrRecordingEndpointTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final JfrRecordingEndpoint endpoint = new JfrRecordingEndpoint();
+
+    @AfterEach
+    void tearDown() {
+        endpoint.stop();
+    }
+
+    @Test
+    void dumpContainsTaskEventsWithTaskFields() throws Exception {
+        ReflectionTestUtils.setField(endpoint, "dumpDir", tempDir.toString());
+        assertThat(endpoint.control("start").getStatus()).isEqualTo(WebEndpointResponse.STATUS_OK);
+
+        TaskPhaseEvent phase = TaskPhaseEvent.start("task-1", "streamer1", "detect");
+        phase.finish("live");
+        phase.finish("failed");
+        TaskLogEvent.start("task-1", "streamer1", "CREATED", "PENDING").commit();
+
+        WebEndpointResponse<Map<String, Object>> response = endpoint.control("dump");
+        assertThat(response.getStatus()).isEqualTo(WebEndpointResponse.STATUS_OK);
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(Path.of((String) response.getBody().get("file")));
+        List<RecordedEvent> phases = events.stream()
+                .filter(event -> event.getEventType().getName().equals("com.douyin.liverecorder.TaskPhase"))
+                .toList();
+        assertThat(phases).hasSize(1);
+        assertThat(phases.get(0).getString("taskId")).isEqualTo("task-1");
+        assertThat(phases.get(0).getString("douyinId")).isEqualTo("streamer1");
+        assertThat(phases.get(0).getString("outcome")).isEqualTo("live");
+        assertThat(events).anyMatch(event -> event.getEventType().getName().equals("com.douyin.liverecorder.TaskLog")
+                && "CREATED".equals(event.getString("event")));
+    }
+
+    @Test
+    void dumpWithoutRecordingAndUnknownActionAreRejected() {
+        assertThat(endpoint.control("dump").getStatus()).isEqualTo(WebEndpointResponse.STATUS_BAD_REQUEST);
+        assertThat(endpoint.control("restart").getStatus()).isEqualTo(WebEndpointResponse.STATUS_BAD_REQUEST);
+        assertThat(endpoint.status().get("state")).isEqualTo("CLOSED");
+    }
+}
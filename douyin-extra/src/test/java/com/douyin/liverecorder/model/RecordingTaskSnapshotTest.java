@@ -0,0 +1,122 @@
+package com.douyin.liverecorder.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 录制任务快照与状态机测试
+ */
+class RecordingTaskSnapshotTest {
+
+    @Test
+    void everyChangeBumpsVersionAndKeepsOldSnapshotIntact() {
+        RecordingTask task = new RecordingTask("streamer1");
+        TaskSnapshot before = task.snapshot();
+
+        task.setOutputDir("/data/a");
+        task.setPriority(3);
+
+        assertThat(task.getVersion()).isEqualTo(before.version() + 2);
+        assertThat(before.outputDir()).isNull();
+        assertThat(task.snapshot().outputDir()).isEqualTo("/data/a");
+        assertThat(task.snapshot().douyinId()).isEqualTo("streamer1");
+    }
+
+    @Test
+    void transitionsFollowStateMachine() {
+        RecordingTask task = new RecordingTask("streamer1");
+
+        assertThat(task.transitionTo(TaskStatus.WAITING, s -> s)).isNotNull();
+        assertThat(task.transitionTo(TaskStatus.DETECTING, s -> s)).isNotNull();
+        assertThat(task.transitionTo(TaskStatus.RECORDING, s -> s.withStartTime(LocalDateTime.now()))).isNotNull();
+        assertThat(task.transitionTo(TaskStatus.FAILED, s -> s.withError("录制失败"))).isNotNull();
+
+        // 终态不能再变更
+        assertThat(task.transitionTo(TaskStatus.RECORDING, s -> s)).isNull();
+        assertThat(task.getStatus()).isEqualTo(TaskStatus.FAILED);
+        assertThat(task.getError()).isEqualTo("录制失败");
+        assertThat(TaskStatus.RECORDING.canTransitionTo(TaskStatus.QUEUED)).isFalse();
+        assertThat(TaskStatus.STOPPING.canTransitionTo(TaskStatus.CANCELLED)).isTrue();
+    }
+
+    @Test
+    void illegalTransitionsAreRejected() {
+        // 未开播检测前不能排队或录制
+        assertThat(TaskStatus.PENDING.canTransitionTo(TaskStatus.QUEUED)).isFalse();
+        assertThat(TaskStatus.PENDING.canTransitionTo(TaskStatus.RECORDING)).isFalse();
+        assertThat(TaskStatus.WAITING.canTransitionTo(TaskStatus.QUEUED)).isFalse();
+        assertThat(TaskStatus.WAITING.canTransitionTo(TaskStatus.RECORDING)).isFalse();
+        // 不能回退
+        assertThat(TaskStatus.WAITING.canTransitionTo(TaskStatus.PENDING)).isFalse();
+        assertThat(TaskStatus.DETECTING.canTransitionTo(TaskStatus.WAITING)).isFalse();
+        assertThat(TaskStatus.QUEUED.canTransitionTo(TaskStatus.DETECTING)).isFalse();
+        assertThat(TaskStatus.RECORDING.canTransitionTo(TaskStatus.DETECTING)).isFalse();
+        assertThat(TaskStatus.STOPPING.canTransitionTo(TaskStatus.RECORDING)).isFalse();
+        assertThat(TaskStatus.COMPLETED.canTransitionTo(TaskStatus.FAILED)).isFalse();
+        assertThat(TaskStatus.CANCELLED.canTransitionTo(TaskStatus.STOPPING)).isFalse();
+        assertThat(TaskStatus.RECORDING.canTransitionTo(null)).isFalse();
+
+        // 未结束的任务随时可以停止或结束
+        for (TaskStatus status : TaskStatus.values()) {
+            if (!status.isTerminal()) {
+                assertThat(status.canTransitionTo(TaskStatus.STOPPING)).as(status.name()).isTrue();
+                assertThat(status.canTransitionTo(TaskStatus.CANCELLED)).as(status.name()).isTrue();
+            }
+        }
+
+        RecordingTask task = new RecordingTask("streamer1");
+        assertThat(task.transitionTo(TaskStatus.RECORDING, s -> s)).isNull();
+        assertThat(task.getStatus()).isEqualTo(TaskStatus.PENDING);
+    }
+
+    @Test
+    void onlyTasksThatHaveNotStartedRecordingCanBeResetForRestart() {
+        RecordingTask waiting = new RecordingTask("streamer1");
+        waiting.transitionTo(TaskStatus.WAITING, s -> s.withError("检测失败"));
+        assertThat(waiting.resetForRestart()).isTrue();
+        assertThat(waiting.getStatus()).isEqualTo(TaskStatus.PENDING);
+        assertThat(waiting.getError()).isNull();
+
+        RecordingTask recording = new RecordingTask("streamer2");
+        recording.transitionTo(TaskStatus.DETECTING, s -> s);
+        recording.transitionTo(TaskStatus.RECORDING, s -> s);
+        assertThat(recording.resetForRestart()).isFalse();
+        recording.transitionTo(TaskStatus.COMPLETED, s -> s);
+        assertThat(recording.resetForRestart()).isFalse();
+        assertThat(recording.getStatus()).isEqualTo(TaskStatus.COMPLETED);
+    }
+
+    @Test
+    void readersNeverSeeStatusWithoutItsFields() throws Exception {
+        AtomicInteger inconsistent = new AtomicInteger();
+        AtomicBoolean running = new AtomicBoolean(true);
+        RecordingTask[] current = {new RecordingTask("streamer1")};
+
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                TaskSnapshot snapshot = current[0].snapshot();
+                if (snapshot.status() == TaskStatus.FAILED && snapshot.error() == null
+                        || snapshot.status() == TaskStatus.RECORDING && snapshot.startTime() == null) {
+                    inconsistent.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 20_000; i++) {
+            RecordingTask task = new RecordingTask("streamer" + i);
+            current[0] = task;
+            task.transitionTo(TaskStatus.DETECTING, s -> s);
+            task.transitionTo(TaskStatus.RECORDING, s -> s.withStartTime(LocalDateTime.now()));
+            task.transitionTo(TaskStatus.FAILED, s -> s.withError("录制失败"));
+        }
+        running.set(false);
+        reader.join();
+
+        assertThat(inconsistent.get()).isZero();
+    }
+}
@@ -0,0 +1,150 @@
+package com.douyin.liverecorder.service;
+
+import com.douyin.liverecorder.dto.BulkRecordingResult;
+import com.douyin.liverecorder.dto.StartRecordingRequest;
+import com.douyin.liverecorder.infrastructure.FileSystemManager;
+import com.douyin.liverecorder.infrastructure.StoragePool;
+import com.douyin.liverecorder.model.RecordingTask;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 批量录制服务测试
+ */
+class BulkRecordingServiceTest {
+
+    private RecordingManager manager;
+    private FileSystemManager fileSystemManager;
+    private BulkRecordingService service;
+
+    @BeforeEach
+    void setUp() {
+        manager = mock(RecordingManager.class);
+        fileSystemManager = mock(FileSystemManager.class);
+        service = new BulkRecordingService(manager, fileSystemManager, mock(StoragePool.class));
+        ReflectionTestUtils.setField(service, "defaultAutoEnabled", true);
+        ReflectionTestUtils.setField(service, "maxItems", 10_000);
+
+        when(fileSystemManager.isWritableDirectory("/data/a")).thenReturn(true);
+        when(fileSystemManager.isWritableDirectory("/data/bad")).thenReturn(false);
+        when(manager.createTask(anyString(), anyBoolean(), anyString(), any()))
+                .thenAnswer(invocation -> new RecordingTask(invocation.getArgument(0)));
+        when(manager.startTask(anyString())).thenReturn(true);
+    }
+
+    @Test
+    void csvImportReportsEachLineInOrder() throws Exception {
+        String csv = String.join("\n",
+                "douyinId,outputDir,priority",
+                "user1,,5",
+                "bad-id!,,",
+                "user2,/data/bad,",
+                "user1,,",
+                "user3,,");
+        StartRecordingRequest defaults = new StartRecordingRequest();
+        defaults.setOutputDir("/data/a");
+
+        List<BulkRecordingService.BulkItem> items =
+                service.parse(new StringReader(csv), BulkRecordingService.Format.CSV, defaults);
+        List<BulkRecordingResult> results = new ArrayList<>();
+        int created = service.createAll(items, results::add);
+
+        assertThat(created).isEqualTo(2);
+        assertThat(results).extracting(BulkRecordingResult::getResult).containsExactly(
+                BulkRecordingResult.CREATED,
+                BulkRecordingResult.INVALID,
+                BulkRecordingResult.INVALID,
+                BulkRecordingResult.DUPLICATE,
+                BulkRecordingResult.CREATED);
+        assertThat(results).extracting(BulkRecordingResult::getLine).containsExactly(2, 3, 4, 5, 6);
+        verify(manager).createTask("user1", true, "/data/a", 5);
+        // 同一保存目录只校验一次
+        verify(fileSystemManager, times(1)).isWritableDirectory("/data/a");
+    }
+
+    @Test
+    void csvAutoColumnIsParsedStrictly() throws Exception {
+        String csv = String.join("\n",
+                "douyinId,outputDir,auto",
+                "user1,/data/a,FALSE",
+                "user2,/data/a,ture",
+                "user3,/data/a,True");
+
+        List<BulkRecordingService.BulkItem> items =
+                service.parse(new StringReader(csv), BulkRecordingService.Format.CSV, null);
+        List<BulkRecordingResult> results = new ArrayList<>();
+        service.createAll(items, results::add);
+
+        assertThat(results).extracting(BulkRecordingResult::getResult).containsExactly(
+                BulkRecordingResult.CREATED, BulkRecordingResult.INVALID, BulkRecordingResult.CREATED);
+        assertThat(results.get(1).getError()).contains("auto").contains("ture");
+        verify(manager).createTask("user1", false, "/data/a", null);
+        verify(manager).createTask("user3", true, "/data/a", null);
+        verify(manager, never()).createTask(eq("user2"), anyBoolean(), anyString(), any());
+    }
+
+    @Test
+    void ndjsonImportReportsRejectedTasks() throws Exception {
+        String ndjson = "{\"douyinId\":\"user1\",\"auto\":false,\"outputDir\":\"/data/a\"}\n"
+                + "not json\n"
+                + "{\"douyinId\":\"user2\",\"outputDir\":\"/data/a\"}\n";
+        when(manager.createTask(eq("user2"), anyBoolean(), anyString(), any()))
+                .thenThrow(new IllegalStateException("当前录制任务已达上限（5个），请稍后重试"));
+
+        List<BulkRecordingService.BulkItem> items =
+                service.parse(new StringReader(ndjson), BulkRecordingService.Format.NDJSON, null);
+        List<BulkRecordingResult> results = new ArrayList<>();
+        service.createAll(items, results::add);
+
+        assertThat(results).extracting(BulkRecordingResult::getResult).containsExactly(
+                BulkRecordingResult.CREATED, BulkRecordingResult.INVALID, BulkRecordingResult.REJECTED);
+        assertThat(results.get(2).getError()).contains("上限");
+        verify(manager).createTask("user1", false, "/data/a", null);
+    }
+
+    @Test
+    void clientDisconnectDoesNotAbortTheImport() throws Exception {
+        String csv = "user1,/data/a\nuser2,/data/a\nuser3,/data/a\n";
+        List<BulkRecordingService.BulkItem> items =
+                service.parse(new StringReader(csv), BulkRecordingService.Format.CSV, null);
+        List<BulkRecordingResult> results = new ArrayList<>();
+
+        int created = service.createAll(items, result -> {
+            if (!results.isEmpty()) {
+                throw new UncheckedIOException(new IOException("Broken pipe"));
+            }
+            results.add(result);
+        });
+
+        // 写出第二条结果时客户端已断开，剩余条目仍然全部创建
+        assertThat(created).isEqualTo(3);
+        assertThat(results).hasSize(1);
+        verify(manager).createTask("user3", true, "/data/a", null);
+    }
+
+    @Test
+    void rejectsOversizedRequests() {
+        ReflectionTestUtils.setField(service, "maxItems", 2);
+        assertThatThrownBy(() -> service.parse(new StringReader("a\nb\nc\n"), BulkRecordingService.Format.CSV, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
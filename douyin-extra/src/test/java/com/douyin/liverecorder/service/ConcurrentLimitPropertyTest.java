@@ -27,7 +27,8 @@ class ConcurrentLimitPropertyTest {
         List<RecordingTask> tasks = new ArrayList<>();
         for (int i = 0; i < maxConcurrentTasks; i++) {
             RecordingTask task = manager.createTask("user" + i, false, "D:\\recordings");
-            task.setStatus(TaskStatus.RECORDING);
+            task.transitionTo(TaskStatus.DETECTING, s -> s);
+            task.transitionTo(TaskStatus.RECORDING, s -> s);
             tasks.add(task);
         }
 
@@ -56,7 +57,8 @@ class ConcurrentLimitPropertyTest {
         List<RecordingTask> tasks = new ArrayList<>();
         for (int i = 0; i < maxConcurrentTasks; i++) {
             RecordingTask task = manager.createTask("user" + i, false, "D:\\recordings");
-            task.setStatus(TaskStatus.RECORDING);
+            task.transitionTo(TaskStatus.DETECTING, s -> s);
+            task.transitionTo(TaskStatus.RECORDING, s -> s);
             tasks.add(task);
         }
 
@@ -64,13 +66,14 @@ class ConcurrentLimitPropertyTest {
             .isInstanceOf(IllegalStateException.class);
 
         for (int i = 0; i < actualTasksToComplete; i++) {
-            tasks.get(i).setStatus(TaskStatus.COMPLETED);
+            tasks.get(i).transitionTo(TaskStatus.COMPLETED, s -> s);
         }
 
         List<RecordingTask> newTasks = new ArrayList<>();
         for (int i = 0; i < actualTasksToComplete; i++) {
             RecordingTask newTask = manager.createTask("newUser" + i, false, "D:\\recordings");
-            newTask.setStatus(TaskStatus.RECORDING);
+            newTask.transitionTo(TaskStatus.DETECTING, s -> s);
+            newTask.transitionTo(TaskStatus.RECORDING, s -> s);
             newTasks.add(newTask);
         }
 
@@ -89,7 +92,8 @@ class ConcurrentLimitPropertyTest {
 
         for (int i = 0; i < maxConcurrentTasks; i++) {
             RecordingTask task = manager.createTask("user" + i, false, "D:\\recordings");
-            task.setStatus(TaskStatus.RECORDING);
+            task.transitionTo(TaskStatus.DETECTING, s -> s);
+            task.transitionTo(TaskStatus.RECORDING, s -> s);
         }
 
         assertThatThrownBy(() -> manager.createTask("extraUser", false, "D:\\recordings"))
@@ -109,13 +113,14 @@ class ConcurrentLimitPropertyTest {
         int activeCount = maxConcurrentTasks / 2;
         for (int i = 0; i < activeCount; i++) {
             RecordingTask task = manager.createTask("activeUser" + i, false, "D:\\recordings");
-            task.setStatus(TaskStatus.RECORDING);
+            task.transitionTo(TaskStatus.DETECTING, s -> s);
+            task.transitionTo(TaskStatus.RECORDING, s -> s);
             tasks.add(task);
         }
 
         for (int i = 0; i < 5; i++) {
             RecordingTask task = manager.createTask("completedUser" + i, false, "D:\\recordings");
-            task.setStatus(TaskStatus.COMPLETED);
+            task.transitionTo(TaskStatus.COMPLETED, s -> s);
             tasks.add(task);
         }
 
@@ -156,7 +161,7 @@ class ConcurrentLimitPropertyTest {
             RecordingTask task = new RecordingTask(douyinId);
             task.setAutoEnabled(autoEnabled);
             task.setOutputDir(outputDir);
-            task.setStatus(TaskStatus.PENDING);
+            task.transitionTo(TaskStatus.PENDING, s -> s);
             taskMap.put(task.getTaskId(), task);
             return task;
         }
@@ -108,7 +108,8 @@ class ConcurrentRecordingPropertyTest {
             RecordingTask task1 = tasks.get(0);
             RecordingTask task2 = tasks.get(1);
 
-            task1.setStatus(TaskStatus.RECORDING);
+            task1.transitionTo(TaskStatus.DETECTING, s -> s);
+            task1.transitionTo(TaskStatus.RECORDING, s -> s);
             task1.setError("test error");
 
             assertThat(task2.getStatus()).isEqualTo(TaskStatus.PENDING);
@@ -155,7 +156,7 @@ class ConcurrentRecordingPropertyTest {
             RecordingTask task = new RecordingTask(douyinId);
             task.setAutoEnabled(autoEnabled);
             task.setOutputDir(outputDir);
-            task.setStatus(TaskStatus.PENDING);
+            task.transitionTo(TaskStatus.PENDING, s -> s);
             taskMap.put(task.getTaskId(), task);
             return task;
         }
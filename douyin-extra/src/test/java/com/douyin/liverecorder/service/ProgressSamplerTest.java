@@ -0,0 +1,77 @@
+package com.douyin.liverecorder.service;
+
+import com.douyin.liverecorder.model.RecordingStatus;
+import com.douyin.liverecorder.model.RecordingTask;
+import com.douyin.liverecorder.model.TaskSnapshot;
+import com.douyin.liverecorder.model.TaskStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 录制进度采样器测试
+ */
+class ProgressSamplerTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void bitrateReflectsRecentWindowNotLifetimeAverage() throws IOException {
+        Path file = tempDir.resolve("test.flv");
+        RecordingTask task = recordingTask(file);
+        ProgressSampler sampler = new ProgressSampler(3);
+
+        // 前两秒每秒写入 1MB，之后每秒写入 250KB
+        long[] sizes = {1_000_000, 2_000_000, 2_250_000, 2_500_000};
+        long written = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            Files.write(file, new byte[(int) sizes[i]]);
+            written += sampler.sample(List.of(task.snapshot()), i * SECOND);
+        }
+        // 首次采样只建立基准，之后累计每次的增量
+        assertThat(written).isEqualTo(1_500_000);
+
+        RecordingStatus.Progress progress = sampler.progress(task.snapshot());
+        assertThat(progress.getFileSize()).isEqualTo(2_500_000);
+        // 窗口内最后3个样本：2s 内增长 500KB => 2 Mbps
+        assertThat(progress.getBitrate()).isEqualTo("2.00 Mbps");
+        assertThat(progress.getDuration()).isGreaterThanOrEqualTo(60);
+    }
+
+    @Test
+    void readsDoNotTouchFilesAndStoppedTasksAreDropped() throws IOException {
+        Path file = tempDir.resolve("test.flv");
+        Files.write(file, new byte[1024]);
+        RecordingTask task = recordingTask(file);
+        ProgressSampler sampler = new ProgressSampler();
+
+        sampler.sample(List.of(task.snapshot()), 0);
+        Files.write(file, new byte[4096]);
+        // 查询只返回最近一次采样的结果
+        assertThat(sampler.progress(task.snapshot()).getFileSize()).isEqualTo(1024);
+
+        sampler.sample(List.<TaskSnapshot>of(), SECOND);
+        assertThat(sampler.progress(task.snapshot()).getFileSize()).isZero();
+        assertThat(sampler.progress(task.snapshot()).getBitrate()).isNull();
+    }
+
+    private RecordingTask recordingTask(Path tempOutput) {
+        RecordingTask task = new RecordingTask("streamer1");
+        task.setTempOutputPath(tempOutput.toString());
+        task.setOutputPath(tempDir.resolve("test.mp4").toString());
+        task.setStartTime(LocalDateTime.now().minusMinutes(1));
+        task.transitionTo(TaskStatus.DETECTING, s -> s);
+        task.transitionTo(TaskStatus.RECORDING, s -> s);
+        return task;
+    }
+}
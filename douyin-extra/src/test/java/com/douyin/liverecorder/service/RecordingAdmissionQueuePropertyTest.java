@@ -0,0 +1,126 @@
+package com.douyin.liverecorder.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.IntRange;
+import net.jqwik.api.constraints.Size;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Property tests for priority admission of recording slots.
+ */
+class RecordingAdmissionQueuePropertyTest {
+
+    @Property(tries = 100)
+    @Label("Free slots are granted immediately up to the limit")
+    void freeSlotsAreGrantedImmediately(
+            @ForAll @IntRange(min = 1, max = 5) int maxSlots,
+            @ForAll @IntRange(min = 0, max = 5) int extraTasks) {
+
+        RecordingAdmissionQueue queue = newQueue(maxSlots, 100, false);
+
+        for (int i = 0; i < maxSlots; i++) {
+            RecordingAdmissionQueue.Ticket ticket = queue.enqueue("task" + i, 0);
+            assertThat(ticket.isGranted()).isTrue();
+        }
+        for (int i = 0; i < extraTasks; i++) {
+            RecordingAdmissionQueue.Ticket ticket = queue.enqueue("extra" + i, 0);
+            assertThat(ticket.isGranted()).isFalse();
+        }
+
+        assertThat(queue.getRunningCount()).isEqualTo(maxSlots);
+        assertThat(queue.getQueueDepth()).isEqualTo(extraTasks);
+    }
+
+    @Property(tries = 100)
+    @Label("Released slots go to the highest priority, then the earliest, waiter")
+    void releasedSlotsFollowPriorityThenArrival(
+            @ForAll @Size(min = 1, max = 10) List<@IntRange(min = -5, max = 5) Integer> priorities) {
+
+        RecordingAdmissionQueue queue = newQueue(1, 100, false);
+        queue.enqueue("holder", 0);
+
+        List<RecordingAdmissionQueue.Ticket> tickets = new ArrayList<>();
+        for (int i = 0; i < priorities.size(); i++) {
+            tickets.add(queue.enqueue("waiter" + i, priorities.get(i)));
+        }
+
+        List<RecordingAdmissionQueue.Ticket> expectedOrder = new ArrayList<>(tickets);
+        expectedOrder.sort(Comparator
+                .comparingInt(RecordingAdmissionQueue.Ticket::getPriority).reversed()
+                .thenComparingInt(tickets::indexOf));
+
+        String current = "holder";
+        for (RecordingAdmissionQueue.Ticket expected : expectedOrder) {
+            queue.release(current);
+            assertThat(expected.isGranted()).isTrue();
+            assertThat(tickets.stream().filter(RecordingAdmissionQueue.Ticket::isGranted).count())
+                    .isEqualTo(expectedOrder.indexOf(expected) + 1L);
+            current = expected.getTaskId();
+        }
+    }
+
+    @Property(tries = 50)
+    @Label("Enqueue is rejected once the waiting queue is full")
+    void enqueueRejectedWhenQueueFull(
+            @ForAll @IntRange(min = 1, max = 3) int maxSlots,
+            @ForAll @IntRange(min = 0, max = 5) int maxQueueSize) {
+
+        RecordingAdmissionQueue queue = newQueue(maxSlots, maxQueueSize, false);
+        for (int i = 0; i < maxSlots + maxQueueSize; i++) {
+            assertThat(queue.enqueue("task" + i, 0)).isNotNull();
+        }
+
+        assertThat(queue.hasRoom()).isFalse();
+        assertThat(queue.enqueue("overflow", 10)).isNull();
+        assertThat(queue.getQueueDepth()).isEqualTo(maxQueueSize);
+    }
+
+    @Example
+    @Label("Preemption picks the lowest priority running task once per waiter")
+    void preemptionPicksLowestPriorityRunningTask() {
+        RecordingAdmissionQueue queue = newQueue(2, 10, true);
+        queue.enqueue("low", 1);
+        queue.enqueue("mid", 3);
+
+        RecordingAdmissionQueue.Ticket urgent = queue.enqueue("urgent", 5);
+        assertThat(urgent.isGranted()).isFalse();
+        assertThat(queue.selectPreemptionVictim(urgent)).isEqualTo("low");
+        assertThat(queue.selectPreemptionVictim(urgent)).isNull();
+
+        RecordingAdmissionQueue.Ticket modest = queue.enqueue("modest", 2);
+        assertThat(queue.selectPreemptionVictim(modest)).isNull();
+
+        queue.release("low");
+        assertThat(urgent.isGranted()).isTrue();
+        assertThat(modest.isGranted()).isFalse();
+    }
+
+    @Example
+    @Label("Cancelled waiters leave the queue")
+    void cancelledWaitersLeaveQueue() throws InterruptedException {
+        RecordingAdmissionQueue queue = newQueue(1, 10, false);
+        queue.enqueue("holder", 0);
+        RecordingAdmissionQueue.Ticket waiter = queue.enqueue("waiter", 0);
+
+        queue.release("waiter");
+
+        assertThat(queue.await(waiter, () -> false)).isFalse();
+        assertThat(queue.getQueueDepth()).isZero();
+    }
+
+    private RecordingAdmissionQueue newQueue(int maxSlots, int maxQueueSize, boolean preemption) {
+        RecordingAdmissionQueue queue = new RecordingAdmissionQueue(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(queue, "maxSlots", maxSlots);
+        ReflectionTestUtils.setField(queue, "queueEnabled", true);
+        ReflectionTestUtils.setField(queue, "maxQueueSize", maxQueueSize);
+        ReflectionTestUtils.setField(queue, "preemptionEnabled", preemption);
+        return queue;
+    }
+}
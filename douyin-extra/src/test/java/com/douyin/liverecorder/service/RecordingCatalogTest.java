@@ -0,0 +1,158 @@
+package com.douyin.liverecorder.service;
+
+import com.douyin.liverecorder.infrastructure.RecordingCatalogStore;
+import com.douyin.liverecorder.infrastructure.StoragePool;
+import com.douyin.liverecorder.model.RecordingFile;
+import com.douyin.liverecorder.model.TaskSnapshot;
+import com.douyin.liverecorder.model.TaskStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 录制文件目录测试：扫描建立索引、按主播和时间分页、增量更新、任务结束时写入准确时长
+ */
+class RecordingCatalogTest {
+
+    @TempDir
+    Path base;
+
+    @Test
+    void scanIndexesValidRecordingsInSubdirectories() throws IOException {
+        Path recordings = base.resolve("recordings");
+        write(recordings.resolve("alice_20240101_080000.mp4"), 10);
+        write(recordings.resolve("sub").resolve("bob_20240102_090000.mp4"), 20);
+        write(recordings.resolve("notes.txt"), 5);
+        write(recordings.resolve("alice_20240103_080000.flv"), 5);
+        RecordingCatalog catalog = newCatalog(recordings);
+
+        catalog.scan();
+
+        assertThat(catalog.size()).isEqualTo(2);
+        RecordingCatalog.Page page = catalog.query("bob", null, null, null, 10);
+        assertThat(page.items()).extracting(RecordingFile::size).containsExactly(20L);
+        assertThat(page.items().get(0).recordedAt()).isEqualTo(LocalDateTime.of(2024, 1, 2, 9, 0, 0));
+        assertThat(catalog.streamers()).extracting(RecordingCatalog.StreamerSummary::douyinId)
+                .containsExactly("alice", "bob");
+    }
+
+    @Test
+    void queryPagesByTimeDescendingWithinRange() throws IOException {
+        Path recordings = base.resolve("recordings");
+        for (int day = 1; day <= 5; day++) {
+            write(recordings.resolve(String.format("alice_2024010%d_080000.mp4", day)), day);
+        }
+        write(recordings.resolve("bob_20240104_120000.mp4"), 100);
+        RecordingCatalog catalog = newCatalog(recordings);
+        catalog.scan();
+
+        RecordingCatalog.Page first = catalog.query("alice", null, null, null, 2);
+        assertThat(first.items()).extracting(RecordingFile::size).containsExactly(5L, 4L);
+        RecordingCatalog.Page second = catalog.query("alice", null, null, first.nextCursor(), 2);
+        assertThat(second.items()).extracting(RecordingFile::size).containsExactly(3L, 2L);
+        RecordingCatalog.Page last = catalog.query("alice", null, null, second.nextCursor(), 2);
+        assertThat(last.items()).extracting(RecordingFile::size).containsExactly(1L);
+        assertThat(last.nextCursor()).isNull();
+
+        RecordingCatalog.Page ranged = catalog.query(null, LocalDateTime.of(2024, 1, 2, 0, 0),
+                LocalDateTime.of(2024, 1, 4, 12, 0), null, 10);
+        assertThat(ranged.items()).extracting(RecordingFile::size).containsExactly(100L, 4L, 3L, 2L);
+
+        assertThat(catalog.query("carol", null, null, null, 10).items()).isEmpty();
+        assertThatThrownBy(() -> catalog.query(null, null, null, "not-a-cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void refreshAndReconcileTrackFileChanges() throws IOException {
+        Path recordings = base.resolve("recordings");
+        Path first = write(recordings.resolve("alice_20240101_080000.mp4"), 10);
+        RecordingCatalog catalog = newCatalog(recordings);
+        catalog.scan();
+
+        Path second = write(recordings.resolve("alice_20240102_080000.mp4"), 20);
+        catalog.refreshFile(second);
+        assertThat(catalog.size()).isEqualTo(2);
+
+        Files.delete(first);
+        catalog.refreshFile(first);
+        assertThat(catalog.query("alice", null, null, null, 10).items())
+                .extracting(RecordingFile::path).containsExactly(second.toString());
+
+        Files.delete(second);
+        catalog.reconcileDirectory(recordings.toAbsolutePath().normalize());
+        assertThat(catalog.size()).isZero();
+        assertThat(catalog.streamers()).isEmpty();
+    }
+
+    @Test
+    void completedTaskRecordsExactDurationThatSurvivesRescan() throws IOException {
+        Path recordings = base.resolve("recordings");
+        Path file = write(recordings.resolve("alice_20240101_080000.mp4"), 10);
+        RecordingCatalog catalog = newCatalog(recordings);
+
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 8, 0, 0);
+        TaskSnapshot snapshot = new TaskSnapshot("t1", "alice", TaskStatus.COMPLETED, null, file.toString(),
+                recordings.toString(), null, false, 0, false, start, start, start.plusSeconds(90), 10L, null, 1L);
+        catalog.onStatusChanged(snapshot);
+        catalog.scan();
+
+        List<RecordingFile> items = catalog.query("alice", null, null, null, 10).items();
+        assertThat(items).hasSize(1);
+        assertThat(items.get(0).durationSeconds()).isEqualTo(90);
+    }
+
+    @Test
+    void fileBeingWrittenIsIndexedOnlyWhenTaskCompletes() throws IOException {
+        Path recordings = base.resolve("recordings");
+        Path file = write(recordings.resolve("alice_20240101_080000.mp4"), 10);
+        RecordingManager manager = mock(RecordingManager.class);
+        when(manager.inUsePaths()).thenReturn(Set.of(file.toString()));
+        RecordingCatalog catalog = newCatalog(recordings, manager);
+
+        catalog.refreshFile(file);
+        catalog.scan();
+        assertThat(catalog.size()).isZero();
+
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 8, 0, 0);
+        TaskSnapshot snapshot = new TaskSnapshot("t1", "alice", TaskStatus.COMPLETED, null, file.toString(),
+                recordings.toString(), null, false, 0, false, start, start, start.plusSeconds(60), 10L, null, 1L);
+        catalog.onStatusChanged(snapshot);
+        when(manager.inUsePaths()).thenReturn(Set.of());
+        catalog.refreshFile(file);
+
+        List<RecordingFile> items = catalog.query("alice", null, null, null, 10).items();
+        assertThat(items).hasSize(1);
+        assertThat(items.get(0).durationSeconds()).isEqualTo(60);
+    }
+
+    private RecordingCatalog newCatalog(Path recordings) {
+        return newCatalog(recordings, mock(RecordingManager.class));
+    }
+
+    private RecordingCatalog newCatalog(Path recordings, RecordingManager manager) {
+        RecordingCatalogStore store = new RecordingCatalogStore();
+        ReflectionTestUtils.setField(store, "snapshotFile", base.resolve("catalog.bin").toString());
+        RecordingCatalog catalog = new RecordingCatalog(manager, store, mock(StoragePool.class));
+        ReflectionTestUtils.setField(catalog, "storagePath", recordings.toString());
+        ReflectionTestUtils.setField(catalog, "watch", false);
+        return catalog;
+    }
+
+    private static Path write(Path file, int size) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.write(file, new byte[size]);
+    }
+}
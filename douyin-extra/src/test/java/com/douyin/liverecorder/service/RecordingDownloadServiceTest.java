@@ -0,0 +1,197 @@
+package com.douyin.liverecorder.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 录制文件下载测试：完整下载、Range、条件请求、sendfile 和限速
+ */
+class RecordingDownloadServiceTest {
+
+    @TempDir
+    Path base;
+
+    @Test
+    void fullDownloadSetsValidatorsAndBody() throws IOException {
+        Path file = write(1000);
+        RecordingDownloadService service = newService(0);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(service.serve(file, get(), response)).isTrue();
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader("Accept-Ranges")).isEqualTo("bytes");
+        assertThat(response.getHeader("ETag")).isNotBlank();
+        assertThat(response.getHeader("Last-Modified")).isNotBlank();
+        assertThat(response.getContentAsByteArray()).isEqualTo(Files.readAllBytes(file));
+        assertThat(service.getActiveDownloads()).isZero();
+    }
+
+    @Test
+    void rangeRequestsReturnPartialContent() throws IOException {
+        Path file = write(1000);
+        RecordingDownloadService service = newService(0);
+        byte[] content = Files.readAllBytes(file);
+
+        MockHttpServletRequest request = get();
+        request.addHeader("Range", "bytes=100-199");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        service.serve(file, request, response);
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader("Content-Range")).isEqualTo("bytes 100-199/1000");
+        assertThat(response.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(content, 100, 200));
+
+        MockHttpServletRequest suffix = get();
+        suffix.addHeader("Range", "bytes=-10");
+        MockHttpServletResponse suffixResponse = new MockHttpServletResponse();
+        service.serve(file, suffix, suffixResponse);
+        assertThat(suffixResponse.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(content, 990, 1000));
+
+        MockHttpServletRequest beyond = get();
+        beyond.addHeader("Range", "bytes=5000-");
+        MockHttpServletResponse beyondResponse = new MockHttpServletResponse();
+        service.serve(file, beyond, beyondResponse);
+        assertThat(beyondResponse.getStatus()).isEqualTo(416);
+        assertThat(beyondResponse.getHeader("Content-Range")).isEqualTo("bytes */1000");
+    }
+
+    @Test
+    void conditionalRequestsUseEtag() throws IOException {
+        Path file = write(100);
+        RecordingDownloadService service = newService(0);
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        service.serve(file, get(), first);
+        String etag = first.getHeader("ETag");
+
+        MockHttpServletRequest cached = get();
+        cached.addHeader("If-None-Match", etag);
+        MockHttpServletResponse notModified = new MockHttpServletResponse();
+        service.serve(file, cached, notModified);
+        assertThat(notModified.getStatus()).isEqualTo(304);
+        assertThat(notModified.getContentAsByteArray()).isEmpty();
+
+        // If-Range 不匹配时忽略 Range，返回完整文件
+        MockHttpServletRequest stale = get();
+        stale.addHeader("Range", "bytes=0-9");
+        stale.addHeader("If-Range", "\"stale\"");
+        MockHttpServletResponse full = new MockHttpServletResponse();
+        service.serve(file, stale, full);
+        assertThat(full.getStatus()).isEqualTo(200);
+        assertThat(full.getContentAsByteArray()).hasSize(100);
+    }
+
+    @Test
+    void unthrottledDownloadsUseSendfileWhenSupported() throws IOException {
+        Path file = write(1000);
+        // 默认配置不限速，使用 sendfile
+        RecordingDownloadService service = new RecordingDownloadService();
+        MockHttpServletRequest request = get();
+        request.setAttribute(RecordingDownloadService.SENDFILE_SUPPORT, Boolean.TRUE);
+        request.addHeader("Range", "bytes=10-19");
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        service.serve(file, request, response);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(request.getAttribute(RecordingDownloadService.SENDFILE_START)).isEqualTo(10L);
+        assertThat(request.getAttribute(RecordingDownloadService.SENDFILE_END)).isEqualTo(20L);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void throttledDownloadIsPacedPerClient() throws IOException {
+        Path file = write(96 * 1024);
+        RecordingDownloadService service = newService(64 * 1024);
+        ReflectionTestUtils.setField(service, "chunkSize", 16 * 1024);
+
+        long startNanos = System.nanoTime();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        service.serve(file, get(), response);
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        // 桶内1秒的额度发完后，剩余的32KB按64KB/s发送
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(400);
+        assertThat(response.getContentAsByteArray()).hasSize(96 * 1024);
+    }
+
+    @Test
+    void globalLimitPacesDownloadsAndDisablesSendfile() throws IOException {
+        Path file = write(96 * 1024);
+        RecordingDownloadService service = newService(0);
+        ReflectionTestUtils.setField(service, "maxBytesPerSecond", 64 * 1024L);
+        ReflectionTestUtils.setField(service, "chunkSize", 16 * 1024);
+        MockHttpServletRequest request = get();
+        request.setAttribute(RecordingDownloadService.SENDFILE_SUPPORT, Boolean.TRUE);
+
+        long startNanos = System.nanoTime();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        service.serve(file, request, response);
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        assertThat(request.getAttribute(RecordingDownloadService.SENDFILE_FILENAME)).isNull();
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(400);
+        assertThat(response.getContentAsByteArray()).hasSize(96 * 1024);
+    }
+
+    @Test
+    void sendfileDownloadsCountTowardConcurrencyLimit() throws IOException {
+        Path file = write(1000);
+        RecordingDownloadService service = newService(0);
+        ReflectionTestUtils.setField(service, "maxConcurrent", 1);
+
+        MockHttpServletRequest first = get();
+        first.setAttribute(RecordingDownloadService.SENDFILE_SUPPORT, Boolean.TRUE);
+        service.serve(file, first, new MockHttpServletResponse());
+        assertThat(first.getAttribute(RecordingDownloadService.SENDFILE_FILENAME)).isNotNull();
+        assertThat(service.getActiveDownloads()).isEqualTo(1);
+
+        MockHttpServletRequest second = get();
+        second.setAttribute(RecordingDownloadService.SENDFILE_SUPPORT, Boolean.TRUE);
+        assertThatThrownBy(() -> service.serve(file, second, new MockHttpServletResponse()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("已达上限");
+        assertThat(second.getAttribute(RecordingDownloadService.SENDFILE_FILENAME)).isNull();
+    }
+
+    @Test
+    void downloadsBeyondConcurrencyLimitAreRejected() throws IOException {
+        Path file = write(10);
+        RecordingDownloadService service = newService(0);
+        ReflectionTestUtils.setField(service, "maxConcurrent", 0);
+
+        assertThatThrownBy(() -> service.serve(file, get(), new MockHttpServletResponse()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("已达上限");
+        assertThat(service.getActiveDownloads()).isZero();
+        assertThat(service.serve(base.resolve("missing.mp4"), get(), new MockHttpServletResponse())).isFalse();
+    }
+
+    private RecordingDownloadService newService(long bytesPerSecond) {
+        RecordingDownloadService service = new RecordingDownloadService();
+        ReflectionTestUtils.setField(service, "maxBytesPerSecondPerClient", bytesPerSecond);
+        return service;
+    }
+
+    private static MockHttpServletRequest get() {
+        return new MockHttpServletRequest("GET", "/api/catalog/download");
+    }
+
+    private Path write(int size) throws IOException {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) i;
+        }
+        return Files.write(base.resolve("alice_20240101_080000.mp4"), content);
+    }
+}
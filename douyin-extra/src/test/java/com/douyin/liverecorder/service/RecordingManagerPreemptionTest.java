@@ -0,0 +1,189 @@
+package com.douyin.liverecorder.service;
+
+import com.douyin.liverecorder.infrastructure.FileSystemManager;
+import com.douyin.liverecorder.infrastructure.RecordingMetrics;
+import com.douyin.liverecorder.infrastructure.StoragePool;
+import com.douyin.liverecorder.infrastructure.StorageQuotaManager;
+import com.douyin.liverecorder.infrastructure.TaskEventJournal;
+import com.douyin.liverecorder.infrastructure.TaskHistoryStore;
+import com.douyin.liverecorder.infrastructure.TaskStateStore;
+import com.douyin.liverecorder.model.LiveStatus;
+import com.douyin.liverecorder.model.RecordingTask;
+import com.douyin.liverecorder.model.StreamInfo;
+import com.douyin.liverecorder.model.TaskStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 录制管理器抢占测试：被抢占的任务以抢占原因结束并重新排队，录制进程退出后立即释放槽位
+ */
+class RecordingManagerPreemptionTest {
+
+    @TempDir
+    Path dir;
+
+    private RecordingManager manager;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        RecordingAdmissionQueue admissionQueue = new RecordingAdmissionQueue(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(admissionQueue, "maxSlots", 1);
+        ReflectionTestUtils.setField(admissionQueue, "queueEnabled", true);
+        ReflectionTestUtils.setField(admissionQueue, "maxQueueSize", 10);
+        ReflectionTestUtils.setField(admissionQueue, "preemptionEnabled", true);
+
+        LiveStreamDetector detector = mock(LiveStreamDetector.class);
+        when(detector.checkLiveStatus(anyString()))
+                .thenReturn(new LiveStatus(true, "room", "title", LocalDateTime.now()));
+        StreamExtractor extractor = mock(StreamExtractor.class);
+        when(extractor.extractStreamUrl(anyString()))
+                .thenReturn(new StreamInfo("http://stream/live.flv", "flv", "origin", true));
+
+        FileSystemManager fileSystemManager = mock(FileSystemManager.class);
+        when(fileSystemManager.generateFilename(anyString(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(0) + "_" + System.nanoTime() + ".mp4");
+        when(fileSystemManager.getFullPath(anyString(), anyString()))
+                .thenAnswer(invocation -> Path.of(invocation.<String>getArgument(0)).resolve(invocation.<String>getArgument(1)).toString());
+        when(fileSystemManager.ensureDirectory(anyString())).thenReturn(true);
+
+        StorageQuotaManager quotaManager = mock(StorageQuotaManager.class);
+        when(quotaManager.hasRoomToStart(anyString(), any())).thenReturn(true);
+
+        // 录制进程写入临时文件后一直运行，直到被停止
+        RecordingService recordingService = mock(RecordingService.class);
+        when(recordingService.startRecording(anyString(), anyString())).thenAnswer(invocation -> {
+            Files.write(Path.of(invocation.<String>getArgument(1)), new byte[16]);
+            return new RunningProcess();
+        });
+        when(recordingService.stopRecording(any())).thenAnswer(invocation -> {
+            invocation.<Process>getArgument(0).destroy();
+            return true;
+        });
+        when(recordingService.remuxToMp4(anyString(), anyString())).thenAnswer(invocation -> {
+            Files.write(Path.of(invocation.<String>getArgument(1)), new byte[16]);
+            return true;
+        });
+
+        manager = new RecordingManager(
+                detector,
+                extractor,
+                recordingService,
+                fileSystemManager,
+                quotaManager,
+                mock(StoragePool.class),
+                admissionQueue,
+                mock(TaskHistoryStore.class),
+                mock(TaskStateStore.class),
+                mock(TaskEventJournal.class),
+                RecordingMetrics.noop());
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.shutdown();
+    }
+
+    @Test
+    void preemptedTaskEndsWithReasonAndIsRequeued() {
+        RecordingTask low = manager.createTask("low", false, dir.toString(), 1);
+        manager.startTask(low.getTaskId());
+        awaitTrue(() -> low.getStatus() == TaskStatus.RECORDING);
+
+        RecordingTask high = manager.createTask("high", false, dir.toString(), 10);
+        manager.startTask(high.getTaskId());
+
+        awaitTrue(() -> high.getStatus() == TaskStatus.RECORDING);
+        awaitTrue(() -> low.getStatus().isTerminal());
+        assertThat(low.getStatus()).isEqualTo(TaskStatus.COMPLETED);
+        assertThat(low.getError()).contains("抢占");
+
+        // 直播仍在进行，同一主播以相同配置重新排队
+        awaitTrue(() -> {
+            RecordingTask next = manager.findActiveTask("low");
+            return next != null && next != low && next.getStatus() == TaskStatus.QUEUED;
+        });
+        RecordingTask requeued = manager.findActiveTask("low");
+        assertThat(requeued.getPriority()).isEqualTo(1);
+        assertThat(requeued.getOutputDir()).isEqualTo(dir.toString());
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("等待条件超时").isLessThan(deadline);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    /**
+     * 运行到被 destroy 为止的录制进程
+     */
+    private static final class RunningProcess extends Process {
+
+        private final CountDownLatch exited = new CountDownLatch(1);
+
+        @Override
+        public OutputStream getOutputStream() {
+            return OutputStream.nullOutputStream();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public int waitFor() throws InterruptedException {
+            exited.await();
+            return 255;
+        }
+
+        @Override
+        public int exitValue() {
+            if (exited.getCount() > 0) {
+                throw new IllegalThreadStateException();
+            }
+            return 255;
+        }
+
+        @Override
+        public void destroy() {
+            exited.countDown();
+        }
+
+        @Override
+        public boolean isAlive() {
+            return exited.getCount() > 0;
+        }
+    }
+}
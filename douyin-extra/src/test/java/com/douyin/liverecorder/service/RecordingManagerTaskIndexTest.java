@@ -0,0 +1,216 @@
+package com.douyin.liverecorder.service;
+
+import com.douyin.liverecorder.infrastructure.FileSystemManager;
+import com.douyin.liverecorder.infrastructure.RecordingMetrics;
+import com.douyin.liverecorder.infrastructure.StoragePool;
+import com.douyin.liverecorder.infrastructure.StorageQuotaManager;
+import com.douyin.liverecorder.infrastructure.TaskEventJournal;
+import com.douyin.liverecorder.infrastructure.TaskHistoryStore;
+import com.douyin.liverecorder.infrastructure.TaskStateStore;
+import com.douyin.liverecorder.model.RecordingStatus;
+import com.douyin.liverecorder.model.RecordingTask;
+import com.douyin.liverecorder.model.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 录制管理器主播索引测试：同一主播同时只有一个未结束的任务
+ */
+class RecordingManagerTaskIndexTest {
+
+    private RecordingManager manager;
+    private TaskHistoryStore historyStore;
+    private TaskStateStore stateStore;
+
+    @BeforeEach
+    void setUp() {
+        RecordingAdmissionQueue admissionQueue = mock(RecordingAdmissionQueue.class);
+        when(admissionQueue.hasRoom()).thenReturn(true);
+        historyStore = mock(TaskHistoryStore.class);
+        stateStore = mock(TaskStateStore.class);
+        manager = new RecordingManager(
+                mock(LiveStreamDetector.class),
+                mock(StreamExtractor.class),
+                mock(RecordingService.class),
+                mock(FileSystemManager.class),
+                mock(StorageQuotaManager.class),
+                mock(StoragePool.class),
+                admissionQueue,
+                historyStore,
+                stateStore,
+                mock(TaskEventJournal.class),
+                RecordingMetrics.noop());
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.shutdown();
+    }
+
+    @Test
+    void duplicateCreateAttachesToExistingTask() {
+        RecordingTask first = manager.createTask("streamer1", true, "/data/a");
+        RecordingTask second = manager.createTask("streamer1", false, "/data/b");
+        RecordingTask other = manager.createTask("streamer2", true, "/data/a");
+
+        assertThat(second).isSameAs(first);
+        assertThat(other).isNotSameAs(first);
+        assertThat(manager.findActiveTask("streamer1")).isSameAs(first);
+        assertThat(manager.listActiveTasks()).hasSize(2);
+    }
+
+    @Test
+    void concurrentCreatesForOneStreamerYieldOneTask() throws Exception {
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(1);
+        Set<RecordingTask> tasks = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                ready.await();
+                tasks.add(manager.createTask("streamer1", true, "/data/a"));
+                return null;
+            });
+        }
+        ready.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(tasks).hasSize(1);
+        assertThat(manager.listActiveTasks()).hasSize(1);
+    }
+
+    @Test
+    void stoppedTaskLeavesIndexAndStreamerCanStartAgain() {
+        RecordingTask first = manager.createTask("streamer1", true, "/data/a");
+        manager.stopTask(first.getTaskId());
+
+        assertThat(manager.findActiveTask("streamer1")).isNull();
+        assertThat(manager.isTaskActive(first.getTaskId())).isFalse();
+
+        RecordingTask next = manager.createTask("streamer1", true, "/data/a");
+        assertThat(next).isNotSameAs(first);
+        assertThat(manager.listActiveTasks()).extracting(RecordingTask::getTaskId)
+                .isEqualTo(List.of(next.getTaskId()));
+    }
+
+    @Test
+    void changeSequenceAdvancesOnCreateAndStop() {
+        long initial = manager.getChangeSequence();
+        RecordingTask task = manager.createTask("streamer1", true, "/data/a");
+        long afterCreate = manager.getChangeSequence();
+        // 合并到已有任务的请求不改变任务列表
+        manager.createTask("streamer1", true, "/data/a");
+        assertThat(manager.getChangeSequence()).isEqualTo(afterCreate);
+
+        manager.stopTask(task.getTaskId());
+
+        assertThat(afterCreate).isGreaterThan(initial);
+        assertThat(manager.getChangeSequence()).isGreaterThan(afterCreate);
+    }
+
+    @Test
+    void createdTaskIsPersistedAfterItIsIndexed() {
+        List<RecordingTask> visibleWhileRecording = new ArrayList<>();
+        doAnswer(invocation -> {
+            visibleWhileRecording.add(manager.findActiveTask("streamer1"));
+            return null;
+        }).when(stateStore).record(any());
+
+        RecordingTask task = manager.createTask("streamer1", true, "/data/a");
+
+        // 持久化在主播索引的映射函数之外执行，此时任务已经可以被查到
+        assertThat(visibleWhileRecording).containsExactly(task);
+    }
+
+    @Test
+    void restoreSkipsTerminalTasksAlreadyInHistory() {
+        RecordingTask archived = new RecordingTask("streamer1");
+        archived.transitionTo(TaskStatus.COMPLETED, s -> s);
+        RecordingTask retained = new RecordingTask("streamer2");
+        retained.transitionTo(TaskStatus.COMPLETED, s -> s);
+        when(historyStore.contains(archived.getTaskId())).thenReturn(true);
+
+        assertThat(manager.restoreTask(archived)).isFalse();
+        assertThat(manager.restoreTask(retained)).isTrue();
+
+        verify(stateStore, never()).record(argThat(snapshot -> snapshot.taskId().equals(archived.getTaskId())));
+        verify(stateStore).record(retained.snapshot());
+    }
+
+    @Test
+    void batchStatusSkipsUnknownAndDuplicateIds() {
+        RecordingTask first = manager.createTask("streamer1", true, "/data/a");
+        RecordingTask second = manager.createTask("streamer2", true, "/data/a");
+
+        Map<String, RecordingStatus> statuses = manager.getTaskStatuses(
+                List.of(second.getTaskId(), "missing", first.getTaskId(), second.getTaskId()));
+
+        assertThat(statuses.keySet()).containsExactly(second.getTaskId(), first.getTaskId());
+        assertThat(statuses.get(first.getTaskId()).getStatus()).isEqualTo(TaskStatus.PENDING);
+    }
+
+    @Test
+    void stoppingTaskOutputSurvivesQuotaEviction(@TempDir Path dir) throws IOException {
+        Path older = Files.write(dir.resolve("streamer2_20240101_080000.mp4"), new byte[1024 * 1024]);
+        Path remuxing = Files.write(dir.resolve("streamer1_20240102_080000.mp4"), new byte[1024 * 1024]);
+        StorageQuotaManager quotaManager = new StorageQuotaManager(RecordingMetrics.noop());
+        ReflectionTestUtils.setField(quotaManager, "storagePath", dir.toString());
+        ReflectionTestUtils.setField(quotaManager, "defaultQuotaMb", 1L);
+        RecordingManager quotaAware = new RecordingManager(
+                mock(LiveStreamDetector.class),
+                mock(StreamExtractor.class),
+                mock(RecordingService.class),
+                mock(FileSystemManager.class),
+                quotaManager,
+                mock(StoragePool.class),
+                mock(RecordingAdmissionQueue.class),
+                mock(TaskHistoryStore.class),
+                mock(TaskStateStore.class),
+                mock(TaskEventJournal.class),
+                RecordingMetrics.noop());
+        try {
+            // 停止中的任务正在把临时文件封装为输出文件
+            RecordingTask stopping = new RecordingTask("streamer1");
+            stopping.transitionTo(TaskStatus.DETECTING, s -> s);
+            stopping.transitionTo(TaskStatus.RECORDING, snapshot -> snapshot
+                    .withOutputDir(dir.toString())
+                    .withOutputPath(remuxing.toString())
+                    .withTempOutputPath(dir.resolve("streamer1_20240102_080000.flv").toString()));
+            stopping.transitionTo(TaskStatus.STOPPING, snapshot -> snapshot);
+            quotaAware.restoreTask(stopping);
+
+            ReflectionTestUtils.invokeMethod(quotaAware, "checkStorage");
+
+            assertThat(remuxing).exists();
+            assertThat(older).doesNotExist();
+        } finally {
+            quotaAware.shutdown();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.douyin.liverecorder.service;
+
+import com.douyin.liverecorder.model.RecordingStatus;
+import com.douyin.liverecorder.model.RecordingTask;
+import com.douyin.liverecorder.model.TaskSnapshot;
+import com.douyin.liverecorder.model.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 任务事件推送服务测试：回放缓冲区与进度去重
+ */
+class TaskEventBroadcasterTest {
+
+    private RecordingManager manager;
+    private TaskEventBroadcaster broadcaster;
+    private Consumer<TaskSnapshot> listener;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        manager = mock(RecordingManager.class);
+        broadcaster = new TaskEventBroadcaster(manager);
+        ArgumentCaptor<Consumer<TaskSnapshot>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(manager).addStatusListener(captor.capture());
+        listener = captor.getValue();
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    void replaysEventsAfterLastEventId() {
+        RecordingTask task = new RecordingTask("streamer1");
+        task.transitionTo(TaskStatus.WAITING, s -> s);
+        listener.accept(task.snapshot());
+        task.transitionTo(TaskStatus.DETECTING, s -> s);
+        task.transitionTo(TaskStatus.RECORDING, s -> s);
+        listener.accept(task.snapshot());
+        task.setError("录制失败");
+        task.transitionTo(TaskStatus.FAILED, s -> s);
+        listener.accept(task.snapshot());
+
+        List<TaskEventBroadcaster.StreamEvent> all = broadcaster.eventsAfter(0);
+        assertThat(all).extracting(TaskEventBroadcaster.StreamEvent::id).containsExactly(1L, 2L, 3L);
+        assertThat(all.get(2).data().getError()).isEqualTo("录制失败");
+        assertThat(broadcaster.eventsAfter(2)).extracting(event -> event.data().getStatus())
+                .containsExactly(TaskStatus.FAILED);
+        assertThat(broadcaster.eventsAfter(3)).isEmpty();
+        // 客户端携带的ID比服务端还新（例如服务重启），需要重新拉取
+        assertThat(broadcaster.eventsAfter(10)).isNull();
+    }
+
+    @Test
+    void reportsGapWhenBufferNoLongerCoversLastEventId() {
+        ReflectionTestUtils.setField(broadcaster, "replaySize", 2);
+        RecordingTask task = new RecordingTask("streamer1");
+        for (TaskStatus status : List.of(TaskStatus.WAITING, TaskStatus.DETECTING, TaskStatus.RECORDING)) {
+            task.transitionTo(status, s -> s);
+            listener.accept(task.snapshot());
+        }
+
+        assertThat(broadcaster.eventsAfter(0)).isNull();
+        assertThat(broadcaster.eventsAfter(1)).extracting(TaskEventBroadcaster.StreamEvent::id)
+                .containsExactly(2L, 3L);
+    }
+
+    @Test
+    void firstSubscriberReceivesEventPublishedRightAfterSubscribe() throws Exception {
+        List<String> received = new CopyOnWriteArrayList<>();
+        CountDownLatch delivered = new CountDownLatch(1);
+        TaskEventBroadcaster recording = new TaskEventBroadcaster(manager) {
+            @Override
+            SseEmitter newEmitter() {
+                return new SseEmitter() {
+                    @Override
+                    public void send(SseEventBuilder builder) {
+                        received.add(builder.build().toString());
+                        delivered.countDown();
+                    }
+                };
+            }
+        };
+        ArgumentCaptor<Consumer<TaskSnapshot>> captor = listenerCaptor();
+        verify(manager, times(2)).addStatusListener(captor.capture());
+        try {
+            recording.subscribe(null);
+            RecordingTask task = new RecordingTask("streamer1");
+            captor.getValue().accept(task.snapshot());
+
+            assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(received).hasSize(1);
+            assertThat(recording.getSubscriberCount()).isEqualTo(1);
+        } finally {
+            recording.shutdown();
+        }
+    }
+
+    @Test
+    void progressIsPublishedOnlyWhenFileGrows() {
+        RecordingTask task = new RecordingTask("streamer1");
+        task.transitionTo(TaskStatus.DETECTING, s -> s);
+        task.transitionTo(TaskStatus.RECORDING, s -> s);
+        when(manager.listActiveTasks()).thenReturn(List.of(task));
+        when(manager.getTaskStatus(task.getTaskId())).thenReturn(
+                progress(task, 100), progress(task, 100), progress(task, 200));
+
+        assertThat(broadcaster.publishProgress()).isTrue();
+        assertThat(broadcaster.publishProgress()).isFalse();
+        assertThat(broadcaster.publishProgress()).isTrue();
+        assertThat(broadcaster.eventsAfter(0)).extracting(TaskEventBroadcaster.StreamEvent::type)
+                .containsExactly(TaskEventBroadcaster.EVENT_PROGRESS, TaskEventBroadcaster.EVENT_PROGRESS);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<Consumer<TaskSnapshot>> listenerCaptor() {
+        return ArgumentCaptor.forClass(Consumer.class);
+    }
+
+    private RecordingStatus progress(RecordingTask task, long fileSize) {
+        return new RecordingStatus(task.getTaskId(), TaskStatus.RECORDING,
+                new RecordingStatus.Progress(10, fileSize, null));
+    }
+}
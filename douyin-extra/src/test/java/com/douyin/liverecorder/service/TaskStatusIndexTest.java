@@ -0,0 +1,90 @@
+package com.douyin.liverecorder.service;
+
+import com.douyin.liverecorder.model.RecordingTask;
+import com.douyin.liverecorder.model.TaskStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 任务状态索引测试
+ */
+class TaskStatusIndexTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private TaskStatusIndex index;
+    private List<RecordingTask> tasks;
+
+    @BeforeEach
+    void setUp() {
+        index = new TaskStatusIndex();
+        tasks = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            RecordingTask task = new RecordingTask((i % 2 == 0 ? "alpha" : "beta") + i);
+            task.setCreatedTime(BASE.plusMinutes(i));
+            task.transitionTo(TaskStatus.DETECTING, s -> s);
+            task.transitionTo(i % 3 == 0 ? TaskStatus.RECORDING : i % 3 == 1 ? TaskStatus.QUEUED : TaskStatus.COMPLETED, s -> s);
+            index.add(task);
+            tasks.add(task);
+        }
+    }
+
+    @Test
+    void cursorPagingVisitsEveryMatchingTaskOnceNewestFirst() {
+        List<RecordingTask> visited = new ArrayList<>();
+        String cursor = null;
+        do {
+            TaskStatusIndex.Page page = index.query(Set.of(TaskStatus.RECORDING, TaskStatus.QUEUED),
+                    null, null, null, cursor, 7);
+            assertThat(page.items().size()).isLessThanOrEqualTo(7);
+            visited.addAll(page.items());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        List<RecordingTask> expected = tasks.stream()
+                .filter(task -> task.getStatus() != TaskStatus.COMPLETED)
+                .sorted((a, b) -> b.getCreatedTime().compareTo(a.getCreatedTime()))
+                .toList();
+        assertThat(visited).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void filtersByPrefixAndTimeRange() {
+        TaskStatusIndex.Page page = index.query(null, "alpha",
+                BASE.plusMinutes(10), BASE.plusMinutes(20), null, 100);
+
+        assertThat(page.items()).extracting(RecordingTask::getDouyinId)
+                .containsExactly("alpha20", "alpha18", "alpha16", "alpha14", "alpha12", "alpha10");
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void transitionsKeepCountsInStep() {
+        assertThat(index.count(TaskStatus.RECORDING)).isEqualTo(34);
+        RecordingTask task = tasks.get(0);
+        index.move(task, TaskStatus.RECORDING, TaskStatus.COMPLETED);
+        task.transitionTo(TaskStatus.COMPLETED, s -> s);
+
+        assertThat(index.count(TaskStatus.RECORDING)).isEqualTo(33);
+        assertThat(index.summary().get(TaskStatus.COMPLETED)).isEqualTo(34);
+        assertThat(index.query(Set.of(TaskStatus.RECORDING), null, null, null, null, 100).items())
+                .doesNotContain(task);
+
+        index.remove(task, TaskStatus.COMPLETED);
+        assertThat(index.summary().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(99);
+    }
+
+    @Test
+    void rejectsInvalidCursor() {
+        assertThatThrownBy(() -> index.query(null, null, null, null, "not-a-cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
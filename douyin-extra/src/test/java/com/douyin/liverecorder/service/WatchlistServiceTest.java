@@ -0,0 +1,200 @@
+package com.douyin.liverecorder.service;
+
+import com.douyin.liverecorder.infrastructure.WatchlistStore;
+import com.douyin.liverecorder.model.LiveStatus;
+import com.douyin.liverecorder.model.RecordingTask;
+import com.douyin.liverecorder.model.TaskStatus;
+import com.douyin.liverecorder.model.WatchlistEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.InstanceOfAssertFactories.MAP;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 关注列表服务测试
+ */
+class WatchlistServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private WatchlistStore store;
+    private LiveStreamDetector detector;
+    private RecordingManager manager;
+    private WatchlistService service;
+
+    @BeforeEach
+    void setUp() {
+        store = new WatchlistStore();
+        ReflectionTestUtils.setField(store, "watchlistFile", tempDir.resolve("watchlist.json").toString());
+        detector = mock(LiveStreamDetector.class);
+        manager = mock(RecordingManager.class);
+        service = newService();
+    }
+
+    @Test
+    void spawnsOneTaskPerBroadcastAndReturnsToWatching() throws Exception {
+        WatchlistEntry entry = service.addOrUpdate("streamer1", "/data/out", 3);
+
+        when(detector.checkLiveStatus("streamer1")).thenReturn(new LiveStatus(false, null, null, null));
+        service.check(entry);
+        verify(manager, never()).createTask(anyString(), anyBoolean(), anyString(), any());
+
+        RecordingTask first = new RecordingTask("streamer1");
+        LiveStatus live = new LiveStatus(true, "room", "title", LocalDateTime.now());
+        when(detector.checkLiveStatus("streamer1")).thenReturn(live);
+        when(manager.createTask("streamer1", false, "/data/out", 3)).thenReturn(first);
+        when(manager.isTaskActive(first.getTaskId())).thenReturn(true);
+        service.check(entry);
+        assertThat(entry.getActiveTaskId()).isEqualTo(first.getTaskId());
+        assertThat(entry.getSessionCount()).isEqualTo(1);
+
+        // 录制中不再重复检测
+        service.check(entry);
+        verify(detector, times(2)).checkLiveStatus("streamer1");
+
+        // 本场结束后再次开播，创建新任务
+        RecordingTask second = new RecordingTask("streamer1");
+        when(manager.isTaskActive(first.getTaskId())).thenReturn(false);
+        when(manager.createTask("streamer1", false, "/data/out", 3)).thenReturn(second);
+        service.check(entry);
+        assertThat(entry.getActiveTaskId()).isEqualTo(second.getTaskId());
+        assertThat(entry.getSessionCount()).isEqualTo(2);
+        // 开播状态已由共享循环检测，任务直接开始录制
+        verify(manager).startTask(first.getTaskId(), live);
+        verify(manager).startTask(second.getTaskId(), live);
+    }
+
+    @Test
+    void sharedLoopStopsSessionWhenStreamEnds() throws Exception {
+        WatchlistEntry entry = service.addOrUpdate("streamer1", "/data/out", null);
+        ReflectionTestUtils.setField(service, "endDetectGraceMs", 0L);
+        RecordingTask task = new RecordingTask("streamer1");
+        task.transitionTo(TaskStatus.DETECTING, s -> s);
+        task.transitionTo(TaskStatus.RECORDING, snapshot -> snapshot);
+        entry.setActiveTaskId(task.getTaskId());
+        when(manager.isTaskActive(task.getTaskId())).thenReturn(true);
+        when(manager.getTask(task.getTaskId())).thenReturn(task);
+
+        when(detector.checkLiveStatus("streamer1"))
+                .thenReturn(new LiveStatus(true, "room", "title", LocalDateTime.now()));
+        service.check(entry);
+        verify(manager, never()).stopTaskOnLiveEnd(anyString());
+
+        when(detector.checkLiveStatus("streamer1")).thenReturn(new LiveStatus(false, null, null, null));
+        service.check(entry);
+        verify(manager).stopTaskOnLiveEnd(task.getTaskId());
+    }
+
+    @Test
+    void removedStreamerIsCheckedUntilRunningSessionEnds() throws Exception {
+        WatchlistEntry entry = service.addOrUpdate("streamer1", "/data/out", null);
+        ReflectionTestUtils.setField(service, "endDetectGraceMs", 0L);
+        RecordingTask task = new RecordingTask("streamer1");
+        task.transitionTo(TaskStatus.DETECTING, s -> s);
+        task.transitionTo(TaskStatus.RECORDING, snapshot -> snapshot);
+        entry.setActiveTaskId(task.getTaskId());
+        when(manager.isTaskActive(task.getTaskId())).thenReturn(true);
+        when(manager.getTask(task.getTaskId())).thenReturn(task);
+
+        assertThat(service.remove("streamer1")).isTrue();
+
+        // 取消关注后仍检测下播并停止本场录制
+        when(detector.checkLiveStatus("streamer1")).thenReturn(new LiveStatus(false, null, null, null));
+        service.check(entry);
+        verify(manager).stopTaskOnLiveEnd(task.getTaskId());
+
+        // 录制结束后不再创建新任务，也不再检测
+        when(manager.isTaskActive(task.getTaskId())).thenReturn(false);
+        when(detector.checkLiveStatus("streamer1"))
+                .thenReturn(new LiveStatus(true, "room", "title", LocalDateTime.now()));
+        service.check(entry);
+        verify(manager, never()).createTask(anyString(), anyBoolean(), any(), any());
+        assertThat(ReflectionTestUtils.getField(service, "endingSessions")).asInstanceOf(MAP).isEmpty();
+    }
+
+    @Test
+    void sessionStartDoesNotRewriteWatchlist() throws Exception {
+        store = spy(store);
+        service = newService();
+        WatchlistEntry entry = service.addOrUpdate("streamer1", "/data/out", null);
+        // 配置未变化的重复添加不写文件
+        service.addOrUpdate("streamer1", "/data/out", null);
+
+        when(detector.checkLiveStatus("streamer1"))
+                .thenReturn(new LiveStatus(true, "room", "title", LocalDateTime.now()));
+        when(manager.createTask("streamer1", false, "/data/out", null)).thenReturn(new RecordingTask("streamer1"));
+        service.check(entry);
+
+        assertThat(entry.getSessionCount()).isEqualTo(1);
+        verify(store, times(1)).save(any());
+    }
+
+    @Test
+    void sessionStatsArePersistedWithoutWaitingForShutdown() throws Exception {
+        WatchlistEntry entry = service.addOrUpdate("streamer1", "/data/out", null);
+        when(detector.checkLiveStatus("streamer1"))
+                .thenReturn(new LiveStatus(true, "room", "title", LocalDateTime.now()));
+        when(manager.createTask("streamer1", false, "/data/out", null)).thenReturn(new RecordingTask("streamer1"));
+        service.check(entry);
+
+        service.persistStatsIfDirty();
+
+        WatchlistEntry saved = store.load().get(0);
+        assertThat(saved.getSessionCount()).isEqualTo(1);
+        assertThat(saved.getLastLiveTime()).isNotNull();
+    }
+
+    @Test
+    void adoptsExistingActiveTaskInsteadOfSpawning() throws Exception {
+        WatchlistEntry entry = service.addOrUpdate("streamer1", "/data/out", null);
+        RecordingTask existing = new RecordingTask("streamer1");
+        when(manager.findActiveTask("streamer1")).thenReturn(existing);
+
+        service.check(entry);
+
+        assertThat(entry.getActiveTaskId()).isEqualTo(existing.getTaskId());
+        verify(detector, never()).checkLiveStatus(anyString());
+    }
+
+    @Test
+    void watchlistSurvivesRestart() {
+        service.addOrUpdate("streamer1", "/data/a", null);
+        service.addOrUpdate("streamer2", "/data/b", 5);
+        service.remove("streamer1");
+
+        WatchlistService restarted = newService();
+        ReflectionTestUtils.setField(restarted, "initialSpreadMs", 60_000L);
+        restarted.start();
+        try {
+            assertThat(restarted.list()).extracting(WatchlistEntry::getDouyinId).containsExactly("streamer2");
+            assertThat(restarted.get("streamer2").getOutputDir()).isEqualTo("/data/b");
+            assertThat(restarted.get("streamer2").getPriority()).isEqualTo(5);
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    private WatchlistService newService() {
+        WatchlistService watchlistService = new WatchlistService(store, detector, manager);
+        ReflectionTestUtils.setField(watchlistService, "enabled", true);
+        ReflectionTestUtils.setField(watchlistService, "pollIntervalMs", 120_000L);
+        ReflectionTestUtils.setField(watchlistService, "detectThreads", 2);
+        return watchlistService;
+    }
+}